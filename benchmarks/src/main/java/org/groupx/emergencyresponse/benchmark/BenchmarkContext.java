@@ -0,0 +1,89 @@
+package org.groupx.emergencyresponse.benchmark;
+
+import org.groupx.emergencyresponse.EmergencyResponseApplication;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.repository.ResponderRepository;
+import org.groupx.emergencyresponse.service.ResponderSpatialIndex;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Boots the real application (without the web server unless asked) against a private H2 database
+final class BenchmarkContext {
+    private BenchmarkContext() {}
+
+    static ConfigurableApplicationContext start() {
+        return start(WebApplicationType.NONE, memoryDatabase());
+    }
+
+    // With the web server on a random port (see port(ctx)), for benchmarks that go through HTTP
+    static ConfigurableApplicationContext startWeb() {
+        return start(WebApplicationType.SERVLET, memoryDatabase(), "--server.port=0");
+    }
+
+    // The prod profile (file database, tuned pool) with its database files under dir
+    static ConfigurableApplicationContext startProd(Path dir) {
+        return start(WebApplicationType.NONE, "--spring.profiles.active=prod",
+                "--spring.datasource.url=jdbc:h2:file:" + dir.resolve("emergencydb").toAbsolutePath());
+    }
+
+    static int port(ConfigurableApplicationContext ctx) {
+        return Integer.parseInt(ctx.getEnvironment().getProperty("local.server.port"));
+    }
+
+    private static String memoryDatabase() {
+        return "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType web, String... args) {
+        // Passed as command-line arguments so they override application.properties
+        List<String> all = new ArrayList<>(List.of(args));
+        all.addAll(List.of(
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.root=WARN",
+                "--dispatch.batch.enabled=false",
+                "--dispatch.queue.enabled=false",
+                "--intake.journal.enabled=false"));
+        return new SpringApplicationBuilder(EmergencyResponseApplication.class)
+                .web(web)
+                .run(all.toArray(String[]::new));
+    }
+
+    // Insert a synthetic fleet spread over Kenya and load it into the dispatch index
+    static void seedFleet(ConfigurableApplicationContext ctx, int fleetSize, long seed) {
+        ResponderRepository repository = ctx.getBean(ResponderRepository.class);
+        String[] roles = {"MEDIC", "POLICE", "FIRE"};
+        Random random = new Random(seed);
+        List<Responder> chunk = new ArrayList<>(1000);
+        for (int i = 0; i < fleetSize; i++) {
+            Responder r = new Responder();
+            r.setName("Unit " + i);
+            r.setRole(roles[i % roles.length]);
+            r.setCurrentLat(randomLat(random));
+            r.setCurrentLng(randomLng(random));
+            r.setAvailability(true);
+            chunk.add(r);
+            if (chunk.size() == 1000) {
+                repository.saveAll(chunk);
+                chunk.clear();
+            }
+        }
+        repository.saveAll(chunk);
+        ctx.getBean(ResponderSpatialIndex.class).load();
+    }
+
+    static double randomLat(Random random) {
+        return -4.5 + random.nextDouble() * 5.0;
+    }
+
+    static double randomLng(Random random) {
+        return 34.0 + random.nextDouble() * 6.0;
+    }
+}
@@ -0,0 +1,54 @@
+package org.groupx.emergencyresponse.benchmark;
+
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.service.EmergencyReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// EmergencyReportService.createReport (validation-free intake path) against embedded H2
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CreateReportBenchmark {
+    private ConfigurableApplicationContext ctx;
+    private EmergencyReportService reportService;
+    private CreateEmergencyReportDTO dto;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        ctx = BenchmarkContext.start();
+        reportService = ctx.getBean(EmergencyReportService.class);
+        dto = new CreateEmergencyReportDTO();
+        dto.type = "Fire";
+        dto.description = "benchmark";
+        dto.locationLat = -1.2921;
+        dto.locationLng = 36.8219;
+        dto.reporterId = "bench";
+    }
+
+    @Benchmark
+    public Long createReport() {
+        return reportService.createReport(dto);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        ctx.close();
+    }
+}
@@ -0,0 +1,83 @@
+package org.groupx.emergencyresponse.benchmark;
+
+import org.groupx.emergencyresponse.dto.AssignmentDTO;
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.service.AssignmentService;
+import org.groupx.emergencyresponse.service.EmergencyReportService;
+import org.groupx.emergencyresponse.service.ResponderReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end AssignmentService.assignResponder latency against H2 for growing fleets
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DispatchBenchmark {
+    @Param({"1000", "10000", "50000"})
+    public int fleetSize;
+
+    private ConfigurableApplicationContext ctx;
+    private AssignmentService assignmentService;
+    private EmergencyReportService reportService;
+    private ResponderReservationService reservationService;
+    private final Random random = new Random(7);
+
+    private Long reportId;
+    private AssignmentDTO lastAssignment;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        ctx = BenchmarkContext.start();
+        BenchmarkContext.seedFleet(ctx, fleetSize, 42);
+        assignmentService = ctx.getBean(AssignmentService.class);
+        reportService = ctx.getBean(EmergencyReportService.class);
+        reservationService = ctx.getBean(ResponderReservationService.class);
+    }
+
+    // A fresh NEW report per call; creating it is not part of the measured time
+    @Setup(Level.Invocation)
+    public void newReport() {
+        CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+        dto.type = "Medical";
+        dto.description = "benchmark";
+        dto.locationLat = BenchmarkContext.randomLat(random);
+        dto.locationLng = BenchmarkContext.randomLng(random);
+        dto.reporterId = "bench";
+        reportId = reportService.createReport(dto);
+    }
+
+    @Benchmark
+    public AssignmentDTO assignResponder() {
+        lastAssignment = assignmentService.assignResponder(reportId);
+        return lastAssignment;
+    }
+
+    // Put the unit back so the available fleet stays at fleetSize
+    @TearDown(Level.Invocation)
+    public void releaseResponder() {
+        if (lastAssignment != null) reservationService.release(lastAssignment.responderId);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        ctx.close();
+    }
+}
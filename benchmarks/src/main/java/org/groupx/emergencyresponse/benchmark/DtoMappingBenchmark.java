@@ -0,0 +1,73 @@
+package org.groupx.emergencyresponse.benchmark;
+
+import org.groupx.emergencyresponse.dto.AssignmentDTO;
+import org.groupx.emergencyresponse.dto.ResponderDTO;
+import org.groupx.emergencyresponse.entity.Assignment;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Entity-to-DTO mapping as done by GET /responders and the assignment endpoints
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+    @Param({"1000", "50000"})
+    public int size;
+
+    private List<Responder> responders;
+    private List<Assignment> assignments;
+
+    @Setup
+    public void setUp() {
+        responders = new ArrayList<>(size);
+        assignments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Responder r = new Responder();
+            r.setId((long) i);
+            r.setName("Unit " + i);
+            r.setRole("MEDIC");
+            r.setCurrentLat(-1.29);
+            r.setCurrentLng(36.82);
+            r.setAvailability(i % 2 == 0);
+            responders.add(r);
+
+            Assignment a = new Assignment();
+            a.setId((long) i);
+            a.setEmergencyId((long) i);
+            a.setResponderId((long) i);
+            a.setEtaMinutes(i % 60);
+            a.setAssignmentTime(new Date());
+            a.setSyncStatus("PENDING");
+            assignments.add(a);
+        }
+    }
+
+    @Benchmark
+    public List<ResponderDTO> responderList() {
+        return responders.stream().map(ResponderDTO::from).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<AssignmentDTO> assignmentList() {
+        return assignments.stream().map(AssignmentDTO::from).collect(Collectors.toList());
+    }
+}
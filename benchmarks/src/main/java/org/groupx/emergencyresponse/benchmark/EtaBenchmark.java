@@ -0,0 +1,119 @@
+package org.groupx.emergencyresponse.benchmark;
+
+import org.groupx.emergencyresponse.geo.RoadGraph;
+import org.groupx.emergencyresponse.geo.RoadGraphBuilder;
+import org.groupx.emergencyresponse.service.AssignmentService;
+import org.groupx.emergencyresponse.service.EtaEngine;
+import org.groupx.emergencyresponse.service.GreatCircleEtaEngine;
+import org.groupx.emergencyresponse.service.RoadGraphEtaEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// AssignmentService.calculateETA and the ETA engines on their own.
+// The road graph is a synthetic 400x400 grid (~220 m spacing) around Nairobi.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class EtaBenchmark {
+    private static final int GRID = 400;
+    private static final int CANDIDATES = 8;
+
+    private ConfigurableApplicationContext ctx;
+    private AssignmentService assignmentService;
+    private EtaEngine greatCircle;
+    private EtaEngine road;
+    private Path graphFile;
+    private final Random random = new Random(11);
+    private final double[] candidateLats = new double[CANDIDATES];
+    private final double[] candidateLngs = new double[CANDIDATES];
+    private double targetLat;
+    private double targetLng;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ctx = BenchmarkContext.start();
+        assignmentService = ctx.getBean(AssignmentService.class);
+        greatCircle = new GreatCircleEtaEngine(40, 1.3);
+
+        RoadGraphBuilder builder = new RoadGraphBuilder();
+        for (int i = 0; i < GRID; i++) {
+            for (int j = 0; j < GRID; j++) builder.addNode((long) i * GRID + j, -1.7 + i * 0.002, 36.4 + j * 0.002);
+        }
+        Random speeds = new Random(3);
+        for (int i = 0; i < GRID; i++) {
+            for (int j = 0; j < GRID; j++) {
+                long id = (long) i * GRID + j;
+                double speed = 20 + speeds.nextInt(60);
+                if (j + 1 < GRID) {
+                    builder.addEdge(id, id + 1, 222, speed);
+                    builder.addEdge(id + 1, id, 222, speed);
+                }
+                if (i + 1 < GRID) {
+                    builder.addEdge(id, id + GRID, 222, speed);
+                    builder.addEdge(id + GRID, id, 222, speed);
+                }
+            }
+        }
+        graphFile = Files.createTempFile("eta-bench", ".graph");
+        builder.write(graphFile);
+        road = new RoadGraphEtaEngine(RoadGraph.load(graphFile), greatCircle, 2, 20,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    // Dispatch-sized query: an incident and candidates within ~10 km of it
+    @Setup(Level.Iteration)
+    public void newQuery() {
+        targetLat = -1.5 + random.nextDouble() * 0.4;
+        targetLng = 36.6 + random.nextDouble() * 0.4;
+        for (int i = 0; i < CANDIDATES; i++) {
+            candidateLats[i] = targetLat + (random.nextDouble() - 0.5) * 0.15;
+            candidateLngs[i] = targetLng + (random.nextDouble() - 0.5) * 0.15;
+        }
+    }
+
+    @Benchmark
+    public int calculateETA() {
+        return assignmentService.calculateETA(candidateLats[0], candidateLngs[0], targetLat, targetLng);
+    }
+
+    @Benchmark
+    public double greatCircleOneToOne() {
+        return greatCircle.etaMinutes(candidateLats[0], candidateLngs[0], targetLat, targetLng);
+    }
+
+    @Benchmark
+    public double roadGraphOneToOne() {
+        return road.etaMinutes(candidateLats[0], candidateLngs[0], targetLat, targetLng);
+    }
+
+    @Benchmark
+    public double[] roadGraphManyToOne() {
+        return road.etaMinutesToTarget(candidateLats, candidateLngs, targetLat, targetLng);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ctx.close();
+        Files.deleteIfExists(graphFile);
+    }
+}
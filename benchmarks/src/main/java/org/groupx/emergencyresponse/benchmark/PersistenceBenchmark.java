@@ -0,0 +1,147 @@
+package org.groupx.emergencyresponse.benchmark;
+
+import org.groupx.emergencyresponse.dto.EmergencyReportDTO;
+import org.groupx.emergencyresponse.dto.ResponderDTO;
+import org.groupx.emergencyresponse.entity.Assignment;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.groupx.emergencyresponse.repository.ResponderRepository;
+import org.groupx.emergencyresponse.service.EmergencyReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Sustained insert and lookup load on the prod profile: file database, fixed Hikari pool, pooled
+// sequence ids with JDBC batching. Runs on 8 threads against a store pre-loaded with 100k reports
+// (1000 reporters), 50k assignments and 10k responders. One insertReports op stores 100 reports in
+// one saveAll, as the intake drain does.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(8)
+@Fork(1)
+public class PersistenceBenchmark {
+    private static final int REPORTERS = 1000;
+    private static final int SEED_REPORTS = 100_000;
+    private static final int SEED_ASSIGNMENTS = 50_000;
+    private static final int FLEET = 10_000;
+    private static final int INSERT_BATCH = 100;
+
+    private Path dir;
+    private ConfigurableApplicationContext ctx;
+    private EmergencyReportService reportService;
+    private EmergencyReportRepository reportRepository;
+    private AssignmentRepository assignmentRepository;
+    private ResponderRepository responderRepository;
+    private long firstEmergencyId;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        dir = Files.createTempDirectory("persistence-bench");
+        ctx = BenchmarkContext.startProd(dir);
+        reportService = ctx.getBean(EmergencyReportService.class);
+        reportRepository = ctx.getBean(EmergencyReportRepository.class);
+        assignmentRepository = ctx.getBean(AssignmentRepository.class);
+        responderRepository = ctx.getBean(ResponderRepository.class);
+        BenchmarkContext.seedFleet(ctx, FLEET, 42);
+
+        Random random = new Random(7);
+        List<EmergencyReport> reports = new ArrayList<>(1000);
+        for (int i = 0; i < SEED_REPORTS; i++) {
+            reports.add(report(random));
+            if (reports.size() == 1000) {
+                List<EmergencyReport> saved = reportRepository.saveAll(reports);
+                if (i < 1000) firstEmergencyId = saved.get(0).getId();
+                reports.clear();
+            }
+        }
+        List<Assignment> assignments = new ArrayList<>(1000);
+        for (int i = 0; i < SEED_ASSIGNMENTS; i++) {
+            Assignment a = new Assignment();
+            a.setEmergencyId(firstEmergencyId + i);
+            a.setResponderId((long) (i % FLEET) + 1);
+            a.setEtaMinutes(5);
+            a.setAssignmentTime(new Date());
+            a.setSyncStatus("SYNCED");
+            assignments.add(a);
+            if (assignments.size() == 1000) {
+                assignmentRepository.saveAll(assignments);
+                assignments.clear();
+            }
+        }
+    }
+
+    @Benchmark
+    public List<EmergencyReport> insertReports() {
+        Random random = ThreadLocalRandom.current();
+        List<EmergencyReport> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < INSERT_BATCH; i++) batch.add(report(random));
+        return reportService.saveReports(batch);
+    }
+
+    @Benchmark
+    public List<EmergencyReportDTO> reportsByReporter() {
+        String reporter = "reporter-" + ThreadLocalRandom.current().nextInt(REPORTERS);
+        return reportRepository.findPageByReporterId(reporter, 0L, null, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Optional<Assignment> assignmentByEmergency() {
+        return assignmentRepository.findByEmergencyId(firstEmergencyId
+                + ThreadLocalRandom.current().nextInt(SEED_ASSIGNMENTS));
+    }
+
+    @Benchmark
+    public List<ResponderDTO> availableResponders() {
+        return responderRepository.findPage(ThreadLocalRandom.current().nextInt(FLEET), null, true,
+                null, null, null, null, PageRequest.of(0, 100));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() throws IOException {
+        ctx.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    private static EmergencyReport report(Random random) {
+        EmergencyReport r = new EmergencyReport();
+        r.setType("Medical");
+        r.setDescription("load");
+        r.setLocationLat(BenchmarkContext.randomLat(random));
+        r.setLocationLng(BenchmarkContext.randomLng(random));
+        r.setTimestamp(new Date());
+        r.setStatus("NEW");
+        r.setReporterId("reporter-" + random.nextInt(REPORTERS));
+        return r;
+    }
+}
@@ -0,0 +1,122 @@
+package org.groupx.emergencyresponse.benchmark;
+
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.service.ResponderSpatialIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// ResponderSpatialIndex on its own (no Spring, no database): k-nearest searches over a fleet spread
+// over Kenya, with a third of the units on duty. "sparse" asks for a role with only a handful of
+// units on duty, which forces the flat scan over that role's bitset. The "live" group runs searches
+// while other threads stream pings and flip availability, as dispatch does during a GPS burst.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpatialIndexBenchmark {
+    private static final int K = 8;
+    private static final List<String> MEDICAL = List.of("MEDIC");
+    private static final List<String> TRAFFIC = List.of("POLICE", "MEDIC");
+    private static final List<String> SPARSE = List.of("HAZMAT");
+
+    @Param({"10000", "100000"})
+    public int fleetSize;
+
+    private ResponderSpatialIndex index;
+    private final Random random = new Random(5);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new ResponderSpatialIndex(null, 0.05);
+        String[] roles = {"MEDIC", "POLICE", "FIRE"};
+        Random seed = new Random(42);
+        for (int i = 0; i < fleetSize; i++) {
+            Responder r = new Responder();
+            r.setId((long) i + 1);
+            r.setName("Unit " + i);
+            r.setRole(i % 1000 == 0 ? "HAZMAT" : roles[i % roles.length]);
+            r.setCurrentLat(-4.5 + seed.nextDouble() * 5.0);
+            r.setCurrentLng(34.0 + seed.nextDouble() * 7.0);
+            r.setAvailability(seed.nextInt(3) == 0);
+            index.upsert(r);
+        }
+    }
+
+    @Benchmark
+    public List<ResponderSpatialIndex.Nearby> anyRole() {
+        return index.kNearest((List<String>) null, lat(), lng(), K);
+    }
+
+    @Benchmark
+    public List<ResponderSpatialIndex.Nearby> singleRole() {
+        return index.kNearest(MEDICAL, lat(), lng(), K);
+    }
+
+    @Benchmark
+    public List<ResponderSpatialIndex.Nearby> twoRoles() {
+        return index.kNearest(TRAFFIC, lat(), lng(), K);
+    }
+
+    @Benchmark
+    public List<ResponderSpatialIndex.Nearby> sparse() {
+        return index.kNearest(SPARSE, lat(), lng(), K);
+    }
+
+    @Benchmark
+    public boolean move() {
+        return index.move(1 + random.nextInt(fleetSize), lat(), lng());
+    }
+
+    @Benchmark
+    @Group("live")
+    @GroupThreads(4)
+    public List<ResponderSpatialIndex.Nearby> liveSearch() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return index.kNearest(TRAFFIC, -4.5 + random.nextDouble() * 5.0, 34.0 + random.nextDouble() * 7.0, K);
+    }
+
+    @Benchmark
+    @Group("live")
+    @GroupThreads(4)
+    public boolean livePing() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return index.move(1 + random.nextInt(fleetSize),
+                -4.5 + random.nextDouble() * 5.0, 34.0 + random.nextDouble() * 7.0);
+    }
+
+    // Reserve and release, as ResponderReservationService does
+    @Benchmark
+    @Group("live")
+    @GroupThreads(1)
+    public void liveAvailability() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        index.setAvailability(1 + random.nextInt(fleetSize), random.nextInt(3) == 0);
+    }
+
+    private double lat() {
+        return -4.5 + random.nextDouble() * 5.0;
+    }
+
+    private double lng() {
+        return 34.0 + random.nextDouble() * 7.0;
+    }
+}
@@ -0,0 +1,138 @@
+package org.groupx.emergencyresponse.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.groupx.emergencyresponse.dto.LocationBatchResultDTO;
+import org.groupx.emergencyresponse.dto.LocationFrames;
+import org.groupx.emergencyresponse.dto.LocationUpdateDTO;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.repository.ResponderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// A batch of location pings through POST /responders/locations as JSON and as binary LocationFrames:
+// *Http is the full round trip over loopback HTTP into the ingestion buffer, *Decode is parsing the
+// request body alone. Bodies are pre-built (BODIES distinct batches over a 10k fleet), so client-side
+// encoding is not measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TelemetryBenchmark {
+    private static final int FLEET = 10_000;
+    private static final int BODIES = 64;
+    private static final TypeReference<List<LocationUpdateDTO>> UPDATES = new TypeReference<>() {};
+
+    @Param({"1", "100"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext ctx;
+    private ObjectMapper mapper;
+    private HttpClient client;
+    private URI uri;
+    private byte[][] jsonBodies;
+    private byte[][] binaryBodies;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        ctx = BenchmarkContext.startWeb();
+        BenchmarkContext.seedFleet(ctx, FLEET, 42);
+        long[] ids = ctx.getBean(ResponderRepository.class).findAll().stream().mapToLong(Responder::getId).toArray();
+        mapper = ctx.getBean(ObjectMapper.class);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        uri = URI.create("http://localhost:" + BenchmarkContext.port(ctx) + "/responders/locations");
+
+        Random random = new Random(7);
+        jsonBodies = new byte[BODIES][];
+        binaryBodies = new byte[BODIES][];
+        for (int b = 0; b < BODIES; b++) {
+            long[] batchIds = new long[batchSize];
+            double[] lats = new double[batchSize];
+            double[] lngs = new double[batchSize];
+            List<LocationUpdateDTO> updates = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                LocationUpdateDTO u = new LocationUpdateDTO();
+                u.responderId = batchIds[i] = ids[random.nextInt(ids.length)];
+                u.lat = lats[i] = BenchmarkContext.randomLat(random);
+                u.lng = lngs[i] = BenchmarkContext.randomLng(random);
+                updates.add(u);
+            }
+            jsonBodies[b] = mapper.writeValueAsBytes(updates);
+            binaryBodies[b] = LocationFrames.encode(batchIds, lats, lngs, batchSize);
+        }
+    }
+
+    @Benchmark
+    public LocationBatchResultDTO jsonHttp() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(nextBody(jsonBodies)))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        return mapper.readValue(response.body(), LocationBatchResultDTO.class);
+    }
+
+    @Benchmark
+    public int binaryHttp() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri)
+                .header("Content-Type", LocationFrames.MEDIA_TYPE)
+                .header("Accept", LocationFrames.MEDIA_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(nextBody(binaryBodies)))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        // Accepted count
+        return ByteBuffer.wrap(response.body()).getInt(0);
+    }
+
+    @Benchmark
+    public double jsonDecode() throws IOException {
+        double sum = 0;
+        for (LocationUpdateDTO u : mapper.readValue(nextBody(jsonBodies), UPDATES)) sum += u.responderId + u.lat + u.lng;
+        return sum;
+    }
+
+    @Benchmark
+    public double binaryDecode() {
+        ByteBuffer frames = ByteBuffer.wrap(nextBody(binaryBodies));
+        int count = LocationFrames.frameCount(frames);
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += LocationFrames.responderId(frames, i) + LocationFrames.lat(frames, i) + LocationFrames.lng(frames, i);
+        }
+        return sum;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        ctx.close();
+    }
+
+    private byte[] nextBody(byte[][] bodies) {
+        next = (next + 1) % BODIES;
+        return bodies[next];
+    }
+}
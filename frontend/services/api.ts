@@ -44,15 +44,33 @@ export interface AssignmentDTO {
   etaMinutes?: number;
 }
 
+// List endpoints answer a page at a time; X-Next-Cursor is set while there are more pages
+const NEXT_CURSOR_HEADER = 'X-Next-Cursor';
+// Page size asked for when reading a whole list (the server's maximum)
+const PAGE_LIMIT = 1000;
+
+// Read every page of a list, passing each page's cursor back as ?after= until none is returned
+async function getAllPages<T>(path: string, errorMessage: string): Promise<T[]> {
+  const items: T[] = [];
+  let after: string | null = null;
+  do {
+    const cursor = after === null ? '' : `&after=${encodeURIComponent(after)}`;
+    const response = await fetch(`${API_BASE_URL}${path}?limit=${PAGE_LIMIT}${cursor}`);
+    if (!response.ok) {
+      throw new Error(errorMessage);
+    }
+    const page: T[] = await response.json();
+    items.push(...page);
+    after = response.headers.get(NEXT_CURSOR_HEADER);
+  } while (after !== null);
+  return items;
+}
+
 // API Functions
 
 // Get all responders
 export async function getAllResponders(): Promise<ResponderDTO[]> {
-  const response = await fetch(`${API_BASE_URL}/responders`);
-  if (!response.ok) {
-    throw new Error('Failed to fetch responders');
-  }
-  return response.json();
+  return getAllPages<ResponderDTO>('/responders', 'Failed to fetch responders');
 }
 
 // Get a single responder by ID
@@ -82,10 +100,16 @@ export async function updateResponderLocation(
   return response.json();
 }
 
-// Create emergency report
+// How long createEmergencyReport waits for a journaled report to be stored
+const INTAKE_POLL_MS = 200;
+const INTAKE_TIMEOUT_MS = 10000;
+
+// Create emergency report; resolves to the report ID.
+// When the server runs with its intake journal, POST /alerts answers 202 with an intake ID
+// ("intake-<n>"), which is not a report ID; it is followed to the stored report first.
 export async function createEmergencyReport(
   report: CreateEmergencyReportDTO
-): Promise<any> {
+): Promise<number> {
   const response = await fetch(`${API_BASE_URL}/alerts`, {
     method: 'POST',
     headers: {
@@ -96,16 +120,38 @@ export async function createEmergencyReport(
   if (!response.ok) {
     throw new Error('Failed to create emergency report');
   }
-  return response.json();
+  if (response.status !== 202) {
+    return response.json();
+  }
+  const intakeId = await response.text();
+  const stored = await getReportByIntakeId(intakeId);
+  if (stored.id === undefined) {
+    throw new Error('Stored report has no ID');
+  }
+  return stored.id;
+}
+
+// Wait for a journaled report (intake ID from POST /alerts) to be stored and return it
+export async function getReportByIntakeId(intakeId: string): Promise<EmergencyReport> {
+  const deadline = Date.now() + INTAKE_TIMEOUT_MS;
+  while (true) {
+    const response = await fetch(`${API_BASE_URL}/alerts/intake/${encodeURIComponent(intakeId)}`);
+    if (response.status === 200) {
+      return response.json();
+    }
+    if (response.status !== 202 || Date.now() > deadline) {
+      throw new Error('Failed to fetch report by intake ID');
+    }
+    await new Promise((resolve) => setTimeout(resolve, INTAKE_POLL_MS));
+  }
 }
 
 // Get reports by reporter ID
 export async function getReportsByReporter(reporterId: string): Promise<EmergencyReport[]> {
-  const response = await fetch(`${API_BASE_URL}/alerts/reporter/${reporterId}`);
-  if (!response.ok) {
-    throw new Error('Failed to fetch reports');
-  }
-  return response.json();
+  return getAllPages<EmergencyReport>(
+    `/alerts/reporter/${encodeURIComponent(reporterId)}`,
+    'Failed to fetch reports'
+  );
 }
 
 // Get a single report by ID
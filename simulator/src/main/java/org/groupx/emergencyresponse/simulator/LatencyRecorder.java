@@ -0,0 +1,101 @@
+package org.groupx.emergencyresponse.simulator;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Latency samples and outcome counts per operation. Every sample is kept (a run produces at most a few
+// million), so percentiles are exact. Samples of operations scheduled before measureFromNanos are
+// warmup and only counted.
+final class LatencyRecorder {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Samples> operations = new LinkedHashMap<>();
+    private volatile long measureFromNanos = Long.MAX_VALUE;
+
+    void startMeasuring(long nanos) {
+        measureFromNanos = nanos;
+    }
+
+    // One finished call: when it was due, how long it took, and its HTTP status (0 = no response)
+    void record(String operation, long scheduledNanos, long latencyNanos, int status) {
+        record(operation, scheduledNanos, latencyNanos, status == 0 ? "error" : String.valueOf(status));
+    }
+
+    // Same, for a timed outcome that is not an HTTP answer, e.g. an assignment seen on the event stream
+    void record(String operation, long scheduledNanos, long latencyNanos, String outcome) {
+        if (scheduledNanos < measureFromNanos) return;
+        samples(operation).add(latencyNanos, outcome);
+    }
+
+    // An outcome that is not a timed call, e.g. a report merged into an earlier one
+    void count(String operation, String outcome) {
+        samples(operation).count(outcome);
+    }
+
+    // Operation -> {count, per second, statuses, latency percentiles in ms}
+    Map<String, Object> summary(double measuredSeconds) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        synchronized (operations) {
+            for (Map.Entry<String, Samples> e : operations.entrySet()) {
+                result.put(e.getKey(), e.getValue().summary(measuredSeconds));
+            }
+        }
+        return result;
+    }
+
+    String table(double measuredSeconds) {
+        StringBuilder out = new StringBuilder(String.format("%-22s %8s %9s %9s %9s %9s %9s %9s  %s%n",
+                "operation", "count", "per sec", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "outcomes"));
+        for (Map.Entry<String, Object> e : summary(measuredSeconds).entrySet()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> s = (Map<String, Object>) e.getValue();
+            @SuppressWarnings("unchecked")
+            Map<String, Double> ms = (Map<String, Double>) s.get("latencyMs");
+            out.append(String.format("%-22s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n", e.getKey(),
+                    (Long) s.get("count"), (Double) s.get("perSecond"), ms.get("p50"), ms.get("p90"), ms.get("p99"),
+                    ms.get("p99.9"), ms.get("max"), s.get("outcomes")));
+        }
+        return out.toString();
+    }
+
+    private Samples samples(String operation) {
+        synchronized (operations) {
+            return operations.computeIfAbsent(operation, k -> new Samples());
+        }
+    }
+
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private final Map<String, Long> outcomes = new TreeMap<>();
+
+        synchronized void add(long latencyNanos, String outcome) {
+            if (size == nanos.length) nanos = Arrays.copyOf(nanos, size * 2);
+            nanos[size++] = latencyNanos;
+            outcomes.merge(outcome, 1L, Long::sum);
+        }
+
+        synchronized void count(String outcome) {
+            outcomes.merge(outcome, 1L, Long::sum);
+        }
+
+        synchronized Map<String, Object> summary(double measuredSeconds) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            Map<String, Double> ms = new LinkedHashMap<>();
+            for (double p : PERCENTILES) {
+                String name = "p" + (p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p));
+                ms.put(name, size == 0 ? 0 : sorted[(int) Math.min(size - 1, Math.ceil(p / 100 * size) - 1)] / 1e6);
+            }
+            ms.put("max", size == 0 ? 0 : sorted[size - 1] / 1e6);
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("count", (long) size);
+            s.put("perSecond", measuredSeconds > 0 ? size / measuredSeconds : 0.0);
+            s.put("outcomes", new TreeMap<>(outcomes));
+            s.put("latencyMs", ms);
+            return s;
+        }
+    }
+}
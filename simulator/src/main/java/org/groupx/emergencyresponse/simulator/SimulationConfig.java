@@ -0,0 +1,79 @@
+package org.groupx.emergencyresponse.simulator;
+
+import java.nio.file.Path;
+
+// Command-line options of a simulation run; everything random is derived from seed
+record SimulationConfig(String url,
+                        long seed,
+                        int fleet,
+                        double rate,
+                        int durationSeconds,
+                        int warmupSeconds,
+                        long pingIntervalMs,
+                        double jobSeconds,
+                        int maxInFlight,
+                        double centerLat,
+                        double centerLng,
+                        double radiusKm,
+                        Path out) {
+
+    static SimulationConfig parse(String[] args) {
+        String url = null;
+        long seed = 42;
+        int fleet = 20_000;
+        double rate = 50;
+        int duration = 60;
+        int warmup = 10;
+        long pingInterval = 5_000;
+        double jobSeconds = 30;
+        int maxInFlight = 512;
+        // Nairobi
+        double centerLat = -1.286;
+        double centerLng = 36.817;
+        double radiusKm = 20;
+        Path out = null;
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (name.equals("--help")) throw new IllegalArgumentException(usage());
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + name);
+            String value = args[++i];
+            switch (name) {
+                case "--url" -> url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--fleet" -> fleet = Integer.parseInt(value);
+                case "--rate" -> rate = Double.parseDouble(value);
+                case "--duration" -> duration = Integer.parseInt(value);
+                case "--warmup" -> warmup = Integer.parseInt(value);
+                case "--ping-interval-ms" -> pingInterval = Long.parseLong(value);
+                case "--job-seconds" -> jobSeconds = Double.parseDouble(value);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(value);
+                case "--center-lat" -> centerLat = Double.parseDouble(value);
+                case "--center-lng" -> centerLng = Double.parseDouble(value);
+                case "--radius-km" -> radiusKm = Double.parseDouble(value);
+                case "--out" -> out = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option " + name + "\n" + usage());
+            }
+        }
+        if (fleet < 1 || rate <= 0 || duration < 1 || warmup < 0 || pingInterval < 0 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Invalid options\n" + usage());
+        }
+        return new SimulationConfig(url, seed, fleet, rate, duration, warmup, pingInterval, jobSeconds,
+                maxInFlight, centerLat, centerLng, radiusKm, out);
+    }
+
+    static String usage() {
+        return """
+                Options (defaults in brackets):
+                  --url <base>             running server to drive [boot the application in-process]
+                  --seed <n>               seed for fleet, traces, arrivals and job lengths [42]
+                  --fleet <n>              responders to register [20000]
+                  --rate <n>               mean report arrivals per second, Poisson [50]
+                  --duration <s>           measured seconds of arrivals [60]
+                  --warmup <s>             seconds of arrivals before measuring [10]
+                  --ping-interval-ms <ms>  location ping period per responder, 0 = none [5000]
+                  --job-seconds <s>        mean time a unit stays on a job before going back on duty [30]
+                  --max-in-flight <n>      concurrent requests [512]
+                  --center-lat/--center-lng/--radius-km  city area [-1.286 36.817 20]
+                  --out <file>             also write the results as JSON""";
+    }
+}
@@ -0,0 +1,424 @@
+package org.groupx.emergencyresponse.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.groupx.emergencyresponse.EmergencyResponseApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+// Drives the HTTP API with a seeded city workload and reports throughput and latency percentiles:
+// - a fleet of responders patrolling the city area, each sending PATCH /responders/{id}/location
+//   every ping-interval-ms;
+// - reports arriving as a Poisson process (POST /alerts), dispatched by the server itself (dispatch
+//   queue, intake journal and report merging as configured); each report is followed to its
+//   assignment on GET /events, matched by its unique reporter id;
+// - assigned units going back on duty after an exponentially distributed job time
+//   (PATCH /responders/{id}/availability).
+// Arrivals are open-loop: each is sent at its scheduled time whether or not earlier ones have been
+// answered, and report-to-assignment latency counts from the scheduled time to the assignment event,
+// so a slow server shows up as latency instead of a lower send rate. The same seed gives the same fleet,
+// traces, arrivals and job times. Without --url the application is started in-process on a random port
+// with an in-memory database and the fleet is registered with one bulk import; with --url the fleet is
+// the server's own responders.
+public final class Simulator {
+    private static final String[] TYPES = {"Medical", "Traffic", "Crime", "Fire"};
+    private static final double[] TYPE_WEIGHTS = {0.4, 0.3, 0.2, 0.1};
+    private static final long PING_TICK_MS = 100;
+    private static final String DUPLICATE_HEADER = "X-Duplicate-Report";
+    // After the last arrival, how long reports still waiting for a unit may take before counting as unassigned
+    private static final long DRAIN_SECONDS = 10;
+
+    private final SimulationConfig config;
+    private final String baseUrl;
+    private final SyntheticFleet fleet;
+    private final HttpClient client;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final Semaphore inFlight;
+    private final ScheduledExecutorService releases = Executors.newSingleThreadScheduledExecutor();
+    // Tells this run's reports apart from any others on the server
+    private final String runTag = UUID.randomUUID().toString().substring(0, 8);
+    // Reporter id -> report sent but not yet assigned; registered before the POST so an assignment event
+    // that overtakes the response still finds it
+    private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+    // Report id -> unit currently on its job, until the job ends
+    private final ConcurrentHashMap<Long, Long> onJob = new ConcurrentHashMap<>();
+    // Name of the event whose data lines are being read; only the event thread uses it
+    private String eventName;
+    private volatile boolean running = true;
+
+    private Simulator(SimulationConfig config, String baseUrl, SyntheticFleet fleet) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.fleet = fleet;
+        this.inFlight = new Semaphore(config.maxInFlight());
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        SimulationConfig config;
+        try {
+            config = SimulationConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        SyntheticFleet fleet = new SyntheticFleet(config.fleet(), config.centerLat(), config.centerLng(),
+                config.radiusKm(), config.seed());
+        ConfigurableApplicationContext app = null;
+        try {
+            String url = config.url();
+            if (url == null) {
+                app = startApplication();
+                url = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+                registerFleet(url, fleet);
+            } else {
+                adoptFleet(url, fleet);
+            }
+            new Simulator(config, url, fleet).run();
+        } finally {
+            if (app != null) app.close();
+        }
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        Random random = new Random(config.seed() + 1);
+        List<Arrival> arrivals = schedule(random);
+        followAssignments();
+        Thread pinger = null;
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds());
+        recorder.startMeasuring(measureFrom);
+        if (config.pingIntervalMs() > 0) {
+            pinger = new Thread(() -> ping(start), "sim-pings");
+            pinger.setDaemon(true);
+            pinger.start();
+        }
+        System.out.printf(Locale.ROOT, "Sending %d reports over %d s (%d s warmup) to %s, %d responders%n",
+                arrivals.size(), config.warmupSeconds() + config.durationSeconds(), config.warmupSeconds(),
+                baseUrl, fleet.size());
+
+        for (Arrival a : arrivals) {
+            long due = start + a.offsetNanos();
+            long wait = due - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            inFlight.acquire();
+            report(a, due);
+        }
+        // Units keep moving and finishing jobs while the last reports wait for one
+        long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_SECONDS);
+        while (!pending.isEmpty() && System.nanoTime() < drainUntil) Thread.sleep(50);
+        for (Pending p : pending.values()) {
+            if (p.due() >= measureFrom) recorder.count("report-to-assignment", "unassigned");
+        }
+        // Stop pinging and releasing, then let the last requests finish
+        running = false;
+        if (pinger != null) pinger.join(5_000);
+        releases.shutdownNow();
+        if (!inFlight.tryAcquire(config.maxInFlight(), 60, TimeUnit.SECONDS)) {
+            System.err.println("Requests still in flight after 60 s; reporting what finished");
+        }
+        // Rates are over the measured arrival window
+        double measured = config.durationSeconds();
+
+        System.out.println();
+        System.out.print(recorder.table(measured));
+        if (config.out() != null) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("config", config(measured));
+            result.put("operations", recorder.summary(measured));
+            if (config.out().getParent() != null) Files.createDirectories(config.out().getParent());
+            mapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(config.out().toFile(), result);
+            System.out.println("\nResults written to " + config.out());
+        }
+    }
+
+    // Poisson arrivals over warmup + duration, each with a type, location and job length
+    private List<Arrival> schedule(Random random) {
+        long endNanos = TimeUnit.SECONDS.toNanos(config.warmupSeconds() + config.durationSeconds());
+        List<Arrival> arrivals = new ArrayList<>();
+        double t = 0;
+        while (true) {
+            t += -Math.log(1 - random.nextDouble()) / config.rate();
+            long offset = (long) (t * 1e9);
+            if (offset >= endNanos) return arrivals;
+            double[] p = fleet.pointInArea(random);
+            long jobMs = (long) (-Math.log(1 - random.nextDouble()) * config.jobSeconds() * 1000);
+            arrivals.add(new Arrival(arrivals.size(), offset, pickType(random), p[0], p[1], jobMs));
+        }
+    }
+
+    // POST /alerts; the server dispatches the report and the assignment arrives on the event stream.
+    // Holds one in-flight permit until the POST is answered.
+    private void report(Arrival a, long due) {
+        String reporterId = "sim-" + runTag + "-" + a.index();
+        String body = String.format(Locale.ROOT,
+                "{\"type\":\"%s\",\"description\":\"simulated %d\",\"locationLat\":%.6f,\"locationLng\":%.6f,"
+                        + "\"reporterId\":\"%s\"}", a.type(), a.index(), a.lat(), a.lng(), reporterId);
+        pending.put(reporterId, new Pending(a, due));
+        long sent = System.nanoTime();
+        client.sendAsync(json("/alerts", body), HttpResponse.BodyHandlers.ofString()).whenComplete((r, e) -> {
+            int status = e == null ? r.statusCode() : 0;
+            recorder.record("alerts.create", due, System.nanoTime() - sent, status);
+            // 200: stored; 202: accepted into the intake journal and stored shortly
+            if (status != 200 && status != 202) {
+                if (pending.remove(reporterId) != null) {
+                    recorder.record("report-to-assignment", due, System.nanoTime() - due, status);
+                }
+            } else if (r.headers().firstValue(DUPLICATE_HEADER).isPresent()) {
+                // Stored as a duplicate of an earlier report, whose dispatch covers it
+                if (pending.remove(reporterId) != null) recorder.count("report-to-assignment", "duplicate");
+            }
+            inFlight.release();
+        });
+    }
+
+    // Open GET /events for assignment events before the first report is sent and read it on a thread
+    // of its own for the rest of the run
+    private void followAssignments() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(
+                        baseUrl + "/events?kinds=assignment-created,assignment-reassigned"))
+                .header("Accept", "text/event-stream").build();
+        HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /events answered " + response.statusCode());
+        }
+        Thread reader = new Thread(() -> {
+            try (Stream<String> lines = response.body()) {
+                lines.forEach(this::onEventLine);
+            } catch (UncheckedIOException e) {
+                if (running) System.err.println("Event stream closed: " + e.getMessage());
+            }
+        }, "sim-events");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    // Server-sent events: "event:" names the event, "data:" carries its JSON, a blank line ends it
+    private void onEventLine(String line) {
+        if (line.startsWith("event:")) {
+            eventName = line.substring(6).trim();
+        } else if (line.startsWith("data:")) {
+            try {
+                onAssignmentEvent(eventName, mapper.readTree(line.substring(5).trim()));
+            } catch (Exception ignored) {
+                // Not an event this simulator understands
+            }
+        } else if (line.isEmpty()) {
+            eventName = null;
+        }
+    }
+
+    private void onAssignmentEvent(String kind, JsonNode event) {
+        long reportId = event.path("emergencyId").asLong();
+        long responderId = event.path("responderId").asLong();
+        if ("assignment-reassigned".equals(kind)) {
+            // The job moved to another unit; that one goes back on duty when the job ends
+            onJob.replace(reportId, responderId);
+            return;
+        }
+        if (!"assignment-created".equals(kind)) return;
+        Pending p = pending.remove(event.path("reporterId").asText(""));
+        if (p == null) return; // another client's report, or one counted already
+        recorder.record("report-to-assignment", p.due(), System.nanoTime() - p.due(), "assigned");
+        if (running) {
+            onJob.put(reportId, responderId);
+            releases.schedule(() -> release(reportId), p.arrival().jobMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Put the unit on the report's job back on duty at the end of the job
+    private void release(long reportId) {
+        if (!onJob.containsKey(reportId)) return;
+        if (!inFlight.tryAcquire()) {
+            // Saturated; try again shortly rather than block the release scheduler
+            releases.schedule(() -> release(reportId), 50, TimeUnit.MILLISECONDS);
+            return;
+        }
+        long responderId = onJob.remove(reportId);
+        long due = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(
+                        baseUrl + "/responders/" + responderId + "/availability?available=true"))
+                .method("PATCH", HttpRequest.BodyPublishers.noBody()).build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((r, e) -> {
+            recorder.record("responders.release", due, System.nanoTime() - due, e == null ? r.statusCode() : 0);
+            inFlight.release();
+        });
+    }
+
+    // Every tick, move and report the slice of the fleet whose turn it is, so each unit pings once per interval
+    private void ping(long start) {
+        long ticks = Math.max(1, config.pingIntervalMs() / PING_TICK_MS);
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(PING_TICK_MS);
+        for (long tick = 0; running; tick++) {
+            long due = start + tick * tickNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            int slot = (int) (tick % ticks);
+            for (int i = slot; i < fleet.size() && running; i += (int) ticks) {
+                fleet.move(i, config.pingIntervalMs());
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                HttpRequest request = HttpRequest.newBuilder(URI.create(String.format(Locale.ROOT,
+                                "%s/responders/%d/location?lat=%.6f&lng=%.6f", baseUrl, fleet.ids[i], fleet.lat[i],
+                                fleet.lng[i])))
+                        .method("PATCH", HttpRequest.BodyPublishers.noBody()).build();
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((r, e) -> {
+                    recorder.record("responders.location", due, System.nanoTime() - due,
+                            e == null ? r.statusCode() : 0);
+                    inFlight.release();
+                });
+            }
+        }
+    }
+
+    private HttpRequest json(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private Map<String, Object> config(double measuredSeconds) {
+        Map<String, Object> c = new LinkedHashMap<>();
+        c.put("url", config.url() == null ? "in-process" : config.url());
+        c.put("seed", config.seed());
+        c.put("fleet", fleet.size());
+        c.put("rate", config.rate());
+        c.put("durationSeconds", config.durationSeconds());
+        c.put("warmupSeconds", config.warmupSeconds());
+        c.put("pingIntervalMs", config.pingIntervalMs());
+        c.put("jobSeconds", config.jobSeconds());
+        c.put("maxInFlight", config.maxInFlight());
+        c.put("measuredSeconds", measuredSeconds);
+        return c;
+    }
+
+    private static String pickType(Random random) {
+        double u = random.nextDouble();
+        for (int i = 0; i < TYPES.length - 1; i++) {
+            if (u < TYPE_WEIGHTS[i]) return TYPES[i];
+            u -= TYPE_WEIGHTS[i];
+        }
+        return TYPES[TYPES.length - 1];
+    }
+
+    // The application on a random port with a private in-memory database and otherwise its own settings,
+    // so reports go through the intake journal, report merging and the dispatch queue as in production
+    private static ConfigurableApplicationContext startApplication() {
+        return new SpringApplicationBuilder(EmergencyResponseApplication.class)
+                .web(WebApplicationType.SERVLET)
+                // Passed as command-line arguments so they override application.properties
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:sim-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--logging.level.root=WARN");
+    }
+
+    // Register the synthetic fleet with one bulk import (POST /responders/import), as an operator loading
+    // a roster would, then look up the ids the units were given by their names
+    private static void registerFleet(String url, SyntheticFleet fleet) throws Exception {
+        long started = System.nanoTime();
+        String prefix = "Sim unit " + UUID.randomUUID().toString().substring(0, 8) + " ";
+        StringBuilder csv = new StringBuilder("name,role,currentLat,currentLng,availability\n");
+        for (int i = 0; i < fleet.size(); i++) {
+            csv.append(String.format(Locale.ROOT, "%s%d,%s,%.6f,%.6f,true%n", prefix, i, fleet.roles[i],
+                    fleet.lat[i], fleet.lng[i]));
+        }
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> r = client.send(HttpRequest.newBuilder(URI.create(url + "/responders/import"))
+                        .header("Content-Type", "text/csv")
+                        .POST(HttpRequest.BodyPublishers.ofString(csv.toString())).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (r.statusCode() != 200) throw new IllegalStateException("POST /responders/import answered " + r.statusCode());
+        ObjectMapper mapper = new ObjectMapper();
+        long inserted = mapper.readTree(r.body()).path("inserted").asLong();
+        if (inserted != fleet.size()) {
+            throw new IllegalStateException("Imported " + inserted + " of " + fleet.size() + " responders: " + r.body());
+        }
+
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < fleet.size(); i++) byName.put(prefix + i, i);
+        int found = 0;
+        for (JsonNode node : responders(client, mapper, url, Integer.MAX_VALUE)) {
+            Integer i = byName.get(node.path("name").asText());
+            if (i == null) continue;
+            fleet.ids[i] = node.path("id").asLong();
+            found++;
+        }
+        if (found != fleet.size()) throw new IllegalStateException("Found " + found + " of the imported responders");
+        System.out.printf(Locale.ROOT, "Registered %d responders in %.1f s%n", fleet.size(),
+                (System.nanoTime() - started) / 1e9);
+    }
+
+    // Use the responders the server already has (up to the fleet size); traces start at synthetic positions
+    private static void adoptFleet(String url, SyntheticFleet fleet) throws Exception {
+        List<JsonNode> existing = responders(HttpClient.newHttpClient(), new ObjectMapper(), url, fleet.size());
+        if (existing.size() < fleet.size()) {
+            throw new IllegalStateException("The server has " + existing.size() + " responders; run with --fleet "
+                    + existing.size() + " or register more");
+        }
+        for (int n = 0; n < fleet.size(); n++) {
+            fleet.ids[n] = existing.get(n).path("id").asLong();
+            fleet.roles[n] = existing.get(n).path("role").asText();
+        }
+    }
+
+    // Up to max of the server's responders in id order, a GET /responders page at a time
+    private static List<JsonNode> responders(HttpClient client, ObjectMapper mapper, String url, int max)
+            throws Exception {
+        List<JsonNode> found = new ArrayList<>();
+        String after = null;
+        while (found.size() < max) {
+            String page = url + "/responders?limit=1000" + (after == null ? "" : "&after=" + after);
+            HttpResponse<String> r = client.send(HttpRequest.newBuilder(URI.create(page)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (r.statusCode() != 200) throw new IllegalStateException("GET /responders answered " + r.statusCode());
+            for (JsonNode node : mapper.readTree(r.body())) {
+                if (found.size() == max) break;
+                found.add(node);
+            }
+            after = r.headers().firstValue("X-Next-Cursor").orElse(null);
+            if (after == null) break;
+        }
+        return found;
+    }
+
+    private record Arrival(int index, long offsetNanos, String type, double lat, double lng, long jobMs) {}
+
+    private record Pending(Arrival arrival, long due) {}
+}
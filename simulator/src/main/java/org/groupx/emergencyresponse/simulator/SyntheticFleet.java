@@ -0,0 +1,75 @@
+package org.groupx.emergencyresponse.simulator;
+
+import java.util.Random;
+
+// Positions of the simulated responders inside a circular city area. Each ping moves a unit a random
+// step at patrol speed, turning a little each time, and reflects it back at the edge of the area.
+// Only the ping thread moves units, so the traces depend on the seed alone.
+final class SyntheticFleet {
+    private static final String[] ROLES = {"MEDIC", "POLICE", "FIRE"};
+    private static final double KM_PER_DEG = 111.32;
+    private static final double PATROL_KMH = 30;
+
+    private final double centerLat;
+    private final double centerLng;
+    private final double radiusKm;
+    private final double kmPerDegLng;
+    private final Random random;
+    final long[] ids;
+    final String[] roles;
+    final double[] lat;
+    final double[] lng;
+    private final double[] heading;
+
+    SyntheticFleet(int size, double centerLat, double centerLng, double radiusKm, long seed) {
+        this.centerLat = centerLat;
+        this.centerLng = centerLng;
+        this.radiusKm = radiusKm;
+        this.kmPerDegLng = KM_PER_DEG * Math.cos(Math.toRadians(centerLat));
+        this.random = new Random(seed);
+        this.ids = new long[size];
+        this.roles = new String[size];
+        this.lat = new double[size];
+        this.lng = new double[size];
+        this.heading = new double[size];
+        for (int i = 0; i < size; i++) {
+            roles[i] = ROLES[i % ROLES.length];
+            double[] p = pointInArea(random);
+            lat[i] = p[0];
+            lng[i] = p[1];
+            heading[i] = random.nextDouble() * 2 * Math.PI;
+        }
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    // Advance unit i by the distance covered in elapsedMs
+    void move(int i, long elapsedMs) {
+        heading[i] += random.nextGaussian() * 0.3;
+        double km = PATROL_KMH * elapsedMs / 3_600_000.0;
+        double nextLat = lat[i] + km * Math.cos(heading[i]) / KM_PER_DEG;
+        double nextLng = lng[i] + km * Math.sin(heading[i]) / kmPerDegLng;
+        if (distanceKm(nextLat, nextLng) > radiusKm) {
+            // Turn back towards the centre instead of leaving the city
+            heading[i] += Math.PI;
+            return;
+        }
+        lat[i] = nextLat;
+        lng[i] = nextLng;
+    }
+
+    // Uniform random point in the area (lat, lng)
+    double[] pointInArea(Random r) {
+        double d = radiusKm * Math.sqrt(r.nextDouble());
+        double a = r.nextDouble() * 2 * Math.PI;
+        return new double[]{centerLat + d * Math.cos(a) / KM_PER_DEG, centerLng + d * Math.sin(a) / kmPerDegLng};
+    }
+
+    private double distanceKm(double la, double ln) {
+        double dy = (la - centerLat) * KM_PER_DEG;
+        double dx = (ln - centerLng) * kmPerDegLng;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
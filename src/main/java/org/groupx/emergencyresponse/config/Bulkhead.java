@@ -0,0 +1,54 @@
+package org.groupx.emergencyresponse.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Concurrency limit for one class of requests. Callers wait up to maxWait for a permit and are
+// rejected after that, so one overloaded path cannot exhaust the threads or connections of another.
+public class Bulkhead {
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final Timer queueTime;
+    private final Counter rejected;
+
+    public Bulkhead(String name, int maxConcurrent, long maxWaitMs, MeterRegistry registry) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.queueTime = Timer.builder("bulkhead.queue.time").tag("bulkhead", name)
+                .publishPercentiles(0.5, 0.99).register(registry);
+        this.rejected = Counter.builder("bulkhead.rejected").tag("bulkhead", name).register(registry);
+        // Reads the semaphore rather than this, which is not fully constructed yet
+        Gauge.builder("bulkhead.active", permits, p -> maxConcurrent - p.availablePermits())
+                .tag("bulkhead", name).register(registry);
+    }
+
+    // Wait for a permit; false if none became free within the configured wait
+    public boolean tryEnter() throws InterruptedException {
+        long start = System.nanoTime();
+        boolean acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        queueTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) rejected.increment();
+        return acquired;
+    }
+
+    public void exit() {
+        permits.release();
+    }
+
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public String name() {
+        return name;
+    }
+}
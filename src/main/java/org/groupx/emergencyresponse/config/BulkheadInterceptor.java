@@ -0,0 +1,70 @@
+package org.groupx.emergencyresponse.config;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+// Routes each request into the dispatch, telemetry or read bulkhead based on method and path.
+// Requests that match none of them (report intake, event streams, actuator) are not limited.
+public class BulkheadInterceptor implements HandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".bulkhead";
+
+    private final Bulkhead dispatch;
+    private final Bulkhead telemetry;
+    private final Bulkhead read;
+
+    public BulkheadInterceptor(Bulkhead dispatch, Bulkhead telemetry, Bulkhead read) {
+        this.dispatch = dispatch;
+        this.telemetry = telemetry;
+        this.read = read;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        // A streamed response is finished in an async dispatch that still holds the original permit
+        if (request.getDispatcherType() == DispatcherType.ASYNC && request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            return true;
+        }
+        Bulkhead bulkhead = classify(request.getMethod(), request.getRequestURI());
+        if (bulkhead == null) return true;
+        if (!bulkhead.tryEnter()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "1");
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, bulkhead);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object bulkhead = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (bulkhead instanceof Bulkhead b) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            b.exit();
+        }
+    }
+
+    Bulkhead classify(String method, String path) {
+        if ("POST".equals(method)) {
+            if (path.equals("/assign") || path.startsWith("/assign/")
+                    || (path.startsWith("/alerts/") && path.endsWith("/assign"))) {
+                return dispatch;
+            }
+            if (path.equals("/responders/locations")) return telemetry;
+            return null;
+        }
+        if ("PATCH".equals(method) && path.startsWith("/responders/") && path.endsWith("/location")) {
+            return telemetry;
+        }
+        if ("GET".equals(method) && (path.startsWith("/responders") || path.startsWith("/alerts")
+                || path.startsWith("/assign") || path.equals("/sync"))) {
+            return read;
+        }
+        return null;
+    }
+}
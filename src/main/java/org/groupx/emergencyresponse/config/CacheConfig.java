@@ -0,0 +1,15 @@
+package org.groupx.emergencyresponse.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+// Cache names shared by the services; sizes, TTL and stats recording come from spring.cache.* in
+// application.properties
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    // Responder identity rows by id; position and availability are overlaid from the live index on read
+    public static final String RESPONDERS = "responders";
+    public static final String ASSIGNMENTS = "assignments";
+    public static final String ASSIGNMENTS_BY_EMERGENCY = "assignmentsByEmergency";
+}
@@ -1,54 +1,38 @@
 package org.groupx.emergencyresponse.config;
 
-import org.groupx.emergencyresponse.entity.Responder;
 import org.groupx.emergencyresponse.repository.ResponderRepository;
+import org.groupx.emergencyresponse.service.ResponderImportService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+
+// Runs before the dispatch warmup so the seeded fleet is part of the preloaded working set
 @Component
+@Order(0)
 public class DataSeeder implements CommandLineRunner {
     private final ResponderRepository responderRepository;
+    private final ResponderImportService importService;
+    private final Resource roster;
 
-    public DataSeeder(ResponderRepository responderRepository) {
+    public DataSeeder(ResponderRepository responderRepository, ResponderImportService importService,
+                      @Value("${responders.seed:classpath:seed/responders.csv}") Resource roster) {
         this.responderRepository = responderRepository;
+        this.importService = importService;
+        this.roster = roster;
     }
 
     @Override
-    public void run(String... args) {
-        // Seed some test responders
-        if (responderRepository.count() == 0) {
-            Responder r1 = new Responder();
-            r1.setName("James Mwangi");
-            r1.setRole("MEDIC");
-            r1.setCurrentLat(-1.2921); // Nairobi
-            r1.setCurrentLng(36.8219);
-            r1.setAvailability(true);
-            responderRepository.save(r1);
-
-            Responder r2 = new Responder();
-            r2.setName("Aisha Odhiambo");
-            r2.setRole("POLICE");
-            r2.setCurrentLat(-4.0435); // Mombasa
-            r2.setCurrentLng(39.6682);
-            r2.setAvailability(true);
-            responderRepository.save(r2);
-
-            Responder r3 = new Responder();
-            r3.setName("Peter Ochieng");
-            r3.setRole("FIRE");
-            r3.setCurrentLat(-0.0917); // Kisumu
-            r3.setCurrentLng(34.7679);
-            r3.setAvailability(true);
-            responderRepository.save(r3);
-
-            Responder r4 = new Responder();
-            r4.setName("Grace Wanjiku");
-            r4.setRole("MEDIC");
-            r4.setCurrentLat(0.5204); // Eldoret
-            r4.setCurrentLng(35.2694);
-            r4.setAvailability(false);
-            responderRepository.save(r4);
-
+    public void run(String... args) throws IOException {
+        // Seed the test roster through the bulk import so the dispatch index sees it
+        if (responderRepository.count() == 0 && roster.exists()) {
+            try (InputStream in = roster.getInputStream()) {
+                importService.importCsv(in);
+            }
             System.out.println("Seeded " + responderRepository.count() + " responders");
         }
     }
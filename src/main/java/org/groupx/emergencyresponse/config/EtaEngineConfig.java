@@ -0,0 +1,42 @@
+package org.groupx.emergencyresponse.config;
+
+import org.groupx.emergencyresponse.geo.RoadGraph;
+import org.groupx.emergencyresponse.service.EtaEngine;
+import org.groupx.emergencyresponse.service.GreatCircleEtaEngine;
+import org.groupx.emergencyresponse.service.RoadGraphEtaEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Chooses the ETA engine: road-graph routing when a graph file is configured, great-circle otherwise
+@Configuration
+public class EtaEngineConfig {
+    private static final Logger log = LoggerFactory.getLogger(EtaEngineConfig.class);
+
+    @Bean
+    public EtaEngine etaEngine(@Value("${dispatch.eta.graph-path:}") String graphPath,
+                               @Value("${dispatch.eta.average-speed-kmh:40}") double averageSpeedKmh,
+                               @Value("${dispatch.eta.detour-factor:1.3}") double detourFactor,
+                               @Value("${dispatch.eta.snap-radius-km:2}") double snapRadiusKm,
+                               @Value("${dispatch.eta.access-speed-kmh:20}") double accessSpeedKmh,
+                               @Value("${dispatch.eta.max-concurrent-searches:0}") int maxConcurrentSearches)
+            throws IOException {
+        EtaEngine greatCircle = new GreatCircleEtaEngine(averageSpeedKmh, detourFactor);
+        if (graphPath.isBlank()) return greatCircle;
+        Path path = Path.of(graphPath);
+        if (!Files.isReadable(path)) {
+            log.warn("Road graph {} not found, using great-circle ETA estimates", path);
+            return greatCircle;
+        }
+        RoadGraph graph = RoadGraph.load(path);
+        log.info("Loaded road graph {} ({} nodes, {} edges)", path, graph.nodeCount(), graph.edgeCount());
+        int concurrency = maxConcurrentSearches > 0 ? maxConcurrentSearches : Runtime.getRuntime().availableProcessors();
+        return new RoadGraphEtaEngine(graph, greatCircle, snapRadiusKm, accessSpeedKmh, concurrency);
+    }
+}
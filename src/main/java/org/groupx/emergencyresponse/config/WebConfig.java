@@ -0,0 +1,32 @@
+package org.groupx.emergencyresponse.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Separate concurrency bulkheads for dispatch, GPS telemetry and read traffic, so a dispatch storm
+// cannot starve location ingestion and vice versa (request threads are virtual, see application.properties)
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final BulkheadInterceptor bulkheads;
+
+    public WebConfig(MeterRegistry registry,
+                     @Value("${bulkhead.dispatch.max-concurrent:16}") int dispatchMax,
+                     @Value("${bulkhead.dispatch.max-wait-ms:2000}") long dispatchWait,
+                     @Value("${bulkhead.telemetry.max-concurrent:64}") int telemetryMax,
+                     @Value("${bulkhead.telemetry.max-wait-ms:200}") long telemetryWait,
+                     @Value("${bulkhead.read.max-concurrent:64}") int readMax,
+                     @Value("${bulkhead.read.max-wait-ms:500}") long readWait) {
+        this.bulkheads = new BulkheadInterceptor(
+                new Bulkhead("dispatch", dispatchMax, dispatchWait, registry),
+                new Bulkhead("telemetry", telemetryMax, telemetryWait, registry),
+                new Bulkhead("read", readMax, readWait, registry));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(bulkheads);
+    }
+}
@@ -2,6 +2,8 @@ package org.groupx.emergencyresponse.controller;
 
 import org.groupx.emergencyresponse.dto.AssignmentDTO;
 import org.groupx.emergencyresponse.service.AssignmentService;
+import org.groupx.emergencyresponse.service.BatchDispatchService;
+import org.groupx.emergencyresponse.service.ClusterService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -9,22 +11,38 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/assign")
 public class AssignmentController {
     private final AssignmentService service;
+    private final BatchDispatchService batchDispatchService;
+    private final ClusterService clusterService;
 
     // Constructor-based dependency injection of the AssignmentService
-    public AssignmentController(AssignmentService service) {
+    public AssignmentController(AssignmentService service, BatchDispatchService batchDispatchService,
+                                ClusterService clusterService) {
         this.service = service;
+        this.batchDispatchService = batchDispatchService;
+        this.clusterService = clusterService;
     }
 
-    // Create a new assignment for a given emergency ID
+    // Create a new assignment for a given emergency ID; in clustered mode the node owning the
+    // report's region does the dispatch, unless this request was already forwarded (and signed) by another node
     @PostMapping
-    public ResponseEntity<AssignmentDTO> createAssignment(@RequestParam Long emergencyId) {
-        AssignmentDTO dto = service.assignResponder(emergencyId);
+    public ResponseEntity<AssignmentDTO> createAssignment(
+            @RequestParam Long emergencyId,
+            @RequestHeader(value = ClusterService.FORWARDED_HEADER, required = false) String forwardedBy) {
+        AssignmentDTO dto = clusterService.isForwarded(forwardedBy, emergencyId)
+                ? service.assignResponder(emergencyId)
+                : clusterService.assign(emergencyId);
         if (dto == null) {
             return ResponseEntity.notFound().build(); // Return 404 if no responder assigned
         }
         return ResponseEntity.ok(dto); // Return 200 OK with assignment details
     }
 
+    // Jointly dispatch the whole NEW backlog now (surge mode) and report what was assigned
+    @PostMapping("/batch")
+    public ResponseEntity<BatchDispatchService.BatchResult> dispatchBacklog() {
+        return ResponseEntity.ok(batchDispatchService.dispatchPending()); // Return 200 OK with batch summary
+    }
+
     // Retrieve an assignment by its ID
     @GetMapping("/{id}")
     public ResponseEntity<AssignmentDTO> getAssignment(@PathVariable Long id) {
@@ -0,0 +1,26 @@
+package org.groupx.emergencyresponse.controller;
+
+import org.groupx.emergencyresponse.service.DashboardService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/dashboard")
+public class DashboardController {
+    private final DashboardService service;
+
+    // Constructor-based dependency injection of the DashboardService
+    public DashboardController(DashboardService service) {
+        this.service = service;
+    }
+
+    // Control-room aggregates (DashboardSnapshotDTO), rendered at most dashboard.refresh-ms ago
+    @GetMapping
+    public ResponseEntity<byte[]> getSnapshot() {
+        // Return 200 OK with the pre-rendered snapshot; nothing is computed per request
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(service.snapshot());
+    }
+}
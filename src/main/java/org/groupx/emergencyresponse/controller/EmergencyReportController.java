@@ -1,34 +1,106 @@
 package org.groupx.emergencyresponse.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
 import org.groupx.emergencyresponse.dto.EmergencyResponseDTO;
 import org.groupx.emergencyresponse.entity.EmergencyReport;
 import org.groupx.emergencyresponse.service.EmergencyReportService;
+import org.groupx.emergencyresponse.service.ReportDedupService;
+import org.groupx.emergencyresponse.service.ReportIntakeService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.net.URI;
+import java.util.function.LongFunction;
 
 @RestController
 @RequestMapping("/alerts")
 public class EmergencyReportController {
+    // Set on POST /alerts answers for a report stored as a duplicate of an earlier report of the same
+    // incident, whose ID (or intake ID) is in X-Duplicate-Of
+    static final String DUPLICATE_HEADER = "X-Duplicate-Report";
+    static final String DUPLICATE_OF_HEADER = "X-Duplicate-Of";
+    private static final int MAX_IDEMPOTENCY_KEY = 128;
+
     private final EmergencyReportService service;
+    private final ReportIntakeService intakeService;
+    private final ReportDedupService dedupService;
+    private final ObjectMapper objectMapper;
 
     // Constructor-based dependency injection of the EmergencyReportService
-    public EmergencyReportController(EmergencyReportService service) {
+    public EmergencyReportController(EmergencyReportService service, ReportIntakeService intakeService,
+                                     ReportDedupService dedupService, ObjectMapper objectMapper) {
         this.service = service;
+        this.intakeService = intakeService;
+        this.dedupService = dedupService;
+        this.objectMapper = objectMapper;
     }
 
-    // Create a new emergency report
+    // Create a new emergency report. A retry with the same Idempotency-Key gets the first answer
+    // instead of creating another report; a report of an incident someone nearby has already reported
+    // is stored as a duplicate of it and not dispatched separately.
     @PostMapping
-    public ResponseEntity<?> createReport(@RequestBody CreateEmergencyReportDTO dto) {
+    public ResponseEntity<?> createReport(@RequestHeader(value = "Idempotency-Key", required = false)
+                                          String idempotencyKey,
+                                          @RequestBody CreateEmergencyReportDTO dto) {
         // Validate reporterId before creating the report
         if (!service.validateReporter(dto.reporterId)) {
             return ResponseEntity.badRequest().body("Invalid reporterId"); // Return 400 if invalid
         }
-        Long id = service.createReport(dto);
-        return ResponseEntity.ok(id); // Return 200 OK with the newly created report ID
+        if (idempotencyKey != null && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY) {
+            return ResponseEntity.badRequest().body("Idempotency-Key too long"); // Return 400 if the key is too long
+        }
+        if (!intakeService.isEnabled()) {
+            ReportDedupService.Admission admission = dedupService.admit(idempotencyKey, dto,
+                    (d, duplicateOf) -> duplicateOf == null ? service.createReport(d)
+                            : service.createDuplicate(d, duplicateOf), service::isOpen);
+            // Return 200 OK with the newly created report ID
+            return ResponseEntity.ok().headers(dedupHeaders(admission, String::valueOf)).body(admission.id());
+        }
+        ReportDedupService.Admission admission;
+        try {
+            admission = dedupService.admit(idempotencyKey, dto, intakeService::submit, intakeService::isOpen);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("Report too large");
+        }
+        if (admission.id() < 0) {
+            // Return 503 if the database has been unreachable long enough to fill the intake backlog
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").build();
+        }
+        String intakeId = ReportIntakeService.intakeId(admission.id());
+        // Return 202 Accepted with the intake ID (text, "intake-<n>") once the report is durable in the journal
+        return ResponseEntity.accepted().location(URI.create("/alerts/intake/" + intakeId))
+                .headers(dedupHeaders(admission, ReportIntakeService::intakeId)).contentType(MediaType.TEXT_PLAIN).body(intakeId);
+    }
+
+    private static HttpHeaders dedupHeaders(ReportDedupService.Admission admission, LongFunction<String> idForm) {
+        HttpHeaders headers = new HttpHeaders();
+        if (admission.duplicate()) {
+            headers.set(DUPLICATE_HEADER, "true");
+            headers.set(DUPLICATE_OF_HEADER, idForm.apply(admission.duplicateOf()));
+        }
+        return headers;
+    }
+
+    // Resolve an intake ID from POST /alerts to the stored report
+    @GetMapping("/intake/{intakeId}")
+    public ResponseEntity<EmergencyReport> getReportByIntakeId(@PathVariable String intakeId) {
+        long seq = ReportIntakeService.parseIntakeId(intakeId);
+        switch (intakeService.status(seq)) {
+            case PENDING -> {
+                return ResponseEntity.accepted().build(); // Return 202 while the report is still being stored
+            }
+            case STORED -> {
+                EmergencyReport report = intakeService.findStored(seq);
+                if (report != null) return ResponseEntity.ok(report); // Return 200 OK with report details
+            }
+            default -> { }
+        }
+        return ResponseEntity.notFound().build(); // Return 404 if the intake ID is unknown
     }
 
     // Retrieve an emergency report by its ID
@@ -41,11 +113,15 @@ public class EmergencyReportController {
         return ResponseEntity.ok(report); // Return 200 OK with report details
     }
 
-    // Retrieve all reports submitted by a specific reporter
+    // Retrieve the reports submitted by a specific reporter a page at a time (ordered by id);
+    // pass the X-Next-Cursor header back as ?after= for the next page
     @GetMapping("/reporter/{reporterId}")
-    public ResponseEntity<List<EmergencyReport>> getReportsByReporter(@PathVariable String reporterId) {
-        List<EmergencyReport> reports = service.getReportsByReporterId(reporterId);
-        return ResponseEntity.ok(reports); // Return 200 OK with list of reports (may be empty)
+    public ResponseEntity<StreamingResponseBody> getReportsByReporter(@PathVariable String reporterId,
+                                                                      @RequestParam(required = false) Long after,
+                                                                      @RequestParam(required = false) Integer limit,
+                                                                      @RequestParam(required = false) String status) {
+        return PagedJson.ok(objectMapper,
+                service.listReportsByReporterId(reporterId, after, PagedJson.limit(limit), status));
     }
 
     // Assign a responder to a specific emergency report
@@ -0,0 +1,34 @@
+package org.groupx.emergencyresponse.controller;
+
+import org.groupx.emergencyresponse.service.LiveEventHub;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/events")
+public class EventStreamController {
+    private final LiveEventHub hub;
+
+    // Constructor-based dependency injection of the LiveEventHub
+    public EventStreamController(LiveEventHub hub) {
+        this.hub = hub;
+    }
+
+    // Server-sent event stream of dispatch events, replacing polling of /alerts/{id} and /assign/emergency/{id}.
+    // Optional filters: reporterId, role (MEDIC/POLICE/FIRE), region (geohash prefix) and
+    // kinds (report-created, assignment-created, assignment-reassigned, eta-updated, report-resolved,
+    // responder-moved, responder-availability)
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) String reporterId,
+                             @RequestParam(required = false) String role,
+                             @RequestParam(required = false) String region,
+                             @RequestParam(required = false) Set<String> kinds) {
+        return hub.subscribe(reporterId, role, region, kinds);
+    }
+}
@@ -0,0 +1,40 @@
+package org.groupx.emergencyresponse.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.groupx.emergencyresponse.dto.CursorPage;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Writes a listing page as a JSON array straight to the response, one element at a time, with the
+// cursor for the next page in the X-Next-Cursor header (absent on the last page)
+final class PagedJson {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private PagedJson() {}
+
+    static int limit(Integer requested) {
+        if (requested == null) return DEFAULT_LIMIT;
+        return Math.max(1, Math.min(MAX_LIMIT, requested));
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> ok(ObjectMapper mapper, CursorPage<T> page) {
+        // Flushing per element would turn every item into its own network write
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (page.nextCursor() != null) response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        return response.body(out -> {
+            try (JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET); // the container owns the stream
+                json.writeStartArray();
+                for (T item : page.items()) writer.writeValue(json, item);
+                json.writeEndArray();
+            }
+        });
+    }
+}
@@ -1,38 +1,57 @@
 package org.groupx.emergencyresponse.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.groupx.emergencyresponse.dto.LocationBatchResultDTO;
+import org.groupx.emergencyresponse.dto.LocationFrames;
+import org.groupx.emergencyresponse.dto.LocationUpdateDTO;
 import org.groupx.emergencyresponse.dto.ResponderDTO;
 import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.service.LocationIngestService;
+import org.groupx.emergencyresponse.service.ResponderImportService;
 import org.groupx.emergencyresponse.service.ResponderService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/responders")
 public class ResponderController {
     private final ResponderService service;
+    private final ResponderImportService importService;
+    private final ObjectMapper objectMapper;
+    private final int maxBinaryFrames;
 
     // Constructor-based dependency injection of ResponderService
-    public ResponderController(ResponderService service) {
+    public ResponderController(ResponderService service, ResponderImportService importService,
+                               ObjectMapper objectMapper,
+                               @Value("${telemetry.binary.max-frames:10000}") int maxBinaryFrames) {
         this.service = service;
+        this.importService = importService;
+        this.objectMapper = objectMapper;
+        this.maxBinaryFrames = maxBinaryFrames;
     }
 
-    // Retrieve all responders in the system
+    // List responders a page at a time (ordered by id); pass the X-Next-Cursor header back as ?after=
     @GetMapping
-    public ResponseEntity<List<ResponderDTO>> getAllResponders() {
-        List<Responder> responders = service.getAllResponders();
-        // Map Responder entities to DTOs for API response
-        List<ResponderDTO> dtos = responders.stream().map(r -> {
-            ResponderDTO dto = new ResponderDTO();
-            dto.id = r.getId();
-            dto.name = r.getName();
-            dto.role = r.getRole();
-            dto.availability = r.getAvailability();
-            return dto;
-        }).collect(Collectors.toList());
-        return ResponseEntity.ok(dtos); // Return 200 OK with list of responder DTOs
+    public ResponseEntity<StreamingResponseBody> getAllResponders(@RequestParam(required = false) Long after,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(required = false) String role,
+                                                                  @RequestParam(required = false) Boolean available,
+                                                                  @RequestParam(required = false) String region) {
+        try {
+            return PagedJson.ok(objectMapper,
+                    service.listResponders(after, PagedJson.limit(limit), role, available, region));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build(); // Return 400 if the region is not a geohash
+        }
     }
 
     // Retrieve a specific responder by ID
@@ -43,12 +62,7 @@ public class ResponderController {
             return ResponseEntity.notFound().build(); // Return 404 if responder not found
         }
         // Map entity to DTO for API response
-        ResponderDTO dto = new ResponderDTO();
-        dto.id = responder.getId();
-        dto.name = responder.getName();
-        dto.role = responder.getRole();
-        dto.availability = responder.getAvailability();
-        return ResponseEntity.ok(dto); // Return 200 OK with responder DTO
+        return ResponseEntity.ok(ResponderDTO.from(responder)); // Return 200 OK with responder DTO
     }
 
     // Update the location of a responder
@@ -56,16 +70,119 @@ public class ResponderController {
     public ResponseEntity<ResponderDTO> updateLocation(@PathVariable Long id,
                                                        @RequestParam double lat,
                                                        @RequestParam double lng) {
-        Responder responder = service.updateLocation(id, lat, lng);
-        if (responder == null) {
+        LocationIngestService.Result result = service.updateLocation(id, lat, lng);
+        if (result == LocationIngestService.Result.INVALID) {
+            return ResponseEntity.badRequest().build(); // Return 400 for NaN, infinite or out-of-range coordinates
+        }
+        if (result == LocationIngestService.Result.UNKNOWN_RESPONDER) {
             return ResponseEntity.notFound().build(); // Return 404 if responder not found
         }
+        if (result == LocationIngestService.Result.REJECTED) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build(); // Ingestion buffer is full
+        }
+        Responder responder = service.getResponder(id);
+        if (responder == null) {
+            return ResponseEntity.notFound().build();
+        }
         // Map updated entity to DTO for API response
-        ResponderDTO dto = new ResponderDTO();
-        dto.id = responder.getId();
-        dto.name = responder.getName();
-        dto.role = responder.getRole();
-        dto.availability = responder.getAvailability();
-        return ResponseEntity.ok(dto); // Return 200 OK with updated responder DTO
+        return ResponseEntity.ok(ResponderDTO.from(responder)); // Return 200 OK with updated responder DTO
+    }
+
+    // Mark a responder available again (e.g. after finishing a case) or unavailable
+    @PatchMapping("/{id}/availability")
+    public ResponseEntity<ResponderDTO> updateAvailability(@PathVariable Long id,
+                                                           @RequestParam boolean available) {
+        if (!service.setAvailability(id, available)) {
+            return ResponseEntity.notFound().build(); // Return 404 if responder not found
+        }
+        Responder responder = service.getResponder(id);
+        if (responder == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(ResponderDTO.from(responder)); // Return 200 OK with updated responder DTO
+    }
+
+    // Submit many location pings in one request; each is coalesced into the ingestion buffer
+    @PostMapping("/locations")
+    public ResponseEntity<LocationBatchResultDTO> updateLocations(@RequestBody List<LocationUpdateDTO> updates) {
+        LocationBatchResultDTO result = new LocationBatchResultDTO();
+        for (LocationUpdateDTO u : updates) {
+            if (u.responderId == null) {
+                result.unknown++;
+                continue;
+            }
+            if (u.lat == null || u.lng == null) {
+                result.invalid++;
+                continue;
+            }
+            switch (service.updateLocation(u.responderId, u.lat, u.lng)) {
+                case ACCEPTED -> result.accepted++;
+                case UNKNOWN_RESPONDER -> result.unknown++;
+                case REJECTED -> result.rejected++;
+                case INVALID -> result.invalid++;
+            }
+        }
+        if (result.accepted == 0 && result.rejected > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(result); // Nothing could be buffered
+        }
+        return ResponseEntity.ok(result); // Return 200 OK with per-outcome counts
+    }
+
+    // Binary variant of the batch above for field devices (layout in LocationFrames): far fewer bytes
+    // per ping than JSON, decoded in place, and acknowledged with three counts instead of a JSON object
+    @PostMapping(value = "/locations", consumes = LocationFrames.MEDIA_TYPE, produces = LocationFrames.MEDIA_TYPE)
+    public ResponseEntity<byte[]> updateLocationsBinary(HttpServletRequest request) throws IOException {
+        // Oversized batches are turned away before the body is read: by Content-Length when the client
+        // sends one, otherwise by reading at most one byte past the largest allowed batch
+        int maxBytes = LocationFrames.HEADER_BYTES + maxBinaryFrames * LocationFrames.FRAME_BYTES;
+        if (request.getContentLengthLong() > maxBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build(); // Return 413 for oversized batches
+        }
+        byte[] body;
+        try (InputStream in = request.getInputStream()) {
+            body = in.readNBytes(maxBytes + 1);
+        }
+        if (body.length > maxBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build(); // Return 413 for oversized batches
+        }
+        ByteBuffer frames = ByteBuffer.wrap(body);
+        int count = LocationFrames.frameCount(frames);
+        if (count < 0) {
+            return ResponseEntity.badRequest().build(); // Return 400 if the body is not a version 1 batch
+        }
+        int accepted = 0;
+        int unknown = 0;
+        int full = 0;
+        int invalid = 0;
+        for (int i = 0; i < count; i++) {
+            switch (service.updateLocation(LocationFrames.responderId(frames, i), LocationFrames.lat(frames, i),
+                    LocationFrames.lng(frames, i))) {
+                case ACCEPTED -> accepted++;
+                case UNKNOWN_RESPONDER -> unknown++;
+                case REJECTED -> full++;
+                case INVALID -> invalid++;
+            }
+        }
+        HttpStatus status = accepted == 0 && full > 0 ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.OK;
+        // Return 200 OK (429 if nothing could be buffered) with the per-outcome counts; the ack has no
+        // field of its own for out-of-range frames, so they count as rejected
+        return ResponseEntity.status(status).body(LocationFrames.ack(accepted, unknown, full + invalid));
+    }
+
+    // Add or update responders in bulk from a CSV roster (header row naming the columns); the body is
+    // streamed and written in batches, so the roster can be any size
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ResponderImportService.Result> importCsv(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(importService.importCsv(body)); // Return 200 OK with the row counts
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build(); // Return 400 if the header row is not understood
+        }
+    }
+
+    // Same as above with one JSON responder per line
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<ResponderImportService.Result> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(importService.importNdjson(body)); // Return 200 OK with the row counts
     }
 }
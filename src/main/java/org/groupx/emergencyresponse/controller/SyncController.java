@@ -0,0 +1,30 @@
+package org.groupx.emergencyresponse.controller;
+
+import org.groupx.emergencyresponse.dto.SyncDTO;
+import org.groupx.emergencyresponse.service.ChangeLogService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/sync")
+public class SyncController {
+    private final ChangeLogService service;
+
+    // Constructor-based dependency injection of the ChangeLogService
+    public SyncController(ChangeLogService service) {
+        this.service = service;
+    }
+
+    // Reports, assignments and responders changed after version since (SyncDTO); with reporterId only
+    // that reporter's reports and assignments. Omit since on the first call to get the starting version
+    @GetMapping
+    public ResponseEntity<SyncDTO> sync(@RequestParam(required = false) Long since,
+                                        @RequestParam(required = false) String reporterId,
+                                        @RequestParam(required = false) Integer limit) {
+        // Return 200 OK with the deltas, or with reset=true when the client has to reload its lists
+        return ResponseEntity.ok(service.changesSince(since, reporterId, PagedJson.limit(limit)));
+    }
+}
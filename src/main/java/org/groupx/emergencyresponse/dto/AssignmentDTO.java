@@ -1,8 +1,20 @@
 package org.groupx.emergencyresponse.dto;
 
+import org.groupx.emergencyresponse.entity.Assignment;
+
 public class AssignmentDTO {
     public Long id;
     public Long responderId;
     public Long emergencyId;
     public int etaMinutes;
+
+    // Map an Assignment entity to its API representation
+    public static AssignmentDTO from(Assignment a) {
+        AssignmentDTO dto = new AssignmentDTO();
+        dto.id = a.getId();
+        dto.emergencyId = a.getEmergencyId();
+        dto.responderId = a.getResponderId();
+        dto.etaMinutes = a.getEtaMinutes() == null ? 0 : a.getEtaMinutes();
+        return dto;
+    }
 }
@@ -0,0 +1,15 @@
+package org.groupx.emergencyresponse.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a keyset-paginated listing; nextCursor is the id to pass as ?after= for the next page,
+// or null on the last page
+public record CursorPage<T>(List<T> items, Long nextCursor) {
+    // Build a page from a query that asked for limit + 1 rows; the extra row only signals that more exist
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> idOf) {
+        if (rows.size() <= limit) return new CursorPage<>(rows, null);
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, idOf.apply(items.get(limit - 1)));
+    }
+}
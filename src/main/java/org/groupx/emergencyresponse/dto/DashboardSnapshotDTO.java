@@ -0,0 +1,34 @@
+package org.groupx.emergencyresponse.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Control-room aggregates as of generatedAt (epoch millis); regions are geohash prefixes
+public class DashboardSnapshotDTO {
+    public long generatedAt;
+    public List<OpenIncidents> openIncidents = new ArrayList<>();
+    public List<RoleEta> etaByRole = new ArrayList<>();
+    public List<AreaAvailability> availableResponders = new ArrayList<>();
+
+    // Reports not yet finished: waiting for a responder, or with one on the way
+    public static class OpenIncidents {
+        public String type;
+        public String region;
+        public int waiting;
+        public int assigned;
+    }
+
+    // Current ETAs of the open assignments of one responder role
+    public static class RoleEta {
+        public String role;
+        public int assignments;
+        public double avgMinutes;
+        public int p90Minutes;
+    }
+
+    public static class AreaAvailability {
+        public String region;
+        public String role;
+        public int available;
+    }
+}
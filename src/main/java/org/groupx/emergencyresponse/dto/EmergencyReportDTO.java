@@ -0,0 +1,42 @@
+package org.groupx.emergencyresponse.dto;
+
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+
+import java.util.Date;
+
+// Read-only view of an EmergencyReport for listings and sync; same JSON fields as the entity except the
+// internal intakeSeq
+public class EmergencyReportDTO {
+    public Long id;
+    public String type;
+    public String description;
+    public Double locationLat;
+    public Double locationLng;
+    public Date timestamp;
+    public String status;
+    public String reporterId;
+    // Earlier report of the same incident this one was merged into, or null
+    public Long duplicateOf;
+
+    public EmergencyReportDTO() {}
+
+    // Used by JPQL constructor projections
+    public EmergencyReportDTO(Long id, String type, String description, Double locationLat, Double locationLng,
+                              Date timestamp, String status, String reporterId, Long duplicateOf) {
+        this.id = id;
+        this.type = type;
+        this.description = description;
+        this.locationLat = locationLat;
+        this.locationLng = locationLng;
+        this.timestamp = timestamp;
+        this.status = status;
+        this.reporterId = reporterId;
+        this.duplicateOf = duplicateOf;
+    }
+
+    // Map a report entity (from the database or the archive) to its listing view
+    public static EmergencyReportDTO from(EmergencyReport r) {
+        return new EmergencyReportDTO(r.getId(), r.getType(), r.getDescription(), r.getLocationLat(),
+                r.getLocationLng(), r.getTimestamp(), r.getStatus(), r.getReporterId(), r.getDuplicateOf());
+    }
+}
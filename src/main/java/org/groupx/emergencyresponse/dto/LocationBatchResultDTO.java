@@ -0,0 +1,9 @@
+package org.groupx.emergencyresponse.dto;
+
+public class LocationBatchResultDTO {
+    public int accepted;
+    public int unknown;
+    public int rejected;
+    // Pings without a usable position (missing, NaN, infinite or out of range)
+    public int invalid;
+}
@@ -0,0 +1,58 @@
+package org.groupx.emergencyresponse.dto;
+
+import java.nio.ByteBuffer;
+
+// Binary wire format for batched location pings (POST /responders/locations with this content type).
+// Request, big-endian: one version byte, then one 16-byte frame per ping:
+//   int64 responderId | int32 latitude x 1e7 | int32 longitude x 1e7
+// Response: three int32 counts, accepted | unknown | rejected.
+// Frames are read in place with absolute gets, so decoding a batch allocates nothing per ping.
+public final class LocationFrames {
+    public static final String MEDIA_TYPE = "application/vnd.emergency.location-frames";
+    public static final byte VERSION = 1;
+    public static final int HEADER_BYTES = 1;
+    public static final int FRAME_BYTES = 16;
+    public static final int ACK_BYTES = 12;
+    private static final double SCALE = 1e7;
+
+    private LocationFrames() {}
+
+    // Number of frames in a request, or -1 if it is not a well-formed version 1 batch
+    public static int frameCount(ByteBuffer buf) {
+        int body = buf.remaining() - HEADER_BYTES;
+        if (body < 0 || body % FRAME_BYTES != 0 || buf.get(buf.position()) != VERSION) return -1;
+        return body / FRAME_BYTES;
+    }
+
+    public static long responderId(ByteBuffer buf, int frame) {
+        return buf.getLong(offset(buf, frame));
+    }
+
+    public static double lat(ByteBuffer buf, int frame) {
+        return buf.getInt(offset(buf, frame) + 8) / SCALE;
+    }
+
+    public static double lng(ByteBuffer buf, int frame) {
+        return buf.getInt(offset(buf, frame) + 12) / SCALE;
+    }
+
+    // Encode a batch; lats and lngs are in decimal degrees
+    public static byte[] encode(long[] responderIds, double[] lats, double[] lngs, int count) {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + count * FRAME_BYTES);
+        buf.put(VERSION);
+        for (int i = 0; i < count; i++) {
+            buf.putLong(responderIds[i]);
+            buf.putInt((int) Math.round(lats[i] * SCALE));
+            buf.putInt((int) Math.round(lngs[i] * SCALE));
+        }
+        return buf.array();
+    }
+
+    public static byte[] ack(int accepted, int unknown, int rejected) {
+        return ByteBuffer.allocate(ACK_BYTES).putInt(accepted).putInt(unknown).putInt(rejected).array();
+    }
+
+    private static int offset(ByteBuffer buf, int frame) {
+        return buf.position() + HEADER_BYTES + frame * FRAME_BYTES;
+    }
+}
@@ -0,0 +1,8 @@
+package org.groupx.emergencyresponse.dto;
+
+public class LocationUpdateDTO {
+    public Long responderId;
+    // Boxed so a ping that leaves them out is refused instead of moving the unit to (0,0)
+    public Double lat;
+    public Double lng;
+}
@@ -1,8 +1,30 @@
 package org.groupx.emergencyresponse.dto;
 
+import org.groupx.emergencyresponse.entity.Responder;
+
 public class ResponderDTO {
     public Long id;
     public String name;
     public String role;
     public Boolean availability;
+
+    public ResponderDTO() {}
+
+    // Used by JPQL constructor projections so listings never load full entities
+    public ResponderDTO(Long id, String name, String role, Boolean availability) {
+        this.id = id;
+        this.name = name;
+        this.role = role;
+        this.availability = availability;
+    }
+
+    // Map a Responder entity to its API representation
+    public static ResponderDTO from(Responder r) {
+        ResponderDTO dto = new ResponderDTO();
+        dto.id = r.getId();
+        dto.name = r.getName();
+        dto.role = r.getRole();
+        dto.availability = r.getAvailability();
+        return dto;
+    }
 }
@@ -0,0 +1,32 @@
+package org.groupx.emergencyresponse.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Answer to GET /sync: the current state of every entity that changed after the requested version, and
+// tombstones for those that left the feed. Pass version back as ?since= on the next call; more=true
+// means the answer stopped at the limit and the next call carries on from there. reset=true means there
+// are no deltas from the requested version (first sync, server restart, or history compacted away):
+// reload the lists, then sync from version.
+public class SyncDTO {
+    public long version;
+    public boolean reset;
+    public boolean more;
+    public List<EmergencyReportDTO> reports = new ArrayList<>();
+    public List<AssignmentDTO> assignments = new ArrayList<>();
+    public List<ResponderDTO> responders = new ArrayList<>();
+    public List<Tombstone> deleted = new ArrayList<>();
+
+    // kind is report, assignment or responder
+    public static class Tombstone {
+        public String kind;
+        public long id;
+
+        public Tombstone() {}
+
+        public Tombstone(String kind, long id) {
+            this.kind = kind;
+            this.id = id;
+        }
+    }
+}
@@ -4,10 +4,16 @@ import jakarta.persistence.*;
 import java.util.Date;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_assignment_emergency", columnList = "emergencyId"),
+        @Index(name = "idx_assignment_responder", columnList = "responderId"), // resolving a finished job
+        @Index(name = "idx_assignment_sync", columnList = "syncStatus, id") // sync worker scan
+})
 public class Assignment {
     @Id
-    // Tells JPA to let the database auto-generate the primary key using an identity column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence-generated like the other entities, so assignment inserts can be batched too
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "assignment_seq")
+    @SequenceGenerator(name = "assignment_seq", sequenceName = "assignment_seq", allocationSize = 50)
     private Long id;
     private Long emergencyId; // stored as value, not FK
     private Long responderId;
@@ -16,7 +22,11 @@ public class Assignment {
     // Instructs JPA to store this Date field as a full timestamp (both date and time)
     @Temporal(TemporalType.TIMESTAMP)
     private Date assignmentTime;
-    private String syncStatus; // PENDING, SYNCED
+    private String syncStatus; // PENDING, CLAIMED, SYNCED, ORPHANED
+    private String syncClaim; // token of the sync worker currently validating this row
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date syncClaimedAt;
 
     public Assignment() {}
 
@@ -32,4 +42,8 @@ public class Assignment {
     public void setAssignmentTime(Date assignmentTime) { this.assignmentTime = assignmentTime; }
     public String getSyncStatus() { return syncStatus; }
     public void setSyncStatus(String syncStatus) { this.syncStatus = syncStatus; }
+    public String getSyncClaim() { return syncClaim; }
+    public void setSyncClaim(String syncClaim) { this.syncClaim = syncClaim; }
+    public Date getSyncClaimedAt() { return syncClaimedAt; }
+    public void setSyncClaimedAt(Date syncClaimedAt) { this.syncClaimedAt = syncClaimedAt; }
 }
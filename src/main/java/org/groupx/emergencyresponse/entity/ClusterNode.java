@@ -0,0 +1,27 @@
+package org.groupx.emergencyresponse.entity;
+
+import jakarta.persistence.*;
+
+// One row per running node in clustered mode, refreshed by its heartbeat
+@Entity
+public class ClusterNode {
+    @Id
+    private String nodeId;
+    private String baseUrl; // where other nodes forward requests, e.g. http://10.0.0.5:8080
+    private Long heartbeatAt; // epoch millis of the last heartbeat
+
+    public ClusterNode() {}
+
+    public ClusterNode(String nodeId, String baseUrl, Long heartbeatAt) {
+        this.nodeId = nodeId;
+        this.baseUrl = baseUrl;
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    public String getNodeId() { return nodeId; }
+    public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+    public String getBaseUrl() { return baseUrl; }
+    public void setBaseUrl(String baseUrl) { this.baseUrl = baseUrl; }
+    public Long getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(Long heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+}
@@ -4,10 +4,17 @@ import jakarta.persistence.*;
 import java.util.Date;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_report_reporter", columnList = "reporterId, id"), // GET /alerts/reporter/{id} pages
+        @Index(name = "idx_report_status", columnList = "status, timestamp"), // NEW backlog, oldest first
+        @Index(name = "idx_report_duplicate_of", columnList = "duplicateOf")
+})
 public class EmergencyReport {
     @Id
-    // Tells JPA to let the database auto-generate the primary key using an identity column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Ids come from a database sequence handed out in blocks of 50 (pooled optimizer), so inserts
+    // need no round trip for the key and Hibernate can batch them
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "emergency_report_seq")
+    @SequenceGenerator(name = "emergency_report_seq", sequenceName = "emergency_report_seq", allocationSize = 50)
     private Long id;
     private String type;
     private String description;
@@ -20,6 +27,13 @@ public class EmergencyReport {
     private String status;
     private String reporterId;
 
+    // Sequence number in the intake journal for reports accepted through it; makes replay idempotent
+    @Column(unique = true)
+    private Long intakeSeq;
+
+    // Report of the same incident this one was merged into (status DUPLICATE, not dispatched on its own)
+    private Long duplicateOf;
+
     public EmergencyReport() {}
 
     public Long getId() { return id; }
@@ -38,4 +52,8 @@ public class EmergencyReport {
     public void setStatus(String status) { this.status = status; }
     public String getReporterId() { return reporterId; }
     public void setReporterId(String reporterId) { this.reporterId = reporterId; }
+    public Long getIntakeSeq() { return intakeSeq; }
+    public void setIntakeSeq(Long intakeSeq) { this.intakeSeq = intakeSeq; }
+    public Long getDuplicateOf() { return duplicateOf; }
+    public void setDuplicateOf(Long duplicateOf) { this.duplicateOf = duplicateOf; }
 }
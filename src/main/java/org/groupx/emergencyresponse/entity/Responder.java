@@ -1,12 +1,21 @@
 package org.groupx.emergencyresponse.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SourceType;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.util.Date;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_responder_availability", columnList = "availability"),
+        @Index(name = "idx_responder_updated", columnList = "updatedAt") // cluster refresh
+})
 public class Responder {
     @Id
-    // Tells JPA to let the database auto-generate the primary key using an identity column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence ids (blocks of 50) instead of identity columns, so inserts can be batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "responder_seq")
+    @SequenceGenerator(name = "responder_seq", sequenceName = "responder_seq", allocationSize = 50)
     private Long id;
     private String name;
     private String role; // MEDIC, POLICE, FIRE
@@ -14,6 +23,16 @@ public class Responder {
     private Double currentLng;
     private Boolean availability;
 
+    // Optimistic-lock version, bumped on every availability change so concurrent reservations conflict
+    @Version
+    private Long version;
+
+    // Database time of the last write; every bulk update sets it too, so other nodes can load only the
+    // rows changed since their last refresh
+    @UpdateTimestamp(source = SourceType.DB)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updatedAt;
+
     public Responder() {}
 
     public Long getId() { return id; }
@@ -28,4 +47,8 @@ public class Responder {
     public void setCurrentLng(Double currentLng) { this.currentLng = currentLng; }
     public Boolean getAvailability() { return availability; }
     public void setAvailability(Boolean availability) { this.availability = availability; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    public Date getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Date updatedAt) { this.updatedAt = updatedAt; }
 }
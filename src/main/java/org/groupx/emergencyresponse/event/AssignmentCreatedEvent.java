@@ -0,0 +1,8 @@
+package org.groupx.emergencyresponse.event;
+
+public record AssignmentCreatedEvent(long assignmentId, long emergencyId, long responderId, String role,
+                                     int etaMinutes, String reporterId, String reportType,
+                                     Double lat, Double lng) implements DispatchEvent {
+    @Override
+    public String kind() { return "assignment-created"; }
+}
@@ -0,0 +1,9 @@
+package org.groupx.emergencyresponse.event;
+
+// An open assignment was handed from one responder to another that can arrive sooner
+public record AssignmentReassignedEvent(long assignmentId, long emergencyId, long previousResponderId,
+                                        long responderId, String role, int etaMinutes, String reporterId,
+                                        Double lat, Double lng) implements DispatchEvent {
+    @Override
+    public String kind() { return "assignment-reassigned"; }
+}
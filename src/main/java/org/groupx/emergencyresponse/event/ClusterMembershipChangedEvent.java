@@ -0,0 +1,6 @@
+package org.groupx.emergencyresponse.event;
+
+import java.util.List;
+
+// The set of live cluster nodes changed, so region ownership may have moved
+public record ClusterMembershipChangedEvent(List<String> nodeIds) {}
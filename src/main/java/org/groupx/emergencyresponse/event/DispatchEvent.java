@@ -0,0 +1,21 @@
+package org.groupx.emergencyresponse.event;
+
+// Something a live watcher (mobile app, control room) may want pushed to it.
+// Published through Spring's ApplicationEventPublisher by the services that cause it.
+public interface DispatchEvent {
+    // Event name on the wire, e.g. "report-created"
+    String kind();
+
+    // Reporter the event concerns, or null if it is not tied to a citizen report
+    default String reporterId() { return null; }
+
+    // Responder role the event concerns, or null
+    default String role() { return null; }
+
+    // Location used for region filtering, or null
+    default Double lat() { return null; }
+    default Double lng() { return null; }
+
+    // Events with the same non-null key supersede each other in a subscriber's buffer
+    default String coalesceKey() { return null; }
+}
@@ -0,0 +1,11 @@
+package org.groupx.emergencyresponse.event;
+
+public record EtaUpdatedEvent(long assignmentId, long emergencyId, long responderId, String role,
+                              int etaMinutes, String reporterId, Double lat, Double lng) implements DispatchEvent {
+    @Override
+    public String kind() { return "eta-updated"; }
+
+    // Only the latest ETA of an assignment matters to a watcher
+    @Override
+    public String coalesceKey() { return "eta:" + assignmentId; }
+}
@@ -0,0 +1,8 @@
+package org.groupx.emergencyresponse.event;
+
+// duplicateOf is set for a report merged into an earlier report of the same incident, which is not dispatched
+public record ReportCreatedEvent(long reportId, String reporterId, String type,
+                                 Double lat, Double lng, long timestamp, Long duplicateOf) implements DispatchEvent {
+    @Override
+    public String kind() { return "report-created"; }
+}
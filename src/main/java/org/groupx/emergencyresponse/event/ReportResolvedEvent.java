@@ -0,0 +1,8 @@
+package org.groupx.emergencyresponse.event;
+
+// The responder sent to a report is back on duty, so the report is closed
+public record ReportResolvedEvent(long reportId, long responderId, String reporterId,
+                                  Double lat, Double lng) implements DispatchEvent {
+    @Override
+    public String kind() { return "report-resolved"; }
+}
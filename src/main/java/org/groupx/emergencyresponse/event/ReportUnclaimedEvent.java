@@ -0,0 +1,5 @@
+package org.groupx.emergencyresponse.event;
+
+// A dispatch gave back a report it had claimed (DISPATCHING -> NEW) without assigning it, so automatic
+// dispatch must pick it up again
+public record ReportUnclaimedEvent(long reportId, String type, Double lat, Double lng, long timestamp) {}
@@ -0,0 +1,9 @@
+package org.groupx.emergencyresponse.event;
+
+import java.util.List;
+
+// Resolved reports, and their assignments, were moved from the database to the archive
+public record ReportsArchivedEvent(List<Archived> reports) {
+    // assignmentId is null for a report that was never assigned
+    public record Archived(long reportId, String reporterId, Long assignmentId) {}
+}
@@ -0,0 +1,12 @@
+package org.groupx.emergencyresponse.event;
+
+// A responder went on or off duty (booked on a job, released, or added to the fleet)
+public record ResponderAvailabilityChangedEvent(long responderId, String role, boolean available,
+                                                Double lat, Double lng) implements DispatchEvent {
+    @Override
+    public String kind() { return "responder-availability"; }
+
+    // Only the latest state of a responder matters to a watcher
+    @Override
+    public String coalesceKey() { return "availability:" + responderId; }
+}
@@ -0,0 +1,11 @@
+package org.groupx.emergencyresponse.event;
+
+public record ResponderMovedEvent(long responderId, String role, Double lat, Double lng,
+                                  long timestamp) implements DispatchEvent {
+    @Override
+    public String kind() { return "responder-moved"; }
+
+    // Only the latest position of a responder matters to a watcher
+    @Override
+    public String coalesceKey() { return "moved:" + responderId; }
+}
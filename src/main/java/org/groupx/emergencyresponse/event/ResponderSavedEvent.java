@@ -0,0 +1,5 @@
+package org.groupx.emergencyresponse.event;
+
+// A responder's stored row was written: created, or its name, role or position updated. Published
+// whether or not its availability changed, which ResponderAvailabilityChangedEvent covers.
+public record ResponderSavedEvent(long responderId) {}
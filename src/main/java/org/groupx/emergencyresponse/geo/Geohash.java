@@ -0,0 +1,74 @@
+package org.groupx.emergencyresponse.geo;
+
+// Standard base-32 geohash encoding; a shorter prefix covers a larger region
+public final class Geohash {
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {}
+
+    // Bounding box {minLat, maxLat, minLng, maxLng} of the cell named by a geohash (prefix)
+    public static double[] bounds(String geohash) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        boolean evenBit = true;
+        for (int i = 0; i < geohash.length(); i++) {
+            int ch = indexOf(geohash.charAt(i));
+            for (int b = 4; b >= 0; b--) {
+                boolean set = ((ch >> b) & 1) == 1;
+                if (evenBit) {
+                    double mid = (minLng + maxLng) / 2;
+                    if (set) minLng = mid; else maxLng = mid;
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (set) minLat = mid; else maxLat = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[]{minLat, maxLat, minLng, maxLng};
+    }
+
+    public static String encode(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        char[] hash = new char[precision];
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+        int length = 0;
+        while (length < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch <<= 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash[length++] = BASE32[ch];
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return new String(hash);
+    }
+
+    private static int indexOf(char c) {
+        char lower = Character.toLowerCase(c);
+        for (int i = 0; i < BASE32.length; i++) {
+            if (BASE32[i] == lower) return i;
+        }
+        throw new IllegalArgumentException("Invalid geohash character: " + c);
+    }
+}
@@ -0,0 +1,147 @@
+package org.groupx.emergencyresponse.geo;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+// Read-only road network in compressed sparse row (CSR) form, memory-mapped from the file
+// written by RoadGraphBuilder. Node coordinates are stored in microdegrees and edge weights
+// as travel time in milliseconds. Both the forward (out-edge) and reverse (in-edge) adjacency
+// are stored so one-to-one and many-to-one searches need no extra allocation.
+//
+// Layout (little-endian): int magic, int version, int nodeCount, int edgeCount, float maxSpeedKmh,
+// then int arrays lat[n], lng[n], firstOut[n+1], outTarget[e], outTimeMs[e],
+// firstIn[n+1], inSource[e], inTimeMs[e].
+public final class RoadGraph {
+    public static final int MAGIC = 0x52524745; // "ERRR" road graph
+    public static final int VERSION = 1;
+    static final int HEADER_BYTES = 20;
+    // Cell size of the node snapping grid, in degrees
+    private static final double SNAP_CELL_DEG = 0.01;
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final float maxSpeedKmh;
+    private final IntBuffer lat;
+    private final IntBuffer lng;
+    private final IntBuffer firstOut;
+    private final IntBuffer outTarget;
+    private final IntBuffer outTimeMs;
+    private final IntBuffer firstIn;
+    private final IntBuffer inSource;
+    private final IntBuffer inTimeMs;
+    // Snapping grid: cell key -> node ids in that cell
+    private final Map<Long, int[]> snapGrid;
+
+    private RoadGraph(MappedByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a road graph file (bad magic or version)");
+        }
+        nodeCount = buffer.getInt(8);
+        edgeCount = buffer.getInt(12);
+        maxSpeedKmh = buffer.getFloat(16);
+        int offset = HEADER_BYTES;
+        lat = slice(buffer, offset, nodeCount);
+        offset += nodeCount * 4;
+        lng = slice(buffer, offset, nodeCount);
+        offset += nodeCount * 4;
+        firstOut = slice(buffer, offset, nodeCount + 1);
+        offset += (nodeCount + 1) * 4;
+        outTarget = slice(buffer, offset, edgeCount);
+        offset += edgeCount * 4;
+        outTimeMs = slice(buffer, offset, edgeCount);
+        offset += edgeCount * 4;
+        firstIn = slice(buffer, offset, nodeCount + 1);
+        offset += (nodeCount + 1) * 4;
+        inSource = slice(buffer, offset, edgeCount);
+        offset += edgeCount * 4;
+        inTimeMs = slice(buffer, offset, edgeCount);
+        snapGrid = buildSnapGrid();
+    }
+
+    // Map the graph file into memory; the OS pages it in on demand
+    public static RoadGraph load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RoadGraph(buffer);
+        }
+    }
+
+    private static IntBuffer slice(MappedByteBuffer buffer, int offset, int ints) {
+        return buffer.slice(offset, ints * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    public int nodeCount() { return nodeCount; }
+    public int edgeCount() { return edgeCount; }
+    public float maxSpeedKmh() { return maxSpeedKmh; }
+    public double lat(int node) { return lat.get(node) / 1e6; }
+    public double lng(int node) { return lng.get(node) / 1e6; }
+    public int firstOut(int node) { return firstOut.get(node); }
+    public int outTarget(int edge) { return outTarget.get(edge); }
+    public int outTimeMs(int edge) { return outTimeMs.get(edge); }
+    public int firstIn(int node) { return firstIn.get(node); }
+    public int inSource(int edge) { return inSource.get(edge); }
+    public int inTimeMs(int edge) { return inTimeMs.get(edge); }
+
+    // Closest graph node within maxKm of the point, or -1 if the point is off the network
+    public int nearestNode(double pointLat, double pointLng, double maxKm) {
+        int row = (int) Math.floor(pointLat / SNAP_CELL_DEG);
+        int col = (int) Math.floor(pointLng / SNAP_CELL_DEG);
+        int rows = (int) Math.ceil(maxKm / (SNAP_CELL_DEG * GeoUtils.KM_PER_DEGREE)) + 1;
+        // A cell spans fewer km east-west away from the equator, so widen the column range to match,
+        // using the poleward edge of the searched band
+        double edgeLat = Math.min(90.0, Math.abs(pointLat) + rows * SNAP_CELL_DEG);
+        double cos = Math.max(Math.cos(Math.toRadians(edgeLat)), 0.01);
+        int columns = (int) Math.ceil(rows / cos);
+        int best = -1;
+        double bestKm = maxKm;
+        for (int dr = -rows; dr <= rows; dr++) {
+            for (int dc = -columns; dc <= columns; dc++) {
+                int[] nodes = snapGrid.get(cellKey(row + dr, col + dc));
+                if (nodes == null) continue;
+                for (int node : nodes) {
+                    double km = GeoUtils.haversineKm(pointLat, pointLng, lat(node), lng(node));
+                    if (km <= bestKm) {
+                        bestKm = km;
+                        best = node;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private Map<Long, int[]> buildSnapGrid() {
+        // Two passes (count, then fill) so each cell gets an exactly sized primitive array
+        Map<Long, int[]> counts = new HashMap<>();
+        for (int node = 0; node < nodeCount; node++) {
+            counts.computeIfAbsent(cellOf(node), k -> new int[1])[0]++;
+        }
+        Map<Long, int[]> grid = new HashMap<>(counts.size() * 2);
+        Map<Long, int[]> fill = new HashMap<>(counts.size() * 2);
+        counts.forEach((cell, count) -> {
+            grid.put(cell, new int[count[0]]);
+            fill.put(cell, new int[1]);
+        });
+        for (int node = 0; node < nodeCount; node++) {
+            long cell = cellOf(node);
+            grid.get(cell)[fill.get(cell)[0]++] = node;
+        }
+        return grid;
+    }
+
+    private long cellOf(int node) {
+        return cellKey((int) Math.floor(lat(node) / SNAP_CELL_DEG), (int) Math.floor(lng(node) / SNAP_CELL_DEG));
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,167 @@
+package org.groupx.emergencyresponse.geo;
+
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Offline converter from a road network extract (e.g. OSM ways exported to CSV) to the
+// compact CSR file read by RoadGraph.
+//
+// nodes.csv: osmNodeId,lat,lng
+// edges.csv: fromOsmNodeId,toOsmNodeId,lengthMeters,speedKmh,oneway(true/false)
+// Lines starting with '#' and a non-numeric header line are skipped.
+//
+// Usage: java -cp emergency-response.jar org.groupx.emergencyresponse.geo.RoadGraphBuilder nodes.csv edges.csv out.graph
+public final class RoadGraphBuilder {
+    private final Map<Long, Integer> nodeIndex = new HashMap<>();
+    private int[] lat = new int[1024];
+    private int[] lng = new int[1024];
+    private int nodeCount;
+    private int[] edgeFrom = new int[1024];
+    private int[] edgeTo = new int[1024];
+    private int[] edgeTimeMs = new int[1024];
+    private int edgeCount;
+    private float maxSpeedKmh;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: RoadGraphBuilder <nodes.csv> <edges.csv> <out.graph>");
+            System.exit(2);
+        }
+        RoadGraphBuilder builder = new RoadGraphBuilder();
+        builder.readNodes(Path.of(args[0]));
+        builder.readEdges(Path.of(args[1]));
+        builder.write(Path.of(args[2]));
+        System.out.println("Wrote " + builder.nodeCount + " nodes and " + builder.edgeCount + " edges to " + args[2]);
+    }
+
+    public int addNode(long externalId, double nodeLat, double nodeLng) {
+        Integer existing = nodeIndex.get(externalId);
+        if (existing != null) return existing;
+        if (nodeCount == lat.length) {
+            lat = Arrays.copyOf(lat, nodeCount * 2);
+            lng = Arrays.copyOf(lng, nodeCount * 2);
+        }
+        lat[nodeCount] = (int) Math.round(nodeLat * 1e6);
+        lng[nodeCount] = (int) Math.round(nodeLng * 1e6);
+        nodeIndex.put(externalId, nodeCount);
+        return nodeCount++;
+    }
+
+    // Add a directed edge; travel time is derived from length and speed
+    public void addEdge(long fromId, long toId, double lengthMeters, double speedKmh) {
+        Integer from = nodeIndex.get(fromId);
+        Integer to = nodeIndex.get(toId);
+        if (from == null || to == null || speedKmh <= 0) return;
+        if (edgeCount == edgeFrom.length) {
+            edgeFrom = Arrays.copyOf(edgeFrom, edgeCount * 2);
+            edgeTo = Arrays.copyOf(edgeTo, edgeCount * 2);
+            edgeTimeMs = Arrays.copyOf(edgeTimeMs, edgeCount * 2);
+        }
+        edgeFrom[edgeCount] = from;
+        edgeTo[edgeCount] = to;
+        edgeTimeMs[edgeCount] = (int) Math.max(1, Math.round(lengthMeters / (speedKmh / 3.6) * 1000.0));
+        edgeCount++;
+        maxSpeedKmh = (float) Math.max(maxSpeedKmh, speedKmh);
+    }
+
+    private void readNodes(Path path) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] f = fields(line);
+                if (f == null) continue;
+                addNode(Long.parseLong(f[0]), Double.parseDouble(f[1]), Double.parseDouble(f[2]));
+            }
+        }
+    }
+
+    private void readEdges(Path path) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] f = fields(line);
+                if (f == null) continue;
+                long from = Long.parseLong(f[0]);
+                long to = Long.parseLong(f[1]);
+                double meters = Double.parseDouble(f[2]);
+                double speed = Double.parseDouble(f[3]);
+                addEdge(from, to, meters, speed);
+                if (f.length < 5 || !Boolean.parseBoolean(f[4].trim())) addEdge(to, from, meters, speed);
+            }
+        }
+    }
+
+    private static String[] fields(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) return null;
+        char first = trimmed.charAt(0);
+        if (!Character.isDigit(first) && first != '-') return null; // header row
+        return trimmed.split(",");
+    }
+
+    // Write the CSR file: counting sort of edges by source (forward) and by target (reverse)
+    public void write(Path out) throws IOException {
+        int[] firstOut = new int[nodeCount + 1];
+        int[] firstIn = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            firstOut[edgeFrom[e] + 1]++;
+            firstIn[edgeTo[e] + 1]++;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            firstOut[n + 1] += firstOut[n];
+            firstIn[n + 1] += firstIn[n];
+        }
+        int[] outTarget = new int[edgeCount];
+        int[] outTime = new int[edgeCount];
+        int[] inSource = new int[edgeCount];
+        int[] inTime = new int[edgeCount];
+        int[] outFill = Arrays.copyOf(firstOut, nodeCount);
+        int[] inFill = Arrays.copyOf(firstIn, nodeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            int o = outFill[edgeFrom[e]]++;
+            outTarget[o] = edgeTo[e];
+            outTime[o] = edgeTimeMs[e];
+            int i = inFill[edgeTo[e]]++;
+            inSource[i] = edgeFrom[e];
+            inTime[i] = edgeTimeMs[e];
+        }
+
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(out), 1 << 16);
+             DataOutputStream data = new DataOutputStream(os)) {
+            ByteBuffer header = ByteBuffer.allocate(RoadGraph.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(RoadGraph.MAGIC).putInt(RoadGraph.VERSION).putInt(nodeCount).putInt(edgeCount)
+                    .putFloat(maxSpeedKmh);
+            data.write(header.array());
+            writeInts(data, lat, nodeCount);
+            writeInts(data, lng, nodeCount);
+            writeInts(data, firstOut, nodeCount + 1);
+            writeInts(data, outTarget, edgeCount);
+            writeInts(data, outTime, edgeCount);
+            writeInts(data, firstIn, nodeCount + 1);
+            writeInts(data, inSource, edgeCount);
+            writeInts(data, inTime, edgeCount);
+        }
+    }
+
+    private static void writeInts(DataOutputStream data, int[] values, int count) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(4 * 8192).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < count; i++) {
+            if (!chunk.hasRemaining()) {
+                data.write(chunk.array(), 0, chunk.position());
+                chunk.clear();
+            }
+            chunk.putInt(values[i]);
+        }
+        data.write(chunk.array(), 0, chunk.position());
+    }
+}
@@ -1,10 +1,68 @@
 package org.groupx.emergencyresponse.repository;
 
 import org.groupx.emergencyresponse.entity.Assignment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     Optional<Assignment> findByEmergencyId(Long emergencyId);
+
+    List<Assignment> findByEmergencyIdIn(Collection<Long> emergencyIds);
+
+    // Remove the assignments of reports that have been written to the archive
+    @Transactional
+    @Modifying
+    @Query("delete from Assignment a where a.emergencyId in :emergencyIds")
+    int deleteByEmergencyIdIn(@Param("emergencyIds") Collection<Long> emergencyIds);
+
+    @Query("select a.id from Assignment a where a.syncStatus = :status order by a.id")
+    List<Long> findIdsBySyncStatus(@Param("status") String status, Pageable pageable);
+
+    // Claim rows for one sync worker; rows already claimed by another worker are skipped, not waited on
+    @Transactional
+    @Modifying
+    @Query("update Assignment a set a.syncStatus = 'CLAIMED', a.syncClaim = :claim, a.syncClaimedAt = :now " +
+            "where a.id in :ids and a.syncStatus = 'PENDING'")
+    int claimForSync(@Param("ids") Collection<Long> ids, @Param("claim") String claim, @Param("now") Date now);
+
+    @Query("select a.id, a.emergencyId from Assignment a where a.syncClaim = :claim and a.syncStatus = 'CLAIMED'")
+    List<Object[]> findClaimed(@Param("claim") String claim);
+
+    @Transactional
+    @Modifying
+    @Query("update Assignment a set a.syncStatus = :status, a.syncClaim = null, a.syncClaimedAt = null " +
+            "where a.id in :ids and a.syncClaim = :claim")
+    int completeSync(@Param("ids") Collection<Long> ids, @Param("claim") String claim, @Param("status") String status);
+
+    // Return claimed rows to PENDING: after a failed batch, or when a worker died holding them
+    @Transactional
+    @Modifying
+    @Query("update Assignment a set a.syncStatus = 'PENDING', a.syncClaim = null, a.syncClaimedAt = null " +
+            "where a.syncStatus = 'CLAIMED' and (a.syncClaim = :claim or a.syncClaimedAt < :staleBefore)")
+    int releaseClaims(@Param("claim") String claim, @Param("staleBefore") Date staleBefore);
+
+    long countBySyncStatus(String syncStatus);
+
+    @Query("select min(a.assignmentTime) from Assignment a where a.syncStatus in ('PENDING', 'CLAIMED')")
+    Date findOldestUnsyncedTime();
+
+    // Latest assignment of every responder still off duty, i.e. the units currently on a job
+    @Query("select a from Assignment a where a.id in (select max(b.id) from Assignment b group by b.responderId) " +
+            "and a.responderId in (select r.id from Responder r where r.availability = false)")
+    List<Assignment> findOpen();
+
+    // Hand an assignment to another responder, provided it still belongs to the expected one
+    @Transactional
+    @Modifying
+    @Query("update Assignment a set a.responderId = :to, a.etaMinutes = :eta where a.id = :id and a.responderId = :from")
+    int reassign(@Param("id") Long id, @Param("from") Long from, @Param("to") Long to, @Param("eta") int eta);
 }
@@ -0,0 +1,14 @@
+package org.groupx.emergencyresponse.repository;
+
+import org.groupx.emergencyresponse.entity.ClusterNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ClusterNodeRepository extends JpaRepository<ClusterNode, String> {
+    // Nodes whose last heartbeat is at or after the cutoff
+    @Query("select n from ClusterNode n where n.heartbeatAt >= :cutoff order by n.nodeId")
+    List<ClusterNode> findLive(@Param("cutoff") long cutoff);
+}
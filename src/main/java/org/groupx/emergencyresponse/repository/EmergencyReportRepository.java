@@ -1,10 +1,66 @@
 package org.groupx.emergencyresponse.repository;
 
+import org.groupx.emergencyresponse.dto.EmergencyReportDTO;
 import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 public interface EmergencyReportRepository extends JpaRepository<EmergencyReport, Long> {
-    List<EmergencyReport> findByReporterId(String reporterId);
+    // Keyset page of one reporter's reports with id > afterId, optionally in one status
+    @Query("select new org.groupx.emergencyresponse.dto.EmergencyReportDTO(e.id, e.type, e.description, " +
+            "e.locationLat, e.locationLng, e.timestamp, e.status, e.reporterId, e.duplicateOf) " +
+            "from EmergencyReport e where e.reporterId = :reporterId and e.id > :afterId " +
+            "and (:status is null or e.status = :status) order by e.id")
+    List<EmergencyReportDTO> findPageByReporterId(@Param("reporterId") String reporterId,
+                                                  @Param("afterId") long afterId,
+                                                  @Param("status") String status,
+                                                  Pageable pageable);
+
+    // Oldest reports in the given status first, e.g. the NEW backlog for batch dispatch
+    List<EmergencyReport> findByStatusOrderByTimestampAsc(String status, Pageable pageable);
+
+    // Oldest reports in the given status from before the cutoff; the archive run's input
+    List<EmergencyReport> findByStatusAndTimestampBeforeOrderByTimestampAsc(String status, Date before,
+                                                                            Pageable pageable);
+
+    // Which of the given report IDs still exist, in one query
+    @Query("select e.id from EmergencyReport e where e.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Which of the given intake journal sequence numbers have already been stored
+    @Query("select e.intakeSeq from EmergencyReport e where e.intakeSeq in :seqs")
+    List<Long> findExistingIntakeSeqs(@Param("seqs") Collection<Long> seqs);
+
+    Optional<EmergencyReport> findByIntakeSeq(Long intakeSeq);
+
+    List<EmergencyReport> findByIntakeSeqIn(Collection<Long> intakeSeqs);
+
+    // Reports merged into the given one that are still in the given status
+    List<EmergencyReport> findByDuplicateOfAndStatus(Long duplicateOf, String status);
+
+    // Compare-and-set on the report status; returns 0 if the report was not in the expected status
+    @Transactional
+    @Modifying
+    @Query("update EmergencyReport e set e.status = :to where e.id = :id and e.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") String from, @Param("to") String to);
+
+    // Reports still ASSIGNED to the given responder
+    @Query("select e from EmergencyReport e where e.status = 'ASSIGNED' and e.id in " +
+            "(select a.emergencyId from Assignment a where a.responderId = :responderId)")
+    List<EmergencyReport> findAssignedTo(@Param("responderId") Long responderId);
+
+    // Remove reports that have been written to the archive
+    @Transactional
+    @Modifying
+    @Query("delete from EmergencyReport e where e.id in :ids and e.status = 'RESOLVED'")
+    int deleteResolvedByIdIn(@Param("ids") Collection<Long> ids);
 }
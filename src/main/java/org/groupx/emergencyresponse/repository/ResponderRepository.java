@@ -1,12 +1,53 @@
 package org.groupx.emergencyresponse.repository;
 
+import org.groupx.emergencyresponse.dto.ResponderDTO;
 import org.groupx.emergencyresponse.entity.Responder;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
 
 public interface ResponderRepository extends JpaRepository<Responder, Long> {
     @Query("select r from Responder r where r.availability = true")
     List<Responder> findAvailable();
+
+    // Responders written at or after the given database time
+    @Query("select r from Responder r where r.updatedAt >= :since")
+    List<Responder> findUpdatedSince(@Param("since") Date since);
+
+    // Keyset page of responders with id > afterId, projected straight into DTOs; null filters are ignored.
+    // The region is a lat/lng box (minLat null = anywhere).
+    @Query("select new org.groupx.emergencyresponse.dto.ResponderDTO(r.id, r.name, r.role, r.availability) " +
+            "from Responder r where r.id > :afterId " +
+            "and (:role is null or r.role = :role) " +
+            "and (:available is null or r.availability = :available) " +
+            "and (:minLat is null or (r.currentLat between :minLat and :maxLat " +
+            "and r.currentLng between :minLng and :maxLng)) " +
+            "order by r.id")
+    List<ResponderDTO> findPage(@Param("afterId") long afterId,
+                                @Param("role") String role,
+                                @Param("available") Boolean available,
+                                @Param("minLat") Double minLat,
+                                @Param("maxLat") Double maxLat,
+                                @Param("minLng") Double minLng,
+                                @Param("maxLng") Double maxLng,
+                                Pageable pageable);
+
+    // Compare-and-set on the row: flips an available responder to unavailable; returns 0 if someone else won
+    @Transactional
+    @Modifying
+    @Query("update Responder r set r.availability = false, r.version = r.version + 1, " +
+            "r.updatedAt = current_timestamp where r.id = :id and r.availability = true")
+    int reserve(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("update Responder r set r.availability = :available, r.version = r.version + 1, " +
+            "r.updatedAt = current_timestamp where r.id = :id")
+    int updateAvailability(@Param("id") Long id, @Param("available") boolean available);
 }
@@ -0,0 +1,443 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.entity.Assignment;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// One archive segment: resolved reports of one day (by report time) with their assignments, stored
+// column by column with each column deflated on its own, so similar values compress together.
+// File name reports-<yyyy-MM-dd>-<rows>.seg, written whole (temp file + atomic rename) and never changed; a run
+// that archives more of a day writes a merged segment with more rows under a new name.
+// Layout, big-endian:
+//   [int magic][byte version][int rows]
+//   [long minId][long maxId][long minAssignmentId][long maxAssignmentId][int bloomWords][long[] reporter bloom]
+//   [int columns] then per column [int rawLength][int deflatedLength][deflated bytes]
+// Everything before the columns is the index: opening a segment reads only that; the columns are
+// inflated when a lookup needs rows. Rows are ordered by report id.
+public final class ArchiveSegment {
+    private static final int MAGIC = 0x45525341; // "ERSA"
+    private static final byte VERSION = 1;
+    private static final String PREFIX = "reports-";
+    private static final String SUFFIX = ".seg";
+    private static final int COLUMNS = 15;
+    private static final int BLOOM_BITS_PER_ROW = 10;
+    private static final int BLOOM_HASHES = 3;
+
+    private final Path file;
+    private final LocalDate day;
+    private final int rows;
+    private final long minId;
+    private final long maxId;
+    private final long minAssignmentId;
+    private final long maxAssignmentId;
+    private final long[] bloom;
+    private final long columnsOffset;
+
+    private ArchiveSegment(Path file, LocalDate day, int rows, long minId, long maxId, long minAssignmentId,
+                           long maxAssignmentId, long[] bloom, long columnsOffset) {
+        this.file = file;
+        this.day = day;
+        this.rows = rows;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.minAssignmentId = minAssignmentId;
+        this.maxAssignmentId = maxAssignmentId;
+        this.bloom = bloom;
+        this.columnsOffset = columnsOffset;
+    }
+
+    static boolean isSegmentFile(Path p) {
+        String name = p.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    // Write reports (ascending id, all from day) and the assignment of each, if any, as a new segment in dir
+    static ArchiveSegment write(Path dir, LocalDate day, List<EmergencyReport> reports,
+                                Map<Long, Assignment> assignmentsByEmergency) throws IOException {
+        Column[] cols = new Column[COLUMNS];
+        for (int i = 0; i < COLUMNS; i++) cols[i] = new Column();
+        long[] bloom = new long[Math.max(1, (reports.size() * BLOOM_BITS_PER_ROW + 63) / 64)];
+        long minAssignment = Long.MAX_VALUE;
+        long maxAssignment = Long.MIN_VALUE;
+        long prevId = 0;
+        long prevTime = 0;
+        for (EmergencyReport r : reports) {
+            Assignment a = assignmentsByEmergency.get(r.getId());
+            long time = r.getTimestamp() == null ? 0 : r.getTimestamp().getTime();
+            cols[0].varLong(r.getId() - prevId);
+            cols[1].varLong(zigzag(time - prevTime));
+            cols[2].string(r.getType());
+            cols[3].string(r.getDescription());
+            cols[4].nullableDouble(r.getLocationLat());
+            cols[5].nullableDouble(r.getLocationLng());
+            cols[6].string(r.getStatus());
+            cols[7].string(r.getReporterId());
+            cols[8].nullableLong(r.getIntakeSeq());
+            cols[9].nullableLong(a == null ? null : a.getId());
+            cols[10].nullableLong(a == null ? null : a.getResponderId());
+            cols[11].nullableLong(a == null || a.getEtaMinutes() == null ? null : (long) a.getEtaMinutes());
+            cols[12].nullableLong(a == null || a.getAssignmentTime() == null ? null : a.getAssignmentTime().getTime());
+            cols[13].string(a == null ? null : a.getSyncStatus());
+            cols[14].nullableLong(r.getDuplicateOf());
+            prevId = r.getId();
+            prevTime = time;
+            if (r.getReporterId() != null) addToBloom(bloom, r.getReporterId());
+            if (a != null) {
+                minAssignment = Math.min(minAssignment, a.getId());
+                maxAssignment = Math.max(maxAssignment, a.getId());
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(reports.size());
+        long minId = reports.get(0).getId();
+        long maxId = reports.get(reports.size() - 1).getId();
+        out.writeLong(minId);
+        out.writeLong(maxId);
+        out.writeLong(minAssignment);
+        out.writeLong(maxAssignment);
+        out.writeInt(bloom.length);
+        for (long word : bloom) out.writeLong(word);
+        long columnsOffset = out.size();
+        out.writeInt(COLUMNS);
+        for (Column c : cols) {
+            byte[] raw = c.bytes.toByteArray();
+            byte[] packed = deflate(raw);
+            out.writeInt(raw.length);
+            out.writeInt(packed.length);
+            out.write(packed);
+        }
+        out.flush();
+
+        Path target = dir.resolve(PREFIX + day + "-" + reports.size() + SUFFIX);
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ch.write(java.nio.ByteBuffer.wrap(bytes.toByteArray()));
+            ch.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return new ArchiveSegment(target, day, reports.size(), minId, maxId, minAssignment, maxAssignment, bloom,
+                columnsOffset);
+    }
+
+    // Read the index part of an existing segment
+    static ArchiveSegment open(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new java.io.BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Not an archive segment: " + file);
+            }
+            int rows = in.readInt();
+            long minId = in.readLong();
+            long maxId = in.readLong();
+            long minAssignment = in.readLong();
+            long maxAssignment = in.readLong();
+            long[] bloom = new long[in.readInt()];
+            for (int i = 0; i < bloom.length; i++) bloom[i] = in.readLong();
+            long columnsOffset = 4 + 1 + 4 + 8 * 4 + 4 + 8L * bloom.length;
+            String name = file.getFileName().toString();
+            LocalDate day = LocalDate.parse(name.substring(PREFIX.length(), PREFIX.length() + 10));
+            return new ArchiveSegment(file, day, rows, minId, maxId, minAssignment, maxAssignment, bloom,
+                    columnsOffset);
+        }
+    }
+
+    public Path file() { return file; }
+    public LocalDate day() { return day; }
+    public int rows() { return rows; }
+    public long minId() { return minId; }
+    public long maxId() { return maxId; }
+
+    public boolean coversReport(long id) {
+        return id >= minId && id <= maxId;
+    }
+
+    public boolean coversAssignment(long id) {
+        return id >= minAssignmentId && id <= maxAssignmentId;
+    }
+
+    // False means the reporter has no report in this segment; true means it may have
+    public boolean mayContainReporter(String reporterId) {
+        long h = hash(reporterId);
+        int bits = bloom.length * 64;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (int) Long.remainderUnsigned(h + (long) i * (h >>> 32 | 1), bits);
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    // Inflate every column
+    Rows read() throws IOException {
+        try (InputStream raw = Files.newInputStream(file)) {
+            raw.skipNBytes(columnsOffset);
+            DataInputStream in = new DataInputStream(new java.io.BufferedInputStream(raw));
+            int count = in.readInt();
+            DataInputStream[] cols = new DataInputStream[count];
+            for (int i = 0; i < count; i++) {
+                int rawLength = in.readInt();
+                byte[] packed = new byte[in.readInt()];
+                in.readFully(packed);
+                cols[i] = new DataInputStream(new ByteArrayInputStream(inflate(packed, rawLength)));
+            }
+            return new Rows(rows, cols);
+        }
+    }
+
+    // Decoded columns of one segment
+    static final class Rows {
+        final long[] ids;
+        final long[] timestamps;
+        final String[] types;
+        final String[] descriptions;
+        final Double[] lats;
+        final Double[] lngs;
+        final String[] statuses;
+        final String[] reporterIds;
+        final Long[] intakeSeqs;
+        final Long[] assignmentIds;
+        final Long[] responderIds;
+        final Long[] etas;
+        final Long[] assignmentTimes;
+        final String[] syncStatuses;
+        final Long[] duplicateOfs;
+
+        private Rows(int n, DataInputStream[] c) throws IOException {
+            ids = new long[n];
+            timestamps = new long[n];
+            types = new String[n];
+            descriptions = new String[n];
+            lats = new Double[n];
+            lngs = new Double[n];
+            statuses = new String[n];
+            reporterIds = new String[n];
+            intakeSeqs = new Long[n];
+            assignmentIds = new Long[n];
+            responderIds = new Long[n];
+            etas = new Long[n];
+            assignmentTimes = new Long[n];
+            syncStatuses = new String[n];
+            duplicateOfs = new Long[n];
+            long id = 0;
+            long time = 0;
+            for (int i = 0; i < n; i++) {
+                id += readVarLong(c[0]);
+                time += unzigzag(readVarLong(c[1]));
+                ids[i] = id;
+                timestamps[i] = time;
+                types[i] = readString(c[2]);
+                descriptions[i] = readString(c[3]);
+                lats[i] = readNullableDouble(c[4]);
+                lngs[i] = readNullableDouble(c[5]);
+                statuses[i] = readString(c[6]);
+                reporterIds[i] = readString(c[7]);
+                intakeSeqs[i] = readNullableLong(c[8]);
+                assignmentIds[i] = readNullableLong(c[9]);
+                responderIds[i] = readNullableLong(c[10]);
+                etas[i] = readNullableLong(c[11]);
+                assignmentTimes[i] = readNullableLong(c[12]);
+                syncStatuses[i] = readString(c[13]);
+                // Segments written before duplicate reports were linked have 14 columns
+                duplicateOfs[i] = c.length > 14 ? readNullableLong(c[14]) : null;
+            }
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        // Row of a report id, or -1
+        int indexOf(long reportId) {
+            int i = java.util.Arrays.binarySearch(ids, reportId);
+            return i < 0 ? -1 : i;
+        }
+
+        // Row whose assignment has this id, or -1
+        int indexOfAssignment(long assignmentId) {
+            for (int i = 0; i < assignmentIds.length; i++) {
+                if (assignmentIds[i] != null && assignmentIds[i] == assignmentId) return i;
+            }
+            return -1;
+        }
+
+        EmergencyReport report(int i) {
+            EmergencyReport r = new EmergencyReport();
+            r.setId(ids[i]);
+            r.setType(types[i]);
+            r.setDescription(descriptions[i]);
+            r.setLocationLat(lats[i]);
+            r.setLocationLng(lngs[i]);
+            r.setTimestamp(new Date(timestamps[i]));
+            r.setStatus(statuses[i]);
+            r.setReporterId(reporterIds[i]);
+            r.setIntakeSeq(intakeSeqs[i]);
+            r.setDuplicateOf(duplicateOfs[i]);
+            return r;
+        }
+
+        // The row's assignment, or null if the report was never assigned
+        Assignment assignment(int i) {
+            if (assignmentIds[i] == null) return null;
+            Assignment a = new Assignment();
+            a.setId(assignmentIds[i]);
+            a.setEmergencyId(ids[i]);
+            a.setResponderId(responderIds[i]);
+            a.setEtaMinutes(etas[i] == null ? null : etas[i].intValue());
+            a.setAssignmentTime(assignmentTimes[i] == null ? null : new Date(assignmentTimes[i]));
+            a.setSyncStatus(syncStatuses[i]);
+            return a;
+        }
+    }
+
+    private static final class Column {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        void varLong(long v) {
+            while ((v & ~0x7FL) != 0) {
+                bytes.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            bytes.write((int) v);
+        }
+
+        // Length + 1 as a varint (0 = null), then UTF-8
+        void string(String s) {
+            if (s == null) {
+                varLong(0);
+                return;
+            }
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            varLong(utf8.length + 1L);
+            bytes.writeBytes(utf8);
+        }
+
+        void nullableDouble(Double d) {
+            if (d == null) {
+                bytes.write(0);
+                return;
+            }
+            bytes.write(1);
+            long bits = Double.doubleToLongBits(d);
+            for (int shift = 56; shift >= 0; shift -= 8) bytes.write((int) (bits >>> shift));
+        }
+
+        void nullableLong(Long v) {
+            if (v == null) {
+                bytes.write(0);
+                return;
+            }
+            bytes.write(1);
+            varLong(zigzag(v));
+        }
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        long len = readVarLong(in);
+        if (len == 0) return null;
+        byte[] utf8 = new byte[(int) (len - 1)];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static Double readNullableDouble(DataInputStream in) throws IOException {
+        return in.readUnsignedByte() == 0 ? null : in.readDouble();
+    }
+
+    private static Long readNullableLong(DataInputStream in) throws IOException {
+        return in.readUnsignedByte() == 0 ? null : unzigzag(readVarLong(in));
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void addToBloom(long[] bloom, String reporterId) {
+        long h = hash(reporterId);
+        int bits = bloom.length * 64;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (int) Long.remainderUnsigned(h + (long) i * (h >>> 32 | 1), bits);
+            bloom[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    // 64-bit FNV-1a with a final mix
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) out.write(buf, 0, deflater.deflate(buf));
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] packed, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(packed);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                n += inflater.inflate(raw, n, rawLength - n);
+                if (n < rawLength && inflater.needsInput()) break;
+            }
+            if (n != rawLength) throw new IOException("Truncated archive column");
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive column", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,101 +1,308 @@
 package org.groupx.emergencyresponse.service;
 
+import org.groupx.emergencyresponse.config.CacheConfig;
 import org.groupx.emergencyresponse.dto.AssignmentDTO;
 import org.groupx.emergencyresponse.entity.Assignment;
 import org.groupx.emergencyresponse.entity.EmergencyReport;
 import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.event.AssignmentCreatedEvent;
+import org.groupx.emergencyresponse.event.ReportResolvedEvent;
+import org.groupx.emergencyresponse.event.ReportUnclaimedEvent;
+import org.groupx.emergencyresponse.event.ResponderAvailabilityChangedEvent;
 import org.groupx.emergencyresponse.repository.AssignmentRepository;
 import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
 import org.groupx.emergencyresponse.repository.ResponderRepository;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Predicate;
 
 @Service
 public class AssignmentService {
+    // Candidates fetched per reservation round; doubled while all of them are taken by other threads
+    private static final int CANDIDATE_BATCH = 8;
+    private static final int MAX_CANDIDATES = 64;
+
+    // Report lifecycle used to hand reports between dispatch paths; RESOLVED once the assigned unit is
+    // back on duty
+    static final String STATUS_NEW = "NEW";
+    static final String STATUS_DISPATCHING = "DISPATCHING";
+    static final String STATUS_ASSIGNED = "ASSIGNED";
+    static final String STATUS_RESOLVED = "RESOLVED";
+    // Merged into an earlier report of the same incident (duplicateOf); resolved along with it
+    static final String STATUS_DUPLICATE = "DUPLICATE";
+
     private final AssignmentRepository assignmentRepository;
     private final ResponderRepository responderRepository;
     private final EmergencyReportRepository emergencyReportRepository;
+    private final ResponderSpatialIndex spatialIndex;
+    private final ResponderReservationService reservationService;
+    private final ResponderRoleRules roleRules;
+    private final EtaEngine etaEngine;
+    private final ApplicationEventPublisher events;
+    private final DispatchMetrics metrics;
+    private final ReportArchiveService archive;
 
     // Constructor-based dependency injection of repositories
     public AssignmentService(AssignmentRepository assignmentRepository,
                              ResponderRepository responderRepository,
-                             EmergencyReportRepository emergencyReportRepository) {
+                             EmergencyReportRepository emergencyReportRepository,
+                             ResponderSpatialIndex spatialIndex,
+                             ResponderReservationService reservationService,
+                             ResponderRoleRules roleRules,
+                             EtaEngine etaEngine,
+                             ApplicationEventPublisher events,
+                             DispatchMetrics metrics,
+                             ReportArchiveService archive) {
         this.assignmentRepository = assignmentRepository;
         this.responderRepository = responderRepository;
         this.emergencyReportRepository = emergencyReportRepository;
+        this.spatialIndex = spatialIndex;
+        this.reservationService = reservationService;
+        this.roleRules = roleRules;
+        this.etaEngine = etaEngine;
+        this.events = events;
+        this.metrics = metrics;
+        this.archive = archive;
     }
 
     // Assigns a responder to a given emergency and returns assignment details
     public AssignmentDTO assignResponder(Long emergencyId) {
+        long started = metrics.start();
+        try {
+            return dispatch(emergencyId);
+        } finally {
+            metrics.stop(DispatchMetrics.Stage.ASSIGN, started);
+        }
+    }
+
+    private AssignmentDTO dispatch(Long emergencyId) {
         // Fetch the emergency report; return null if not found
+        long t = metrics.start();
         EmergencyReport report = emergencyReportRepository.findById(emergencyId).orElse(null);
-        if (report == null) return null;
+        t = metrics.lap(DispatchMetrics.Stage.REPORT_LOOKUP, t);
+        if (report == null) {
+            metrics.outcome(DispatchMetrics.Outcome.REPORT_NOT_FOUND);
+            return null;
+        }
 
-        // Get all available responders; return null if none
-        List<Responder> available = responderRepository.findAvailable();
-        if (available.isEmpty()) return null;
+        // Claim the report so concurrent dispatch paths cannot assign it twice;
+        // if it was already handled, hand back the existing assignment. Automatic dispatch never sees
+        // duplicates, so one arriving here is a dispatcher overruling the merge: it becomes an incident
+        // of its own
+        String from = STATUS_DUPLICATE.equals(report.getStatus()) ? STATUS_DUPLICATE : STATUS_NEW;
+        int claimed = emergencyReportRepository.transitionStatus(emergencyId, from, STATUS_DISPATCHING);
+        metrics.stop(DispatchMetrics.Stage.REPORT_CLAIM, t);
+        if (claimed == 0) {
+            metrics.outcome(DispatchMetrics.Outcome.ALREADY_ASSIGNED);
+            return getByEmergencyId(emergencyId);
+        }
 
-        // Pick the first available responder
-        Responder chosen = available.get(0);
+        Reservation reserved;
+        try {
+            reserved = reserve(report);
+        } catch (RuntimeException e) {
+            // A failed search or reservation (e.g. during a database stall) must not strand the report in
+            // DISPATCHING, where no dispatch path would pick it up again
+            try {
+                unclaim(report);
+            } catch (RuntimeException revert) {
+                e.addSuppressed(revert);
+            }
+            throw e;
+        }
+        if (reserved == null) {
+            // Nobody could be reserved; put the report back so a later dispatch can retry it
+            unclaim(report);
+            metrics.outcome(DispatchMetrics.Outcome.NO_RESPONDER);
+            return null;
+        }
+        t = metrics.start();
+        // createAssignment releases the unit and reverts the report itself if the write fails
+        AssignmentDTO assignment = createAssignment(report, reserved.responderId(), reserved.role(), reserved.eta());
+        metrics.stop(DispatchMetrics.Stage.ASSIGNMENT_SAVE, t);
+        metrics.outcome(DispatchMetrics.Outcome.ASSIGNED);
+        return assignment;
+    }
 
-        // Calculate estimated time of arrival (ETA) in minutes
-        int eta = calculateETA(chosen.getCurrentLat(), chosen.getCurrentLng(),
-                report.getLocationLat(), report.getLocationLng());
+    // Reserve the best free responder for a claimed (DISPATCHING) report; null if none could be reserved
+    private Reservation reserve(EmergencyReport report) {
+        long t;
+        // Only responders whose role suits the emergency type are considered
+        List<String> roles = roleRules.rolesFor(report.getType());
+        Long responderId = null;
+        String role = null;
+        int eta = 0;
+        if (report.getLocationLat() != null && report.getLocationLng() != null) {
+            // Take the nearest available responders of those roles, rank them by travel time and
+            // reserve the fastest one no other dispatch holds
+            double eLat = report.getLocationLat();
+            double eLng = report.getLocationLng();
+            for (int k = CANDIDATE_BATCH; responderId == null && k <= MAX_CANDIDATES; k *= 2) {
+                t = metrics.start();
+                List<ResponderSpatialIndex.Nearby> nearest = spatialIndex.kNearest(roles, eLat, eLng, k);
+                t = metrics.lap(DispatchMetrics.Stage.CANDIDATE_SEARCH, t);
+                metrics.candidates(nearest.size());
+                if (nearest.isEmpty()) break; // nobody is available
+                int[] etas = scoreCandidates(nearest, eLat, eLng);
+                t = metrics.lap(DispatchMetrics.Stage.ETA, t);
+                Integer[] order = new Integer[nearest.size()];
+                for (int i = 0; i < order.length; i++) order[i] = i;
+                Arrays.sort(order, Comparator.comparingInt(i -> etas[i]));
+                for (int i : order) {
+                    ResponderSpatialIndex.Nearby candidate = nearest.get(i);
+                    if (!reservationService.tryReserve(candidate.responderId())) continue;
+                    responderId = candidate.responderId();
+                    role = candidate.role();
+                    eta = etas[i];
+                    break;
+                }
+                metrics.stop(DispatchMetrics.Stage.RESERVE, t);
+            }
+        } else {
+            // Without a location there is nothing to rank on, so fall back to the first reservable responder
+            t = metrics.start();
+            List<Responder> available = responderRepository.findAvailable();
+            t = metrics.lap(DispatchMetrics.Stage.CANDIDATE_SEARCH, t);
+            metrics.candidates(available.size());
+            for (Responder candidate : available) {
+                if (!roleRules.allows(roles, candidate.getRole())) continue;
+                if (!reservationService.tryReserve(candidate.getId())) continue;
+                responderId = candidate.getId();
+                role = candidate.getRole();
+                eta = calculateETA(candidate.getCurrentLat(), candidate.getCurrentLng(),
+                        report.getLocationLat(), report.getLocationLng());
+                break;
+            }
+            metrics.stop(DispatchMetrics.Stage.RESERVE, t);
+        }
+        return responderId == null ? null : new Reservation(responderId, role, eta);
+    }
 
+    // Persist the assignment of an already reserved responder to a claimed (DISPATCHING) report
+    AssignmentDTO createAssignment(EmergencyReport report, long responderId, String role, int eta) {
+        Long emergencyId = report.getId();
         // Create and save a new assignment record
         Assignment a = new Assignment();
         a.setEmergencyId(emergencyId);
-        a.setResponderId(chosen.getId());
+        a.setResponderId(responderId);
         a.setEtaMinutes(eta);
         a.setAssignmentTime(new Date());
         a.setSyncStatus("PENDING"); // mark as pending for sync purposes
-        Assignment saved = assignmentRepository.save(a);
+        Assignment saved;
+        try {
+            saved = assignmentRepository.save(a);
+        } catch (RuntimeException e) {
+            // Don't strand the unit or the report if the write fails
+            reservationService.release(responderId);
+            unclaim(report);
+            throw e;
+        }
+        emergencyReportRepository.transitionStatus(emergencyId, STATUS_DISPATCHING, STATUS_ASSIGNED);
+        events.publishEvent(new AssignmentCreatedEvent(saved.getId(), emergencyId, responderId, role, eta,
+                report.getReporterId(), report.getType(), report.getLocationLat(), report.getLocationLng()));
 
         // Map saved assignment to DTO for returning
-        AssignmentDTO dto = new AssignmentDTO();
-        dto.id = saved.getId();
-        dto.emergencyId = saved.getEmergencyId();
-        dto.responderId = saved.getResponderId();
-        dto.etaMinutes = saved.getEtaMinutes() == null ? 0 : saved.getEtaMinutes();
-        return dto;
+        return AssignmentDTO.from(saved);
     }
 
-    // Retrieve an assignment by its ID
+    // Retrieve an assignment by its ID, from the archive once it has been moved there.
+    // AssignmentTrackingService evicts it when the ETA or responder changes, but only on its own node:
+    // elsewhere in a cluster a cached copy may be stale for up to the cache TTL (a few seconds in the
+    // cluster profile)
+    @Cacheable(cacheNames = CacheConfig.ASSIGNMENTS, unless = "#result == null")
     public AssignmentDTO getAssignment(Long id) {
-        return assignmentRepository.findById(id).map(a -> {
-            AssignmentDTO dto = new AssignmentDTO();
-            dto.id = a.getId();
-            dto.emergencyId = a.getEmergencyId();
-            dto.responderId = a.getResponderId();
-            dto.etaMinutes = a.getEtaMinutes() == null ? 0 : a.getEtaMinutes();
-            return dto;
-        }).orElse(null);
+        Assignment a = assignmentRepository.findById(id).orElseGet(() -> archive.findAssignment(id));
+        return a == null ? null : AssignmentDTO.from(a);
     }
 
-    // Retrieve an assignment by the associated emergency ID
+    // Retrieve an assignment by the associated emergency ID; misses are not cached since one may be created
+    // later. Stale for up to the cache TTL on other cluster nodes, as getAssignment
+    @Cacheable(cacheNames = CacheConfig.ASSIGNMENTS_BY_EMERGENCY, unless = "#result == null")
     public AssignmentDTO getByEmergencyId(Long emergencyId) {
-        return assignmentRepository.findByEmergencyId(emergencyId).map(a -> {
-            AssignmentDTO dto = new AssignmentDTO();
-            dto.id = a.getId();
-            dto.emergencyId = a.getEmergencyId();
-            dto.responderId = a.getResponderId();
-            dto.etaMinutes = a.getEtaMinutes() == null ? 0 : a.getEtaMinutes();
-            return dto;
-        }).orElse(null);
+        Assignment a = assignmentRepository.findByEmergencyId(emergencyId)
+                .orElseGet(() -> archive.findAssignmentByEmergencyId(emergencyId));
+        return a == null ? null : AssignmentDTO.from(a);
+    }
+
+    // A unit back on duty has finished its job, so the report it was sent to is resolved
+    @EventListener
+    public void onResponderAvailabilityChanged(ResponderAvailabilityChangedEvent e) {
+        if (!e.available()) return;
+        for (EmergencyReport r : emergencyReportRepository.findAssignedTo(e.responderId())) {
+            if (emergencyReportRepository.transitionStatus(r.getId(), STATUS_ASSIGNED, STATUS_RESOLVED) == 0) continue;
+            events.publishEvent(new ReportResolvedEvent(r.getId(), e.responderId(), r.getReporterId(),
+                    r.getLocationLat(), r.getLocationLng()));
+            // Reports merged into this one are closed with it
+            List<EmergencyReport> merged =
+                    emergencyReportRepository.findByDuplicateOfAndStatus(r.getId(), STATUS_DUPLICATE);
+            for (EmergencyReport d : merged) {
+                if (emergencyReportRepository.transitionStatus(d.getId(), STATUS_DUPLICATE, STATUS_RESOLVED) == 0) {
+                    continue;
+                }
+                events.publishEvent(new ReportResolvedEvent(d.getId(), e.responderId(), d.getReporterId(),
+                        d.getLocationLat(), d.getLocationLng()));
+            }
+        }
+    }
+
+    // Hand reports left in DISPATCHING by a dispatch that died with the previous process back to the NEW
+    // backlog; owned limits it to the regions this node dispatches. Returns how many were released
+    public int releaseStaleClaims(Predicate<EmergencyReport> owned) {
+        int released = 0;
+        for (EmergencyReport r : emergencyReportRepository.findByStatusOrderByTimestampAsc(STATUS_DISPATCHING,
+                Pageable.unpaged())) {
+            if (!owned.test(r)) continue;
+            released += unclaim(r);
+        }
+        return released;
+    }
+
+    // Hand a claimed (DISPATCHING) report back to the NEW backlog. The dispatch queue drops a report it
+    // finds claimed by another path, so it is told to take the report back; returns 1 if it was claimed
+    int unclaim(EmergencyReport report) {
+        int released = emergencyReportRepository.transitionStatus(report.getId(), STATUS_DISPATCHING, STATUS_NEW);
+        if (released == 1) {
+            long timestamp = report.getTimestamp() == null ? System.currentTimeMillis() : report.getTimestamp().getTime();
+            events.publishEvent(new ReportUnclaimedEvent(report.getId(), report.getType(), report.getLocationLat(),
+                    report.getLocationLng(), timestamp));
+        }
+        return released;
+    }
+
+    // A responder held for a report, with its role and ETA in minutes
+    private record Reservation(long responderId, String role, int eta) {}
+
+    // ETA in minutes from each candidate to the incident, scored in one many-to-one pass
+    int[] scoreCandidates(List<ResponderSpatialIndex.Nearby> candidates, double eLat, double eLng) {
+        double[] lats = new double[candidates.size()];
+        double[] lngs = new double[candidates.size()];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = candidates.get(i).lat();
+            lngs[i] = candidates.get(i).lng();
+        }
+        double[] minutes = etaEngine.etaMinutesToTarget(lats, lngs, eLat, eLng);
+        int[] etas = new int[minutes.length];
+        for (int i = 0; i < etas.length; i++) etas[i] = roundEta(minutes[i]);
+        return etas;
     }
 
     // Calculate ETA in minutes based on responder and emergency coordinates
-    private int calculateETA(Double rLat, Double rLng, Double eLat, Double eLng) {
+    public int calculateETA(Double rLat, Double rLng, Double eLat, Double eLng) {
         if (rLat == null || rLng == null || eLat == null || eLng == null) return 15; // default ETA
-        double dx = rLat - eLat;
-        double dy = rLng - eLng;
-        double distance = Math.sqrt(dx*dx + dy*dy) * 111.0; // approximate degrees to km
-        double minutes = (distance / 40.0) * 60.0; // assume average speed 40 km/h
-        int eta = (int)Math.round(minutes);
+        return roundEta(etaEngine.etaMinutes(rLat, rLng, eLat, eLng));
+    }
+
+    private static int roundEta(double minutes) {
+        int eta = (int) Math.round(minutes);
         if (eta < 3) eta = 3; // minimum ETA of 3 minutes
         return eta;
     }
 }
-
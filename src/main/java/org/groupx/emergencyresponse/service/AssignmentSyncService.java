@@ -0,0 +1,147 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Background job that validates the emergencyId of PENDING assignments against the report store and
+// marks them SYNCED or ORPHANED. Rows are claimed in batches so several workers (or nodes) never
+// validate the same row; after a failed run the worker backs off exponentially.
+@Service
+public class AssignmentSyncService {
+    private static final Logger log = LoggerFactory.getLogger(AssignmentSyncService.class);
+
+    static final String SYNC_PENDING = "PENDING";
+    static final String SYNC_SYNCED = "SYNCED";
+    static final String SYNC_ORPHANED = "ORPHANED";
+
+    private final AssignmentRepository assignmentRepository;
+    private final EmergencyReportRepository emergencyReportRepository;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final long claimTimeoutMs;
+    // Unique per worker instance so claims from another node or a crashed run are told apart
+    private final String workerId = UUID.randomUUID().toString();
+
+    private final Counter synced;
+    private final Counter orphaned;
+    private final Counter failures;
+    private final Timer batchTimer;
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    private int consecutiveFailures;
+    private long retryAt;
+
+    public AssignmentSyncService(AssignmentRepository assignmentRepository,
+                                 EmergencyReportRepository emergencyReportRepository,
+                                 MeterRegistry registry,
+                                 @Value("${assignment.sync.batch-size:200}") int batchSize,
+                                 @Value("${assignment.sync.max-batches-per-run:50}") int maxBatchesPerRun,
+                                 @Value("${assignment.sync.backoff-base-ms:1000}") long baseBackoffMs,
+                                 @Value("${assignment.sync.backoff-max-ms:60000}") long maxBackoffMs,
+                                 @Value("${assignment.sync.claim-timeout-ms:60000}") long claimTimeoutMs) {
+        this.assignmentRepository = assignmentRepository;
+        this.emergencyReportRepository = emergencyReportRepository;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.claimTimeoutMs = claimTimeoutMs;
+        this.synced = Counter.builder("assignment.sync.processed").tag("outcome", "synced").register(registry);
+        this.orphaned = Counter.builder("assignment.sync.processed").tag("outcome", "orphaned").register(registry);
+        this.failures = Counter.builder("assignment.sync.failures").register(registry);
+        this.batchTimer = Timer.builder("assignment.sync.batch").register(registry);
+        Gauge.builder("assignment.sync.backlog", backlog, AtomicLong::get)
+                .description("Assignments waiting for validation").register(registry);
+        Gauge.builder("assignment.sync.lag", lagSeconds, AtomicLong::get)
+                .baseUnit("seconds").description("Age of the oldest unsynced assignment").register(registry);
+    }
+
+    // Periodic entry point; drains full batches until the backlog is empty or the per-run cap is hit
+    @Scheduled(fixedDelayString = "${assignment.sync.interval-ms:1000}")
+    public synchronized void syncAssignmentStatus() {
+        long now = System.currentTimeMillis();
+        if (now < retryAt) return; // backing off after a failure
+        try {
+            // Recover rows left claimed by a worker that died mid-batch
+            assignmentRepository.releaseClaims(workerId, new Date(now - claimTimeoutMs));
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                if (syncBatch() < batchSize) break;
+            }
+            consecutiveFailures = 0;
+        } catch (RuntimeException e) {
+            failures.increment();
+            consecutiveFailures++;
+            long delay = Math.min(maxBackoffMs, baseBackoffMs << Math.min(consecutiveFailures - 1, 20));
+            retryAt = System.currentTimeMillis() + delay;
+            log.warn("Assignment sync failed ({} in a row), retrying in {} ms", consecutiveFailures, delay, e);
+            try {
+                assignmentRepository.releaseClaims(workerId, new Date(0));
+            } catch (RuntimeException ignored) {
+                // The claim timeout will recover them if the database is still unreachable
+            }
+        } finally {
+            refreshGauges();
+        }
+    }
+
+    // Claim, validate and settle one batch; returns how many rows were claimed
+    int syncBatch() {
+        List<Long> ids = assignmentRepository.findIdsBySyncStatus(SYNC_PENDING, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) return 0;
+        return batchTimer.record(() -> {
+            assignmentRepository.claimForSync(ids, workerId, new Date());
+            List<Object[]> claimed = assignmentRepository.findClaimed(workerId);
+            if (claimed.isEmpty()) return 0; // another worker took all of them
+
+            // One query validates every referenced emergency in the batch
+            Set<Long> emergencyIds = new HashSet<>();
+            for (Object[] row : claimed) emergencyIds.add((Long) row[1]);
+            Set<Long> existing = new HashSet<>(emergencyReportRepository.findExistingIds(emergencyIds));
+
+            List<Long> ok = new ArrayList<>();
+            List<Long> missing = new ArrayList<>();
+            for (Object[] row : claimed) {
+                (existing.contains((Long) row[1]) ? ok : missing).add((Long) row[0]);
+            }
+            if (!ok.isEmpty()) synced.increment(assignmentRepository.completeSync(ok, workerId, SYNC_SYNCED));
+            if (!missing.isEmpty()) orphaned.increment(assignmentRepository.completeSync(missing, workerId, SYNC_ORPHANED));
+            return claimed.size();
+        });
+    }
+
+    // When the worker resumes after a failure (0 if it never failed)
+    synchronized long backoffUntil() {
+        return retryAt;
+    }
+
+    private void refreshGauges() {
+        try {
+            backlog.set(assignmentRepository.countBySyncStatus(SYNC_PENDING));
+            Date oldest = assignmentRepository.findOldestUnsyncedTime();
+            lagSeconds.set(oldest == null ? 0 : (System.currentTimeMillis() - oldest.getTime()) / 1000);
+        } catch (RuntimeException e) {
+            // Keep the last values; the failure itself is already counted
+        }
+    }
+}
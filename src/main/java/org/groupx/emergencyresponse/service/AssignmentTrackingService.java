@@ -0,0 +1,309 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.groupx.emergencyresponse.config.CacheConfig;
+import org.groupx.emergencyresponse.entity.Assignment;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.event.AssignmentCreatedEvent;
+import org.groupx.emergencyresponse.event.AssignmentReassignedEvent;
+import org.groupx.emergencyresponse.event.EtaUpdatedEvent;
+import org.groupx.emergencyresponse.event.ResponderMovedEvent;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Keeps open assignments current while their responders are on the way. Each open assignment is indexed
+// by the responder driving it, so a location ping looks up just that unit's job: its ETA is recomputed,
+// an eta-updated event is pushed when it changes, and the new value is written back in periodic batches.
+// With dispatch.tracking.reassign=true the same ping also starts a check, on an executor of its own so
+// its database writes never hold up location ingest, whether a free unit of a suitable role would now
+// arrive at least min-improvement-minutes sooner; if so the job is handed to it and the first unit put
+// back on duty. Work is per ping, never a scan of all open assignments.
+// An assignment is open until its responder is back on duty. In cluster mode a node only tracks the
+// assignments it made, and after a restart the open ones in the regions it owns.
+@Service
+public class AssignmentTrackingService {
+    private static final Logger log = LoggerFactory.getLogger(AssignmentTrackingService.class);
+    private static final String UPDATE_ETA_SQL = "update assignment set eta_minutes = ? where id = ?";
+    private static final int CANDIDATES = 8;
+
+    private final AssignmentRepository assignmentRepository;
+    private final EmergencyReportRepository emergencyReportRepository;
+    private final AssignmentService assignmentService;
+    private final ClusterService clusterService;
+    private final ResponderSpatialIndex spatialIndex;
+    private final ResponderReservationService reservationService;
+    private final ResponderRoleRules roleRules;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher events;
+    private final Counter reassigned;
+    private final boolean reassign;
+    private final int minImprovementMinutes;
+    private final long checkIntervalMs;
+
+    // responderId -> the open assignment that unit is on
+    private final ConcurrentHashMap<Long, Tracked> byResponder = new ConcurrentHashMap<>();
+    // assignmentId -> ETA not yet written to the database
+    private final ConcurrentHashMap<Long, EtaWrite> unwritten = new ConcurrentHashMap<>();
+    // Reassignment checks; at most one per job is pending at a time
+    private final ExecutorService checks = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger pendingChecks = new AtomicInteger();
+
+    public AssignmentTrackingService(AssignmentRepository assignmentRepository,
+                                     EmergencyReportRepository emergencyReportRepository,
+                                     AssignmentService assignmentService,
+                                     ClusterService clusterService,
+                                     ResponderSpatialIndex spatialIndex,
+                                     ResponderReservationService reservationService,
+                                     ResponderRoleRules roleRules,
+                                     JdbcTemplate jdbcTemplate,
+                                     CacheManager cacheManager,
+                                     ApplicationEventPublisher events,
+                                     MeterRegistry registry,
+                                     @Value("${dispatch.tracking.reassign:false}") boolean reassign,
+                                     @Value("${dispatch.tracking.min-improvement-minutes:5}") int minImprovementMinutes,
+                                     @Value("${dispatch.tracking.check-interval-ms:10000}") long checkIntervalMs) {
+        this.assignmentRepository = assignmentRepository;
+        this.emergencyReportRepository = emergencyReportRepository;
+        this.assignmentService = assignmentService;
+        this.clusterService = clusterService;
+        this.spatialIndex = spatialIndex;
+        this.reservationService = reservationService;
+        this.roleRules = roleRules;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.events = events;
+        this.reassigned = Counter.builder("dispatch.reassigned").register(registry);
+        this.reassign = reassign;
+        this.minImprovementMinutes = minImprovementMinutes;
+        this.checkIntervalMs = checkIntervalMs;
+    }
+
+    // Pick up the jobs that were open when the application stopped; other nodes pick up theirs
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Assignment> open = assignmentRepository.findOpen();
+        if (open.isEmpty()) return;
+        Map<Long, EmergencyReport> reports = emergencyReportRepository
+                .findAllById(open.stream().map(Assignment::getEmergencyId).toList()).stream()
+                .collect(Collectors.toMap(EmergencyReport::getId, Function.identity()));
+        for (Assignment a : open) {
+            EmergencyReport r = reports.get(a.getEmergencyId());
+            if (r == null || r.getLocationLat() == null || r.getLocationLng() == null) continue;
+            if (!clusterService.owns(r.getLocationLat(), r.getLocationLng())) continue;
+            int eta = a.getEtaMinutes() == null ? 0 : a.getEtaMinutes();
+            byResponder.putIfAbsent(a.getResponderId(), new Tracked(a.getId(), r.getId(), a.getResponderId(),
+                    spatialIndex.roleOf(a.getResponderId()), eta, r.getReporterId(), r.getType(),
+                    r.getLocationLat(), r.getLocationLng()));
+        }
+        log.info("Tracking {} open assignments", byResponder.size());
+    }
+
+    @EventListener
+    public void onAssignmentCreated(AssignmentCreatedEvent e) {
+        // Without an incident location there is no ETA to refresh
+        if (e.lat() == null || e.lng() == null) return;
+        byResponder.put(e.responderId(), new Tracked(e.assignmentId(), e.emergencyId(), e.responderId(), e.role(),
+                e.etaMinutes(), e.reporterId(), e.reportType(), e.lat(), e.lng()));
+    }
+
+    @EventListener
+    public void onResponderMoved(ResponderMovedEvent e) {
+        Tracked t = byResponder.get(e.responderId());
+        if (t == null || e.lat() == null || e.lng() == null) return;
+        if (isOnDuty(e.responderId())) {
+            // The unit has finished its job
+            byResponder.remove(e.responderId(), t);
+            return;
+        }
+        synchronized (t) {
+            // Handed to another unit since the lookup
+            if (t.responderId != e.responderId()) return;
+            int eta = assignmentService.calculateETA(e.lat(), e.lng(), t.lat, t.lng);
+            if (eta != t.eta) {
+                t.eta = eta;
+                unwritten.put(t.assignmentId, new EtaWrite(eta, t.emergencyId));
+                events.publishEvent(new EtaUpdatedEvent(t.assignmentId, t.emergencyId, t.responderId, t.role, eta,
+                        t.reporterId, t.lat, t.lng));
+            }
+            long now = System.currentTimeMillis();
+            if (reassign && !t.checking && now - t.lastCheck >= checkIntervalMs) {
+                t.lastCheck = now;
+                t.checking = true;
+                pendingChecks.incrementAndGet();
+                checks.execute(() -> check(t));
+            }
+        }
+    }
+
+    private void check(Tracked t) {
+        try {
+            tryReassign(t);
+        } catch (RuntimeException e) {
+            log.warn("Reassignment check of assignment {} failed", t.assignmentId, e);
+        } finally {
+            synchronized (t) {
+                t.checking = false;
+            }
+            pendingChecks.decrementAndGet();
+        }
+    }
+
+    // Hand the job to the free unit with the best ETA if it beats the current one by enough. The monitor
+    // of t is held only to read and update its fields, never across a database call, so pings for the
+    // unit keep refreshing its ETA meanwhile; the reassign update only succeeds while the row still
+    // names the unit read here
+    private void tryReassign(Tracked t) {
+        long previous;
+        int current;
+        synchronized (t) {
+            previous = t.responderId;
+            current = t.eta;
+        }
+        List<ResponderSpatialIndex.Nearby> nearest = spatialIndex.kNearest(roleRules.rolesFor(t.type),
+                t.lat, t.lng, CANDIDATES);
+        if (nearest.isEmpty()) return;
+        int[] etas = assignmentService.scoreCandidates(nearest, t.lat, t.lng);
+        Integer[] order = new Integer[etas.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> etas[i]));
+        for (int i : order) {
+            if (current - etas[i] < minImprovementMinutes) return;
+            ResponderSpatialIndex.Nearby candidate = nearest.get(i);
+            if (!reservationService.tryReserve(candidate.responderId())) continue;
+            int updated;
+            try {
+                updated = assignmentRepository.reassign(t.assignmentId, previous, candidate.responderId(), etas[i]);
+            } catch (RuntimeException e) {
+                reservationService.release(candidate.responderId());
+                throw e;
+            }
+            if (updated == 0) {
+                // The row no longer belongs to this unit; leave it alone
+                reservationService.release(candidate.responderId());
+                byResponder.remove(previous, t);
+                return;
+            }
+            synchronized (t) {
+                t.responderId = candidate.responderId();
+                t.role = candidate.role();
+                t.eta = etas[i];
+                // Supersedes any older ETA still waiting to be written, including one from a ping of the
+                // first unit during the update
+                unwritten.put(t.assignmentId, new EtaWrite(t.eta, t.emergencyId));
+            }
+            byResponder.put(candidate.responderId(), t);
+            byResponder.remove(previous, t);
+            evict(t.assignmentId, t.emergencyId);
+            reassigned.increment();
+            events.publishEvent(new AssignmentReassignedEvent(t.assignmentId, t.emergencyId, previous,
+                    candidate.responderId(), candidate.role(), etas[i], t.reporterId, t.lat, t.lng));
+            // Only after the handover is announced, so listeners don't read the release as the job ending
+            reservationService.release(previous);
+            return;
+        }
+    }
+
+    // Write refreshed ETAs in one JDBC batch; values superseded during the write stay queued
+    @Scheduled(fixedDelayString = "${dispatch.tracking.flush-interval-ms:1000}")
+    public void flush() {
+        if (unwritten.isEmpty()) return;
+        List<Map.Entry<Long, EtaWrite>> batch = new ArrayList<>(unwritten.size());
+        for (Map.Entry<Long, EtaWrite> e : unwritten.entrySet()) batch.add(Map.entry(e.getKey(), e.getValue()));
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (Map.Entry<Long, EtaWrite> e : batch) args.add(new Object[]{e.getValue().eta(), e.getKey()});
+        jdbcTemplate.batchUpdate(UPDATE_ETA_SQL, args);
+        for (Map.Entry<Long, EtaWrite> e : batch) {
+            unwritten.remove(e.getKey(), e.getValue());
+            evict(e.getKey(), e.getValue().emergencyId());
+        }
+    }
+
+    // Drop jobs whose unit went back on duty without sending another ping
+    @Scheduled(fixedDelayString = "${dispatch.tracking.sweep-interval-ms:60000}")
+    public void sweep() {
+        byResponder.entrySet().removeIf(e -> isOnDuty(e.getKey()));
+    }
+
+    public int trackedCount() {
+        return byResponder.size();
+    }
+
+    // Reassignment checks started but not finished
+    int pendingChecks() {
+        return pendingChecks.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checks.shutdownNow();
+    }
+
+    private boolean isOnDuty(long responderId) {
+        ResponderSpatialIndex.LiveState live = spatialIndex.liveState(responderId);
+        return live == null || live.available();
+    }
+
+    private void evict(long assignmentId, long emergencyId) {
+        Cache byId = cacheManager.getCache(CacheConfig.ASSIGNMENTS);
+        if (byId != null) byId.evict(assignmentId);
+        Cache byEmergency = cacheManager.getCache(CacheConfig.ASSIGNMENTS_BY_EMERGENCY);
+        if (byEmergency != null) byEmergency.evict(emergencyId);
+    }
+
+    private record EtaWrite(int eta, long emergencyId) {}
+
+    private static final class Tracked {
+        final long assignmentId;
+        final long emergencyId;
+        final String reporterId;
+        final String type;
+        final double lat;
+        final double lng;
+        // Changed under the Tracked monitor; responderId is also read without it
+        volatile long responderId;
+        String role;
+        int eta;
+        long lastCheck;
+        // A reassignment check is pending
+        boolean checking;
+
+        Tracked(long assignmentId, long emergencyId, long responderId, String role, int eta, String reporterId,
+                String type, double lat, double lng) {
+            this.assignmentId = assignmentId;
+            this.emergencyId = emergencyId;
+            this.responderId = responderId;
+            this.role = role;
+            this.eta = eta;
+            this.reporterId = reporterId;
+            this.type = type;
+            this.lat = lat;
+            this.lng = lng;
+        }
+    }
+}
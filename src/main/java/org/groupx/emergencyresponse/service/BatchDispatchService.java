@@ -0,0 +1,201 @@
+package org.groupx.emergencyresponse.service;
+
+import jakarta.annotation.PreDestroy;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Surge mode: collects NEW reports over a short window and matches them to responders
+// jointly (minimum total ETA) instead of greedily one report at a time
+@Service
+public class BatchDispatchService {
+    private static final Logger log = LoggerFactory.getLogger(BatchDispatchService.class);
+
+    private final EmergencyReportRepository emergencyReportRepository;
+    private final AssignmentService assignmentService;
+    private final ResponderSpatialIndex spatialIndex;
+    private final ResponderReservationService reservationService;
+    private final ResponderRoleRules roleRules;
+    private final ClusterService clusterService;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final int candidatesPerReport;
+    private final int exactLimit;
+    private final long solveBudgetNanos;
+    private final ForkJoinPool pool;
+
+    public BatchDispatchService(EmergencyReportRepository emergencyReportRepository,
+                                AssignmentService assignmentService,
+                                ResponderSpatialIndex spatialIndex,
+                                ResponderReservationService reservationService,
+                                ResponderRoleRules roleRules,
+                                ClusterService clusterService,
+                                @Value("${dispatch.batch.enabled:false}") boolean enabled,
+                                @Value("${dispatch.batch.max-reports:500}") int maxBatch,
+                                @Value("${dispatch.batch.candidates-per-report:8}") int candidatesPerReport,
+                                @Value("${dispatch.batch.exact-limit:400}") int exactLimit,
+                                @Value("${dispatch.batch.solve-budget-ms:200}") long solveBudgetMs,
+                                @Value("${dispatch.batch.parallelism:0}") int parallelism) {
+        this.emergencyReportRepository = emergencyReportRepository;
+        this.assignmentService = assignmentService;
+        this.spatialIndex = spatialIndex;
+        this.reservationService = reservationService;
+        this.roleRules = roleRules;
+        this.clusterService = clusterService;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.candidatesPerReport = candidatesPerReport;
+        this.exactLimit = exactLimit;
+        this.solveBudgetNanos = TimeUnit.MILLISECONDS.toNanos(solveBudgetMs);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Periodic window; only active when dispatch.batch.enabled=true
+    @Scheduled(fixedDelayString = "${dispatch.batch.window-ms:2000}")
+    public void scheduledRun() {
+        if (!enabled) return;
+        BatchResult result = dispatchPending();
+        if (result.reports() > 0) {
+            log.info("Batch dispatch: {} reports, {} assigned, total ETA {} min, {} solver, {} ms",
+                    result.reports(), result.assigned(), result.totalEtaMinutes(),
+                    result.solver(), result.elapsedMillis());
+        }
+    }
+
+    // Claim the current NEW backlog, solve the matching and persist the assignments
+    public BatchResult dispatchPending() {
+        long started = System.nanoTime();
+        List<EmergencyReport> reports = claimBacklog();
+        if (reports.isEmpty()) return new BatchResult(0, 0, 0, "none", 0);
+        try {
+            return solve(reports, started);
+        } catch (RuntimeException e) {
+            // Hand every report that did not get an assignment back to the NEW backlog
+            for (EmergencyReport r : reports) assignmentService.unclaim(r);
+            throw e;
+        }
+    }
+
+    private BatchResult solve(List<EmergencyReport> reports, long started) {
+        // Candidate columns: the union of each report's nearest available responders of a matching role;
+        // a responder that is not a candidate for a report keeps an infinite cost in that report's row
+        List<List<ResponderSpatialIndex.Nearby>> nearest = new ArrayList<>(reports.size());
+        Map<Long, Integer> columnOf = new HashMap<>();
+        List<ResponderSpatialIndex.Nearby> columns = new ArrayList<>();
+        for (EmergencyReport r : reports) {
+            List<ResponderSpatialIndex.Nearby> near = spatialIndex.kNearest(roleRules.rolesFor(r.getType()),
+                    r.getLocationLat(), r.getLocationLng(), candidatesPerReport);
+            nearest.add(near);
+            for (ResponderSpatialIndex.Nearby n : near) {
+                if (columnOf.putIfAbsent(n.responderId(), columns.size()) == null) columns.add(n);
+            }
+        }
+
+        // Fill the cost matrix (ETA minutes) row by row on the fork-join pool
+        int rows = reports.size();
+        int cols = columns.size();
+        double[][] cost = new double[rows][];
+        runOnPool(() -> IntStream.range(0, rows).parallel().forEach(i -> {
+            double[] row = new double[cols];
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+            EmergencyReport r = reports.get(i);
+            List<ResponderSpatialIndex.Nearby> near = nearest.get(i);
+            // One many-to-one ETA pass per report covers all of its candidates
+            int[] etas = assignmentService.scoreCandidates(near, r.getLocationLat(), r.getLocationLng());
+            for (int c = 0; c < etas.length; c++) {
+                row[columnOf.get(near.get(c).responderId())] = etas[c];
+            }
+            cost[i] = row;
+        }));
+
+        // Exact solve within the time budget, otherwise fall back to greedy
+        String solver = "hungarian";
+        int[] match = null;
+        if (rows <= exactLimit) {
+            long deadline = started + solveBudgetNanos;
+            match = runOnPool(() -> DispatchMatcher.hungarian(cost, cols, deadline));
+        }
+        if (match == null) {
+            solver = "greedy";
+            match = runOnPool(() -> DispatchMatcher.greedy(cost, cols));
+        }
+
+        int assigned = 0;
+        long totalEta = 0;
+        for (int i = 0; i < rows; i++) {
+            EmergencyReport report = reports.get(i);
+            Long reportId = report.getId();
+            int j = match[i];
+            long responderId = j >= 0 ? columns.get(j).responderId() : -1;
+            // A single-report dispatch may have taken the unit meanwhile; leave the report for the next window
+            if (j < 0 || !reservationService.tryReserve(responderId)) {
+                assignmentService.unclaim(report);
+                continue;
+            }
+            int eta = (int) cost[i][j];
+            assignmentService.createAssignment(report, responderId, columns.get(j).role(), eta);
+            assigned++;
+            totalEta += eta;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        return new BatchResult(rows, assigned, totalEta, solver, elapsedMillis);
+    }
+
+    // Oldest NEW reports with a location in this node's regions, each claimed so no other dispatch path
+    // assigns it meanwhile
+    private List<EmergencyReport> claimBacklog() {
+        List<EmergencyReport> claimed = new ArrayList<>();
+        for (EmergencyReport r : emergencyReportRepository.findByStatusOrderByTimestampAsc(
+                AssignmentService.STATUS_NEW, PageRequest.of(0, maxBatch))) {
+            // Unlocated reports cannot be scored; they stay NEW for the single-report path
+            if (r.getLocationLat() == null || r.getLocationLng() == null) continue;
+            if (!clusterService.owns(r.getLocationLat(), r.getLocationLng())) continue;
+            if (emergencyReportRepository.transitionStatus(r.getId(),
+                    AssignmentService.STATUS_NEW, AssignmentService.STATUS_DISPATCHING) == 1) {
+                claimed.add(r);
+            }
+        }
+        return claimed;
+    }
+
+    private <T> T runOnPool(Callable<T> task) {
+        try {
+            return pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch dispatch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch dispatch failed", e.getCause());
+        }
+    }
+
+    private void runOnPool(Runnable task) {
+        runOnPool(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public record BatchResult(int reports, int assigned, long totalEtaMinutes, String solver, long elapsedMillis) {}
+}
@@ -0,0 +1,214 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.dto.AssignmentDTO;
+import org.groupx.emergencyresponse.dto.EmergencyReportDTO;
+import org.groupx.emergencyresponse.dto.ResponderDTO;
+import org.groupx.emergencyresponse.dto.SyncDTO;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.event.AssignmentCreatedEvent;
+import org.groupx.emergencyresponse.event.AssignmentReassignedEvent;
+import org.groupx.emergencyresponse.event.EtaUpdatedEvent;
+import org.groupx.emergencyresponse.event.ReportCreatedEvent;
+import org.groupx.emergencyresponse.event.ReportResolvedEvent;
+import org.groupx.emergencyresponse.event.ReportsArchivedEvent;
+import org.groupx.emergencyresponse.event.ResponderAvailabilityChangedEvent;
+import org.groupx.emergencyresponse.event.ResponderSavedEvent;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Versioned change log behind GET /sync, so a reconnecting client fetches what changed since its last
+// sync instead of whole lists. Every report, assignment and responder change gets the next version;
+// the log keeps only the latest version per entity (compaction), so it never holds more entries than
+// there are changed entities. Assignment state is kept in the entry itself, since ETAs reach the
+// database later; reports and responders are read when a client asks for them.
+// Entities moved to the archive become tombstones, dropped after tombstone-retention-ms. Dropping an
+// entry, or trimming the oldest past max-entries, raises the floor: clients behind it must reload.
+// The log lives in memory and starts empty, from a version above any earlier run's, so every client
+// reloads once after a restart. In cluster mode it holds the changes made on this node.
+@Service
+public class ChangeLogService {
+    static final String REPORT = "report";
+    static final String ASSIGNMENT = "assignment";
+    static final String RESPONDER = "responder";
+
+    private final EmergencyReportRepository reportRepository;
+    private final ReportArchiveService archive;
+    private final ResponderService responderService;
+    private final long tombstoneRetentionMs;
+    private final int maxEntries;
+
+    // All guarded by this
+    private final TreeMap<Long, Change> byVersion = new TreeMap<>();
+    private final Map<Key, Change> byKey = new HashMap<>();
+    private final ArrayDeque<Change> tombstones = new ArrayDeque<>();
+    private long version;
+    // Oldest version a client can still sync from
+    private long floor;
+
+    public ChangeLogService(EmergencyReportRepository reportRepository,
+                            ReportArchiveService archive,
+                            ResponderService responderService,
+                            @Value("${sync.tombstone-retention-ms:604800000}") long tombstoneRetentionMs,
+                            @Value("${sync.max-entries:1000000}") int maxEntries) {
+        this.reportRepository = reportRepository;
+        this.archive = archive;
+        this.responderService = responderService;
+        this.tombstoneRetentionMs = tombstoneRetentionMs;
+        this.maxEntries = maxEntries;
+        // Microseconds since the epoch: above what an earlier run reached unless it averaged
+        // more than 1000 changes per millisecond
+        this.version = System.currentTimeMillis() * 1000;
+        this.floor = version;
+    }
+
+    @EventListener
+    public void onReportCreated(ReportCreatedEvent e) {
+        record(new Key(REPORT, e.reportId()), e.reporterId(), false, null);
+    }
+
+    @EventListener
+    public void onAssignmentCreated(AssignmentCreatedEvent e) {
+        record(new Key(ASSIGNMENT, e.assignmentId()), e.reporterId(), false,
+                assignment(e.assignmentId(), e.emergencyId(), e.responderId(), e.etaMinutes()));
+        // The report is now ASSIGNED
+        record(new Key(REPORT, e.emergencyId()), e.reporterId(), false, null);
+    }
+
+    @EventListener
+    public void onEtaUpdated(EtaUpdatedEvent e) {
+        record(new Key(ASSIGNMENT, e.assignmentId()), e.reporterId(), false,
+                assignment(e.assignmentId(), e.emergencyId(), e.responderId(), e.etaMinutes()));
+    }
+
+    @EventListener
+    public void onAssignmentReassigned(AssignmentReassignedEvent e) {
+        record(new Key(ASSIGNMENT, e.assignmentId()), e.reporterId(), false,
+                assignment(e.assignmentId(), e.emergencyId(), e.responderId(), e.etaMinutes()));
+    }
+
+    @EventListener
+    public void onReportResolved(ReportResolvedEvent e) {
+        record(new Key(REPORT, e.reportId()), e.reporterId(), false, null);
+    }
+
+    @EventListener
+    public void onResponderAvailabilityChanged(ResponderAvailabilityChangedEvent e) {
+        record(new Key(RESPONDER, e.responderId()), null, false, null);
+    }
+
+    @EventListener
+    public void onResponderSaved(ResponderSavedEvent e) {
+        record(new Key(RESPONDER, e.responderId()), null, false, null);
+    }
+
+    @EventListener
+    public void onReportsArchived(ReportsArchivedEvent e) {
+        for (ReportsArchivedEvent.Archived a : e.reports()) {
+            record(new Key(REPORT, a.reportId()), a.reporterId(), true, null);
+            if (a.assignmentId() != null) record(new Key(ASSIGNMENT, a.assignmentId()), a.reporterId(), true, null);
+        }
+    }
+
+    // Changes after since, at most limit of them; with a reporterId only that reporter's reports and
+    // assignments are included (responders always are)
+    public SyncDTO changesSince(Long since, String reporterId, int limit) {
+        SyncDTO sync = new SyncDTO();
+        List<Change> changes = new ArrayList<>();
+        synchronized (this) {
+            sync.version = version;
+            if (since == null || since < floor || since > version) {
+                sync.reset = true;
+                return sync;
+            }
+            for (Change c : byVersion.tailMap(since, false).values()) {
+                if (reporterId != null && c.reporterId() != null && !reporterId.equals(c.reporterId())) continue;
+                if (reporterId != null && c.reporterId() == null && !c.key().kind().equals(RESPONDER)) continue;
+                if (changes.size() == limit) {
+                    sync.more = true;
+                    sync.version = changes.get(limit - 1).version();
+                    break;
+                }
+                changes.add(c);
+            }
+        }
+
+        // The current state is read after the lock; a newer state than the version is harmless
+        List<Long> reportIds = new ArrayList<>();
+        for (Change c : changes) {
+            if (c.deleted()) sync.deleted.add(new SyncDTO.Tombstone(c.key().kind(), c.key().id()));
+            else if (c.key().kind().equals(ASSIGNMENT)) sync.assignments.add(c.assignment());
+            else if (c.key().kind().equals(REPORT)) reportIds.add(c.key().id());
+            else {
+                Responder r = responderService.getResponder(c.key().id());
+                if (r != null) sync.responders.add(ResponderDTO.from(r));
+            }
+        }
+        if (!reportIds.isEmpty()) {
+            Map<Long, EmergencyReport> found = new HashMap<>();
+            for (EmergencyReport r : reportRepository.findAllById(reportIds)) found.put(r.getId(), r);
+            for (Long id : reportIds) {
+                // A report archived since the change was logged is read from there; its tombstone
+                // comes on a later sync
+                EmergencyReport r = found.containsKey(id) ? found.get(id) : archive.findReport(id);
+                if (r != null) sync.reports.add(EmergencyReportDTO.from(r));
+            }
+        }
+        return sync;
+    }
+
+    // Drop tombstones past their retention
+    @Scheduled(fixedDelayString = "${sync.sweep-interval-ms:60000}")
+    public synchronized void sweep() {
+        long cutoff = System.currentTimeMillis() - tombstoneRetentionMs;
+        while (!tombstones.isEmpty() && tombstones.peekFirst().at() < cutoff) {
+            Change c = tombstones.pollFirst();
+            // Still the entity's latest entry, i.e. not superseded by a later change
+            if (byKey.remove(c.key(), c)) {
+                byVersion.remove(c.version());
+                floor = Math.max(floor, c.version());
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return byVersion.size();
+    }
+
+    private synchronized void record(Key key, String reporterId, boolean deleted, AssignmentDTO assignment) {
+        Change c = new Change(key, ++version, reporterId, deleted, assignment, System.currentTimeMillis());
+        Change previous = byKey.put(key, c);
+        if (previous != null) byVersion.remove(previous.version());
+        byVersion.put(c.version(), c);
+        if (deleted) tombstones.addLast(c);
+        while (byVersion.size() > maxEntries) {
+            Change oldest = byVersion.pollFirstEntry().getValue();
+            byKey.remove(oldest.key(), oldest);
+            floor = Math.max(floor, oldest.version());
+        }
+    }
+
+    private static AssignmentDTO assignment(long id, long emergencyId, long responderId, int etaMinutes) {
+        AssignmentDTO dto = new AssignmentDTO();
+        dto.id = id;
+        dto.emergencyId = emergencyId;
+        dto.responderId = responderId;
+        dto.etaMinutes = etaMinutes;
+        return dto;
+    }
+
+    private record Key(String kind, long id) {}
+
+    private record Change(Key key, long version, String reporterId, boolean deleted, AssignmentDTO assignment,
+                          long at) {}
+}
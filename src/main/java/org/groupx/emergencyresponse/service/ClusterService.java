@@ -0,0 +1,336 @@
+package org.groupx.emergencyresponse.service;
+
+import jakarta.annotation.PreDestroy;
+import org.groupx.emergencyresponse.dto.AssignmentDTO;
+import org.groupx.emergencyresponse.entity.ClusterNode;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.event.ClusterMembershipChangedEvent;
+import org.groupx.emergencyresponse.event.ResponderAvailabilityChangedEvent;
+import org.groupx.emergencyresponse.geo.Geohash;
+import org.groupx.emergencyresponse.repository.ClusterNodeRepository;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.groupx.emergencyresponse.repository.ResponderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Clustered mode: several nodes share one database and split dispatch by region. A region is the
+// geohash prefix of a report's location (cluster.partition-precision characters); its owner is chosen
+// by rendezvous hashing over the live nodes, so a join or leave only moves the regions of that node.
+// Membership is a heartbeat row per node in the shared database. Dispatch requests for a region owned
+// elsewhere are forwarded to the owner; if the owner cannot be reached the report is dispatched locally,
+// which is still safe because reservations are compare-and-set on the shared rows.
+// A forwarded request carries the sender's id, a timestamp and an HMAC of both plus the report id, keyed
+// with cluster.secret; a receiving node handles the report itself only if the signature checks out, so an
+// outside caller cannot make a node dispatch outside its regions by setting the header.
+// With cluster.enabled=false (the default) this node owns every region and nothing is forwarded.
+@Service
+public class ClusterService {
+    private static final Logger log = LoggerFactory.getLogger(ClusterService.class);
+    // Marks a forwarded request so the receiving node handles it itself instead of forwarding again
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded-By";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    // How old a signed forward may be, which bounds replays and allows for clock skew between nodes
+    private static final long FORWARD_MAX_AGE_MS = 60_000;
+
+    private final AssignmentService assignmentService;
+    private final EmergencyReportRepository emergencyReportRepository;
+    private final ResponderRepository responderRepository;
+    private final ResponderSpatialIndex spatialIndex;
+    private final ResponderReservationService reservationService;
+    private final LocationIngestService locationIngestService;
+    private final ClusterNodeRepository nodeRepository;
+    private final ApplicationEventPublisher events;
+    private final RestClient restClient;
+    private final boolean enabled;
+    private final int precision;
+    private final long nodeTimeoutMs;
+    private final long refreshOverlapMs;
+    private final SecretKeySpec forwardKey;
+    private final String configuredNodeId;
+    private final String configuredUrl;
+
+    private volatile String nodeId;
+    private volatile String baseUrl;
+    // Live nodes ordered by id; empty until the first heartbeat, when this node owns everything
+    private volatile List<Member> members = List.of();
+    // Version of each responder row as of the last refresh
+    private final Map<Long, Long> refreshedVersions = new HashMap<>();
+    // Newest update time seen by refreshResponders; null until the first full load
+    private Date refreshedUpTo;
+
+    public ClusterService(AssignmentService assignmentService,
+                          EmergencyReportRepository emergencyReportRepository,
+                          ResponderRepository responderRepository,
+                          ResponderSpatialIndex spatialIndex,
+                          ResponderReservationService reservationService,
+                          LocationIngestService locationIngestService,
+                          ClusterNodeRepository nodeRepository,
+                          ApplicationEventPublisher events,
+                          RestClient.Builder restClientBuilder,
+                          @Value("${cluster.enabled:false}") boolean enabled,
+                          @Value("${cluster.node-id:}") String nodeId,
+                          @Value("${cluster.advertise-url:}") String advertiseUrl,
+                          @Value("${cluster.partition-precision:3}") int precision,
+                          @Value("${cluster.node-timeout-ms:5000}") long nodeTimeoutMs,
+                          @Value("${cluster.forward-timeout-ms:2000}") long forwardTimeoutMs,
+                          @Value("${cluster.responder-refresh-overlap-ms:5000}") long refreshOverlapMs,
+                          @Value("${cluster.secret:}") String secret) {
+        this.assignmentService = assignmentService;
+        this.emergencyReportRepository = emergencyReportRepository;
+        this.responderRepository = responderRepository;
+        this.spatialIndex = spatialIndex;
+        this.reservationService = reservationService;
+        this.locationIngestService = locationIngestService;
+        this.nodeRepository = nodeRepository;
+        this.events = events;
+        this.enabled = enabled;
+        this.precision = precision;
+        this.nodeTimeoutMs = nodeTimeoutMs;
+        this.refreshOverlapMs = refreshOverlapMs;
+        if (enabled && secret.isBlank()) {
+            throw new IllegalStateException("cluster.secret must be set when cluster.enabled=true");
+        }
+        this.forwardKey = secret.isBlank() ? null
+                : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+        this.configuredNodeId = nodeId;
+        this.configuredUrl = advertiseUrl;
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(forwardTimeoutMs)).build());
+        requestFactory.setReadTimeout(Duration.ofMillis(forwardTimeoutMs));
+        this.restClient = restClientBuilder.requestFactory(requestFactory).build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    // Node id and URL default to host:port once the web server has its port
+    @EventListener
+    public void onWebServerReady(WebServerInitializedEvent event) {
+        int port = event.getWebServer().getPort();
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        nodeId = configuredNodeId.isBlank() ? host + ":" + port : configuredNodeId;
+        baseUrl = configuredUrl.isBlank() ? "http://localhost:" + port : configuredUrl;
+        if (enabled) {
+            log.info("Cluster node {} at {}", nodeId, baseUrl);
+            heartbeat();
+        }
+    }
+
+    // Renew this node's row and pick up joins and leaves
+    @Scheduled(fixedDelayString = "${cluster.heartbeat-ms:1000}")
+    public synchronized void heartbeat() {
+        if (!enabled || nodeId == null) return;
+        long now = System.currentTimeMillis();
+        nodeRepository.save(new ClusterNode(nodeId, baseUrl, now));
+        List<Member> live = nodeRepository.findLive(now - nodeTimeoutMs).stream()
+                .map(n -> new Member(n.getNodeId(), n.getBaseUrl()))
+                .toList();
+        if (!live.equals(members)) {
+            members = live;
+            List<String> ids = live.stream().map(Member::nodeId).toList();
+            log.info("Cluster membership changed: {}", ids);
+            events.publishEvent(new ClusterMembershipChangedEvent(ids));
+        }
+    }
+
+    // Region key of a location; reports without one share the "" region
+    public String regionOf(Double lat, Double lng) {
+        if (lat == null || lng == null) return "";
+        return Geohash.encode(lat, lng, precision);
+    }
+
+    public boolean ownsRegion(String region) {
+        Member owner = ownerOf(region);
+        return owner == null || owner.nodeId().equals(nodeId);
+    }
+
+    public boolean owns(Double lat, Double lng) {
+        return !enabled || ownsRegion(regionOf(lat, lng));
+    }
+
+    // Live node responsible for the region (highest rendezvous score), or null if membership is unknown
+    public Member ownerOf(String region) {
+        List<Member> current = members;
+        Member best = null;
+        long bestScore = 0;
+        for (Member m : current) {
+            long score = score(m.nodeId(), region);
+            if (best == null || Long.compareUnsigned(score, bestScore) > 0) {
+                best = m;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    public List<Member> members() {
+        return members;
+    }
+
+    // Dispatch a report on the node that owns its region
+    public AssignmentDTO assign(Long emergencyId) {
+        if (!enabled) return assignmentService.assignResponder(emergencyId);
+        EmergencyReport report = emergencyReportRepository.findById(emergencyId).orElse(null);
+        if (report == null) return null;
+        return assign(emergencyId, report.getLocationLat(), report.getLocationLng());
+    }
+
+    // Same, when the caller already knows the report's location
+    public AssignmentDTO assign(Long emergencyId, Double lat, Double lng) {
+        Member owner = enabled ? ownerOf(regionOf(lat, lng)) : null;
+        if (owner == null || owner.nodeId().equals(nodeId)) return assignmentService.assignResponder(emergencyId);
+        try {
+            return forward(owner, emergencyId);
+        } catch (RuntimeException e) {
+            log.warn("Forwarding report {} to {} failed, dispatching locally", emergencyId, owner.nodeId(), e);
+            return assignmentService.assignResponder(emergencyId);
+        }
+    }
+
+    // POST /assign on the owner; null when it found no responder (404)
+    private AssignmentDTO forward(Member owner, Long emergencyId) {
+        return restClient.post()
+                .uri(owner.baseUrl() + "/assign?emergencyId={id}", emergencyId)
+                .header(FORWARDED_HEADER, forwardedBy(nodeId, System.currentTimeMillis(), emergencyId))
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().value() == 404) return null;
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        throw new IllegalStateException("Node " + owner.nodeId() + " answered "
+                                + response.getStatusCode());
+                    }
+                    return response.bodyTo(AssignmentDTO.class);
+                });
+    }
+
+    // Whether a request was forwarded by a cluster node: the header must carry a valid, recent signature
+    // for this report
+    public boolean isForwarded(String header, long emergencyId) {
+        if (!enabled || header == null) return false;
+        int sig = header.lastIndexOf(';');
+        int at = sig < 0 ? -1 : header.lastIndexOf(';', sig - 1);
+        if (at <= 0) return false;
+        long sentAt;
+        try {
+            sentAt = Long.parseLong(header.substring(at + 1, sig));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Math.abs(System.currentTimeMillis() - sentAt) > FORWARD_MAX_AGE_MS) return false;
+        byte[] expected = forwardedBy(header.substring(0, at), sentAt, emergencyId).getBytes(StandardCharsets.UTF_8);
+        if (MessageDigest.isEqual(expected, header.getBytes(StandardCharsets.UTF_8))) return true;
+        log.debug("Ignoring {} header with a bad signature for report {}", FORWARDED_HEADER, emergencyId);
+        return false;
+    }
+
+    // "<node>;<sentAt>;<signature>", the signature covering all three fields and the report id
+    private String forwardedBy(String node, long sentAt, long emergencyId) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(forwardKey);
+            byte[] signature = mac.doFinal((node + "\n" + sentAt + "\n" + emergencyId)
+                    .getBytes(StandardCharsets.UTF_8));
+            return node + ";" + sentAt + ";" + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Other nodes move and book responders in the shared database; bring the local index up to date.
+    // After a first full load only rows updated since the newest change already seen are read, less an
+    // overlap for writes whose transactions committed late, so the cost follows the rate of change rather
+    // than the fleet size. Rows whose version has not moved since the last refresh are skipped. Fixes this
+    // node received but has not flushed yet are newer than the rows, so they are kept.
+    @Scheduled(fixedDelayString = "${cluster.responder-refresh-ms:2000}")
+    public synchronized void refreshResponders() {
+        if (!enabled) return;
+        List<Responder> rows = refreshedUpTo == null
+                ? responderRepository.findAll()
+                : responderRepository.findUpdatedSince(new Date(refreshedUpTo.getTime() - refreshOverlapMs));
+        Date newest = refreshedUpTo == null ? new Date(0) : refreshedUpTo;
+        for (Responder r : rows) {
+            if (r.getUpdatedAt() != null && r.getUpdatedAt().after(newest)) newest = r.getUpdatedAt();
+            if (!Objects.equals(r.getVersion(), refreshedVersions.get(r.getId()))) refresh(r);
+        }
+        refreshedUpTo = newest;
+    }
+
+    private void refresh(Responder r) {
+        LocationIngestService.LocationFix fix = locationIngestService.pendingFix(r.getId());
+        if (fix != null) {
+            r.setCurrentLat(fix.lat());
+            r.setCurrentLng(fix.lng());
+        }
+        // A unit released by another node may still be claimed here
+        boolean available = Boolean.TRUE.equals(r.getAvailability());
+        if (available) reservationService.forgetClaim(r.getId());
+        ResponderSpatialIndex.LiveState before = spatialIndex.liveState(r.getId());
+        spatialIndex.upsert(r);
+        refreshedVersions.put(r.getId(), r.getVersion());
+        if (before == null || before.available() != available) {
+            events.publishEvent(new ResponderAvailabilityChangedEvent(r.getId(), r.getRole(), available,
+                    r.getCurrentLat(), r.getCurrentLng()));
+        }
+    }
+
+    // Leave the cluster right away instead of waiting for the heartbeat to time out
+    @PreDestroy
+    public void leave() {
+        if (!enabled || nodeId == null) return;
+        try {
+            nodeRepository.deleteById(nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Could not remove cluster node {}", nodeId, e);
+        }
+    }
+
+    // 64-bit FNV-1a of "node/region", finished with a mixer so nearby inputs spread out
+    private static long score(String node, String region) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : (node + "/" + region).getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public record Member(String nodeId, String baseUrl) {}
+}
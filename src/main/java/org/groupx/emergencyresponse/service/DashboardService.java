@@ -0,0 +1,320 @@
+package org.groupx.emergencyresponse.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.groupx.emergencyresponse.dto.DashboardSnapshotDTO;
+import org.groupx.emergencyresponse.entity.Assignment;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.event.AssignmentCreatedEvent;
+import org.groupx.emergencyresponse.event.AssignmentReassignedEvent;
+import org.groupx.emergencyresponse.event.EtaUpdatedEvent;
+import org.groupx.emergencyresponse.event.ReportCreatedEvent;
+import org.groupx.emergencyresponse.event.ResponderAvailabilityChangedEvent;
+import org.groupx.emergencyresponse.event.ResponderMovedEvent;
+import org.groupx.emergencyresponse.geo.Geohash;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.groupx.emergencyresponse.repository.ResponderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Live operations aggregates for the control room, kept up to date from the dispatch events instead of
+// being queried: open incidents per type and region, ETA average and p90 per role over the open
+// assignments (a per-minute histogram per role), and responders on duty per region and role.
+// Every event adjusts a few counters; once per dashboard.refresh-ms the counters are rendered to JSON,
+// and GET /dashboard hands out those bytes. The database is read once, at startup, to pick up work
+// that was open before a restart.
+// An incident is open from its report until its responder goes back on duty.
+@Service
+public class DashboardService {
+    // One bucket per minute up to a day; longer ETAs share the last bucket
+    private static final int ETA_BUCKETS = 1441;
+
+    private final EmergencyReportRepository reportRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final ResponderRepository responderRepository;
+    private final ObjectMapper objectMapper;
+    private final int precision;
+
+    // Guarded by this
+    private final Map<Long, Incident> incidents = new HashMap<>();
+    private final Map<Long, Incident> jobsByResponder = new HashMap<>();
+    private final Map<IncidentKey, int[]> openCounts = new HashMap<>(); // {waiting, assigned}
+    private final Map<String, EtaHistogram> etaByRole = new HashMap<>();
+    private final Map<AreaKey, int[]> availableCounts = new HashMap<>();
+    // Written under this; read without it so pings that stay in the same region take no lock
+    private final Map<Long, Unit> units = new ConcurrentHashMap<>();
+
+    private volatile byte[] snapshot;
+
+    public DashboardService(EmergencyReportRepository reportRepository,
+                            AssignmentRepository assignmentRepository,
+                            ResponderRepository responderRepository,
+                            ObjectMapper objectMapper,
+                            @Value("${dashboard.region-precision:4}") int precision) {
+        this.reportRepository = reportRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.responderRepository = responderRepository;
+        this.objectMapper = objectMapper;
+        this.precision = precision;
+    }
+
+    // Seed the counters with the fleet and the work that was already open; entries that events have
+    // registered in the meantime are newer and are kept
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        for (Responder r : responderRepository.findAll()) {
+            if (units.containsKey(r.getId())) continue;
+            setUnit(r.getId(), new Unit(r.getRole(), Boolean.TRUE.equals(r.getAvailability()),
+                    regionOf(r.getCurrentLat(), r.getCurrentLng())));
+        }
+        for (String status : List.of(AssignmentService.STATUS_NEW, AssignmentService.STATUS_DISPATCHING)) {
+            for (EmergencyReport r : reportRepository.findByStatusOrderByTimestampAsc(status, Pageable.unpaged())) {
+                if (!incidents.containsKey(r.getId())) {
+                    open(r.getId(), r.getType(), r.getLocationLat(), r.getLocationLng());
+                }
+            }
+        }
+        List<Assignment> jobs = assignmentRepository.findOpen();
+        Map<Long, EmergencyReport> reports = reportRepository
+                .findAllById(jobs.stream().map(Assignment::getEmergencyId).toList()).stream()
+                .collect(Collectors.toMap(EmergencyReport::getId, Function.identity()));
+        for (Assignment a : jobs) {
+            EmergencyReport r = reports.get(a.getEmergencyId());
+            if (r == null || incidents.containsKey(r.getId())) continue;
+            Unit unit = units.get(a.getResponderId());
+            assign(open(r.getId(), r.getType(), r.getLocationLat(), r.getLocationLng()), a.getResponderId(),
+                    unit == null ? null : unit.role, a.getEtaMinutes() == null ? 0 : a.getEtaMinutes());
+        }
+        refresh();
+    }
+
+    @EventListener
+    public synchronized void onReportCreated(ReportCreatedEvent e) {
+        // A duplicate is another report of an incident that is already counted
+        if (e.duplicateOf() != null || incidents.containsKey(e.reportId())) return;
+        open(e.reportId(), e.type(), e.lat(), e.lng());
+    }
+
+    @EventListener
+    public synchronized void onAssignmentCreated(AssignmentCreatedEvent e) {
+        Incident incident = incidents.get(e.emergencyId());
+        if (incident == null) incident = open(e.emergencyId(), e.reportType(), e.lat(), e.lng());
+        if (incident.responderId == null) assign(incident, e.responderId(), e.role(), e.etaMinutes());
+    }
+
+    @EventListener
+    public synchronized void onEtaUpdated(EtaUpdatedEvent e) {
+        Incident incident = incidents.get(e.emergencyId());
+        if (incident == null || incident.responderId == null) return;
+        histogram(incident.role).remove(incident.eta);
+        incident.eta = e.etaMinutes();
+        histogram(incident.role).add(incident.eta);
+    }
+
+    @EventListener
+    public synchronized void onReassigned(AssignmentReassignedEvent e) {
+        Incident incident = incidents.get(e.emergencyId());
+        if (incident == null || incident.responderId == null) return;
+        jobsByResponder.remove(e.previousResponderId(), incident);
+        histogram(incident.role).remove(incident.eta);
+        incident.responderId = e.responderId();
+        incident.role = e.role();
+        incident.eta = e.etaMinutes();
+        jobsByResponder.put(e.responderId(), incident);
+        histogram(incident.role).add(incident.eta);
+    }
+
+    @EventListener
+    public void onResponderMoved(ResponderMovedEvent e) {
+        Unit unit = units.get(e.responderId());
+        if (unit == null || regionOf(e.lat(), e.lng()).equals(unit.region)) return;
+        synchronized (this) {
+            unit = units.get(e.responderId());
+            if (unit != null) setUnit(e.responderId(), new Unit(unit.role, unit.available, regionOf(e.lat(), e.lng())));
+        }
+    }
+
+    @EventListener
+    public synchronized void onAvailabilityChanged(ResponderAvailabilityChangedEvent e) {
+        Unit unit = units.get(e.responderId());
+        // Keep the last known region if the event carries no position
+        String region = unit != null && (e.lat() == null || e.lng() == null) ? unit.region : regionOf(e.lat(), e.lng());
+        setUnit(e.responderId(), new Unit(e.role(), e.available(), region));
+        if (!e.available()) return;
+        // Back on duty: the job it was on is finished
+        Incident incident = jobsByResponder.remove(e.responderId());
+        if (incident == null) return;
+        incidents.remove(incident.reportId);
+        histogram(incident.role).remove(incident.eta);
+        adjust(openCounts, incident.key, 1, -1);
+    }
+
+    // Render the counters; GET /dashboard serves the result until the next refresh
+    @Scheduled(fixedDelayString = "${dashboard.refresh-ms:1000}")
+    public void refresh() {
+        DashboardSnapshotDTO dto = new DashboardSnapshotDTO();
+        synchronized (this) {
+            dto.generatedAt = System.currentTimeMillis();
+            for (Map.Entry<IncidentKey, int[]> e : new TreeMap<>(openCounts).entrySet()) {
+                DashboardSnapshotDTO.OpenIncidents row = new DashboardSnapshotDTO.OpenIncidents();
+                row.type = e.getKey().type();
+                row.region = e.getKey().region();
+                row.waiting = e.getValue()[0];
+                row.assigned = e.getValue()[1];
+                dto.openIncidents.add(row);
+            }
+            for (Map.Entry<String, EtaHistogram> e : new TreeMap<>(etaByRole).entrySet()) {
+                EtaHistogram h = e.getValue();
+                if (h.count == 0) continue;
+                DashboardSnapshotDTO.RoleEta row = new DashboardSnapshotDTO.RoleEta();
+                row.role = e.getKey();
+                row.assignments = h.count;
+                row.avgMinutes = Math.round(10.0 * h.sum / h.count) / 10.0;
+                row.p90Minutes = h.percentile(0.9);
+                dto.etaByRole.add(row);
+            }
+            for (Map.Entry<AreaKey, int[]> e : new TreeMap<>(availableCounts).entrySet()) {
+                DashboardSnapshotDTO.AreaAvailability row = new DashboardSnapshotDTO.AreaAvailability();
+                row.region = e.getKey().region();
+                row.role = e.getKey().role();
+                row.available = e.getValue()[0];
+                dto.availableResponders.add(row);
+            }
+        }
+        try {
+            snapshot = objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Latest rendered snapshot (JSON)
+    public byte[] snapshot() {
+        byte[] current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private Incident open(long reportId, String type, Double lat, Double lng) {
+        Incident incident = new Incident(reportId, new IncidentKey(String.valueOf(type), regionOf(lat, lng)));
+        incidents.put(reportId, incident);
+        adjust(openCounts, incident.key, 0, 1);
+        return incident;
+    }
+
+    private void assign(Incident incident, long responderId, String role, int eta) {
+        incident.responderId = responderId;
+        incident.role = role;
+        incident.eta = eta;
+        jobsByResponder.put(responderId, incident);
+        histogram(role).add(eta);
+        adjust(openCounts, incident.key, 0, -1);
+        adjust(openCounts, incident.key, 1, 1);
+    }
+
+    private void setUnit(long responderId, Unit next) {
+        Unit previous = units.put(responderId, next);
+        if (previous != null && previous.available) {
+            adjust(availableCounts, new AreaKey(previous.region, String.valueOf(previous.role)), 0, -1);
+        }
+        if (next.available) adjust(availableCounts, new AreaKey(next.region, String.valueOf(next.role)), 0, 1);
+    }
+
+    private EtaHistogram histogram(String role) {
+        return etaByRole.computeIfAbsent(String.valueOf(role), r -> new EtaHistogram());
+    }
+
+    // Add delta to one slot of a counter, dropping the entry once every slot is back to zero
+    private static <K> void adjust(Map<K, int[]> counts, K key, int slot, int delta) {
+        int[] c = counts.computeIfAbsent(key, k -> new int[2]);
+        c[slot] += delta;
+        if (c[0] == 0 && c[1] == 0) counts.remove(key);
+    }
+
+    private String regionOf(Double lat, Double lng) {
+        if (lat == null || lng == null) return "";
+        return Geohash.encode(lat, lng, precision);
+    }
+
+    private record IncidentKey(String type, String region) implements Comparable<IncidentKey> {
+        @Override
+        public int compareTo(IncidentKey o) {
+            int c = type.compareTo(o.type);
+            return c != 0 ? c : region.compareTo(o.region);
+        }
+    }
+
+    private record AreaKey(String region, String role) implements Comparable<AreaKey> {
+        @Override
+        public int compareTo(AreaKey o) {
+            int c = region.compareTo(o.region);
+            return c != 0 ? c : role.compareTo(o.role);
+        }
+    }
+
+    private record Unit(String role, boolean available, String region) {}
+
+    private static final class Incident {
+        final long reportId;
+        final IncidentKey key;
+        // Set once a responder is assigned
+        Long responderId;
+        String role;
+        int eta;
+
+        Incident(long reportId, IncidentKey key) {
+            this.reportId = reportId;
+            this.key = key;
+        }
+    }
+
+    private static final class EtaHistogram {
+        final int[] buckets = new int[ETA_BUCKETS];
+        int count;
+        long sum;
+
+        void add(int eta) {
+            buckets[bucket(eta)]++;
+            count++;
+            sum += eta;
+        }
+
+        void remove(int eta) {
+            buckets[bucket(eta)]--;
+            count--;
+            sum -= eta;
+        }
+
+        // Smallest whole-minute ETA at or below which the given share of assignments fall
+        int percentile(double share) {
+            int rank = (int) Math.ceil(share * count);
+            int seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) return i;
+            }
+            return buckets.length - 1;
+        }
+
+        private static int bucket(int eta) {
+            return Math.max(0, Math.min(eta, ETA_BUCKETS - 1));
+        }
+    }
+}
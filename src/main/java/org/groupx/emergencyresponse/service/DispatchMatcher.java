@@ -0,0 +1,122 @@
+package org.groupx.emergencyresponse.service;
+
+import java.util.Arrays;
+
+// Report-to-responder matching over a cost matrix (rows = reports, columns = responders).
+// Costs of Double.POSITIVE_INFINITY mark pairs that must not be matched.
+final class DispatchMatcher {
+    // Finite stand-in for forbidden pairs so the Hungarian potentials stay well defined
+    private static final double FORBIDDEN = 1e9;
+
+    private DispatchMatcher() {}
+
+    // Minimum-total-cost assignment (Hungarian algorithm with potentials, O(n^2 * m)).
+    // Returns rowToColumn (-1 = unmatched), or null if the deadline passed before it finished.
+    static int[] hungarian(double[][] cost, int columns, long deadlineNanos) {
+        int rows = cost.length;
+        // The algorithm needs at least as many columns as rows; pad with forbidden dummy columns
+        int m = Math.max(rows, columns);
+        double[] u = new double[rows + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= rows; i++) {
+            if (System.nanoTime() > deadlineNanos) return null;
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    double cur = cost(cost, i0 - 1, j - 1, columns) - u[i0] - v[j];
+                    if (cur < minv[j]) {
+                        minv[j] = cur;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] rowToColumn = new int[rows];
+        Arrays.fill(rowToColumn, -1);
+        for (int j = 1; j <= m; j++) {
+            int row = p[j] - 1;
+            // Rows that only found a dummy or forbidden column stay unmatched
+            if (row >= 0 && j - 1 < columns && Double.isFinite(cost[row][j - 1])) {
+                rowToColumn[row] = j - 1;
+            }
+        }
+        return rowToColumn;
+    }
+
+    // Cheapest-edge-first matching, O(E log E); used when the instance is too large for the exact solver
+    static int[] greedy(double[][] cost, int columns) {
+        int rows = cost.length;
+        int edgeCount = 0;
+        for (double[] row : cost) {
+            for (int j = 0; j < columns; j++) if (Double.isFinite(row[j])) edgeCount++;
+        }
+        // Pack (cost, row, column) into parallel primitive arrays and sort an index by cost
+        double[] edgeCost = new double[edgeCount];
+        long[] edgeKey = new long[edgeCount];
+        int e = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (!Double.isFinite(cost[i][j])) continue;
+                edgeCost[e] = cost[i][j];
+                edgeKey[e] = ((long) i << 32) | j;
+                e++;
+            }
+        }
+        Integer[] order = new Integer[edgeCount];
+        for (int k = 0; k < edgeCount; k++) order[k] = k;
+        Arrays.parallelSort(order, (a, b) -> Double.compare(edgeCost[a], edgeCost[b]));
+
+        int[] rowToColumn = new int[rows];
+        Arrays.fill(rowToColumn, -1);
+        boolean[] columnTaken = new boolean[columns];
+        int matched = 0;
+        for (int k = 0; k < edgeCount && matched < rows; k++) {
+            long key = edgeKey[order[k]];
+            int i = (int) (key >>> 32);
+            int j = (int) key;
+            if (rowToColumn[i] != -1 || columnTaken[j]) continue;
+            rowToColumn[i] = j;
+            columnTaken[j] = true;
+            matched++;
+        }
+        return rowToColumn;
+    }
+
+    private static double cost(double[][] cost, int row, int column, int columns) {
+        if (column >= columns) return FORBIDDEN;
+        double c = cost[row][column];
+        return Double.isFinite(c) ? c : FORBIDDEN;
+    }
+}
@@ -0,0 +1,110 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Stage timers and counters for the single-report dispatch path, served under /actuator/metrics:
+//   dispatch.stage{stage}        latency per stage, with client-side (HdrHistogram) percentiles
+//   dispatch.candidates          responders scored per candidate round
+//   dispatch.outcome{outcome}    assigned / no_responder / already_assigned / report_not_found
+// With dispatch.metrics.enabled=false nothing is registered and every call returns
+// immediately without reading the clock.
+@Component
+public class DispatchMetrics {
+    public enum Stage {
+        ASSIGN("assign"),                     // whole of AssignmentService.assignResponder
+        REPORT_LOOKUP("report.lookup"),       // load the report
+        REPORT_CLAIM("report.claim"),         // NEW -> DISPATCHING
+        CANDIDATE_SEARCH("candidate.search"), // nearest available responders
+        ETA("eta"),                           // score the candidates
+        RESERVE("reserve"),                   // reserve the best free candidate
+        ASSIGNMENT_SAVE("assignment.save"),   // write the assignment and finish the report
+        NOTIFY("notify"),                     // whole of EmergencyReportService.notifyResponderService
+        RESPONDER_LOOKUP("responder.lookup"); // load the assigned responder for the response
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum Outcome {
+        ASSIGNED("assigned"),
+        NO_RESPONDER("no_responder"),
+        ALREADY_ASSIGNED("already_assigned"),
+        REPORT_NOT_FOUND("report_not_found");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final boolean enabled;
+    private final Timer[] timers;
+    private final Counter[] outcomes;
+    private final DistributionSummary candidates;
+
+    public DispatchMetrics(MeterRegistry registry,
+                           @Value("${dispatch.metrics.enabled:true}") boolean enabled,
+                           @Value("${dispatch.metrics.percentile-histogram:false}") boolean histogram) {
+        this.enabled = enabled;
+        this.timers = new Timer[Stage.values().length];
+        this.outcomes = new Counter[Outcome.values().length];
+        if (!enabled) {
+            this.candidates = null;
+            return;
+        }
+        for (Stage s : Stage.values()) {
+            timers[s.ordinal()] = Timer.builder("dispatch.stage").tag("stage", s.tag)
+                    .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                    .publishPercentileHistogram(histogram)
+                    .register(registry);
+        }
+        for (Outcome o : Outcome.values()) {
+            outcomes[o.ordinal()] = Counter.builder("dispatch.outcome").tag("outcome", o.tag).register(registry);
+        }
+        this.candidates = DistributionSummary.builder("dispatch.candidates")
+                .description("Responders scored per candidate round")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Start of a timed section; 0 when disabled
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    // Record the time since start for a stage
+    public void stop(Stage stage, long start) {
+        if (enabled) timers[stage.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // Record the time since start for a stage and return the start of the next one
+    public long lap(Stage stage, long start) {
+        if (!enabled) return 0L;
+        long now = System.nanoTime();
+        timers[stage.ordinal()].record(now - start, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void outcome(Outcome outcome) {
+        if (enabled) outcomes[outcome.ordinal()].increment();
+    }
+
+    public void candidates(int count) {
+        if (enabled) candidates.record(count);
+    }
+}
@@ -0,0 +1,347 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.groupx.emergencyresponse.dto.AssignmentDTO;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.event.ClusterMembershipChangedEvent;
+import org.groupx.emergencyresponse.event.ReportCreatedEvent;
+import org.groupx.emergencyresponse.event.ReportUnclaimedEvent;
+import org.groupx.emergencyresponse.event.ResponderAvailabilityChangedEvent;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Dispatches NEW reports automatically, most urgent first. Each report is keyed by a deadline:
+// its timestamp plus the maximum wait configured for its type (Fire sooner than Traffic). Ordering by
+// deadline means severity decides between fresh reports while a report that has waited long enough
+// overtakes newer, more severe ones, so nothing starves. The queue is a concurrent skip list, so
+// producers and the worker pool never contend on a single lock. In clustered mode a report is
+// dispatched by the node owning its region: this node forwards what it does not own, and picks up
+// the NEW backlog of regions it gains when nodes join or leave. Reports that find no free unit are
+// parked until a unit of a suitable role comes on duty, rather than retried on a timer; a parked
+// report only holds back later reports that compete for the same roles.
+@Service
+public class DispatchQueueService {
+    private static final Logger log = LoggerFactory.getLogger(DispatchQueueService.class);
+    private static final int LOAD_PAGE = 500;
+
+    private final ClusterService clusterService;
+    private final AssignmentService assignmentService;
+    private final EmergencyReportRepository emergencyReportRepository;
+    private final ResponderSpatialIndex spatialIndex;
+    private final ResponderRoleRules roleRules;
+    private final boolean enabled;
+    private final int workerCount;
+    private final long retryDelayMs;
+    private final long defaultMaxWaitMs;
+    // Lower-cased type -> maximum wait before dispatch
+    private final Map<String, Long> maxWaitByType;
+
+    private static final Comparator<Item> BY_DEADLINE =
+            Comparator.comparingLong(Item::deadline).thenComparingLong(Item::reportId);
+
+    private final ConcurrentSkipListSet<Item> queue = new ConcurrentSkipListSet<>(BY_DEADLINE);
+    // Reports that found no free responder. A new report is parked behind a more urgent parked one whose
+    // roles overlap its own, so a freed unit goes to the most urgent report that could use it; reports
+    // of other roles go straight to the workers. A retry round hands servable parked reports back to
+    // the queue, as many per role set as there are free units of those roles.
+    private final ConcurrentSkipListSet<Item> parked = new ConcurrentSkipListSet<>(BY_DEADLINE);
+    // Set while a retry round is scheduled but not yet started, so a burst of wake-ups runs one round
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+    // Reports currently queued or parked, so each is held at most once
+    private final Set<Long> held = ConcurrentHashMap.newKeySet();
+    // One permit per queued item; workers sleep on it while the queue is empty
+    private final Semaphore ready = new Semaphore(0);
+    private final ExecutorService workers;
+    private final ScheduledExecutorService retries;
+    private volatile boolean running;
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> latencyByType = new ConcurrentHashMap<>();
+
+    public DispatchQueueService(ClusterService clusterService,
+                                AssignmentService assignmentService,
+                                EmergencyReportRepository emergencyReportRepository,
+                                ResponderSpatialIndex spatialIndex,
+                                ResponderRoleRules roleRules,
+                                MeterRegistry registry,
+                                @Value("${dispatch.queue.enabled:true}") boolean enabled,
+                                @Value("${dispatch.queue.workers:4}") int workerCount,
+                                @Value("${dispatch.queue.retry-delay-ms:1000}") long retryDelayMs,
+                                @Value("${dispatch.queue.default-max-wait-ms:300000}") long defaultMaxWaitMs,
+                                @Value("${dispatch.queue.max-wait-ms:Fire:15000,Medical:15000,Crime:60000,Traffic:120000}")
+                                String maxWaits) {
+        this.clusterService = clusterService;
+        this.assignmentService = assignmentService;
+        this.emergencyReportRepository = emergencyReportRepository;
+        this.spatialIndex = spatialIndex;
+        this.roleRules = roleRules;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.workerCount = workerCount;
+        this.retryDelayMs = retryDelayMs;
+        this.defaultMaxWaitMs = defaultMaxWaitMs;
+        this.maxWaitByType = parseMaxWaits(maxWaits);
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), r -> {
+            Thread t = new Thread(r, "dispatch-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        this.retries = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dispatch-retry");
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("dispatch.queue.size", held, Set::size)
+                .description("Reports waiting for automatic dispatch").register(registry);
+    }
+
+    // Pick up the NEW backlog left from before a restart, then start the workers
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (running) return;
+        // Reports claimed by a dispatch that died with the previous process would otherwise stay
+        // DISPATCHING for good; this runs whether the queue or batch dispatch picks the backlog up
+        int released = assignmentService.releaseStaleClaims(
+                r -> clusterService.owns(r.getLocationLat(), r.getLocationLng()));
+        if (released > 0) log.info("Released {} reports left in DISPATCHING", released);
+        if (!enabled) return;
+        running = true;
+        loadBacklog();
+        for (int i = 0; i < workerCount; i++) workers.execute(this::work);
+    }
+
+    // Regions may have moved to this node; queue their undispatched reports
+    @EventListener
+    public void onMembershipChanged(ClusterMembershipChangedEvent event) {
+        if (running) loadBacklog();
+    }
+
+    // Queue every NEW report in a region this node owns
+    private void loadBacklog() {
+        int loaded = 0;
+        for (int page = 0; ; page++) {
+            List<EmergencyReport> reports = emergencyReportRepository.findByStatusOrderByTimestampAsc(
+                    AssignmentService.STATUS_NEW, PageRequest.of(page, LOAD_PAGE));
+            for (EmergencyReport r : reports) {
+                if (!clusterService.owns(r.getLocationLat(), r.getLocationLng())) continue;
+                long timestamp = r.getTimestamp() == null ? System.currentTimeMillis() : r.getTimestamp().getTime();
+                if (offer(r.getId(), r.getType(), timestamp, r.getLocationLat(), r.getLocationLng())) loaded++;
+            }
+            if (reports.size() < LOAD_PAGE) break;
+        }
+        if (loaded > 0) log.info("Queued {} undispatched reports", loaded);
+    }
+
+    // A unit came on duty: parked reports it could serve get another round
+    @EventListener
+    public void onResponderAvailabilityChanged(ResponderAvailabilityChangedEvent event) {
+        if (running && event.available() && !parked.isEmpty()) scheduleRetry(0);
+    }
+
+    @EventListener
+    public void onReportCreated(ReportCreatedEvent event) {
+        // Duplicates are covered by the incident they were merged into
+        if (enabled && event.duplicateOf() == null) {
+            offer(event.reportId(), event.type(), event.timestamp(), event.lat(), event.lng());
+        }
+    }
+
+    // Another path claimed the report while it was queued here, then gave it back unassigned
+    @EventListener
+    public void onReportUnclaimed(ReportUnclaimedEvent event) {
+        if (running && clusterService.owns(event.lat(), event.lng())) {
+            offer(event.reportId(), event.type(), event.timestamp(), event.lat(), event.lng());
+        }
+    }
+
+    // Queue a report unless it is already queued; returns false if it was
+    public boolean offer(long reportId, String type, long timestamp, Double lat, Double lng) {
+        if (!held.add(reportId)) return false;
+        Item item = new Item(reportId, type, roleRules.rolesFor(type), timestamp, timestamp + maxWait(type),
+                lat, lng, false);
+        if (waitsBehindParked(item)) {
+            park(item);
+        } else {
+            enqueue(item);
+        }
+        return true;
+    }
+
+    // True if a more urgent parked report competes for the same roles
+    private boolean waitsBehindParked(Item item) {
+        for (Item p : parked) {
+            if (BY_DEADLINE.compare(item, p) < 0) return false;
+            if (roleRules.overlap(item.roles(), p.roles())) return true;
+        }
+        return false;
+    }
+
+    private void enqueue(Item item) {
+        queue.add(item);
+        ready.release();
+    }
+
+    // Reports waiting for dispatch, queued or parked
+    public int size() {
+        return held.size();
+    }
+
+    long maxWait(String type) {
+        if (type == null) return defaultMaxWaitMs;
+        return maxWaitByType.getOrDefault(type.toLowerCase(Locale.ROOT), defaultMaxWaitMs);
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                ready.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            Item item = queue.pollFirst();
+            if (item == null) continue;
+            Outcome outcome = dispatch(item);
+            if (outcome != Outcome.DONE) park(item);
+            if (outcome == Outcome.FAILED) scheduleRetry(retryDelayMs);
+        }
+    }
+
+    // Park a report; if a suitable unit is already free (it may have come on duty while the report was
+    // being tried, before there was anything parked to wake), run a round for it. A report a round has
+    // already handed back lost that unit to another report, so its next round waits out the retry delay
+    // instead of spinning; a report without a location is then left to the next availability event.
+    private void park(Item item) {
+        parked.add(item);
+        if (!item.retried()) {
+            if (mayFindResponder(item)) scheduleRetry(0);
+        } else if (item.lat() != null && item.lng() != null && mayFindResponder(item)) {
+            scheduleRetry(retryDelayMs);
+        }
+    }
+
+    private void scheduleRetry(long delayMs) {
+        if (!retryScheduled.compareAndSet(false, true)) return;
+        retries.schedule(this::retryParked, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Hand parked reports back to the workers, most urgent first: for each role set, only as many as
+    // there are free, located units of those roles. The rest stay parked with their original deadline
+    // without touching the database. A report without a location is matched against the database, so
+    // it is always handed back.
+    private void retryParked() {
+        retryScheduled.set(false);
+        Map<List<String>, Integer> freeUnits = new HashMap<>();
+        for (Item item : parked) {
+            if (!running) return;
+            if (item.lat() != null && item.lng() != null) {
+                int free = freeUnits.computeIfAbsent(item.roles(), spatialIndex::searchableCount);
+                if (free <= 0) continue;
+                freeUnits.put(item.roles(), free - 1);
+            }
+            if (parked.remove(item)) enqueue(item.asRetried());
+        }
+    }
+
+    // False if the index has no free, located unit of a role the report's type allows. A report without
+    // a location is matched against the database, so it is always worth trying.
+    private boolean mayFindResponder(Item item) {
+        if (item.lat() == null || item.lng() == null) return true;
+        return spatialIndex.searchableCount(item.roles()) > 0;
+    }
+
+    // Whether the report is parked (rather than queued, being dispatched or done)
+    boolean isParked(long reportId) {
+        for (Item p : parked) {
+            if (p.reportId() == reportId) return true;
+        }
+        return false;
+    }
+
+    // Try to assign the report
+    private Outcome dispatch(Item item) {
+        try {
+            AssignmentDTO assignment = clusterService.assign(item.reportId(), item.lat(), item.lng());
+            if (assignment != null) {
+                held.remove(item.reportId());
+                latency(item.type()).record(Math.max(0, System.currentTimeMillis() - item.timestamp()),
+                        TimeUnit.MILLISECONDS);
+                return Outcome.DONE;
+            }
+            // Null means no unit was free, or the report is gone or claimed by another path; only a
+            // report that is still NEW needs another attempt. It is let go before the status is read: if
+            // the other path gives it back after that, onReportUnclaimed queues it again, and if it was
+            // given back before, it is taken back here unless that event got there first
+            held.remove(item.reportId());
+            String status = emergencyReportRepository.findById(item.reportId())
+                    .map(EmergencyReport::getStatus).orElse(null);
+            if (AssignmentService.STATUS_NEW.equals(status) && held.add(item.reportId())) return Outcome.NO_RESPONDER;
+            return Outcome.DONE;
+        } catch (RuntimeException e) {
+            log.warn("Dispatch of report {} failed, retrying", item.reportId(), e);
+            return Outcome.FAILED;
+        }
+    }
+
+    // Time from report to assignment per type; unconfigured types share one timer
+    private Timer latency(String type) {
+        String key = type != null && maxWaitByType.containsKey(type.toLowerCase(Locale.ROOT))
+                ? type.toLowerCase(Locale.ROOT) : "other";
+        return latencyByType.computeIfAbsent(key, k -> Timer.builder("dispatch.queue.latency").tag("type", k)
+                .publishPercentiles(0.5, 0.99).register(registry));
+    }
+
+    // "Fire:15000,Medical:15000" -> {fire=15000, medical=15000}
+    private static Map<String, Long> parseMaxWaits(String spec) {
+        Map<String, Long> result = new HashMap<>();
+        if (spec == null || spec.isBlank()) return result;
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) throw new IllegalArgumentException("Bad dispatch.queue.max-wait-ms entry: " + part);
+            result.put(kv[0].trim().toLowerCase(Locale.ROOT), Long.parseLong(kv[1].trim()));
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workers.shutdownNow();
+        retries.shutdownNow();
+    }
+
+    // DONE: assigned, or no longer ours to dispatch; NO_RESPONDER: still NEW, waits for a unit;
+    // FAILED: an error, retried after retry-delay-ms
+    private enum Outcome { DONE, NO_RESPONDER, FAILED }
+
+    // roles: those allowed for the type, null for any; retried: handed back to the queue by a retry round
+    private record Item(long reportId, String type, List<String> roles, long timestamp, long deadline,
+                        Double lat, Double lng, boolean retried) {
+        Item asRetried() {
+            return retried ? this : new Item(reportId, type, roles, timestamp, deadline, lat, lng, true);
+        }
+    }
+}
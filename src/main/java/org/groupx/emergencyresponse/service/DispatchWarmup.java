@@ -0,0 +1,91 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Last startup step before the node reports ready (/actuator/health/readiness turns UP only after all
+// runners have finished): loads the responder working set into the cache and runs throwaway candidate
+// searches and ETA scoring around the fleet, so the first real dispatches hit warm caches, JIT-compiled
+// code and prepared repository queries instead of paying for them on the critical path.
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class DispatchWarmup implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(DispatchWarmup.class);
+    private static final int CANDIDATES = 8;
+
+    private final ResponderService responderService;
+    private final ResponderSpatialIndex spatialIndex;
+    private final AssignmentService assignmentService;
+    private final AssignmentRepository assignmentRepository;
+    private final EmergencyReportRepository emergencyReportRepository;
+    private final boolean enabled;
+    private final int preloadResponders;
+    private final int searches;
+    private final long maxMs;
+
+    public DispatchWarmup(ResponderService responderService,
+                          ResponderSpatialIndex spatialIndex,
+                          AssignmentService assignmentService,
+                          AssignmentRepository assignmentRepository,
+                          EmergencyReportRepository emergencyReportRepository,
+                          @Value("${warmup.enabled:true}") boolean enabled,
+                          @Value("${warmup.preload-responders:10000}") int preloadResponders,
+                          @Value("${warmup.searches:5000}") int searches,
+                          @Value("${warmup.max-ms:10000}") long maxMs) {
+        this.responderService = responderService;
+        this.spatialIndex = spatialIndex;
+        this.assignmentService = assignmentService;
+        this.assignmentRepository = assignmentRepository;
+        this.emergencyReportRepository = emergencyReportRepository;
+        this.enabled = enabled;
+        this.preloadResponders = preloadResponders;
+        this.searches = searches;
+        this.maxMs = maxMs;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        long deadline = start + maxMs * 1_000_000;
+        List<Responder> fleet = preloadResponders > 0 ? responderService.preload(preloadResponders) : List.of();
+
+        // Search from the fleet's own positions so the probes land in populated cells
+        List<Responder> located = new ArrayList<>();
+        for (Responder r : fleet) {
+            if (r.getCurrentLat() != null && r.getCurrentLng() != null) located.add(r);
+        }
+        int done = 0;
+        long checksum = 0;
+        for (; done < searches && !located.isEmpty() && System.nanoTime() < deadline; done++) {
+            Responder r = located.get(done % located.size());
+            String role = done % 2 == 0 ? r.getRole() : null;
+            List<ResponderSpatialIndex.Nearby> nearest =
+                    spatialIndex.kNearest(role, r.getCurrentLat(), r.getCurrentLng(), CANDIDATES);
+            if (nearest.isEmpty()) continue;
+            for (int eta : assignmentService.scoreCandidates(nearest, r.getCurrentLat(), r.getCurrentLng())) {
+                checksum += eta;
+            }
+        }
+
+        // First use of each lookup query on the dispatch and status paths (nothing has id -1)
+        assignmentRepository.findByEmergencyId(-1L);
+        emergencyReportRepository.findById(-1L);
+        assignmentService.getAssignment(-1L);
+
+        log.info("Warmup: cached {} responders, ran {} candidate searches (eta sum {}) in {} ms",
+                fleet.size(), done, checksum, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -1,26 +1,42 @@
 package org.groupx.emergencyresponse.service;
 
 import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.dto.CursorPage;
+import org.groupx.emergencyresponse.dto.EmergencyReportDTO;
 import org.groupx.emergencyresponse.dto.EmergencyResponseDTO;
 import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.event.ReportCreatedEvent;
 import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 public class EmergencyReportService {
     private final EmergencyReportRepository repo;
-    private final AssignmentService assignmentService;
+    private final ClusterService clusterService;
     private final ResponderService responderService;
+    private final ApplicationEventPublisher events;
+    private final DispatchMetrics metrics;
+    private final ReportArchiveService archive;
 
     public EmergencyReportService(EmergencyReportRepository repo, 
-                                   AssignmentService assignmentService,
-                                   ResponderService responderService) {
+                                   ClusterService clusterService,
+                                   ResponderService responderService,
+                                   ApplicationEventPublisher events,
+                                   DispatchMetrics metrics,
+                                   ReportArchiveService archive) {
         this.repo = repo;
-        this.assignmentService = assignmentService;
+        this.clusterService = clusterService;
         this.responderService = responderService;
+        this.events = events;
+        this.metrics = metrics;
+        this.archive = archive;
     }
 
     // Validates the reporterId: must not be null, empty, or shorter than 3 characters
@@ -32,45 +48,105 @@ public class EmergencyReportService {
 
     // Creates a new emergency report, saves it to the database, and returns its generated ID
     public Long createReport(CreateEmergencyReportDTO dto) {
-        // Map incoming DTO fields to a new EmergencyReport entity
+        // Persist the report, tell live watchers about it and return its ID
+        EmergencyReport saved = repo.save(toReport(dto, new Date()));
+        publishCreated(saved);
+        return saved.getId();
+    }
+
+    // Store a report of an incident already reported as incidentId; it is kept (and listed for its
+    // reporter) but not dispatched unless a dispatcher assigns it explicitly
+    public Long createDuplicate(CreateEmergencyReportDTO dto, long incidentId) {
+        EmergencyReport report = toReport(dto, new Date());
+        markDuplicate(report, incidentId);
+        EmergencyReport saved = repo.save(report);
+        publishCreated(saved);
+        return saved.getId();
+    }
+
+    // Store reports accepted earlier (e.g. drained from the intake journal) in one call
+    public List<EmergencyReport> saveReports(List<EmergencyReport> reports) {
+        List<EmergencyReport> saved = repo.saveAll(reports);
+        saved.forEach(this::publishCreated);
+        return saved;
+    }
+
+    // Map incoming DTO fields to a new EmergencyReport entity
+    EmergencyReport toReport(CreateEmergencyReportDTO dto, Date timestamp) {
         EmergencyReport er = new EmergencyReport();
         er.setType(dto.type);
         er.setDescription(dto.description);
         er.setLocationLat(dto.locationLat);
         er.setLocationLng(dto.locationLng);
         er.setReporterId(dto.reporterId);
-        er.setTimestamp(new Date());// Record the creation timestamp
+        er.setTimestamp(timestamp);// Record the creation timestamp
         er.setStatus("NEW");// Initial status of the report
+        return er;
+    }
 
-        // Persist the report and return its ID
-        EmergencyReport saved = repo.save(er);
-        return saved.getId();
+    static void markDuplicate(EmergencyReport report, long incidentId) {
+        report.setStatus(AssignmentService.STATUS_DUPLICATE);
+        report.setDuplicateOf(incidentId);
+    }
+
+    private void publishCreated(EmergencyReport saved) {
+        events.publishEvent(new ReportCreatedEvent(saved.getId(), saved.getReporterId(), saved.getType(),
+                saved.getLocationLat(), saved.getLocationLng(), saved.getTimestamp().getTime(),
+                saved.getDuplicateOf()));
     }
 
+    // Whether the report is still being handled: stored and not resolved (archived reports all are)
+    public boolean isOpen(long id) {
+        return repo.findById(id).map(r -> !AssignmentService.STATUS_RESOLVED.equals(r.getStatus())).orElse(false);
+    }
+
+    // Look in the database first, then in the archive
     public EmergencyReport getReport(Long id) {
-        return repo.findById(id).orElse(null);
+        return repo.findById(id).orElseGet(() -> archive.findReport(id));
     }
 
-    public List<EmergencyReport> getReportsByReporterId(String reporterId) {
-        return repo.findByReporterId(reporterId);
+    // One page of a reporter's reports after the given id, optionally in one status; archived reports
+    // are merged in by id
+    public CursorPage<EmergencyReportDTO> listReportsByReporterId(String reporterId, Long afterId, int limit,
+                                                                  String status) {
+        long after = afterId == null ? 0 : afterId;
+        List<EmergencyReportDTO> rows = repo.findPageByReporterId(reporterId, after, status,
+                PageRequest.of(0, limit + 1));
+        List<EmergencyReportDTO> archived = archive.findByReporter(reporterId, after, status, limit + 1);
+        if (!archived.isEmpty()) {
+            Map<Long, EmergencyReportDTO> merged = new TreeMap<>();
+            for (EmergencyReportDTO dto : archived) merged.put(dto.id, dto);
+            // A row still in the database wins over its archived copy
+            for (EmergencyReportDTO dto : rows) merged.put(dto.id, dto);
+            rows = merged.values().stream().limit(limit + 1).toList();
+        }
+        return CursorPage.of(rows, limit, dto -> dto.id);
     }
 
-    // Notifies the responder service by assigning a responder to the emergency
+    // Notifies the responder service by assigning a responder to the emergency; in clustered mode the
+    // node that owns the report's region picks the responder
     public EmergencyResponseDTO notifyResponderService(Long emergencyId) {
-        // Ask assignmentService to pick a responder; stop if none assigned
-        var assignmentDTO = assignmentService.assignResponder(emergencyId);
-        if (assignmentDTO == null) return null;
-
-        // Fetch the responder details; stop if responder not found
-        var responder = responderService.getResponder(assignmentDTO.responderId);
-        if (responder == null) return null;
-
-        // Build and return the response object containing responder info and ETA
-        EmergencyResponseDTO response = new EmergencyResponseDTO();
-        response.reportId = emergencyId;
-        response.responderName = responder.getName();
-        response.responderRole = responder.getRole();
-        response.etaMinutes = assignmentDTO.etaMinutes;
-        return response;
+        long started = metrics.start();
+        try {
+            // Ask the region's owner to pick a responder; stop if none assigned
+            var assignmentDTO = clusterService.assign(emergencyId);
+            if (assignmentDTO == null) return null;
+
+            // Fetch the responder details; stop if responder not found
+            long t = metrics.start();
+            var responder = responderService.getResponder(assignmentDTO.responderId);
+            metrics.stop(DispatchMetrics.Stage.RESPONDER_LOOKUP, t);
+            if (responder == null) return null;
+
+            // Build and return the response object containing responder info and ETA
+            EmergencyResponseDTO response = new EmergencyResponseDTO();
+            response.reportId = emergencyId;
+            response.responderName = responder.getName();
+            response.responderRole = responder.getRole();
+            response.etaMinutes = assignmentDTO.etaMinutes;
+            return response;
+        } finally {
+            metrics.stop(DispatchMetrics.Stage.NOTIFY, started);
+        }
     }
 }
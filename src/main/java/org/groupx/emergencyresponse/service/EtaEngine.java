@@ -0,0 +1,17 @@
+package org.groupx.emergencyresponse.service;
+
+// Estimates responder travel time to an incident; the implementation is chosen in EtaEngineConfig
+public interface EtaEngine {
+    // Travel time in minutes from a responder position to an incident
+    double etaMinutes(double fromLat, double fromLng, double toLat, double toLng);
+
+    // Many-to-one: travel times in minutes from every origin to the same incident.
+    // Engines that can answer this in a single search override it.
+    default double[] etaMinutesToTarget(double[] fromLats, double[] fromLngs, double toLat, double toLng) {
+        double[] minutes = new double[fromLats.length];
+        for (int i = 0; i < minutes.length; i++) {
+            minutes[i] = etaMinutes(fromLats[i], fromLngs[i], toLat, toLng);
+        }
+        return minutes;
+    }
+}
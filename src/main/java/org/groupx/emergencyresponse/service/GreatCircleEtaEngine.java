@@ -0,0 +1,21 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.geo.GeoUtils;
+
+// Road-less estimate: great-circle distance stretched by a detour factor at a flat average speed.
+// Used when no road graph is configured and as the fallback for points off the graph.
+public class GreatCircleEtaEngine implements EtaEngine {
+    private final double averageSpeedKmh;
+    private final double detourFactor;
+
+    public GreatCircleEtaEngine(double averageSpeedKmh, double detourFactor) {
+        this.averageSpeedKmh = averageSpeedKmh;
+        this.detourFactor = detourFactor;
+    }
+
+    @Override
+    public double etaMinutes(double fromLat, double fromLng, double toLat, double toLng) {
+        double km = GeoUtils.haversineKm(fromLat, fromLng, toLat, toLng) * detourFactor;
+        return km / averageSpeedKmh * 60.0;
+    }
+}
@@ -0,0 +1,303 @@
+package org.groupx.emergencyresponse.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only log of fixed-size, memory-mapped segment files (intake-<firstSeq>.log).
+// Record layout: [int length][int crc32][long seq][payload], where length and crc cover seq + payload;
+// a zero length marks the end of the written part of a segment. Appends are acknowledged only after
+// the written range is forced to disk; concurrent appenders share one force (group commit).
+// A separate checkpoint file records the highest sequence number applied downstream, and segments
+// that lie entirely below it are deleted. The directory is locked while the journal is open, so a
+// second process (or application context) pointed at it fails at startup instead of interleaving writes.
+public class IntakeJournal implements Closeable {
+    private static final String SEGMENT_PREFIX = "intake-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String LOCK_FILE = "lock";
+    private static final int HEADER_BYTES = 8;
+    private static final int SEQ_BYTES = 8;
+
+    private final Path dir;
+    private final int segmentBytes;
+    // Open while the journal holds the directory lock; closing it releases the lock
+    private FileChannel lockChannel;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock forceLock = new ReentrantLock();
+    // Oldest first; the last one is being appended to. Guarded by appendLock.
+    private final List<Segment> segments = new ArrayList<>();
+    private final List<Record> recovered = new ArrayList<>();
+    private long nextSeq;
+    private volatile long checkpoint;
+
+    private IntakeJournal(Path dir, int segmentBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+    }
+
+    // Open (or create) the journal in dir and recover every record not yet checkpointed.
+    // Throws IllegalStateException if another open journal holds the directory.
+    public static IntakeJournal open(Path dir, int segmentBytes) throws IOException {
+        Files.createDirectories(dir);
+        IntakeJournal journal = new IntakeJournal(dir, segmentBytes);
+        journal.lock();
+        try {
+            journal.recover();
+        } catch (IOException | RuntimeException e) {
+            journal.unlock();
+            throw e;
+        }
+        return journal;
+    }
+
+    // Records written before the last shutdown or crash that were never checkpointed, oldest first
+    public List<Record> unapplied() {
+        return List.copyOf(recovered);
+    }
+
+    // Largest payload a single record can carry
+    public int maxPayloadBytes() {
+        return segmentBytes - HEADER_BYTES - SEQ_BYTES;
+    }
+
+    // Append a record and return its sequence number once it is on disk. onAssigned runs under the
+    // append lock, so callers observe sequence numbers in order.
+    public long append(byte[] payload, LongConsumer onAssigned) {
+        if (payload.length > maxPayloadBytes()) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes exceeds the segment size");
+        }
+        int length = SEQ_BYTES + payload.length;
+        Segment segment;
+        long seq;
+        int end;
+        appendLock.lock();
+        try {
+            seq = nextSeq;
+            segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (segment == null || segment.writePos + HEADER_BYTES + length > segment.capacity) {
+                if (segment != null) force(segment, segment.writePos);
+                segment = createSegment(seq);
+            }
+            ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + length).order(ByteOrder.LITTLE_ENDIAN);
+            record.putInt(length).putInt(0).putLong(seq).put(payload);
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), HEADER_BYTES, length);
+            record.putInt(4, (int) crc.getValue());
+            segment.buffer.put(segment.writePos, record.array());
+            segment.writePos += record.capacity();
+            end = segment.writePos;
+            nextSeq = seq + 1;
+            onAssigned.accept(seq);
+        } finally {
+            appendLock.unlock();
+        }
+        force(segment, end);
+        return seq;
+    }
+
+    // Record that everything up to seq has been applied and drop segments that are no longer needed
+    public void checkpoint(long seq) {
+        if (seq <= checkpoint) return;
+        try {
+            Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ch.write(ByteBuffer.allocate(8).putLong(0, seq));
+                ch.force(true);
+            }
+            Files.move(tmp, dir.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        checkpoint = seq;
+        appendLock.lock();
+        try {
+            // A segment is obsolete when the next one starts at or below checkpoint + 1
+            while (segments.size() > 1 && segments.get(1).firstSeq <= seq + 1) {
+                Segment obsolete = segments.remove(0);
+                try {
+                    Files.deleteIfExists(obsolete.path);
+                } catch (IOException e) {
+                    // Still mapped on some platforms; it is skipped by the checkpoint on the next recovery
+                }
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long checkpointSeq() {
+        return checkpoint;
+    }
+
+    // Sequence number the next append will get
+    public long nextSeq() {
+        appendLock.lock();
+        try {
+            return nextSeq;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            for (Segment s : segments) force(s, s.writePos);
+        } finally {
+            appendLock.unlock();
+        }
+        unlock();
+    }
+
+    private void lock() throws IOException {
+        lockChannel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // held by another journal in this JVM
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Intake journal " + dir.toAbsolutePath() + " is in use by another process");
+        }
+    }
+
+    private synchronized void unlock() {
+        if (lockChannel == null) return;
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            // The lock goes with the process anyway
+        }
+        lockChannel = null;
+    }
+
+    // Force the segment up to end unless an earlier (or concurrent) caller already did
+    private void force(Segment segment, int end) {
+        forceLock.lock();
+        try {
+            if (segment.forcedTo >= end) return;
+            int target = segment.writePos;
+            segment.buffer.force(segment.forcedTo, target - segment.forcedTo);
+            segment.forcedTo = target;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        Path checkpointFile = dir.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpointFile)) {
+            checkpoint = ByteBuffer.wrap(Files.readAllBytes(checkpointFile)).getLong();
+        }
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        long maxSeq = checkpoint;
+        for (Path file : files) {
+            Segment segment = mapSegment(file, firstSeqOf(file));
+            segments.add(segment);
+            ByteBuffer buf = segment.buffer;
+            int pos = 0;
+            while (pos + HEADER_BYTES + SEQ_BYTES <= segment.capacity) {
+                int length = buf.getInt(pos);
+                if (length < SEQ_BYTES || pos + HEADER_BYTES + length > segment.capacity) break;
+                byte[] body = new byte[length];
+                buf.get(pos + HEADER_BYTES, body);
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                if ((int) crc.getValue() != buf.getInt(pos + 4)) break; // torn write at the tail
+                long seq = ByteBuffer.wrap(body, 0, SEQ_BYTES).order(ByteOrder.LITTLE_ENDIAN).getLong();
+                if (seq > checkpoint) {
+                    byte[] payload = new byte[length - SEQ_BYTES];
+                    System.arraycopy(body, SEQ_BYTES, payload, 0, payload.length);
+                    recovered.add(new Record(seq, payload));
+                }
+                maxSeq = Math.max(maxSeq, seq);
+                pos += HEADER_BYTES + length;
+            }
+            // Clear anything after the last good record so a later append is never followed by stale bytes
+            boolean cleared = false;
+            for (int i = pos; i < segment.capacity; i++) {
+                if (buf.get(i) != 0) {
+                    buf.put(i, (byte) 0);
+                    cleared = true;
+                }
+            }
+            if (cleared) segment.buffer.force();
+            segment.writePos = pos;
+            segment.forcedTo = pos;
+        }
+        nextSeq = maxSeq + 1;
+    }
+
+    private Segment createSegment(long firstSeq) {
+        try {
+            Segment segment = mapSegment(dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq,
+                    SEGMENT_SUFFIX)), firstSeq);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Existing segments keep the size they were created with, even if segmentBytes has changed since
+    private Segment mapSegment(Path file, long firstSeq) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long size = ch.size() > 0 ? ch.size() : segmentBytes;
+            MappedByteBuffer buffer = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new Segment(file, firstSeq, buffer, (int) size);
+        }
+    }
+
+    private static long firstSeqOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    public record Record(long seq, byte[] payload) {}
+
+    private static final class Segment {
+        final Path path;
+        final long firstSeq;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        volatile int writePos;
+        int forcedTo; // guarded by forceLock
+
+        Segment(Path path, long firstSeq, MappedByteBuffer buffer, int capacity) {
+            this.path = path;
+            this.firstSeq = firstSeq;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.groupx.emergencyresponse.event.DispatchEvent;
+import org.groupx.emergencyresponse.geo.Geohash;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fans dispatch events out to server-sent-event subscribers. Each subscriber has a filter and a
+// bounded buffer: position/ETA updates coalesce to the latest value per entity and, when the buffer
+// is full, the oldest event is dropped. Subscribers are indexed by reporter, region prefix and role,
+// so publishing (which runs on the thread that caused the event, e.g. a location ping) costs a few map
+// lookups plus the subscribers that actually want the event, and computes a geohash only when someone
+// filters on region. Buffers are flushed on virtual threads, so a client that stops reading parks only
+// its own sender; one whose send has been stuck longer than events.send-timeout-ms is dropped.
+@Service
+public class LiveEventHub {
+    // Longest region prefix that can match; geohashes are computed at most to this precision
+    private static final int MAX_REGION_PRECISION = 12;
+    private static final String ANY = "";
+
+    private final int bufferSize;
+    private final long emitterTimeoutMs;
+    private final long sendTimeoutMs;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Subscribers filtered on a reporter are looked up directly; everyone else by (region prefix, role),
+    // with ANY standing for "no restriction" in either part
+    private final ConcurrentHashMap<String, Set<Subscriber>> byReporter = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Route, Set<Subscriber>> byRoute = new ConcurrentHashMap<>();
+    // Subscribers per region prefix length (index 0: no region filter); the longest in use bounds the
+    // geohash computed per event
+    private final AtomicInteger[] regionLengths = new AtomicInteger[MAX_REGION_PRECISION + 1];
+
+    private final MeterRegistry registry;
+    private final Counter delivered;
+    private final Counter dropped;
+    private final Counter coalesced;
+    private final Counter evicted;
+
+    public LiveEventHub(MeterRegistry registry,
+                        @Value("${events.buffer-size:256}") int bufferSize,
+                        @Value("${events.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                        @Value("${events.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.registry = registry;
+        this.bufferSize = bufferSize;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+        for (int i = 0; i < regionLengths.length; i++) regionLengths[i] = new AtomicInteger();
+        this.delivered = Counter.builder("events.delivered").register(registry);
+        this.dropped = Counter.builder("events.dropped").register(registry);
+        this.coalesced = Counter.builder("events.coalesced").register(registry);
+        this.evicted = Counter.builder("events.evicted")
+                .description("Subscribers dropped because a send took longer than events.send-timeout-ms")
+                .register(registry);
+    }
+
+    // The gauge reads this hub, so it is registered once construction is complete
+    @PostConstruct
+    public void registerGauges() {
+        Gauge.builder("events.subscribers", this, LiveEventHub::subscriberCount).register(registry);
+    }
+
+    // Open a stream; null filter values mean "no restriction". A region longer than the longest geohash
+    // the hub computes can never match.
+    public SseEmitter subscribe(String reporterId, String role, String region, Set<String> kinds) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber s = new Subscriber(emitter, reporterId, role == null ? null : role.toUpperCase(Locale.ROOT),
+                region == null || region.isEmpty() ? null : region, kinds, bufferSize);
+        if (reporterId != null) {
+            byReporter.computeIfAbsent(reporterId, k -> ConcurrentHashMap.newKeySet()).add(s);
+        } else if (s.region == null || s.region.length() <= MAX_REGION_PRECISION) {
+            byRoute.computeIfAbsent(s.route(), k -> ConcurrentHashMap.newKeySet()).add(s);
+            regionLengths[s.region == null ? 0 : s.region.length()].incrementAndGet();
+        }
+        Runnable remove = () -> unsubscribe(s);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    @EventListener
+    public void publish(DispatchEvent event) {
+        if (event.reporterId() != null) {
+            Set<Subscriber> reporterSubs = byReporter.get(event.reporterId());
+            if (reporterSubs != null) {
+                int precision = 0;
+                for (Subscriber s : reporterSubs) {
+                    if (s.region != null) precision = Math.max(precision, s.region.length());
+                }
+                String geohash = geohash(event, precision);
+                for (Subscriber s : reporterSubs) offer(s, event, geohash);
+            }
+        }
+        if (byRoute.isEmpty()) return;
+        String role = event.role() == null ? null : event.role().toUpperCase(Locale.ROOT);
+        route(new Route(ANY, ANY), event, null);
+        if (role != null) route(new Route(ANY, role), event, null);
+        String geohash = geohash(event, longestRegion());
+        if (geohash == null) return;
+        for (int length = 1; length <= geohash.length(); length++) {
+            if (regionLengths[length].get() == 0) continue;
+            String prefix = geohash.substring(0, length);
+            route(new Route(prefix, ANY), event, geohash);
+            if (role != null) route(new Route(prefix, role), event, geohash);
+        }
+    }
+
+    public int subscriberCount() {
+        int count = 0;
+        for (Set<Subscriber> subs : byRoute.values()) count += subs.size();
+        for (Set<Subscriber> subs : byReporter.values()) count += subs.size();
+        return count;
+    }
+
+    private void route(Route route, DispatchEvent event, String geohash) {
+        Set<Subscriber> subs = byRoute.get(route);
+        if (subs == null) return;
+        for (Subscriber s : subs) offer(s, event, geohash);
+    }
+
+    // Geohash of the event's location to the given precision, or null if it has no location or no
+    // precision is needed
+    private static String geohash(DispatchEvent event, int precision) {
+        if (precision == 0 || event.lat() == null || event.lng() == null) return null;
+        return Geohash.encode(event.lat(), event.lng(), Math.min(precision, MAX_REGION_PRECISION));
+    }
+
+    // Length of the longest region filter among indexed subscribers, 0 if nobody filters on region
+    private int longestRegion() {
+        for (int length = MAX_REGION_PRECISION; length > 0; length--) {
+            if (regionLengths[length].get() > 0) return length;
+        }
+        return 0;
+    }
+
+    private void offer(Subscriber s, DispatchEvent event, String geohash) {
+        if (!s.accepts(event, geohash)) return;
+        if (stalled(s)) {
+            evict(s);
+            return;
+        }
+        switch (s.buffer(event)) {
+            case DROPPED_OLDEST -> dropped.increment();
+            case COALESCED -> coalesced.increment();
+            default -> { }
+        }
+        // Only one flush per subscriber is in flight; it picks up everything buffered meanwhile
+        if (s.flushScheduled.compareAndSet(false, true)) senders.execute(() -> flush(s));
+    }
+
+    private void flush(Subscriber s) {
+        try {
+            List<DispatchEvent> batch;
+            while (!(batch = s.drain()).isEmpty()) {
+                for (DispatchEvent e : batch) {
+                    s.sendingSince = System.currentTimeMillis();
+                    s.emitter.send(SseEmitter.event().name(e.kind()).data(e));
+                    s.sendingSince = 0;
+                    delivered.increment();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter callbacks remove it
+            s.emitter.completeWithError(e);
+        } finally {
+            s.sendingSince = 0;
+            s.flushScheduled.set(false);
+            // An event may have arrived between the last drain and releasing the flag
+            if (s.hasPending() && s.flushScheduled.compareAndSet(false, true)) senders.execute(() -> flush(s));
+        }
+    }
+
+    // True if a send to the subscriber has been blocked (client not reading) for too long
+    private boolean stalled(Subscriber s) {
+        long since = s.sendingSince;
+        return since != 0 && System.currentTimeMillis() - since > sendTimeoutMs;
+    }
+
+    // Stop buffering for a stalled subscriber and close its stream; the blocked send fails once the
+    // connection is torn down
+    private void evict(Subscriber s) {
+        if (!s.evicted.compareAndSet(false, true)) return;
+        unsubscribe(s);
+        evicted.increment();
+        s.emitter.completeWithError(new TimeoutException("Send blocked for over " + sendTimeoutMs + " ms"));
+    }
+
+    // Comment lines keep idle connections open through proxies and reveal dead clients; subscribers
+    // stalled on a send are dropped here too, in case no further event reaches them
+    @Scheduled(fixedDelayString = "${events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        List<Subscriber> all = new ArrayList<>();
+        byRoute.values().forEach(all::addAll);
+        byReporter.values().forEach(all::addAll);
+        for (Subscriber s : all) {
+            if (stalled(s)) {
+                evict(s);
+                continue;
+            }
+            if (s.flushScheduled.get()) continue; // a send is in progress, so the connection is being used
+            senders.execute(() -> {
+                try {
+                    s.emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    s.emitter.completeWithError(e);
+                }
+            });
+        }
+    }
+
+    private void unsubscribe(Subscriber s) {
+        if (s.reporterId != null) {
+            byReporter.computeIfPresent(s.reporterId, (k, subs) -> {
+                subs.remove(s);
+                return subs.isEmpty() ? null : subs;
+            });
+            return;
+        }
+        // Completion, timeout and eviction may each try; only the first removal counts
+        boolean[] removed = {false};
+        byRoute.computeIfPresent(s.route(), (k, subs) -> {
+            removed[0] = subs.remove(s);
+            return subs.isEmpty() ? null : subs;
+        });
+        if (removed[0]) regionLengths[s.region == null ? 0 : s.region.length()].decrementAndGet();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    // Index key of a subscriber without a reporter filter: region prefix and upper-cased role, ANY if unset
+    private record Route(String region, String role) {}
+
+    enum BufferResult { ADDED, COALESCED, DROPPED_OLDEST }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final String reporterId;
+        final String role;
+        final String region;
+        final Set<String> kinds;
+        final int capacity;
+        final AtomicBoolean flushScheduled = new AtomicBoolean();
+        final AtomicBoolean evicted = new AtomicBoolean();
+        // When the send in progress started, 0 while none is
+        volatile long sendingSince;
+        // Pending events in arrival order, plus an index of the coalescable ones by key
+        private final ArrayDeque<DispatchEvent[]> queue = new ArrayDeque<>();
+        private final Map<String, DispatchEvent[]> latestByKey = new HashMap<>();
+
+        Subscriber(SseEmitter emitter, String reporterId, String role, String region,
+                   Set<String> kinds, int capacity) {
+            this.emitter = emitter;
+            this.reporterId = reporterId;
+            this.role = role;
+            this.region = region;
+            this.kinds = kinds;
+            this.capacity = capacity;
+        }
+
+        Route route() {
+            return new Route(region == null ? ANY : region, role == null ? ANY : role);
+        }
+
+        boolean accepts(DispatchEvent e, String geohash) {
+            if (kinds != null && !kinds.contains(e.kind())) return false;
+            if (reporterId != null && !reporterId.equals(e.reporterId())) return false;
+            if (role != null && !role.equalsIgnoreCase(e.role())) return false;
+            return region == null || (geohash != null && geohash.startsWith(region));
+        }
+
+        // Slots are one-element arrays so a coalesced update replaces the event in place,
+        // keeping the position of the first pending update in the queue
+        synchronized BufferResult buffer(DispatchEvent e) {
+            String key = e.coalesceKey();
+            if (key != null) {
+                DispatchEvent[] slot = latestByKey.get(key);
+                if (slot != null) {
+                    slot[0] = e;
+                    return BufferResult.COALESCED;
+                }
+            }
+            BufferResult result = BufferResult.ADDED;
+            if (queue.size() >= capacity) {
+                DispatchEvent[] oldest = queue.pollFirst();
+                String oldKey = oldest[0].coalesceKey();
+                if (oldKey != null) latestByKey.remove(oldKey);
+                result = BufferResult.DROPPED_OLDEST;
+            }
+            DispatchEvent[] slot = {e};
+            queue.addLast(slot);
+            if (key != null) latestByKey.put(key, slot);
+            return result;
+        }
+
+        synchronized List<DispatchEvent> drain() {
+            List<DispatchEvent> out = new ArrayList<>(queue.size());
+            for (Iterator<DispatchEvent[]> it = queue.iterator(); it.hasNext(); ) {
+                out.add(it.next()[0]);
+                it.remove();
+            }
+            latestByKey.clear();
+            return out;
+        }
+
+        synchronized boolean hasPending() {
+            return !queue.isEmpty();
+        }
+    }
+}
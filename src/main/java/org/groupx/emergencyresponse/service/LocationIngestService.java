@@ -0,0 +1,123 @@
+package org.groupx.emergencyresponse.service;
+
+import jakarta.annotation.PreDestroy;
+import org.groupx.emergencyresponse.event.ResponderMovedEvent;
+import org.groupx.emergencyresponse.geo.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Accepts responder GPS pings, keeps only the latest fix per responder and
+// writes them to the database in periodic JDBC batches instead of one save per ping.
+// Each write bumps the row's version and update time so clustered nodes refreshing their index see the move.
+@Service
+public class LocationIngestService {
+    private static final String UPDATE_SQL =
+            "update responder set current_lat = ?, current_lng = ?, version = version + 1, " +
+            "updated_at = current_timestamp where id = ?";
+
+    // REJECTED: the buffer is full; INVALID: not a usable position (NaN, infinite or out of range)
+    public enum Result { ACCEPTED, UNKNOWN_RESPONDER, REJECTED, INVALID }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ResponderSpatialIndex spatialIndex;
+    private final ApplicationEventPublisher events;
+    private final int maxPending;
+    private final int batchSize;
+
+    // responderId -> latest fix not yet written to the database
+    private final ConcurrentHashMap<Long, LocationFix> pending = new ConcurrentHashMap<>();
+    // responderId -> timestamp of the newest fix accepted, kept after a flush so a late ping cannot move
+    // a unit back. Only read and written inside pending.compute for the same responder.
+    private final ConcurrentHashMap<Long, Long> newest = new ConcurrentHashMap<>();
+
+    public LocationIngestService(JdbcTemplate jdbcTemplate,
+                                 ResponderSpatialIndex spatialIndex,
+                                 ApplicationEventPublisher events,
+                                 @Value("${telemetry.max-pending:100000}") int maxPending,
+                                 @Value("${telemetry.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.spatialIndex = spatialIndex;
+        this.events = events;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+    }
+
+    // Record a ping; the position is visible to dispatch immediately and persisted on the next flush
+    public Result offer(long responderId, double lat, double lng) {
+        return offer(responderId, lat, lng, System.currentTimeMillis());
+    }
+
+    // Same, for a fix taken at the given time. A fix older than one already accepted for the responder is
+    // acknowledged but dropped, so pings that overtake each other never move a unit back.
+    Result offer(long responderId, double lat, double lng, long timestamp) {
+        if (!GeoUtils.isValid(lat, lng)) return Result.INVALID;
+        if (!spatialIndex.contains(responderId)) return Result.UNKNOWN_RESPONDER;
+        LocationFix fix = new LocationFix(lat, lng, timestamp);
+        // Pings for responders already queued just coalesce; new ones are refused once the buffer is full
+        if (pending.size() >= maxPending && !pending.containsKey(responderId)) return Result.REJECTED;
+        // The age check, the index move and the buffer update happen together under the entry's lock
+        boolean[] applied = new boolean[1];
+        pending.compute(responderId, (id, queued) -> {
+            Long latest = newest.get(id);
+            if (latest != null && latest > timestamp) return queued;
+            newest.put(id, timestamp);
+            spatialIndex.move(id, lat, lng);
+            applied[0] = true;
+            return fix;
+        });
+        if (applied[0]) {
+            events.publishEvent(new ResponderMovedEvent(responderId, spatialIndex.roleOf(responderId),
+                    lat, lng, timestamp));
+        }
+        return Result.ACCEPTED;
+    }
+
+    // Latest fix that has not reached the database yet, or null
+    public LocationFix pendingFix(long responderId) {
+        return pending.get(responderId);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    // Write all coalesced fixes in JDBC batches; fixes superseded during the write stay queued
+    @Scheduled(fixedDelayString = "${telemetry.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+        List<Map.Entry<Long, LocationFix>> snapshot = new ArrayList<>(batchSize);
+        for (Map.Entry<Long, LocationFix> e : pending.entrySet()) {
+            snapshot.add(Map.entry(e.getKey(), e.getValue()));
+            if (snapshot.size() == batchSize) {
+                write(snapshot);
+                snapshot.clear();
+            }
+        }
+        if (!snapshot.isEmpty()) write(snapshot);
+    }
+
+    private void write(List<Map.Entry<Long, LocationFix>> batch) {
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (Map.Entry<Long, LocationFix> e : batch) {
+            args.add(new Object[]{e.getValue().lat(), e.getValue().lng(), e.getKey()});
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+        // Only drop fixes that were not replaced by a newer ping while the batch was running
+        for (Map.Entry<Long, LocationFix> e : batch) pending.remove(e.getKey(), e.getValue());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public record LocationFix(double lat, double lng, long timestamp) {}
+}
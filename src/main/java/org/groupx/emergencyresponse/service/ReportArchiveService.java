@@ -0,0 +1,269 @@
+package org.groupx.emergencyresponse.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.groupx.emergencyresponse.dto.EmergencyReportDTO;
+import org.groupx.emergencyresponse.entity.Assignment;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.event.ReportsArchivedEvent;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Moves resolved reports and their assignments out of the database once they are older than after-ms.
+// They go into ArchiveSegment files, one per day of report time, and the GET endpoints for reports and
+// assignments look there when the database has no row. A run that archives more of a day merges it with
+// the day's segment into a new file; the replaced file is deleted at the start of the next run, so a
+// lookup that picked it just before the swap can still read it. Only segment indexes (id ranges and a
+// reporter Bloom filter) stay in memory; decoded segments are cached up to cached-segments. A run writes
+// the segments before deleting the rows, so a crash in between leaves rows in both places, which the
+// next run notices and just deletes.
+@Service
+public class ReportArchiveService {
+    private static final Logger log = LoggerFactory.getLogger(ReportArchiveService.class);
+
+    private final EmergencyReportRepository reportRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final ApplicationEventPublisher events;
+    private final boolean enabled;
+    private final Path dir;
+    private final long afterMs;
+    private final int batchSize;
+    private final Counter archived;
+    private final Cache<Path, ArchiveSegment.Rows> decoded;
+
+    // Ordered by first report id; replaced wholesale, only by the archive run
+    private volatile List<ArchiveSegment> segments = List.of();
+    // Files merged into a newer segment of their day, deleted by the next run
+    private final List<Path> replaced = new ArrayList<>();
+
+    public ReportArchiveService(EmergencyReportRepository reportRepository,
+                                AssignmentRepository assignmentRepository,
+                                ApplicationEventPublisher events,
+                                MeterRegistry registry,
+                                @Value("${archive.enabled:false}") boolean enabled,
+                                @Value("${archive.dir:data/archive}") String dir,
+                                @Value("${archive.after-ms:2592000000}") long afterMs,
+                                @Value("${archive.batch-size:5000}") int batchSize,
+                                @Value("${archive.cached-segments:16}") int cachedSegments) throws IOException {
+        this.reportRepository = reportRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.events = events;
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.afterMs = afterMs;
+        this.batchSize = batchSize;
+        this.archived = Counter.builder("archive.reports").register(registry);
+        this.decoded = Caffeine.newBuilder().maximumSize(cachedSegments).build();
+        if (enabled) {
+            Files.createDirectories(this.dir);
+            List<ArchiveSegment> found = new ArrayList<>();
+            try (Stream<Path> files = Files.list(this.dir)) {
+                for (Path p : files.filter(ArchiveSegment::isSegmentFile).toList()) found.add(ArchiveSegment.open(p));
+            }
+            found.sort(Comparator.comparingLong(ArchiveSegment::minId));
+            segments = List.copyOf(found);
+            // Days with several files (a run stopped before deleting replaced ones, or an archive from
+            // before segments were merged) become one segment before anything reads them
+            Map<LocalDate, Long> perDay = found.stream()
+                    .collect(Collectors.groupingBy(ArchiveSegment::day, TreeMap::new, Collectors.counting()));
+            for (Map.Entry<LocalDate, Long> day : perDay.entrySet()) {
+                if (day.getValue() > 1) writeDay(day.getKey(), List.of(), Map.of());
+            }
+            deleteReplaced();
+            if (!found.isEmpty()) log.info("Archive has {} segments", segments.size());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Archive everything resolved before the cutoff, a batch at a time
+    @Scheduled(fixedDelayString = "${archive.interval-ms:3600000}", initialDelayString = "${archive.interval-ms:3600000}")
+    public void archive() {
+        if (!enabled) return;
+        deleteReplaced();
+        Date cutoff = new Date(System.currentTimeMillis() - afterMs);
+        int total = 0;
+        while (true) {
+            List<EmergencyReport> batch = reportRepository.findByStatusAndTimestampBeforeOrderByTimestampAsc(
+                    AssignmentService.STATUS_RESOLVED, cutoff, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) break;
+            List<Long> ids = batch.stream().map(EmergencyReport::getId).toList();
+            Map<Long, Assignment> assignments = assignmentRepository.findByEmergencyIdIn(ids).stream()
+                    .collect(Collectors.toMap(Assignment::getEmergencyId, Function.identity(), (a, b) -> b));
+            // Group by UTC day; reports a previous run wrote but did not get to delete are skipped
+            Map<LocalDate, List<EmergencyReport>> byDay = new TreeMap<>();
+            for (EmergencyReport r : batch) {
+                if (findReport(r.getId()) != null) continue;
+                byDay.computeIfAbsent(r.getTimestamp().toInstant().atZone(ZoneOffset.UTC).toLocalDate(),
+                        d -> new ArrayList<>()).add(r);
+            }
+            try {
+                for (Map.Entry<LocalDate, List<EmergencyReport>> day : byDay.entrySet()) {
+                    writeDay(day.getKey(), day.getValue(), assignments);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            assignmentRepository.deleteByEmergencyIdIn(ids);
+            reportRepository.deleteResolvedByIdIn(ids);
+            List<ReportsArchivedEvent.Archived> moved = new ArrayList<>(batch.size());
+            for (EmergencyReport r : batch) {
+                Assignment a = assignments.get(r.getId());
+                moved.add(new ReportsArchivedEvent.Archived(r.getId(), r.getReporterId(), a == null ? null : a.getId()));
+            }
+            events.publishEvent(new ReportsArchivedEvent(moved));
+            archived.increment(ids.size());
+            total += ids.size();
+        }
+        if (total > 0) log.info("Archived {} resolved reports", total);
+    }
+
+    // A report from the archive, or null
+    public EmergencyReport findReport(long id) {
+        for (ArchiveSegment s : segments) {
+            if (!s.coversReport(id)) continue;
+            ArchiveSegment.Rows rows = rows(s);
+            int i = rows.indexOf(id);
+            if (i >= 0) return rows.report(i);
+        }
+        return null;
+    }
+
+    // An archived report by the intake sequence number it was journaled under, or null. Segments carry no
+    // intake range, so this reads every one of them; it serves only status lookups of old intake ids.
+    public EmergencyReport findReportByIntakeSeq(long intakeSeq) {
+        for (ArchiveSegment s : segments) {
+            ArchiveSegment.Rows rows = rows(s);
+            for (int i = 0; i < rows.size(); i++) {
+                Long seq = rows.intakeSeqs[i];
+                if (seq != null && seq == intakeSeq) return rows.report(i);
+            }
+        }
+        return null;
+    }
+
+    // An archived assignment by its own id, or null
+    public Assignment findAssignment(long id) {
+        for (ArchiveSegment s : segments) {
+            if (!s.coversAssignment(id)) continue;
+            ArchiveSegment.Rows rows = rows(s);
+            int i = rows.indexOfAssignment(id);
+            if (i >= 0) return rows.assignment(i);
+        }
+        return null;
+    }
+
+    // The archived assignment of a report, or null
+    public Assignment findAssignmentByEmergencyId(long emergencyId) {
+        for (ArchiveSegment s : segments) {
+            if (!s.coversReport(emergencyId)) continue;
+            ArchiveSegment.Rows rows = rows(s);
+            int i = rows.indexOf(emergencyId);
+            if (i >= 0) return rows.assignment(i);
+        }
+        return null;
+    }
+
+    // Up to max archived reports of a reporter with id > afterId, optionally in one status, by id
+    public List<EmergencyReportDTO> findByReporter(String reporterId, long afterId, String status, int max) {
+        List<EmergencyReportDTO> found = new ArrayList<>();
+        if (!enabled || reporterId == null) return found;
+        for (ArchiveSegment s : segments) {
+            if (s.maxId() <= afterId || !s.mayContainReporter(reporterId)) continue;
+            ArchiveSegment.Rows rows = rows(s);
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.ids[i] <= afterId || !reporterId.equals(rows.reporterIds[i])) continue;
+                if (status != null && !status.equals(rows.statuses[i])) continue;
+                found.add(EmergencyReportDTO.from(rows.report(i)));
+            }
+        }
+        // Segments of different days can overlap in id range
+        found.sort(Comparator.comparingLong(dto -> dto.id));
+        return found.size() > max ? new ArrayList<>(found.subList(0, max)) : found;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    // Write reports of a day, together with whatever the day's segments already hold, as the day's one segment
+    private void writeDay(LocalDate day, List<EmergencyReport> reports, Map<Long, Assignment> assignments)
+            throws IOException {
+        List<ArchiveSegment> existing = segments.stream().filter(s -> s.day().equals(day)).toList();
+        Map<Long, EmergencyReport> merged = new TreeMap<>();
+        Map<Long, Assignment> mergedAssignments = new HashMap<>();
+        for (ArchiveSegment s : existing) {
+            ArchiveSegment.Rows rows = s.read();
+            for (int i = 0; i < rows.size(); i++) {
+                merged.put(rows.ids[i], rows.report(i));
+                Assignment a = rows.assignment(i);
+                if (a != null) mergedAssignments.put(rows.ids[i], a);
+            }
+        }
+        for (EmergencyReport r : reports) {
+            merged.put(r.getId(), r);
+            Assignment a = assignments.get(r.getId());
+            if (a != null) mergedAssignments.put(r.getId(), a);
+        }
+        ArchiveSegment written = ArchiveSegment.write(dir, day, new ArrayList<>(merged.values()), mergedAssignments);
+
+        List<ArchiveSegment> next = new ArrayList<>(segments);
+        next.removeAll(existing);
+        next.add(written);
+        next.sort(Comparator.comparingLong(ArchiveSegment::minId));
+        segments = List.copyOf(next);
+        for (ArchiveSegment s : existing) {
+            if (!s.file().equals(written.file())) replaced.add(s.file());
+            decoded.invalidate(s.file());
+        }
+    }
+
+    private void deleteReplaced() {
+        for (Path p : replaced) {
+            try {
+                Files.deleteIfExists(p);
+            } catch (IOException e) {
+                log.warn("Could not delete replaced archive segment {}", p, e);
+            }
+        }
+        replaced.clear();
+    }
+
+    private ArchiveSegment.Rows rows(ArchiveSegment s) {
+        return decoded.get(s.file(), f -> {
+            try {
+                return s.read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
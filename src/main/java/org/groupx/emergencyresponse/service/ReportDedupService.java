@@ -0,0 +1,244 @@
+package org.groupx.emergencyresponse.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.geo.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Recognises repeated submissions before they are stored and dispatched. Two stages:
+// - Idempotency keys: a retried POST /alerts with the same Idempotency-Key (and reporter) gets the
+//   first answer back and nothing new is stored.
+// - Nearby reports (off unless intake.dedup.enabled): a report of the same type within radius-m of an
+//   incident first reported less than window-ms ago is still stored, but as a duplicate of that
+//   incident, so it is kept and listed for its reporter without a second unit being sent. The window
+//   runs from the first report and is not extended by duplicates. An incident whose first report has
+//   been resolved is forgotten when a report would be merged into it, since nothing would dispatch or
+//   resolve the duplicate. Incidents live in a grid of radius-sized cells, so a lookup only scans the
+//   cells around the report.
+// Both are in-memory and per node; reports without a type or location are never merged.
+@Service
+public class ReportDedupService {
+    private static final double METERS_PER_DEG_LAT = 111_320.0;
+
+    private final boolean enabled;
+    private final double radiusM;
+    private final long windowMs;
+    private final double cellDeg;
+    private final Cache<String, CompletableFuture<Admission>> keys;
+    private final Counter replayed;
+    private final Counter merged;
+
+    // Grid cell -> incidents first reported in it; guarded by this
+    private final Map<Cell, List<Incident>> cells = new HashMap<>();
+
+    public ReportDedupService(MeterRegistry registry,
+                              @Value("${intake.dedup.enabled:false}") boolean enabled,
+                              @Value("${intake.dedup.radius-m:150}") double radiusM,
+                              @Value("${intake.dedup.window-ms:600000}") long windowMs,
+                              @Value("${intake.idempotency.ttl-ms:86400000}") long keyTtlMs,
+                              @Value("${intake.idempotency.max-keys:100000}") long maxKeys) {
+        this.enabled = enabled;
+        this.radiusM = radiusM;
+        this.windowMs = windowMs;
+        this.cellDeg = radiusM / METERS_PER_DEG_LAT;
+        this.keys = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(keyTtlMs))
+                .maximumSize(maxKeys)
+                .build();
+        this.replayed = Counter.builder("intake.deduplicated").tag("reason", "idempotency-key").register(registry);
+        this.merged = Counter.builder("intake.deduplicated").tag("reason", "nearby-report").register(registry);
+    }
+
+    // Stores one report and returns its id (negative if rejected); duplicateOf is null for a new
+    // incident, else the id store returned for the incident's first report
+    @FunctionalInterface
+    public interface Store {
+        long store(CreateEmergencyReportDTO dto, Long duplicateOf);
+    }
+
+    // Whether the incident whose first report store returned this id for is still being handled
+    @FunctionalInterface
+    public interface OpenCheck {
+        boolean isOpen(long id);
+    }
+
+    // Answer for this submission: the first answer for a repeated key, else the id store returns for
+    // the report, marked as a duplicate if it was merged into an earlier, still open incident.
+    // A negative id from store (rejected) is passed through and nothing is remembered.
+    public Admission admit(String idempotencyKey, CreateEmergencyReportDTO dto, Store create, OpenCheck open) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) return admitReport(dto, create, open);
+        // Keys are chosen by clients, so they only need to be unique per reporter
+        String key = dto.reporterId + "/" + idempotencyKey;
+        CompletableFuture<Admission> mine = new CompletableFuture<>();
+        CompletableFuture<Admission> first = keys.asMap().putIfAbsent(key, mine);
+        if (first != null) {
+            Admission earlier = outcome(first);
+            if (earlier.id() >= 0) {
+                replayed.increment();
+                return earlier;
+            }
+            // The first request failed or was rejected and its key forgotten, so this retry starts over
+            return admit(idempotencyKey, dto, create, open);
+        }
+        try {
+            Admission admission = admitReport(dto, create, open);
+            if (admission.id() < 0) keys.asMap().remove(key, mine);
+            mine.complete(admission);
+            return admission;
+        } catch (RuntimeException e) {
+            keys.asMap().remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Admission admitReport(CreateEmergencyReportDTO dto, Store create, OpenCheck open) {
+        if (!enabled || dto.type == null || dto.locationLat == null || dto.locationLng == null) {
+            return new Admission(create.store(dto, null), null);
+        }
+        String type = dto.type.trim().toLowerCase(Locale.ROOT);
+        while (true) {
+            long now = System.currentTimeMillis();
+            Incident incident;
+            boolean created = false;
+            synchronized (this) {
+                incident = nearest(type, dto.locationLat, dto.locationLng, now);
+                if (incident == null) {
+                    incident = new Incident(type, dto.locationLat, dto.locationLng, now);
+                    cells.computeIfAbsent(cellOf(dto.locationLat, dto.locationLng), c -> new ArrayList<>(2))
+                            .add(incident);
+                    created = true;
+                }
+            }
+            if (created) return new Admission(store(incident, dto, create), null);
+            // The first report may still be on its way into the journal or the database
+            Admission first = outcome(incident.id);
+            if (first.id() >= 0 && !open.isOpen(first.id())) {
+                // Resolved already; this report starts a new incident
+                forget(incident);
+                continue;
+            }
+            if (first.id() >= 0) {
+                long id = create.store(dto, first.id());
+                if (id < 0) return new Admission(id, null);
+                merged.increment();
+                return new Admission(id, first.id());
+            }
+            // It failed or was rejected and its incident was dropped; look again
+        }
+    }
+
+    private long store(Incident incident, CreateEmergencyReportDTO dto, Store create) {
+        long id;
+        try {
+            id = create.store(dto, null);
+        } catch (RuntimeException e) {
+            forget(incident);
+            incident.id.completeExceptionally(e);
+            throw e;
+        }
+        if (id < 0) forget(incident);
+        incident.id.complete(new Admission(id, null));
+        return id;
+    }
+
+    // Closest live incident of the type within the radius, or null
+    private Incident nearest(String type, double lat, double lng, long now) {
+        int row = (int) Math.floor(lat / cellDeg);
+        // A cell spans fewer metres east-west away from the equator, so widen the column range to match
+        double cos = Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+        int span = (int) Math.ceil(1 / cos);
+        int col = (int) Math.floor(lng / cellDeg);
+        Incident best = null;
+        double bestM = radiusM;
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - span; c <= col + span; c++) {
+                List<Incident> incidents = cells.get(new Cell(r, c));
+                if (incidents == null) continue;
+                for (Incident i : incidents) {
+                    if (!i.type.equals(type) || now - i.reportedAt > windowMs) continue;
+                    double m = GeoUtils.haversineKm(lat, lng, i.lat, i.lng) * 1000;
+                    if (m <= bestM) {
+                        best = i;
+                        bestM = m;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private synchronized void forget(Incident incident) {
+        Cell cell = cellOf(incident.lat, incident.lng);
+        List<Incident> incidents = cells.get(cell);
+        if (incidents == null) return;
+        incidents.remove(incident);
+        if (incidents.isEmpty()) cells.remove(cell);
+    }
+
+    // Drop incidents whose window has passed
+    @Scheduled(fixedDelayString = "${intake.dedup.sweep-interval-ms:10000}")
+    public synchronized void sweep() {
+        long cutoff = System.currentTimeMillis() - windowMs;
+        Iterator<List<Incident>> it = cells.values().iterator();
+        while (it.hasNext()) {
+            List<Incident> incidents = it.next();
+            incidents.removeIf(i -> i.reportedAt < cutoff);
+            if (incidents.isEmpty()) it.remove();
+        }
+    }
+
+    public synchronized int incidentCount() {
+        int n = 0;
+        for (List<Incident> incidents : cells.values()) n += incidents.size();
+        return n;
+    }
+
+    private Cell cellOf(double lat, double lng) {
+        return new Cell((int) Math.floor(lat / cellDeg), (int) Math.floor(lng / cellDeg));
+    }
+
+    // Wait for an earlier submission; a failed one counts as rejected
+    private static Admission outcome(CompletableFuture<Admission> future) {
+        return future.exceptionally(e -> new Admission(-1, null)).join();
+    }
+
+    // id is an intake id or report id, whichever store hands out; duplicateOf is the id of the
+    // incident's first report when this one was merged into it
+    public record Admission(long id, Long duplicateOf) {
+        public boolean duplicate() {
+            return duplicateOf != null;
+        }
+    }
+
+    private record Cell(int row, int col) {}
+
+    private static final class Incident {
+        final String type;
+        final double lat;
+        final double lng;
+        final CompletableFuture<Admission> id = new CompletableFuture<>();
+        final long reportedAt;
+
+        Incident(String type, double lat, double lng, long now) {
+            this.type = type;
+            this.lat = lat;
+            this.lng = lng;
+            this.reportedAt = now;
+        }
+    }
+}
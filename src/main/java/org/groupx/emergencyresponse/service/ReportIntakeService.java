@@ -0,0 +1,337 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Write-ahead intake for POST /alerts: a report is acknowledged as soon as it is fsynced to the local
+// intake journal and is stored in the database by a background drain in batches. Reports that were
+// journaled but not stored before a crash or restart are replayed on startup; the journal sequence
+// number is saved on the report, so a replay never stores the same report twice.
+// Intake ids are handed out as "intake-<seq>" so a client can never mistake one for a report id.
+@Service
+public class ReportIntakeService {
+    private static final Logger log = LoggerFactory.getLogger(ReportIntakeService.class);
+    private static final String ID_PREFIX = "intake-";
+
+    public enum Status { STORED, PENDING, UNKNOWN }
+
+    private final EmergencyReportService reportService;
+    private final EmergencyReportRepository reportRepository;
+    private final ReportArchiveService archive;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxPending;
+    private final IntakeJournal journal;
+
+    // Journaled reports waiting to be stored, in sequence order. An entry joins in sequence order but is
+    // stored only once its append has been forced; the drain stops at the first one that has not.
+    private final ConcurrentLinkedQueue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final Timer appendTimer;
+    private final Counter drained;
+    private final Counter drainFailures;
+
+    public ReportIntakeService(EmergencyReportService reportService,
+                               EmergencyReportRepository reportRepository,
+                               ReportArchiveService archive,
+                               MeterRegistry registry,
+                               @Value("${intake.journal.enabled:false}") boolean enabled,
+                               @Value("${intake.journal.dir:data/intake}") String dir,
+                               @Value("${intake.journal.segment-bytes:16777216}") int segmentBytes,
+                               @Value("${intake.journal.batch-size:200}") int batchSize,
+                               @Value("${intake.journal.max-pending:100000}") int maxPending) throws IOException {
+        this.reportService = reportService;
+        this.reportRepository = reportRepository;
+        this.archive = archive;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.journal = enabled ? IntakeJournal.open(Path.of(dir), segmentBytes) : null;
+        this.appendTimer = Timer.builder("intake.journal.append").publishPercentiles(0.5, 0.99).register(registry);
+        this.drained = Counter.builder("intake.drained").register(registry);
+        this.drainFailures = Counter.builder("intake.drain.failures").register(registry);
+        Gauge.builder("intake.pending", pendingCount, AtomicInteger::get)
+                .description("Journaled reports not yet stored in the database").register(registry);
+
+        if (journal != null) {
+            for (IntakeJournal.Record r : journal.unapplied()) {
+                Pending p = new Pending(r.seq(), decode(r.payload()));
+                p.durable = true;
+                pending.add(p);
+                pendingCount.incrementAndGet();
+            }
+            if (pendingCount.get() > 0) log.info("Replaying {} journaled reports", pendingCount.get());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Journal a report and return its intake id once durable; -1 if the backlog is full. duplicateOf
+    // is the intake id of an earlier report of the same incident, or null.
+    // Throws IllegalArgumentException if the report is too large for a journal record.
+    public long submit(CreateEmergencyReportDTO dto, Long duplicateOf) {
+        if (pendingCount.get() >= maxPending) return -1;
+        Intake intake = new Intake(dto.type, dto.description, dto.locationLat, dto.locationLng, dto.reporterId,
+                System.currentTimeMillis(), duplicateOf);
+        byte[] payload = encode(intake);
+        long started = System.nanoTime();
+        // Queued under the append lock to keep sequence order, but not drained until the force succeeds:
+        // a report that was never acknowledged must not reach the database or move the checkpoint
+        Pending[] queued = new Pending[1];
+        long seq;
+        try {
+            seq = journal.append(payload, s -> {
+                queued[0] = new Pending(s, intake);
+                pending.add(queued[0]);
+            });
+        } catch (RuntimeException e) {
+            if (queued[0] != null) pending.remove(queued[0]);
+            throw e;
+        }
+        queued[0].durable = true;
+        pendingCount.incrementAndGet();
+        appendTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return seq;
+    }
+
+    // External form of an intake sequence number
+    public static String intakeId(long seq) {
+        return ID_PREFIX + seq;
+    }
+
+    // Sequence number of an intake id, or -1 if it is not one
+    public static long parseIntakeId(String intakeId) {
+        if (intakeId == null || !intakeId.startsWith(ID_PREFIX)) return -1;
+        try {
+            return Long.parseLong(intakeId.substring(ID_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Whether the report with this intake id is in the database, still queued, or unknown
+    public Status status(long intakeSeq) {
+        if (journal == null || intakeSeq <= 0 || intakeSeq >= journal.nextSeq()) return Status.UNKNOWN;
+        if (intakeSeq > journal.checkpointSeq()) return Status.PENDING;
+        return Status.STORED;
+    }
+
+    // Whether the report with this intake id is still being handled; one not stored yet is
+    public boolean isOpen(long intakeSeq) {
+        return switch (status(intakeSeq)) {
+            case PENDING -> true;
+            case STORED -> {
+                EmergencyReport r = findStored(intakeSeq);
+                yield r != null && !AssignmentService.STATUS_RESOLVED.equals(r.getStatus());
+            }
+            case UNKNOWN -> false;
+        };
+    }
+
+    // A stored report by its intake sequence number, from the archive once it has been moved there
+    public EmergencyReport findStored(long intakeSeq) {
+        return reportRepository.findByIntakeSeq(intakeSeq).orElseGet(() -> archive.findReportByIntakeSeq(intakeSeq));
+    }
+
+    // Store queued reports in batches; on a database failure the batch stays queued for the next run
+    @Scheduled(fixedDelayString = "${intake.journal.drain-interval-ms:50}")
+    public synchronized void drain() {
+        if (journal == null) return;
+        while (true) {
+            List<Pending> batch = new ArrayList<>(batchSize);
+            for (Iterator<Pending> it = pending.iterator(); it.hasNext() && batch.size() < batchSize; ) {
+                Pending p = it.next();
+                if (!p.durable) break;
+                batch.add(p);
+            }
+            if (batch.isEmpty()) return;
+            try {
+                store(batch);
+            } catch (RuntimeException e) {
+                drainFailures.increment();
+                log.warn("Intake drain failed, {} reports still queued", pendingCount.get(), e);
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) pending.poll();
+            pendingCount.addAndGet(-batch.size());
+            drained.increment(batch.size());
+            journal.checkpoint(batch.get(batch.size() - 1).seq);
+            if (batch.size() < batchSize) return;
+        }
+    }
+
+    private void store(List<Pending> batch) {
+        List<Long> seqs = new ArrayList<>(batch.size());
+        for (Pending p : batch) seqs.add(p.seq);
+        // Reports stored just before a crash (but not checkpointed) are skipped on replay
+        Set<Long> existing = new HashSet<>(reportRepository.findExistingIntakeSeqs(seqs));
+        List<EmergencyReport> reports = new ArrayList<>(batch.size());
+        // Duplicates are stored after the rest, once the report they point to has an id
+        List<EmergencyReport> duplicates = new ArrayList<>();
+        Map<EmergencyReport, Long> incidentSeqs = new HashMap<>();
+        for (Pending p : batch) {
+            if (existing.contains(p.seq)) continue;
+            Intake in = p.intake;
+            CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+            dto.type = in.type();
+            dto.description = in.description();
+            dto.locationLat = in.lat();
+            dto.locationLng = in.lng();
+            dto.reporterId = in.reporterId();
+            EmergencyReport report = reportService.toReport(dto, new Date(in.receivedAt()));
+            report.setIntakeSeq(p.seq);
+            if (in.duplicateOf() == null) {
+                reports.add(report);
+            } else {
+                duplicates.add(report);
+                incidentSeqs.put(report, in.duplicateOf());
+            }
+        }
+        Map<Long, Long> idsBySeq = new HashMap<>();
+        if (!reports.isEmpty()) {
+            for (EmergencyReport r : reportService.saveReports(reports)) idsBySeq.put(r.getIntakeSeq(), r.getId());
+        }
+        if (duplicates.isEmpty()) return;
+        List<Long> earlier = new ArrayList<>();
+        for (Long seq : incidentSeqs.values()) {
+            if (!idsBySeq.containsKey(seq)) earlier.add(seq);
+        }
+        if (!earlier.isEmpty()) {
+            for (EmergencyReport r : reportRepository.findByIntakeSeqIn(earlier)) {
+                idsBySeq.put(r.getIntakeSeq(), r.getId());
+            }
+        }
+        for (EmergencyReport d : duplicates) {
+            // If the incident's report cannot be found this one is dispatched as a report of its own
+            Long incidentId = idsBySeq.get(incidentSeqs.get(d));
+            if (incidentId != null) EmergencyReportService.markDuplicate(d, incidentId);
+        }
+        reportService.saveReports(duplicates);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (journal == null) return;
+        drain();
+        journal.close();
+    }
+
+    static byte[] encode(Intake in) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(in.receivedAt());
+            writeString(out, in.type());
+            writeString(out, in.description());
+            writeDouble(out, in.lat());
+            writeDouble(out, in.lng());
+            writeString(out, in.reporterId());
+            writeLong(out, in.duplicateOf());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Intake decode(byte[] payload) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            long receivedAt = in.readLong();
+            String type = readString(in);
+            String description = readString(in);
+            Double lat = readDouble(in);
+            Double lng = readDouble(in);
+            String reporterId = readString(in);
+            // Absent from records written before duplicates were journaled
+            Long duplicateOf = in.available() > 0 ? readLong(in) : null;
+            return new Intake(type, description, lat, lng, reporterId, receivedAt, duplicateOf);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Strings are length-prefixed UTF-8 with -1 for null (writeUTF is limited to 64 KB)
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeDouble(DataOutputStream out, Double d) throws IOException {
+        out.writeBoolean(d != null);
+        if (d != null) out.writeDouble(d);
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+
+    private static void writeLong(DataOutputStream out, Long l) throws IOException {
+        out.writeBoolean(l != null);
+        if (l != null) out.writeLong(l);
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    // duplicateOf is the intake sequence number of the incident's first report
+    record Intake(String type, String description, Double lat, Double lng, String reporterId, long receivedAt,
+                  Long duplicateOf) {}
+
+    private static final class Pending {
+        final long seq;
+        final Intake intake;
+        // Set once the append is on disk
+        volatile boolean durable;
+
+        Pending(long seq, Intake intake) {
+            this.seq = seq;
+            this.intake = intake;
+        }
+    }
+}
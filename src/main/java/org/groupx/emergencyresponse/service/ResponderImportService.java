@@ -0,0 +1,308 @@
+package org.groupx.emergencyresponse.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.groupx.emergencyresponse.config.CacheConfig;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.event.ResponderAvailabilityChangedEvent;
+import org.groupx.emergencyresponse.event.ResponderSavedEvent;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Bulk roster upsert from a CSV or NDJSON stream. Lines are read one at a time and written in JDBC
+// batches of batch-size rows, so memory stays flat however long the roster is. Rows with an id update
+// that responder's name, role and (if given) position; rows without one are inserted. Each written
+// row is then applied to the dispatch index and the responder cache and announced as saved. Availability
+// is announced for new rows, when it changes, and when a row changes the role or gives a position
+// (watchers such as the dashboard track units by role and region).
+// An availability that differs from the unit's current state goes through the reservation service,
+// so a unit booked on a job is released properly.
+@Service
+public class ResponderImportService {
+    private static final int MAX_ERRORS = 100;
+    private static final String INSERT_SQL = "insert into responder (id, name, role, current_lat, current_lng, " +
+            "availability, version, updated_at) values (?, ?, ?, ?, ?, ?, 0, current_timestamp)";
+    private static final String UPDATE_SQL = "update responder set name = ?, role = ?, " +
+            "current_lat = coalesce(?, current_lat), current_lng = coalesce(?, current_lng), " +
+            "version = version + 1, updated_at = current_timestamp where id = ?";
+    private static final List<String> CSV_COLUMNS =
+            List.of("id", "name", "role", "currentlat", "currentlng", "availability");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ResponderSpatialIndex spatialIndex;
+    private final ResponderReservationService reservationService;
+    private final ApplicationEventPublisher events;
+    private final ObjectMapper objectMapper;
+    private final Cache responders;
+    // The entity's own pooled sequence generator, so imported ids never collide with ones JPA hands out
+    private final SessionFactoryImplementor sessionFactory;
+    private final IdentifierGenerator idGenerator;
+    private final int batchSize;
+
+    public ResponderImportService(JdbcTemplate jdbcTemplate,
+                                  ResponderSpatialIndex spatialIndex,
+                                  ResponderReservationService reservationService,
+                                  ApplicationEventPublisher events,
+                                  ObjectMapper objectMapper,
+                                  CacheManager cacheManager,
+                                  EntityManagerFactory entityManagerFactory,
+                                  @Value("${responders.import.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.spatialIndex = spatialIndex;
+        this.reservationService = reservationService;
+        this.events = events;
+        this.objectMapper = objectMapper;
+        this.responders = cacheManager.getCache(CacheConfig.RESPONDERS);
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.idGenerator = (IdentifierGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Responder.class).getGenerator();
+        this.batchSize = batchSize;
+    }
+
+    // Header line with any of id, name, role, currentLat, currentLng, availability (name and role required)
+    public Result importCsv(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Result result = new Result();
+        String header = reader.readLine();
+        if (header == null) return result;
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header);
+        for (int i = 0; i < names.size(); i++) {
+            String column = names.get(i).trim().toLowerCase(Locale.ROOT);
+            if (!CSV_COLUMNS.contains(column)) throw new IllegalArgumentException("Unknown column: " + names.get(i));
+            columns.put(column, i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("role")) {
+            throw new IllegalArgumentException("The header needs name and role columns");
+        }
+        Batch batch = new Batch();
+        String line;
+        for (int lineNo = 2; (line = reader.readLine()) != null; lineNo++) {
+            if (line.isBlank()) continue;
+            try {
+                List<String> cells = splitCsv(line);
+                Responder r = new Responder();
+                r.setId(parseLong(cell(cells, columns, "id")));
+                r.setName(cell(cells, columns, "name"));
+                r.setRole(cell(cells, columns, "role"));
+                r.setCurrentLat(parseDouble(cell(cells, columns, "currentlat")));
+                r.setCurrentLng(parseDouble(cell(cells, columns, "currentlng")));
+                String available = cell(cells, columns, "availability");
+                r.setAvailability(available == null ? null : Boolean.parseBoolean(available));
+                add(batch, r, lineNo, result);
+            } catch (IllegalArgumentException e) {
+                result.reject(lineNo, e.getMessage());
+            }
+        }
+        flush(batch, result);
+        return result;
+    }
+
+    // One JSON object per line with the same fields as GET /responders/{id}
+    public Result importNdjson(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Result result = new Result();
+        Batch batch = new Batch();
+        String line;
+        for (int lineNo = 1; (line = reader.readLine()) != null; lineNo++) {
+            if (line.isBlank()) continue;
+            Responder r;
+            try {
+                r = objectMapper.readValue(line, Responder.class);
+            } catch (IOException e) {
+                result.reject(lineNo, "not a JSON object");
+                continue;
+            }
+            add(batch, r, lineNo, result);
+        }
+        flush(batch, result);
+        return result;
+    }
+
+    private void add(Batch batch, Responder r, int lineNo, Result result) {
+        if (r.getName() == null || r.getName().isBlank() || r.getRole() == null || r.getRole().isBlank()) {
+            result.reject(lineNo, "name and role are required");
+            return;
+        }
+        if ((r.getCurrentLat() == null) != (r.getCurrentLng() == null)) {
+            result.reject(lineNo, "give both currentLat and currentLng, or neither");
+            return;
+        }
+        if (r.getCurrentLat() != null && (Math.abs(r.getCurrentLat()) > 90 || Math.abs(r.getCurrentLng()) > 180)) {
+            result.reject(lineNo, "coordinates out of range");
+            return;
+        }
+        r.setName(r.getName().trim());
+        r.setRole(r.getRole().trim().toUpperCase(Locale.ROOT));
+        (r.getId() == null ? batch.inserts : batch.updates).add(r);
+        batch.lines.put(r, lineNo);
+        if (batch.inserts.size() + batch.updates.size() >= batchSize) flush(batch, result);
+    }
+
+    private void flush(Batch batch, Result result) {
+        if (!batch.inserts.isEmpty()) {
+            assignIds(batch.inserts);
+            List<Object[]> args = new ArrayList<>(batch.inserts.size());
+            for (Responder r : batch.inserts) {
+                if (r.getAvailability() == null) r.setAvailability(true);
+                args.add(new Object[]{r.getId(), r.getName(), r.getRole(), r.getCurrentLat(), r.getCurrentLng(),
+                        r.getAvailability()});
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, args);
+            for (Responder r : batch.inserts) {
+                spatialIndex.upsert(r);
+                responders.evict(r.getId());
+                events.publishEvent(new ResponderSavedEvent(r.getId()));
+                announce(r, r.getAvailability());
+                result.inserted++;
+            }
+        }
+        if (!batch.updates.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(batch.updates.size());
+            for (Responder r : batch.updates) {
+                args.add(new Object[]{r.getName(), r.getRole(), r.getCurrentLat(), r.getCurrentLng(), r.getId()});
+            }
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+            for (int i = 0; i < counts.length; i++) {
+                Responder r = batch.updates.get(i);
+                if (counts[i] == 0) {
+                    result.reject(batch.lines.get(r), "no responder with id " + r.getId());
+                    continue;
+                }
+                applyUpdate(r);
+                result.updated++;
+            }
+        }
+        batch.inserts.clear();
+        batch.updates.clear();
+        batch.lines.clear();
+    }
+
+    // Bring the index and cache in line with an updated row, keeping the unit's live position and duty state
+    // unless the row sets them
+    private void applyUpdate(Responder r) {
+        ResponderSpatialIndex.LiveState live = spatialIndex.liveState(r.getId());
+        boolean onDuty = live != null && live.available();
+        String previousRole = spatialIndex.roleOf(r.getId());
+        Responder indexed = new Responder();
+        indexed.setId(r.getId());
+        indexed.setName(r.getName());
+        indexed.setRole(r.getRole());
+        indexed.setCurrentLat(r.getCurrentLat() != null ? r.getCurrentLat() : live == null ? null : live.lat());
+        indexed.setCurrentLng(r.getCurrentLng() != null ? r.getCurrentLng() : live == null ? null : live.lng());
+        indexed.setAvailability(onDuty);
+        spatialIndex.upsert(indexed);
+        responders.evict(r.getId());
+        events.publishEvent(new ResponderSavedEvent(r.getId()));
+        if (r.getAvailability() != null && r.getAvailability() != onDuty) {
+            // Announces the change itself
+            if (r.getAvailability()) reservationService.release(r.getId());
+            else reservationService.markUnavailable(r.getId());
+        } else if (!r.getRole().equals(previousRole) || r.getCurrentLat() != null) {
+            announce(indexed, onDuty);
+        }
+    }
+
+    private void announce(Responder r, boolean available) {
+        events.publishEvent(new ResponderAvailabilityChangedEvent(r.getId(), r.getRole(), available,
+                r.getCurrentLat(), r.getCurrentLng()));
+    }
+
+    // One sequence round trip per 50 rows, as for a JPA save
+    private void assignIds(List<Responder> rows) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            for (Responder r : rows) {
+                r.setId((Long) idGenerator.generate((SharedSessionContractImplementor) session, r));
+            }
+        }
+    }
+
+    private static String cell(List<String> cells, Map<String, Integer> columns, String column) {
+        Integer i = columns.get(column);
+        if (i == null || i >= cells.size()) return null;
+        String value = cells.get(i).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Long parseLong(String s) {
+        if (s == null) return null;
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad id: " + s);
+        }
+    }
+
+    private static Double parseDouble(String s) {
+        if (s == null) return null;
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad number: " + s);
+        }
+    }
+
+    // Comma-separated fields; a field may be wrapped in double quotes, with "" for a literal quote
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') field.append(c);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"') field.append(line.charAt(++i));
+                else quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("unterminated quote");
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class Batch {
+        final List<Responder> inserts = new ArrayList<>();
+        final List<Responder> updates = new ArrayList<>();
+        // Source line of each row, for error messages
+        final Map<Responder, Integer> lines = new HashMap<>();
+    }
+
+    // Outcome of one import; errors lists the first rejected lines
+    public static class Result {
+        public int inserted;
+        public int updated;
+        public int rejected;
+        public List<String> errors = new ArrayList<>();
+
+        void reject(int line, String message) {
+            rejected++;
+            if (errors.size() < MAX_ERRORS) errors.add("line " + line + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.event.ResponderAvailabilityChangedEvent;
+import org.groupx.emergencyresponse.repository.ResponderRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Atomically reserves responders for dispatch so a unit is never booked twice.
+// An in-memory claim set filters out contenders without touching the database, and a
+// conditional update on the versioned Responder row is the authoritative compare-and-set.
+@Service
+public class ResponderReservationService {
+    private final ResponderRepository responderRepository;
+    private final ResponderSpatialIndex spatialIndex;
+    private final ApplicationEventPublisher events;
+
+    // Responders currently claimed by a dispatch thread or booked on an assignment
+    private final Set<Long> claimed = ConcurrentHashMap.newKeySet();
+
+    public ResponderReservationService(ResponderRepository responderRepository,
+                                       ResponderSpatialIndex spatialIndex,
+                                       ApplicationEventPublisher events) {
+        this.responderRepository = responderRepository;
+        this.spatialIndex = spatialIndex;
+        this.events = events;
+    }
+
+    // Try to take the responder; returns false if another dispatch already holds it
+    public boolean tryReserve(long responderId) {
+        // Set.add is the in-memory CAS: only one thread can win the claim
+        if (!claimed.add(responderId)) return false;
+        boolean reserved;
+        try {
+            reserved = responderRepository.reserve(responderId) == 1;
+        } catch (RuntimeException e) {
+            claimed.remove(responderId);
+            throw e;
+        }
+        // Either we now hold the unit or the row was already unavailable (e.g. booked elsewhere);
+        // in both cases it must no longer be offered as a candidate
+        spatialIndex.setAvailability(responderId, false);
+        if (reserved) announce(responderId, false);
+        else claimed.remove(responderId);
+        return reserved;
+    }
+
+    // Hand a reserved responder back to the available pool
+    public boolean release(long responderId) {
+        if (responderRepository.updateAvailability(responderId, true) == 0) return false;
+        // Drop the claim before the unit becomes searchable again so no contender is turned away
+        claimed.remove(responderId);
+        spatialIndex.setAvailability(responderId, true);
+        announce(responderId, true);
+        return true;
+    }
+
+    // Mark a responder off duty without it having been dispatched
+    public boolean markUnavailable(long responderId) {
+        if (responderRepository.updateAvailability(responderId, false) == 0) return false;
+        spatialIndex.setAvailability(responderId, false);
+        announce(responderId, false);
+        return true;
+    }
+
+    // Drop a local claim on a unit that another node has released in the shared database
+    public void forgetClaim(long responderId) {
+        claimed.remove(responderId);
+    }
+
+    public boolean isClaimed(long responderId) {
+        return claimed.contains(responderId);
+    }
+
+    private void announce(long responderId, boolean available) {
+        ResponderSpatialIndex.LiveState live = spatialIndex.liveState(responderId);
+        events.publishEvent(new ResponderAvailabilityChangedEvent(responderId, spatialIndex.roleOf(responderId),
+                available, live == null ? null : live.lat(), live == null ? null : live.lng()));
+    }
+}
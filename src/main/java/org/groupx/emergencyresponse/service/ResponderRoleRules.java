@@ -0,0 +1,47 @@
+package org.groupx.emergencyresponse.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Which responder roles may be sent to which emergency type, from dispatch.roles.by-type
+// ("Fire:FIRE,Medical:MEDIC,Traffic:POLICE|MEDIC"). Types are matched case-insensitively;
+// a type without a rule may be served by any role.
+@Component
+public class ResponderRoleRules {
+    private final Map<String, List<String>> rolesByType = new HashMap<>();
+
+    public ResponderRoleRules(@Value("${dispatch.roles.by-type:Fire:FIRE,Medical:MEDIC,Crime:POLICE,Traffic:POLICE|MEDIC}")
+                              String spec) {
+        if (spec == null || spec.isBlank()) return;
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) throw new IllegalArgumentException("Bad dispatch.roles.by-type entry: " + part);
+            List<String> roles = List.of(kv[1].trim().split("\\s*\\|\\s*"));
+            rolesByType.put(kv[0].trim().toLowerCase(Locale.ROOT), roles);
+        }
+    }
+
+    // Roles allowed for the type, or null if any role will do
+    public List<String> rolesFor(String type) {
+        if (type == null) return null;
+        return rolesByType.get(type.toLowerCase(Locale.ROOT));
+    }
+
+    public boolean allows(List<String> roles, String role) {
+        return roles == null || (role != null && roles.contains(role));
+    }
+
+    // Whether two types could compete for the same unit; null (any role) overlaps everything
+    public boolean overlap(List<String> roles, List<String> others) {
+        if (roles == null || others == null) return true;
+        for (String role : roles) {
+            if (others.contains(role)) return true;
+        }
+        return false;
+    }
+}
@@ -1,7 +1,18 @@
 package org.groupx.emergencyresponse.service;
 
+import org.groupx.emergencyresponse.config.CacheConfig;
+import org.groupx.emergencyresponse.dto.CursorPage;
+import org.groupx.emergencyresponse.dto.ResponderDTO;
 import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.event.ResponderAvailabilityChangedEvent;
+import org.groupx.emergencyresponse.event.ResponderSavedEvent;
+import org.groupx.emergencyresponse.geo.Geohash;
 import org.groupx.emergencyresponse.repository.ResponderRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -9,10 +20,26 @@ import java.util.List;
 @Service
 public class ResponderService {
     private final ResponderRepository responderRepository;
+    private final ResponderSpatialIndex spatialIndex;
+    private final LocationIngestService locationIngestService;
+    private final ResponderReservationService reservationService;
+    private final ApplicationEventPublisher events;
+    // Snapshots of responder rows; never handed out directly, readers get a copy with live state applied
+    private final Cache responders;
 
     // Constructor-based dependency injection
-    public ResponderService(ResponderRepository responderRepository) {
+    public ResponderService(ResponderRepository responderRepository,
+                            ResponderSpatialIndex spatialIndex,
+                            LocationIngestService locationIngestService,
+                            ResponderReservationService reservationService,
+                            ApplicationEventPublisher events,
+                            CacheManager cacheManager) {
         this.responderRepository = responderRepository;
+        this.spatialIndex = spatialIndex;
+        this.locationIngestService = locationIngestService;
+        this.reservationService = reservationService;
+        this.events = events;
+        this.responders = cacheManager.getCache(CacheConfig.RESPONDERS);
     }
 
     // Retrieve all responders who are currently available
@@ -20,28 +47,77 @@ public class ResponderService {
         return responderRepository.findAvailable();
     }
 
-    // Retrieve all responders in the system
-    public List<Responder> getAllResponders() {
-        return responderRepository.findAll();
+    // One page of responders after the given id, filtered by role, availability and geohash region
+    // (null = any). Projected in the database, so the cost is proportional to the page size.
+    public CursorPage<ResponderDTO> listResponders(Long afterId, int limit, String role, Boolean available,
+                                                   String region) {
+        double[] box = region == null || region.isEmpty() ? null : Geohash.bounds(region);
+        List<ResponderDTO> rows = responderRepository.findPage(afterId == null ? 0 : afterId, role, available,
+                box == null ? null : box[0], box == null ? null : box[1],
+                box == null ? null : box[2], box == null ? null : box[3],
+                PageRequest.of(0, limit + 1));
+        return CursorPage.of(rows, limit, dto -> dto.id);
     }
 
     // Retrieve a responder by their ID; return null if not found
     public Responder getResponder(Long id) {
-        return responderRepository.findById(id).orElse(null);
+        Responder snapshot = responders.get(id, () -> responderRepository.findById(id)
+                .map(ResponderService::copyOf).orElse(null));
+        return snapshot == null ? null : withLiveState(snapshot);
+    }
+
+    // Fill the cache with up to max responder rows (lowest ids first) and return them
+    public List<Responder> preload(int max) {
+        List<Responder> rows = responderRepository.findAll(PageRequest.of(0, max, Sort.by("id"))).getContent();
+        for (Responder r : rows) responders.put(r.getId(), copyOf(r));
+        return rows;
     }
 
     // Save a new responder; default availability to true if not set
     public Responder save(Responder responder) {
         if (responder.getAvailability() == null) responder.setAvailability(true);
-        return responderRepository.save(responder);
+        Responder saved = responderRepository.save(responder);
+        spatialIndex.upsert(saved); // keep the dispatch index in sync with the stored row
+        responders.put(saved.getId(), copyOf(saved));
+        events.publishEvent(new ResponderSavedEvent(saved.getId()));
+        events.publishEvent(new ResponderAvailabilityChangedEvent(saved.getId(), saved.getRole(),
+                saved.getAvailability(), saved.getCurrentLat(), saved.getCurrentLng()));
+        return saved;
+    }
+
+    // Update the location (latitude and longitude) of a responder; the fix is
+    // coalesced in memory and written by the batched ingestion flush
+    public LocationIngestService.Result updateLocation(Long id, double lat, double lng) {
+        return locationIngestService.offer(id, lat, lng);
+    }
+
+    // Put a responder back on duty (releasing any reservation) or take them off duty; false if not found
+    public boolean setAvailability(Long id, boolean available) {
+        return available ? reservationService.release(id) : reservationService.markUnavailable(id);
+    }
+
+    // Copy of a cached snapshot with the position and availability currently held by the dispatch
+    // index, which every location ping and availability change updates before the database does
+    private Responder withLiveState(Responder snapshot) {
+        Responder r = copyOf(snapshot);
+        ResponderSpatialIndex.LiveState live = spatialIndex.liveState(r.getId());
+        if (live != null) {
+            r.setCurrentLat(live.lat());
+            r.setCurrentLng(live.lng());
+            r.setAvailability(live.available());
+        }
+        return r;
     }
 
-    // Update the location (latitude and longitude) of a responder
-    public Responder updateLocation(Long id, double lat, double lng) {
-        Responder r = responderRepository.findById(id).orElse(null);
-        if (r == null) return null; // responder not found
-        r.setCurrentLat(lat);
-        r.setCurrentLng(lng);
-        return responderRepository.save(r);
+    private static Responder copyOf(Responder source) {
+        Responder r = new Responder();
+        r.setId(source.getId());
+        r.setName(source.getName());
+        r.setRole(source.getRole());
+        r.setCurrentLat(source.getCurrentLat());
+        r.setCurrentLng(source.getCurrentLng());
+        r.setAvailability(source.getAvailability());
+        r.setVersion(source.getVersion());
+        return r;
     }
 }
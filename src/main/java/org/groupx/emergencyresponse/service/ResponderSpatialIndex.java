@@ -0,0 +1,644 @@
+package org.groupx.emergencyresponse.service;
+
+import jakarta.annotation.PostConstruct;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.geo.GeoUtils;
+import org.groupx.emergencyresponse.repository.ResponderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+// In-memory columnar store of every responder, used to answer
+// "k nearest available responders (of some roles) to a point" without hitting the database.
+// Each responder occupies a slot; ids, coordinates and role codes live in parallel primitive arrays,
+// availability is one bitset per role, and a uniform grid maps cells to slot lists. Searches scan
+// primitives and keep the best k in a primitive heap, so they allocate only the returned list.
+//
+// Locking is striped so GPS pings, reservations and searches never queue behind one another.
+// Only structural changes (a responder saved or removed, the columns growing) take the write side of
+// the structure lock; pings, availability flips and searches share its read side. Beneath that, writes
+// to one slot are serialised by a striped mutex, coordinates are read optimistically through a striped
+// StampedLock (a seqlock: a torn lat/lng pair is detected and re-read), bitset words are updated with
+// CAS, and each grid cell's slot list is copy-on-write, so a search reads cells without locking them.
+@Component
+public class ResponderSpatialIndex {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_ROLE = -1;
+    private static final int NO_CELL = -1;
+    private static final int STRIPES = 64;
+
+    private final ResponderRepository responderRepository;
+    private final double cellDeg;
+    private final int columns;
+    private final ReentrantReadWriteLock structure = new ReentrantReadWriteLock();
+    // Serialise updates of one slot (ping vs. availability flip vs. another ping), by slot stripe
+    private final ReentrantLock[] slotLocks = new ReentrantLock[STRIPES];
+    // Guard each slot's lat/lng pair, by slot stripe
+    private final StampedLock[] coordinateLocks = new StampedLock[STRIPES];
+
+    // Columns, indexed by slot; replaced (grown) only under the structure write lock
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] lats = new double[INITIAL_CAPACITY];
+    private double[] lngs = new double[INITIAL_CAPACITY];
+    private int[] roleCodes = new int[INITIAL_CAPACITY];
+    // Grid cell of a located slot, NO_CELL otherwise; written under the slot's stripe lock
+    private long[] cellKeys = new long[INITIAL_CAPACITY];
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    // Changed only under the structure write lock
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<String, Integer> roleCodeByName = new HashMap<>();
+    private final List<String> roleNames = new ArrayList<>();
+    // On duty, located or not
+    private AtomicBits available = new AtomicBits(INITIAL_CAPACITY);
+    // On duty and located, i.e. searchable: across all roles, and per role code
+    private AtomicBits searchable = new AtomicBits(INITIAL_CAPACITY);
+    private final AtomicInteger searchableTotal = new AtomicInteger();
+    private final List<AtomicBits> searchableByRole = new ArrayList<>();
+    private AtomicIntegerArray searchableCountByRole = new AtomicIntegerArray(4);
+    // cell key -> located slots in that cell, available or not
+    private final ConcurrentHashMap<Long, Cell> grid = new ConcurrentHashMap<>();
+
+    public ResponderSpatialIndex(ResponderRepository responderRepository,
+                                 @Value("${dispatch.index.cell-size-deg:0.05}") double cellDeg) {
+        this.responderRepository = responderRepository;
+        this.cellDeg = cellDeg;
+        this.columns = (int) Math.ceil(360.0 / cellDeg);
+        for (int i = 0; i < STRIPES; i++) {
+            slotLocks[i] = new ReentrantLock();
+            coordinateLocks[i] = new StampedLock();
+        }
+    }
+
+    // Load every persisted responder once the repository is ready
+    @PostConstruct
+    public void load() {
+        responderRepository.findAll().forEach(this::upsert);
+    }
+
+    // Insert or update a responder from its stored row
+    public void upsert(Responder r) {
+        if (r == null || r.getId() == null) return;
+        boolean located = r.getCurrentLat() != null && r.getCurrentLng() != null;
+        structure.writeLock().lock();
+        try {
+            Integer existing = slotById.get(r.getId());
+            int slot;
+            if (existing != null) {
+                slot = existing;
+                setSearchable(slot, false);
+            } else {
+                slot = allocate(r.getId());
+            }
+            roleCodes[slot] = roleCode(r.getRole());
+            place(slot, located ? r.getCurrentLat() : Double.NaN, located ? r.getCurrentLng() : Double.NaN);
+            available.set(slot, Boolean.TRUE.equals(r.getAvailability()));
+            setSearchable(slot, isSearchable(slot));
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    // Move an already indexed responder, keeping its role and availability; false if unknown
+    public boolean move(long responderId, double lat, double lng) {
+        structure.readLock().lock();
+        try {
+            Integer slot = slotById.get(responderId);
+            if (slot == null) return false;
+            ReentrantLock slotLock = slotLocks[stripe(slot)];
+            slotLock.lock();
+            try {
+                place(slot, lat, lng);
+                setSearchable(slot, isSearchable(slot));
+            } finally {
+                slotLock.unlock();
+            }
+            return true;
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    // Flip a responder's availability, making it searchable or not
+    public void setAvailability(long responderId, boolean onDuty) {
+        structure.readLock().lock();
+        try {
+            Integer slot = slotById.get(responderId);
+            if (slot == null) return;
+            ReentrantLock slotLock = slotLocks[stripe(slot)];
+            slotLock.lock();
+            try {
+                available.set(slot, onDuty);
+                setSearchable(slot, isSearchable(slot));
+            } finally {
+                slotLock.unlock();
+            }
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    // Role of an indexed responder, or null if unknown
+    public String roleOf(long responderId) {
+        structure.readLock().lock();
+        try {
+            Integer slot = slotById.get(responderId);
+            return slot == null ? null : roleName(roleCodes[slot]);
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    // Latest position and availability of an indexed responder, or null if unknown
+    public LiveState liveState(long responderId) {
+        structure.readLock().lock();
+        try {
+            Integer slot = slotById.get(responderId);
+            if (slot == null) return null;
+            StampedLock coordinates = coordinateLocks[stripe(slot)];
+            long stamp = coordinates.tryOptimisticRead();
+            double lat = lats[slot];
+            double lng = lngs[slot];
+            if (!coordinates.validate(stamp)) {
+                stamp = coordinates.readLock();
+                try {
+                    lat = lats[slot];
+                    lng = lngs[slot];
+                } finally {
+                    coordinates.unlockRead(stamp);
+                }
+            }
+            return new LiveState(Double.isNaN(lat) ? null : lat, Double.isNaN(lng) ? null : lng,
+                    available.get(slot));
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long responderId) {
+        structure.readLock().lock();
+        try {
+            return slotById.containsKey(responderId);
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    public void remove(Long responderId) {
+        structure.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(responderId);
+            if (slot == null) return;
+            setSearchable(slot, false);
+            available.set(slot, false);
+            place(slot, Double.NaN, Double.NaN);
+            roleCodes[slot] = NO_ROLE;
+            if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            freeSlots[freeCount++] = slot;
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        structure.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    // Number of available, located responders whose role is one of roles (null = any role)
+    public int searchableCount(Collection<String> roles) {
+        structure.readLock().lock();
+        try {
+            if (roles == null) return searchableTotal.get();
+            int count = 0;
+            for (String role : roles) {
+                Integer code = roleCodeByName.get(role);
+                if (code != null) count += searchableCountByRole.get(code);
+            }
+            return count;
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    // Returns up to k available responders of the given role (null = any role), nearest first
+    public List<Nearby> kNearest(String role, double lat, double lng, int k) {
+        return kNearest(role == null ? null : List.of(role), lat, lng, k);
+    }
+
+    // Returns up to k available responders whose role is one of roles (null = any role), nearest first.
+    // Runs alongside pings and availability flips, so the result is a consistent view of each responder
+    // but not necessarily of the whole fleet at a single instant.
+    public List<Nearby> kNearest(Collection<String> roles, double lat, double lng, int k) {
+        if (k <= 0) return Collections.emptyList();
+        structure.readLock().lock();
+        try {
+            int[] codes = null;
+            int population;
+            if (roles == null) {
+                population = searchableTotal.get();
+            } else {
+                codes = new int[roles.size()];
+                int n = 0;
+                population = 0;
+                for (String role : roles) {
+                    Integer code = roleCodeByName.get(role);
+                    if (code == null) continue;
+                    codes[n++] = code;
+                    population += searchableCountByRole.get(code);
+                }
+                codes = Arrays.copyOf(codes, n);
+            }
+            if (population <= 0) return Collections.emptyList();
+
+            TopK best = new TopK(k);
+            int row = row(lat);
+            int col = column(lng);
+            int visitedCells = 0;
+            for (int ring = 0; ; ring++) {
+                // Once the ring walk touches more cells than there are candidates, a flat scan is cheaper
+                visitedCells += ring == 0 ? 1 : 8 * ring;
+                if (visitedCells > population || (ring + 1) * cellDeg > 180.0) {
+                    return scan(codes, lat, lng, k);
+                }
+                scanRing(codes, row, col, ring, lat, lng, best);
+                if (best.full() && best.worst() <= clearanceKm(row, col, ring, lat, lng)) break;
+            }
+            return results(best);
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    private void scanRing(int[] codes, int row, int col, int ring, double lat, double lng, TopK best) {
+        for (int dr = -ring; dr <= ring; dr++) {
+            boolean edgeRow = dr == -ring || dr == ring;
+            // Interior rows only contribute their two border cells
+            int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+            for (int dc = -ring; dc <= ring; dc += step) {
+                Cell cell = grid.get(cellKey(row + dr, col + dc));
+                if (cell == null) continue;
+                for (int slot : cell.slots) {
+                    if (matches(slot, codes)) best.offer(slot, distanceKm(slot, lat, lng));
+                }
+            }
+        }
+    }
+
+    // Every searchable slot of the wanted roles, walked straight off the role bitsets
+    private List<Nearby> scan(int[] codes, double lat, double lng, int k) {
+        TopK best = new TopK(k);
+        if (codes == null) {
+            scanBits(searchable, lat, lng, best);
+        } else {
+            for (int code : codes) scanBits(searchableByRole.get(code), lat, lng, best);
+        }
+        return results(best);
+    }
+
+    private void scanBits(AtomicBits bits, double lat, double lng, TopK best) {
+        for (int slot = bits.nextSetBit(0); slot >= 0; slot = bits.nextSetBit(slot + 1)) {
+            best.offer(slot, distanceKm(slot, lat, lng));
+        }
+    }
+
+    private boolean matches(int slot, int[] codes) {
+        if (!searchable.get(slot)) return false;
+        if (codes == null) return true;
+        int code = roleCodes[slot];
+        for (int c : codes) {
+            if (c == code) return true;
+        }
+        return false;
+    }
+
+    // Distance to a slot's current position, re-reading the pair if a ping rewrote it mid-read;
+    // NaN if the slot has no position
+    private double distanceKm(int slot, double lat, double lng) {
+        StampedLock coordinates = coordinateLocks[stripe(slot)];
+        long stamp = coordinates.tryOptimisticRead();
+        double slotLat = lats[slot];
+        double slotLng = lngs[slot];
+        if (!coordinates.validate(stamp)) {
+            stamp = coordinates.readLock();
+            try {
+                slotLat = lats[slot];
+                slotLng = lngs[slot];
+            } finally {
+                coordinates.unlockRead(stamp);
+            }
+        }
+        return GeoUtils.haversineKm(lat, lng, slotLat, slotLng);
+    }
+
+    private List<Nearby> results(TopK best) {
+        int n = best.size;
+        List<Nearby> result = new ArrayList<>(n);
+        // Popping the max-heap yields farthest first, so fill from the back
+        Nearby[] sorted = new Nearby[n];
+        for (int i = n - 1; i >= 0; i--) {
+            sorted[i] = nearby(best.slots[0], best.distances[0]);
+            best.pop();
+        }
+        Collections.addAll(result, sorted);
+        return result;
+    }
+
+    private Nearby nearby(int slot, double distanceKm) {
+        StampedLock coordinates = coordinateLocks[stripe(slot)];
+        long stamp = coordinates.readLock();
+        try {
+            return new Nearby(ids[slot], roleName(roleCodes[slot]), lats[slot], lngs[slot], distanceKm);
+        } finally {
+            coordinates.unlockRead(stamp);
+        }
+    }
+
+    // Lower bound on the distance from (lat,lng) to any cell outside the scanned square
+    private double clearanceKm(int row, int col, int ring, double lat, double lng) {
+        double south = (row - ring) * cellDeg - 90.0;
+        double north = (row + ring + 1) * cellDeg - 90.0;
+        double west = (col - ring) * cellDeg - 180.0;
+        double east = (col + ring + 1) * cellDeg - 180.0;
+        double latKm = Math.min(lat - south, north - lat) * GeoUtils.KM_PER_DEGREE;
+        // Longitude degrees shrink towards the poles, so use the widest latitude of the square
+        double widestLat = Math.min(90.0, Math.max(Math.abs(south), Math.abs(north)));
+        double lngKm = Math.min(lng - west, east - lng) * GeoUtils.KM_PER_DEGREE
+                * Math.cos(Math.toRadians(widestLat));
+        return Math.max(0.0, Math.min(latKm, lngKm));
+    }
+
+    // Called under the structure write lock
+    private int allocate(long id) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == ids.length) grow(ids.length * 2);
+            slot = slotCount++;
+        }
+        ids[slot] = id;
+        lats[slot] = Double.NaN;
+        lngs[slot] = Double.NaN;
+        cellKeys[slot] = NO_CELL;
+        slotById.put(id, slot);
+        return slot;
+    }
+
+    // Called under the structure write lock, so no reader or slot writer sees the swap
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        lats = Arrays.copyOf(lats, capacity);
+        lngs = Arrays.copyOf(lngs, capacity);
+        roleCodes = Arrays.copyOf(roleCodes, capacity);
+        cellKeys = Arrays.copyOf(cellKeys, capacity);
+        available = available.copy(capacity);
+        searchable = searchable.copy(capacity);
+        searchableByRole.replaceAll(bits -> bits.copy(capacity));
+    }
+
+    // Set a slot's position and move it between grid cells; NaN means no position.
+    // Callers hold the slot's stripe lock or the structure write lock.
+    private void place(int slot, double lat, double lng) {
+        StampedLock coordinates = coordinateLocks[stripe(slot)];
+        long stamp = coordinates.writeLock();
+        try {
+            lats[slot] = lat;
+            lngs[slot] = lng;
+        } finally {
+            coordinates.unlockWrite(stamp);
+        }
+        long next = Double.isNaN(lat) || Double.isNaN(lng) ? NO_CELL : cellKey(row(lat), column(lng));
+        long previous = cellKeys[slot];
+        if (previous == next) return;
+        if (previous != NO_CELL) {
+            Cell cell = grid.get(previous);
+            if (cell.remove(slot)) grid.remove(previous, cell);
+        }
+        if (next != NO_CELL) {
+            // A cell emptied by a concurrent move is retired before it leaves the grid; retry until ours sticks
+            while (!grid.computeIfAbsent(next, c -> new Cell()).add(slot)) {
+                Thread.onSpinWait();
+            }
+        }
+        cellKeys[slot] = next;
+    }
+
+    private boolean isSearchable(int slot) {
+        return available.get(slot) && cellKeys[slot] != NO_CELL;
+    }
+
+    private void setSearchable(int slot, boolean on) {
+        if (!searchable.set(slot, on)) return;
+        int delta = on ? 1 : -1;
+        searchableTotal.addAndGet(delta);
+        int code = roleCodes[slot];
+        if (code == NO_ROLE) return;
+        searchableByRole.get(code).set(slot, on);
+        searchableCountByRole.addAndGet(code, delta);
+    }
+
+    // Called under the structure write lock
+    private int roleCode(String role) {
+        if (role == null) return NO_ROLE;
+        return roleCodeByName.computeIfAbsent(role, r -> {
+            roleNames.add(r);
+            searchableByRole.add(new AtomicBits(ids.length));
+            if (roleNames.size() > searchableCountByRole.length()) {
+                AtomicIntegerArray counts = new AtomicIntegerArray(roleNames.size() * 2);
+                for (int i = 0; i < searchableCountByRole.length(); i++) counts.set(i, searchableCountByRole.get(i));
+                searchableCountByRole = counts;
+            }
+            return roleNames.size() - 1;
+        });
+    }
+
+    private String roleName(int code) {
+        return code == NO_ROLE ? null : roleNames.get(code);
+    }
+
+    private static int stripe(int slot) {
+        return slot & (STRIPES - 1);
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor((lat + 90.0) / cellDeg);
+    }
+
+    private int column(double lng) {
+        return (int) Math.floor((lng + 180.0) / cellDeg);
+    }
+
+    // Packs a (row, column) pair into one key, wrapping columns across the antimeridian
+    private long cellKey(int row, int col) {
+        int wrapped = Math.floorMod(col, columns);
+        return ((long) row << 32) | (wrapped & 0xffffffffL);
+    }
+
+    // Slots in one grid cell. The array is copy-on-write: searches read whichever array is current
+    // without locking, and the rare cell change of a moving unit pays for the copy.
+    private static final class Cell {
+        volatile int[] slots = new int[0];
+        // Set once the cell empties; a retired cell is about to leave the grid and takes no more slots
+        private boolean retired;
+
+        // False if the cell was retired
+        synchronized boolean add(int slot) {
+            if (retired) return false;
+            int[] current = slots;
+            int[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = slot;
+            slots = next;
+            return true;
+        }
+
+        // True if that emptied and retired the cell
+        synchronized boolean remove(int slot) {
+            int[] current = slots;
+            int last = current.length - 1;
+            int[] next = Arrays.copyOf(current, last);
+            for (int i = 0; i < last; i++) {
+                if (current[i] == slot) {
+                    next[i] = current[last];
+                    break;
+                }
+            }
+            slots = next;
+            retired = last == 0;
+            return retired;
+        }
+    }
+
+    // Fixed-capacity bitset whose words are updated with CAS, so flips of different slots never block
+    private static final class AtomicBits {
+        final AtomicLongArray words;
+
+        AtomicBits(int capacity) {
+            words = new AtomicLongArray((capacity + 63) >>> 6);
+        }
+
+        AtomicBits copy(int capacity) {
+            AtomicBits copy = new AtomicBits(capacity);
+            for (int i = 0; i < words.length(); i++) copy.words.set(i, words.get(i));
+            return copy;
+        }
+
+        boolean get(int bit) {
+            return (words.get(bit >>> 6) & (1L << bit)) != 0;
+        }
+
+        // True if the bit changed
+        boolean set(int bit, boolean on) {
+            int i = bit >>> 6;
+            long mask = 1L << bit;
+            while (true) {
+                long word = words.get(i);
+                long next = on ? word | mask : word & ~mask;
+                if (next == word) return false;
+                if (words.compareAndSet(i, word, next)) return true;
+            }
+        }
+
+        // Index of the first set bit at or after from, or -1
+        int nextSetBit(int from) {
+            int i = from >>> 6;
+            if (i >= words.length()) return -1;
+            long word = words.get(i) & (-1L << from);
+            while (true) {
+                if (word != 0) return (i << 6) + Long.numberOfTrailingZeros(word);
+                if (++i == words.length()) return -1;
+                word = words.get(i);
+            }
+        }
+    }
+
+    // Bounded max-heap on distance holding the best k slots seen so far
+    private static final class TopK {
+        final int[] slots;
+        final double[] distances;
+        int size;
+
+        TopK(int k) {
+            slots = new int[k];
+            distances = new double[k];
+        }
+
+        boolean full() {
+            return size == slots.length;
+        }
+
+        double worst() {
+            return distances[0];
+        }
+
+        void offer(int slot, double distance) {
+            // Skip a slot with no position, one that cannot make the cut, or one already seen in
+            // another cell while it was moving
+            if (Double.isNaN(distance) || (full() && distance >= distances[0])) return;
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) return;
+            }
+            if (size < slots.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (distances[parent] >= distance) break;
+                    slots[i] = slots[parent];
+                    distances[i] = distances[parent];
+                    i = parent;
+                }
+                slots[i] = slot;
+                distances[i] = distance;
+            } else if (distance < distances[0]) {
+                siftDown(slot, distance);
+            }
+        }
+
+        void pop() {
+            int last = --size;
+            if (last > 0) siftDown(slots[last], distances[last]);
+        }
+
+        // Place (slot, distance) at the root and restore heap order among the first size entries
+        private void siftDown(int slot, double distance) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && distances[child + 1] > distances[child]) child++;
+                if (distances[child] <= distance) break;
+                slots[i] = slots[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            slots[i] = slot;
+            distances[i] = distance;
+        }
+    }
+
+    // What the index knows about a responder right now; lat/lng are null when it has no position
+    public record LiveState(Double lat, Double lng, boolean available) {}
+
+    // A search result: responder identity, its indexed position and distance to the query point
+    public record Nearby(long responderId, String role, double lat, double lng, double distanceKm) {}
+}
@@ -0,0 +1,249 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.geo.GeoUtils;
+import org.groupx.emergencyresponse.geo.RoadGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Shortest travel time over a road graph: A* for one-to-one queries and a single reverse
+// Dijkstra from the incident for many-to-one scoring of all candidates. Points are snapped to
+// the nearest graph node; the off-road legs are covered at a slower access speed. Anything that
+// cannot be routed (off the network, disconnected) falls back to the great-circle estimate.
+// Each search needs scratch arrays proportional to the graph, so at most maxConcurrentSearches run at
+// once (further callers wait) and the pool never holds more states than that.
+public class RoadGraphEtaEngine implements EtaEngine {
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final RoadGraph graph;
+    private final EtaEngine fallback;
+    private final double snapRadiusKm;
+    private final double accessSpeedKmh;
+    // Milliseconds per km at the fastest speed in the graph, so the A* heuristic never overestimates
+    private final double heuristicMsPerKm;
+    // Reusable search scratch space; pooled rather than thread-local so it is cheap under virtual threads.
+    // A permit is taken before borrowing a state, so the pool is never empty for a permit holder once
+    // maxConcurrentSearches states exist.
+    private final Semaphore searches;
+    private final ArrayBlockingQueue<SearchState> states;
+    private final AtomicInteger created = new AtomicInteger();
+
+    public RoadGraphEtaEngine(RoadGraph graph, EtaEngine fallback, double snapRadiusKm, double accessSpeedKmh,
+                              int maxConcurrentSearches) {
+        if (maxConcurrentSearches < 1) throw new IllegalArgumentException("maxConcurrentSearches must be positive");
+        this.graph = graph;
+        this.fallback = fallback;
+        this.snapRadiusKm = snapRadiusKm;
+        this.accessSpeedKmh = accessSpeedKmh;
+        this.heuristicMsPerKm = 3_600_000.0 / Math.max(1.0f, graph.maxSpeedKmh());
+        this.searches = new Semaphore(maxConcurrentSearches);
+        this.states = new ArrayBlockingQueue<>(maxConcurrentSearches);
+    }
+
+    @Override
+    public double etaMinutes(double fromLat, double fromLng, double toLat, double toLng) {
+        int source = graph.nearestNode(fromLat, fromLng, snapRadiusKm);
+        int target = graph.nearestNode(toLat, toLng, snapRadiusKm);
+        if (source < 0 || target < 0) return fallback.etaMinutes(fromLat, fromLng, toLat, toLng);
+        SearchState state = borrow();
+        try {
+            int ms = aStar(state, source, target);
+            if (ms == UNREACHED) return fallback.etaMinutes(fromLat, fromLng, toLat, toLng);
+            return ms / 60_000.0 + accessMinutes(fromLat, fromLng, source) + accessMinutes(toLat, toLng, target);
+        } finally {
+            giveBack(state);
+        }
+    }
+
+    @Override
+    public double[] etaMinutesToTarget(double[] fromLats, double[] fromLngs, double toLat, double toLng) {
+        int target = graph.nearestNode(toLat, toLng, snapRadiusKm);
+        if (target < 0) return EtaEngine.super.etaMinutesToTarget(fromLats, fromLngs, toLat, toLng);
+        int[] sources = new int[fromLats.length];
+        for (int i = 0; i < sources.length; i++) sources[i] = graph.nearestNode(fromLats[i], fromLngs[i], snapRadiusKm);
+
+        SearchState state = borrow();
+        try {
+            reverseDijkstra(state, target, sources);
+            double targetAccess = accessMinutes(toLat, toLng, target);
+            double[] minutes = new double[sources.length];
+            for (int i = 0; i < sources.length; i++) {
+                int s = sources[i];
+                int ms = s < 0 ? UNREACHED : state.distance(s);
+                minutes[i] = ms == UNREACHED
+                        ? fallback.etaMinutes(fromLats[i], fromLngs[i], toLat, toLng)
+                        : ms / 60_000.0 + accessMinutes(fromLats[i], fromLngs[i], s) + targetAccess;
+            }
+            return minutes;
+        } finally {
+            giveBack(state);
+        }
+    }
+
+    private int aStar(SearchState state, int source, int target) {
+        state.reset();
+        double targetLat = graph.lat(target);
+        double targetLng = graph.lng(target);
+        state.relax(source, 0, heuristic(source, targetLat, targetLng));
+        while (!state.heapEmpty()) {
+            int node = state.pop();
+            if (node < 0) continue; // stale heap entry
+            if (node == target) return state.distance(target);
+            int g = state.distance(node);
+            for (int e = graph.firstOut(node), end = graph.firstOut(node + 1); e < end; e++) {
+                int next = graph.outTarget(e);
+                int candidate = g + graph.outTimeMs(e);
+                if (candidate < state.distance(next)) {
+                    state.relax(next, candidate, candidate + heuristic(next, targetLat, targetLng));
+                }
+            }
+        }
+        return UNREACHED;
+    }
+
+    // Settle nodes outward from the target over in-edges until every source is settled
+    private void reverseDijkstra(SearchState state, int target, int[] sources) {
+        state.reset();
+        int remaining = 0;
+        for (int s : sources) {
+            if (s >= 0 && state.markTarget(s)) remaining++;
+        }
+        state.relax(target, 0, 0);
+        while (remaining > 0 && !state.heapEmpty()) {
+            int node = state.pop();
+            if (node < 0) continue;
+            if (state.isTarget(node)) remaining--;
+            int g = state.distance(node);
+            for (int e = graph.firstIn(node), end = graph.firstIn(node + 1); e < end; e++) {
+                int prev = graph.inSource(e);
+                int candidate = g + graph.inTimeMs(e);
+                if (candidate < state.distance(prev)) state.relax(prev, candidate, candidate);
+            }
+        }
+    }
+
+    private double heuristic(int node, double targetLat, double targetLng) {
+        return GeoUtils.haversineKm(graph.lat(node), graph.lng(node), targetLat, targetLng) * heuristicMsPerKm;
+    }
+
+    private double accessMinutes(double lat, double lng, int node) {
+        return GeoUtils.haversineKm(lat, lng, graph.lat(node), graph.lng(node)) / accessSpeedKmh * 60.0;
+    }
+
+    private SearchState borrow() {
+        searches.acquireUninterruptibly();
+        SearchState state = states.poll();
+        if (state != null) return state;
+        created.incrementAndGet();
+        return new SearchState(graph.nodeCount());
+    }
+
+    private void giveBack(SearchState state) {
+        states.offer(state);
+        searches.release();
+    }
+
+    // Scratch states allocated so far; never more than maxConcurrentSearches
+    int searchStates() {
+        return created.get();
+    }
+
+    // Per-search scratch arrays; a generation stamp avoids clearing O(n) arrays between searches
+    private static final class SearchState {
+        private final int[] distance;
+        private final int[] stamp;
+        private final int[] targetStamp;
+        private final boolean[] settled;
+        private int generation;
+        // Binary min-heap of (key, node) with lazy deletion
+        private double[] heapKey = new double[256];
+        private int[] heapNode = new int[256];
+        private int heapSize;
+
+        SearchState(int nodes) {
+            distance = new int[nodes];
+            stamp = new int[nodes];
+            targetStamp = new int[nodes];
+            settled = new boolean[nodes];
+        }
+
+        void reset() {
+            generation++;
+            heapSize = 0;
+        }
+
+        int distance(int node) {
+            return stamp[node] == generation ? distance[node] : UNREACHED;
+        }
+
+        boolean markTarget(int node) {
+            if (targetStamp[node] == generation) return false;
+            targetStamp[node] = generation;
+            return true;
+        }
+
+        boolean isTarget(int node) {
+            return targetStamp[node] == generation;
+        }
+
+        void relax(int node, int dist, double key) {
+            stamp[node] = generation;
+            distance[node] = dist;
+            settled[node] = false;
+            push(node, key);
+        }
+
+        boolean heapEmpty() {
+            return heapSize == 0;
+        }
+
+        // Returns the next unsettled node, or -1 when the popped entry was superseded
+        int pop() {
+            int node = heapNode[0];
+            heapSize--;
+            if (heapSize > 0) {
+                heapKey[0] = heapKey[heapSize];
+                heapNode[0] = heapNode[heapSize];
+                siftDown(0);
+            }
+            if (settled[node] && stamp[node] == generation) return -1;
+            settled[node] = true;
+            return node;
+        }
+
+        private void push(int node, double key) {
+            if (heapSize == heapKey.length) {
+                heapKey = Arrays.copyOf(heapKey, heapSize * 2);
+                heapNode = Arrays.copyOf(heapNode, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heapKey[parent] <= key) break;
+                heapKey[i] = heapKey[parent];
+                heapNode[i] = heapNode[parent];
+                i = parent;
+            }
+            heapKey[i] = key;
+            heapNode[i] = node;
+        }
+
+        private void siftDown(int i) {
+            double key = heapKey[i];
+            int node = heapNode[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) child++;
+                if (heapKey[child] >= key) break;
+                heapKey[i] = heapKey[child];
+                heapNode[i] = heapNode[child];
+                i = child;
+            }
+            heapKey[i] = key;
+            heapNode[i] = node;
+        }
+    }
+}
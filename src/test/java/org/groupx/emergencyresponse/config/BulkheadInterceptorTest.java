@@ -0,0 +1,52 @@
+package org.groupx.emergencyresponse.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkheadInterceptorTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final BulkheadInterceptor interceptor = new BulkheadInterceptor(
+            new Bulkhead("dispatch", 2, 50, registry),
+            new Bulkhead("telemetry", 1, 50, registry),
+            new Bulkhead("read", 1, 50, registry));
+
+    @Test
+    void aFullBulkheadRejectsWith503UntilAPermitIsReturned() throws Exception {
+        MockHttpServletRequest first = request("POST", "/assign");
+        MockHttpServletRequest second = request("POST", "/alerts/7/assign");
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(second, new MockHttpServletResponse(), null));
+        assertEquals(2.0, active("dispatch"));
+
+        // Both permits are held: the third waits out max-wait-ms and is turned away
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("POST", "/assign"), rejected, null));
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(1.0, registry.get("bulkhead.rejected").tag("bulkhead", "dispatch").counter().count());
+
+        // Other classes of request are not held up by the full one
+        assertTrue(interceptor.preHandle(request("PATCH", "/responders/3/location"),
+                new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(request("POST", "/alerts"), new MockHttpServletResponse(), null));
+
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+        assertEquals(1.0, active("dispatch"));
+        assertTrue(interceptor.preHandle(request("POST", "/assign"), new MockHttpServletResponse(), null));
+    }
+
+    private double active(String bulkhead) {
+        return registry.get("bulkhead.active").tag("bulkhead", bulkhead).gauge().value();
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        return new MockHttpServletRequest(method, path);
+    }
+}
@@ -0,0 +1,53 @@
+package org.groupx.emergencyresponse.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LocationFramesTest {
+    @Test
+    void anEncodedBatchDecodesInPlace() {
+        long[] ids = {7, Long.MAX_VALUE, 1};
+        double[] lats = {-1.2921, 89.9999999, -90};
+        double[] lngs = {36.8219, -179.9999999, 180};
+        byte[] body = LocationFrames.encode(ids, lats, lngs, 3);
+        assertEquals(LocationFrames.HEADER_BYTES + 3 * LocationFrames.FRAME_BYTES, body.length);
+
+        ByteBuffer frames = ByteBuffer.wrap(body);
+        assertEquals(3, LocationFrames.frameCount(frames));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ids[i], LocationFrames.responderId(frames, i));
+            assertEquals(lats[i], LocationFrames.lat(frames, i), 1e-7);
+            assertEquals(lngs[i], LocationFrames.lng(frames, i), 1e-7);
+        }
+        // Offsets are relative to the buffer's position
+        ByteBuffer shifted = ByteBuffer.allocate(body.length + 5).position(5).put(body).position(5);
+        assertEquals(3, LocationFrames.frameCount(shifted));
+        assertEquals(1, LocationFrames.responderId(shifted, 2));
+
+        assertEquals(0, LocationFrames.frameCount(ByteBuffer.wrap(LocationFrames.encode(ids, lats, lngs, 0))));
+    }
+
+    @Test
+    void malformedBatchesAreRejected() {
+        byte[] body = LocationFrames.encode(new long[]{7}, new double[]{1.0}, new double[]{36.0}, 1);
+        byte[] wrongVersion = body.clone();
+        wrongVersion[0] = 2;
+        assertEquals(-1, LocationFrames.frameCount(ByteBuffer.wrap(wrongVersion)));
+        assertEquals(-1, LocationFrames.frameCount(ByteBuffer.wrap(Arrays.copyOf(body, body.length - 1))));
+        assertEquals(-1, LocationFrames.frameCount(ByteBuffer.wrap(Arrays.copyOf(body, body.length + 3))));
+        assertEquals(-1, LocationFrames.frameCount(ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    void theAckCarriesTheThreeCounts() {
+        ByteBuffer ack = ByteBuffer.wrap(LocationFrames.ack(5, 2, 1));
+        assertEquals(LocationFrames.ACK_BYTES, ack.remaining());
+        assertEquals(5, ack.getInt());
+        assertEquals(2, ack.getInt());
+        assertEquals(1, ack.getInt());
+    }
+}
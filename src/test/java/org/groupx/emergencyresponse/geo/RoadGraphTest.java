@@ -0,0 +1,105 @@
+package org.groupx.emergencyresponse.geo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoadGraphTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void aBuiltGraphIsReadBackFromTheMappedFile() throws IOException {
+        // 0 <-> 1 -> 2 <-> 3, and 3 -> 0; node ids are external and arrive out of order
+        RoadGraphBuilder builder = new RoadGraphBuilder();
+        assertEquals(0, builder.addNode(900, -1.2921, 36.8219));
+        assertEquals(1, builder.addNode(100, -1.2930, 36.8300));
+        assertEquals(2, builder.addNode(500, -1.3000, 36.8300));
+        assertEquals(3, builder.addNode(700, -1.3000, 36.8219));
+        assertEquals(1, builder.addNode(100, 0, 0));
+        builder.addEdge(900, 100, 1000, 36);
+        builder.addEdge(100, 900, 1000, 36);
+        builder.addEdge(100, 500, 500, 72);
+        builder.addEdge(500, 700, 900, 54);
+        builder.addEdge(700, 500, 900, 54);
+        builder.addEdge(700, 900, 800, 18);
+        // Unknown endpoints and standing traffic are dropped
+        builder.addEdge(900, 42, 100, 50);
+        builder.addEdge(900, 700, 100, 0);
+        RoadGraph graph = write(builder);
+
+        assertEquals(4, graph.nodeCount());
+        assertEquals(6, graph.edgeCount());
+        assertEquals(72.0f, graph.maxSpeedKmh());
+        assertEquals(-1.2930, graph.lat(1), 1e-9);
+        assertEquals(36.8300, graph.lng(1), 1e-9);
+
+        // 1000 m at 36 km/h is 100 s; 500 m at 72 km/h is 25 s
+        assertEquals(List.of("1:100000"), outEdges(graph, 0));
+        assertEquals(List.of("0:100000", "2:25000"), outEdges(graph, 1));
+        assertEquals(List.of("3:60000"), outEdges(graph, 2));
+        assertEquals(List.of("2:60000", "0:160000"), outEdges(graph, 3));
+        // The reverse adjacency holds the same edges, grouped by target
+        assertEquals(List.of("1:100000", "3:160000"), inEdges(graph, 0));
+        assertEquals(List.of("0:100000"), inEdges(graph, 1));
+        assertEquals(List.of("1:25000", "3:60000"), inEdges(graph, 2));
+        assertEquals(List.of("2:60000"), inEdges(graph, 3));
+    }
+
+    @Test
+    void aFileThatIsNotAGraphIsRejected() throws IOException {
+        Path file = dir.resolve("junk.graph");
+        Files.write(file, new byte[64]);
+        assertThrows(IllegalArgumentException.class, () -> RoadGraph.load(file));
+    }
+
+    @Test
+    void nearestNodeFindsTheClosestNodeWithinTheRadius() throws IOException {
+        RoadGraphBuilder builder = new RoadGraphBuilder();
+        builder.addNode(1, -1.2921, 36.8219);
+        builder.addNode(2, -1.2940, 36.8219);
+        // Far north, where 1.9 km east is five snapping cells of longitude away but under two of latitude
+        builder.addNode(3, 70.0, 25.0 + 1.9 / (GeoUtils.KM_PER_DEGREE * Math.cos(Math.toRadians(70.0))));
+        RoadGraph graph = write(builder);
+
+        assertEquals(0, graph.nearestNode(-1.2925, 36.8219, 1));
+        assertEquals(1, graph.nearestNode(-1.2935, 36.8219, 1));
+        assertEquals(-1, graph.nearestNode(-1.2921, 36.9000, 1));
+        assertEquals(2, graph.nearestNode(70.0, 25.0, 2));
+        assertEquals(-1, graph.nearestNode(70.0, 25.0, 1));
+    }
+
+    private RoadGraph write(RoadGraphBuilder builder) throws IOException {
+        Path file = dir.resolve("test.graph");
+        builder.write(file);
+        assertTrue(Files.size(file) > RoadGraph.HEADER_BYTES);
+        return RoadGraph.load(file);
+    }
+
+    // "target:timeMs" for each out-edge of node, in file order
+    private static List<String> outEdges(RoadGraph graph, int node) {
+        List<String> edges = new ArrayList<>();
+        for (int e = graph.firstOut(node); e < graph.firstOut(node + 1); e++) {
+            edges.add(graph.outTarget(e) + ":" + graph.outTimeMs(e));
+        }
+        return edges;
+    }
+
+    // "source:timeMs" for each in-edge of node, in file order
+    private static List<String> inEdges(RoadGraph graph, int node) {
+        List<String> edges = new ArrayList<>();
+        for (int e = graph.firstIn(node); e < graph.firstIn(node + 1); e++) {
+            edges.add(graph.inSource(e) + ":" + graph.inTimeMs(e));
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,88 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.config.CacheConfig;
+import org.groupx.emergencyresponse.dto.AssignmentDTO;
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Cached assignments are served without reading the database, so a row changed behind the cache's back
+// shows whether a read was a hit. Hauls are served only by the test's own units; every ping checks for a
+// better unit.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:assignment-cache-test;DB_CLOSE_DELAY=-1",
+        "dispatch.queue.enabled=false",
+        "dispatch.eta.graph-path=",
+        "dispatch.roles.by-type=Haul:HAULER",
+        "dispatch.tracking.reassign=true",
+        "dispatch.tracking.check-interval-ms=0"})
+class AssignmentCacheTest {
+    private static final double LAT = -1.2921;
+    private static final double LNG = 36.8219;
+
+    @Autowired
+    private AssignmentService assignmentService;
+    @Autowired
+    private AssignmentTrackingService tracking;
+    @Autowired
+    private EmergencyReportService emergencyReportService;
+    @Autowired
+    private ResponderService responderService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void assignmentsAreServedFromTheCacheUntilAHandoverEvictsThem() throws InterruptedException {
+        Responder first = responderService.save(responder(0.1));
+        long report = report();
+        AssignmentDTO assigned = assignmentService.assignResponder(report);
+        assertEquals(22, assignmentService.getAssignment(assigned.id).etaMinutes);
+        assertEquals(22, assignmentService.getByEmergencyId(report).etaMinutes);
+
+        // Both lookups are now hits and do not see a change made directly in the database
+        jdbcTemplate.update("update assignment set eta_minutes = 99 where id = ?", assigned.id);
+        assertEquals(22, assignmentService.getAssignment(assigned.id).etaMinutes);
+        assertEquals(22, assignmentService.getByEmergencyId(report).etaMinutes);
+
+        // A unit 3 minutes away takes the job over; both entries are evicted and reloaded
+        Responder closer = responderService.save(responder(0.01));
+        responderService.updateLocation(first.getId(), LAT + 0.1, LNG);
+        while (tracking.pendingChecks() > 0) Thread.sleep(20);
+        assertNull(cacheManager.getCache(CacheConfig.ASSIGNMENTS).get(assigned.id));
+        assertNull(cacheManager.getCache(CacheConfig.ASSIGNMENTS_BY_EMERGENCY).get(report));
+        AssignmentDTO moved = assignmentService.getAssignment(assigned.id);
+        assertEquals(closer.getId(), moved.responderId);
+        assertEquals(3, moved.etaMinutes);
+        assertEquals(closer.getId(), assignmentService.getByEmergencyId(report).responderId);
+    }
+
+    private long report() {
+        CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+        dto.type = "Haul";
+        dto.description = "cache test";
+        dto.locationLat = LAT;
+        dto.locationLng = LNG;
+        dto.reporterId = "cache-test";
+        return emergencyReportService.createReport(dto);
+    }
+
+    // A unit the given number of degrees north of the incident
+    private static Responder responder(double degreesNorth) {
+        Responder r = new Responder();
+        r.setName("Hauler");
+        r.setRole("HAULER");
+        r.setCurrentLat(LAT + degreesNorth);
+        r.setCurrentLng(LNG);
+        r.setAvailability(true);
+        return r;
+    }
+}
@@ -0,0 +1,108 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.entity.Assignment;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.groupx.emergencyresponse.repository.ResponderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The dispatch queue is off so that only the test's own threads assign reports
+@SpringBootTest(properties = "dispatch.queue.enabled=false")
+class AssignmentServiceConcurrencyTest {
+    private static final int RESPONDERS = 100;
+    private static final int REPORTS = 400;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private AssignmentService assignmentService;
+    @Autowired
+    private EmergencyReportService emergencyReportService;
+    @Autowired
+    private ResponderService responderService;
+    @Autowired
+    private ResponderRepository responderRepository;
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Test
+    void concurrentDispatchNeverDoubleBooksAResponder() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < RESPONDERS; i++) {
+            Responder r = new Responder();
+            r.setName("Stress " + i);
+            r.setRole(i % 2 == 0 ? "MEDIC" : "POLICE");
+            r.setCurrentLat(-1.29 + random.nextDouble() * 0.1);
+            r.setCurrentLng(36.82 + random.nextDouble() * 0.1);
+            r.setAvailability(true);
+            responderService.save(r);
+        }
+        // Medical reports may only be served by medics
+        int available = (int) responderRepository.findAvailable().stream()
+                .filter(r -> "MEDIC".equals(r.getRole()))
+                .count();
+
+        // All reports sit in the same neighbourhood so every thread fights over the same nearest units
+        List<Long> reportIds = new ArrayList<>();
+        for (int i = 0; i < REPORTS; i++) {
+            CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+            dto.type = "Medical";
+            dto.description = "stress";
+            dto.locationLat = -1.29 + random.nextDouble() * 0.1;
+            dto.locationLng = 36.82 + random.nextDouble() * 0.1;
+            dto.reporterId = "stress-test";
+            reportIds.add(emergencyReportService.createReport(dto));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < reportIds.size(); i++) {
+            Long reportId = reportIds.get(i);
+            boolean viaAlerts = i % 2 == 0;
+            futures.add(pool.submit(() -> {
+                start.await();
+                // Exercise both the /assign and the /alerts/{id}/assign code paths
+                return viaAlerts
+                        ? emergencyReportService.notifyResponderService(reportId)
+                        : assignmentService.assignResponder(reportId);
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        Set<Long> ours = new HashSet<>(reportIds);
+        List<Assignment> assignments = assignmentRepository.findAll().stream()
+                .filter(a -> ours.contains(a.getEmergencyId()))
+                .toList();
+        Set<Long> booked = new HashSet<>();
+        for (Assignment a : assignments) {
+            assertTrue(booked.add(a.getResponderId()), "responder " + a.getResponderId() + " was double-booked");
+            Responder responder = responderRepository.findById(a.getResponderId()).orElseThrow();
+            assertFalse(responder.getAvailability());
+            assertEquals("MEDIC", responder.getRole());
+        }
+        assertEquals(Math.min(available, REPORTS), assignments.size());
+
+        // Put the units back on duty for other tests sharing this application context
+        for (Long id : booked) responderService.setAvailability(id, true);
+    }
+}
@@ -0,0 +1,83 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+
+// The dispatch queue is off so that only the test assigns reports
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:assignment-recovery-test;DB_CLOSE_DELAY=-1",
+        "dispatch.queue.enabled=false"})
+class AssignmentServiceRecoveryTest {
+    @Autowired
+    private AssignmentService assignmentService;
+    @Autowired
+    private EmergencyReportService emergencyReportService;
+    @Autowired
+    private ResponderService responderService;
+    @Autowired
+    private EmergencyReportRepository emergencyReportRepository;
+    @SpyBean
+    private ResponderReservationService reservationService;
+
+    @Test
+    void aFailedReservationHandsTheReportBack() {
+        responderService.save(responder());
+        long id = report();
+        doThrow(new DataAccessResourceFailureException("database stalled"))
+                .when(reservationService).tryReserve(anyLong());
+        assertThrows(DataAccessResourceFailureException.class, () -> assignmentService.assignResponder(id));
+        assertEquals(AssignmentService.STATUS_NEW, emergencyReportService.getReport(id).getStatus());
+
+        // Once the database is back the report is dispatched as usual
+        doCallRealMethod().when(reservationService).tryReserve(anyLong());
+        assertNotNull(assignmentService.assignResponder(id));
+        assertEquals(AssignmentService.STATUS_ASSIGNED, emergencyReportService.getReport(id).getStatus());
+    }
+
+    @Test
+    void staleClaimsAreReleasedOnlyInOwnedRegions() {
+        long ours = report();
+        long theirs = report();
+        emergencyReportRepository.transitionStatus(ours, AssignmentService.STATUS_NEW,
+                AssignmentService.STATUS_DISPATCHING);
+        emergencyReportRepository.transitionStatus(theirs, AssignmentService.STATUS_NEW,
+                AssignmentService.STATUS_DISPATCHING);
+
+        assertEquals(1, assignmentService.releaseStaleClaims(r -> r.getId() == ours));
+        assertEquals(AssignmentService.STATUS_NEW, emergencyReportService.getReport(ours).getStatus());
+        assertEquals(AssignmentService.STATUS_DISPATCHING, emergencyReportService.getReport(theirs).getStatus());
+    }
+
+    private long report() {
+        CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+        dto.type = "Medical";
+        dto.description = "recovery test";
+        dto.locationLat = -1.2921;
+        dto.locationLng = 36.8219;
+        dto.reporterId = "recovery-test";
+        return emergencyReportService.createReport(dto);
+    }
+
+    private static Responder responder() {
+        Responder r = new Responder();
+        r.setName("Recovery medic");
+        r.setRole("MEDIC");
+        r.setCurrentLat(-1.29);
+        r.setCurrentLng(36.82);
+        r.setAvailability(true);
+        return r;
+    }
+}
@@ -0,0 +1,173 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.groupx.emergencyresponse.entity.Assignment;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Workers are built by hand with small batches; the application's own worker only runs once, at startup
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:assignment-sync-test;DB_CLOSE_DELAY=-1",
+        "dispatch.queue.enabled=false",
+        "assignment.sync.interval-ms=3600000"})
+class AssignmentSyncServiceTest {
+    private static final long BACKOFF_BASE_MS = 1_000;
+    private static final long BACKOFF_MAX_MS = 3_000;
+    private static final long CLAIM_TIMEOUT_MS = 60_000;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+    @Autowired
+    private EmergencyReportRepository reportRepository;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    // Makes every report lookup of the worker fail while set
+    private final AtomicBoolean databaseDown = new AtomicBoolean();
+
+    @BeforeEach
+    void clear() {
+        assignmentRepository.deleteAll();
+    }
+
+    @Test
+    void pendingRowsAreSyncedOrOrphanedAndAbandonedClaimsRecovered() {
+        long present = reportRepository.save(report()).getId();
+        long missing = present + 1_000;
+        List<Long> synced = List.of(pending(present), pending(present), pending(present));
+        List<Long> orphaned = List.of(pending(missing), pending(missing));
+        // Claimed by a worker that died two minutes ago, and by one that is still busy with it
+        long abandoned = claimed(present, "dead-worker", CLAIM_TIMEOUT_MS * 2);
+        long busy = claimed(present, "live-worker", 0);
+
+        // Batches of two, so the run takes several
+        worker().syncAssignmentStatus();
+
+        for (long id : synced) assertEquals(AssignmentSyncService.SYNC_SYNCED, syncStatus(id));
+        for (long id : orphaned) assertEquals(AssignmentSyncService.SYNC_ORPHANED, syncStatus(id));
+        assertEquals(AssignmentSyncService.SYNC_SYNCED, syncStatus(abandoned));
+        assertEquals("CLAIMED", syncStatus(busy));
+        assertEquals("live-worker", assignmentRepository.findById(busy).get().getSyncClaim());
+        assertEquals(4, processed("synced"));
+        assertEquals(2, processed("orphaned"));
+        assertEquals(0, registry.get("assignment.sync.backlog").gauge().value());
+    }
+
+    @Test
+    void failedRunsBackOffExponentiallyAndReleaseTheirClaims() {
+        long present = reportRepository.save(report()).getId();
+        long row = pending(present);
+        AssignmentSyncService worker = worker();
+        databaseDown.set(true);
+
+        // 1 s, 2 s, then capped at 3 s
+        for (long delay : new long[]{BACKOFF_BASE_MS, 2 * BACKOFF_BASE_MS, BACKOFF_MAX_MS}) {
+            long before = System.currentTimeMillis();
+            forceRun(worker);
+            long after = System.currentTimeMillis();
+            assertTrue(worker.backoffUntil() >= before + delay && worker.backoffUntil() <= after + delay);
+            // The failed batch's claim went back, so another worker can take the row
+            assertEquals(AssignmentSyncService.SYNC_PENDING, syncStatus(row));
+        }
+        assertEquals(3, registry.get("assignment.sync.failures").counter().count());
+
+        // While backing off, a run does nothing
+        long until = worker.backoffUntil();
+        worker.syncAssignmentStatus();
+        assertEquals(3, registry.get("assignment.sync.failures").counter().count());
+        assertEquals(until, worker.backoffUntil());
+
+        // Once the database is back the row settles and the next failure starts from the base delay again
+        databaseDown.set(false);
+        forceRun(worker);
+        assertEquals(AssignmentSyncService.SYNC_SYNCED, syncStatus(row));
+        pending(present);
+        databaseDown.set(true);
+        long before = System.currentTimeMillis();
+        worker.syncAssignmentStatus();
+        assertTrue(worker.backoffUntil() <= System.currentTimeMillis() + BACKOFF_BASE_MS
+                && worker.backoffUntil() >= before + BACKOFF_BASE_MS);
+    }
+
+    private AssignmentSyncService worker() {
+        EmergencyReportRepository reports = (EmergencyReportRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{EmergencyReportRepository.class},
+                (proxy, method, args) -> {
+                    if (databaseDown.get()) throw new IllegalStateException("database unreachable");
+                    try {
+                        return method.invoke(reportRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        return new AssignmentSyncService(assignmentRepository, reports, registry, 2, 50,
+                BACKOFF_BASE_MS, BACKOFF_MAX_MS, CLAIM_TIMEOUT_MS);
+    }
+
+    // Run now, whatever the backoff says
+    private static void forceRun(AssignmentSyncService worker) {
+        while (System.currentTimeMillis() < worker.backoffUntil()) {
+            try {
+                Thread.sleep(worker.backoffUntil() - System.currentTimeMillis());
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+        worker.syncAssignmentStatus();
+    }
+
+    private long pending(long emergencyId) {
+        return assignmentRepository.save(assignment(emergencyId, AssignmentSyncService.SYNC_PENDING)).getId();
+    }
+
+    private long claimed(long emergencyId, String worker, long ageMs) {
+        Assignment a = assignment(emergencyId, "CLAIMED");
+        a.setSyncClaim(worker);
+        a.setSyncClaimedAt(new Date(System.currentTimeMillis() - ageMs));
+        return assignmentRepository.save(a).getId();
+    }
+
+    private String syncStatus(long id) {
+        return assignmentRepository.findById(id).get().getSyncStatus();
+    }
+
+    private double processed(String outcome) {
+        return registry.get("assignment.sync.processed").tag("outcome", outcome).counter().count();
+    }
+
+    private static EmergencyReport report() {
+        EmergencyReport r = new EmergencyReport();
+        r.setType("Fire");
+        r.setDescription("sync test");
+        r.setLocationLat(-1.2921);
+        r.setLocationLng(36.8219);
+        r.setTimestamp(new Date());
+        r.setStatus(AssignmentService.STATUS_ASSIGNED);
+        r.setReporterId("sync-test");
+        return r;
+    }
+
+    private static Assignment assignment(long emergencyId, String syncStatus) {
+        Assignment a = new Assignment();
+        a.setEmergencyId(emergencyId);
+        a.setResponderId(1L);
+        a.setEtaMinutes(5);
+        a.setAssignmentTime(new Date());
+        a.setSyncStatus(syncStatus);
+        return a;
+    }
+}
@@ -0,0 +1,139 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.dto.AssignmentDTO;
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Great-circle ETAs: about 1.95 minutes per km, so 0.1 degrees of latitude is 22 minutes away. Each test
+// has its own report type served by its own role, so units left by one test are never candidates in
+// another. The dispatch queue is off so that only the test assigns reports; every ping checks for a
+// better unit.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:assignment-tracking-test;DB_CLOSE_DELAY=-1",
+        "dispatch.queue.enabled=false",
+        "dispatch.eta.graph-path=",
+        "dispatch.roles.by-type=Move:MOVER,Swap:SWAPPER,Keep:KEEPER,Release:RELEASER",
+        "dispatch.tracking.reassign=true",
+        "dispatch.tracking.min-improvement-minutes=5",
+        "dispatch.tracking.check-interval-ms=0"})
+class AssignmentTrackingServiceTest {
+    private static final double LAT = -1.2921;
+    private static final double LNG = 36.8219;
+
+    @Autowired
+    private AssignmentTrackingService tracking;
+    @Autowired
+    private AssignmentService assignmentService;
+    @Autowired
+    private EmergencyReportService emergencyReportService;
+    @Autowired
+    private ResponderService responderService;
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Test
+    void aMoveRefreshesTheEta() {
+        Responder unit = responderService.save(responder("MOVER", 0.1));
+        long report = report("Move");
+        AssignmentDTO assignment = assignmentService.assignResponder(report);
+        assertEquals(22, assignment.etaMinutes);
+
+        // Half way there
+        responderService.updateLocation(unit.getId(), LAT + 0.05, LNG);
+        tracking.flush();
+        assertEquals(11, assignmentRepository.findById(assignment.id).get().getEtaMinutes());
+        assertEquals(11, assignmentService.getAssignment(assignment.id).etaMinutes);
+    }
+
+    @Test
+    void theJobMovesToAFreeUnitThatArrivesEnoughSooner() throws InterruptedException {
+        Responder first = responderService.save(responder("SWAPPER", 0.1));
+        long report = report("Swap");
+        AssignmentDTO assignment = assignmentService.assignResponder(report);
+        assertEquals(first.getId(), assignment.responderId);
+
+        // A unit 3 minutes away comes on duty; the next ping from the first unit hands the job over
+        Responder closer = responderService.save(responder("SWAPPER", 0.01));
+        responderService.updateLocation(first.getId(), LAT + 0.1, LNG);
+        awaitChecks();
+        AssignmentDTO moved = assignmentService.getByEmergencyId(report);
+        assertEquals(closer.getId(), moved.responderId);
+        assertEquals(3, moved.etaMinutes);
+        assertTrue(responderService.getResponder(first.getId()).getAvailability());
+        assertFalse(responderService.getResponder(closer.getId()).getAvailability());
+    }
+
+    @Test
+    void theJobStaysWhenTheImprovementIsTooSmall() throws InterruptedException {
+        Responder first = responderService.save(responder("KEEPER", 0.1));
+        long report = report("Keep");
+        AssignmentDTO assignment = assignmentService.assignResponder(report);
+
+        // 18 minutes away instead of 22
+        Responder other = responderService.save(responder("KEEPER", 0.085));
+        responderService.updateLocation(first.getId(), LAT + 0.1, LNG);
+        awaitChecks();
+        assertEquals(first.getId(), assignmentService.getByEmergencyId(report).responderId);
+        assertEquals(22, assignmentService.getByEmergencyId(report).etaMinutes);
+        assertTrue(responderService.getResponder(other.getId()).getAvailability());
+        assertEquals(assignment.id, assignmentService.getByEmergencyId(report).id);
+    }
+
+    @Test
+    void releasingTheReplacedUnitDoesNotResolveTheReport() throws InterruptedException {
+        Responder first = responderService.save(responder("RELEASER", 0.1));
+        long report = report("Release");
+        assignmentService.assignResponder(report);
+        Responder closer = responderService.save(responder("RELEASER", 0.01));
+        responderService.updateLocation(first.getId(), LAT + 0.1, LNG);
+        awaitChecks();
+        assertEquals(closer.getId(), assignmentService.getByEmergencyId(report).responderId);
+
+        // The first unit went back on duty during the handover and may be set on duty again
+        assertEquals(AssignmentService.STATUS_ASSIGNED, emergencyReportService.getReport(report).getStatus());
+        responderService.setAvailability(first.getId(), true);
+        assertEquals(AssignmentService.STATUS_ASSIGNED, emergencyReportService.getReport(report).getStatus());
+
+        // The unit now on the job finishing it does
+        assertTrue(responderService.setAvailability(closer.getId(), true));
+        assertEquals(AssignmentService.STATUS_RESOLVED, emergencyReportService.getReport(report).getStatus());
+    }
+
+    // Reassignment checks run off the ping thread
+    private void awaitChecks() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (tracking.pendingChecks() > 0) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("checks not done within 10 s");
+            Thread.sleep(20);
+        }
+    }
+
+    private long report(String type) {
+        CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+        dto.type = type;
+        dto.description = "tracking test";
+        dto.locationLat = LAT;
+        dto.locationLng = LNG;
+        dto.reporterId = "tracking-test";
+        return emergencyReportService.createReport(dto);
+    }
+
+    // A unit the given number of degrees north of the incident
+    private static Responder responder(String role, double degreesNorth) {
+        Responder r = new Responder();
+        r.setName(role + " unit");
+        r.setRole(role);
+        r.setCurrentLat(LAT + degreesNorth);
+        r.setCurrentLng(LNG);
+        r.setAvailability(true);
+        return r;
+    }
+}
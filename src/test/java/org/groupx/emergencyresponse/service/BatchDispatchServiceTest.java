@@ -0,0 +1,97 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Floods are served only by divers, so the seeded fleet stays out of the matching. The dispatch queue is
+// off so that reports wait for the batch.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-dispatch-test;DB_CLOSE_DELAY=-1",
+        "dispatch.roles.by-type=Flood:DIVER",
+        "dispatch.queue.enabled=false"})
+class BatchDispatchServiceTest {
+    @Autowired
+    private EmergencyReportRepository emergencyReportRepository;
+    @Autowired
+    private EmergencyReportService emergencyReportService;
+    @Autowired
+    private AssignmentService assignmentService;
+    @Autowired
+    private ResponderService responderService;
+    @Autowired
+    private ResponderSpatialIndex spatialIndex;
+    @Autowired
+    private ResponderReservationService reservationService;
+    @Autowired
+    private ResponderRoleRules roleRules;
+    @Autowired
+    private ClusterService clusterService;
+
+    @Test
+    void theExactSolverBeatsGreedyAndGreedyTakesOverPastTheBudget() {
+        // Along the equator, 0.1 degree apart: unit X at 0, report A at 1, unit Y at 3, report B at -1.5.
+        // Greedy sends X to A (the shortest pair) and Y all the way to B; the optimum sends Y to A and X to B.
+        List<Long> reports = new ArrayList<>(scenario(10.0));
+        BatchDispatchService.BatchResult exact = dispatch(10_000);
+        assertEquals("hungarian", exact.solver());
+        assertEquals(2, exact.assigned());
+
+        // A budget that is already spent when the solver starts
+        reports.addAll(scenario(20.0));
+        BatchDispatchService.BatchResult greedy = dispatch(0);
+        assertEquals("greedy", greedy.solver());
+        assertEquals(2, greedy.assigned());
+
+        assertTrue(exact.totalEtaMinutes() < greedy.totalEtaMinutes(),
+                exact.totalEtaMinutes() + " vs " + greedy.totalEtaMinutes());
+        for (long id : reports) {
+            assertEquals(AssignmentService.STATUS_ASSIGNED, emergencyReportService.getReport(id).getStatus());
+        }
+    }
+
+    private List<Long> scenario(double lng) {
+        responderService.save(diver(lng));
+        responderService.save(diver(lng + 0.3));
+        return List.of(report(lng + 0.1), report(lng - 0.15));
+    }
+
+    private BatchDispatchService.BatchResult dispatch(long solveBudgetMs) {
+        BatchDispatchService batch = new BatchDispatchService(emergencyReportRepository, assignmentService,
+                spatialIndex, reservationService, roleRules, clusterService, false, 500, 8, 400, solveBudgetMs, 1);
+        try {
+            return batch.dispatchPending();
+        } finally {
+            batch.shutdown();
+        }
+    }
+
+    private static Responder diver(double lng) {
+        Responder r = new Responder();
+        r.setName("Diver");
+        r.setRole("DIVER");
+        r.setCurrentLat(0.0);
+        r.setCurrentLng(lng);
+        r.setAvailability(true);
+        return r;
+    }
+
+    private long report(double lng) {
+        CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+        dto.type = "Flood";
+        dto.description = "batch test";
+        dto.locationLat = 0.0;
+        dto.locationLng = lng;
+        dto.reporterId = "batch-test";
+        return emergencyReportService.createReport(dto);
+    }
+}
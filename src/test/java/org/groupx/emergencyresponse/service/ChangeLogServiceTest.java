@@ -0,0 +1,192 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.dto.AssignmentDTO;
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.dto.ResponderDTO;
+import org.groupx.emergencyresponse.dto.SyncDTO;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.event.AssignmentCreatedEvent;
+import org.groupx.emergencyresponse.event.EtaUpdatedEvent;
+import org.groupx.emergencyresponse.event.ReportCreatedEvent;
+import org.groupx.emergencyresponse.event.ReportsArchivedEvent;
+import org.groupx.emergencyresponse.event.ResponderAvailabilityChangedEvent;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Most tests drive their own change log through its listeners, so limits can be small and nothing else
+// writes to it; the last one uses the application's log
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:change-log-test;DB_CLOSE_DELAY=-1",
+        "dispatch.queue.enabled=false"})
+class ChangeLogServiceTest {
+    @Autowired
+    private EmergencyReportRepository reportRepository;
+    @Autowired
+    private ReportArchiveService archive;
+    @Autowired
+    private ResponderService responderService;
+    @Autowired
+    private EmergencyReportService emergencyReportService;
+    @Autowired
+    private ResponderImportService importService;
+    @Autowired
+    private ChangeLogService changeLog;
+
+    @Test
+    void eachEntityIsListedOnceWithItsLatestState() {
+        ChangeLogService log = log(1000, 600_000);
+        long start = log.changesSince(null, null, 10).version;
+        long report = report("alice");
+        log.onReportCreated(created(report, "alice"));
+        log.onAssignmentCreated(new AssignmentCreatedEvent(50, report, 7, "FIRE", 9, "alice", "Fire", 1.0, 36.0));
+        log.onEtaUpdated(new EtaUpdatedEvent(50, report, 7, "FIRE", 6, "alice", 1.0, 36.0));
+        log.onEtaUpdated(new EtaUpdatedEvent(50, report, 7, "FIRE", 4, "alice", 1.0, 36.0));
+        // Compaction: the report and the assignment, each at its latest version
+        assertEquals(2, log.size());
+
+        SyncDTO sync = log.changesSince(start, null, 10);
+        assertFalse(sync.reset);
+        assertFalse(sync.more);
+        assertEquals(List.of(report), sync.reports.stream().map(r -> r.id).toList());
+        assertEquals(1, sync.assignments.size());
+        assertEquals(4, sync.assignments.get(0).etaMinutes);
+        // Nothing new since the answer's version
+        SyncDTO again = log.changesSince(sync.version, null, 10);
+        assertFalse(again.reset);
+        assertTrue(again.reports.isEmpty() && again.assignments.isEmpty());
+    }
+
+    @Test
+    void aLimitedAnswerCarriesOnFromWhereItStopped() {
+        ChangeLogService log = log(1000, 600_000);
+        long since = log.changesSince(null, null, 10).version;
+        for (int i = 1; i <= 5; i++) assignment(log, i, "alice");
+
+        List<Long> seen = new ArrayList<>();
+        int calls = 0;
+        SyncDTO sync;
+        do {
+            sync = log.changesSince(since, null, 2);
+            assertFalse(sync.reset);
+            for (AssignmentDTO a : sync.assignments) seen.add(a.id);
+            since = sync.version;
+            calls++;
+        } while (sync.more);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), seen);
+        assertEquals(3, calls);
+        assertEquals(log.changesSince(null, null, 10).version, since);
+    }
+
+    @Test
+    void aReporterSeesItsOwnReportsAndAssignmentsAndEveryResponder() {
+        ChangeLogService log = log(1000, 600_000);
+        long since = log.changesSince(null, null, 10).version;
+        long alices = report("alice");
+        // Bob reported the same incident
+        long bobs = emergencyReportService.createDuplicate(dto("bob"), alices);
+        log.onReportCreated(created(alices, "alice"));
+        log.onReportCreated(created(bobs, "bob"));
+        assignment(log, 1, "alice");
+        assignment(log, 2, "bob");
+        Responder unit = responderService.save(responder("Unit"));
+        log.onResponderAvailabilityChanged(new ResponderAvailabilityChangedEvent(unit.getId(), "FIRE", true, null, null));
+
+        SyncDTO sync = log.changesSince(since, "alice", 10);
+        assertEquals(List.of(alices), sync.reports.stream().map(r -> r.id).toList());
+        assertEquals(List.of(1L), sync.assignments.stream().map(a -> a.id).toList());
+        assertEquals(List.of(unit.getId()), sync.responders.stream().map(r -> r.id).toList());
+        SyncDTO everything = log.changesSince(since, null, 10);
+        assertEquals(2, everything.reports.size());
+        assertEquals(alices, everything.reports.stream().filter(r -> r.id == bobs).findFirst().get().duplicateOf);
+        assertEquals(2, everything.assignments.size());
+        assertEquals(1, everything.responders.size());
+    }
+
+    @Test
+    void clientsBehindTheFloorMustReload() throws InterruptedException {
+        // Null, future and pre-start versions have no deltas
+        ChangeLogService log = log(3, 0);
+        long start = log.changesSince(null, null, 10).version;
+        assertTrue(log.changesSince(null, null, 10).reset);
+        assertTrue(log.changesSince(start + 1, null, 10).reset);
+        assertTrue(log.changesSince(start - 1, null, 10).reset);
+
+        // Trimming past max-entries raises the floor over the oldest entries
+        for (int i = 1; i <= 3; i++) assignment(log, i, "alice");
+        long afterThree = log.changesSince(start, null, 10).version;
+        assignment(log, 4, "alice");
+        assertEquals(3, log.size());
+        assertTrue(log.changesSince(start, null, 10).reset);
+        assertEquals(List.of(4L), log.changesSince(afterThree, null, 10).assignments.stream().map(a -> a.id).toList());
+
+        // Tombstones go out in the feed until their retention passes, then raise the floor too
+        long beforeArchive = log.changesSince(afterThree, null, 10).version;
+        log.onReportsArchived(new ReportsArchivedEvent(List.of(new ReportsArchivedEvent.Archived(90, "alice", 4L))));
+        SyncDTO sync = log.changesSince(beforeArchive, null, 10);
+        assertEquals(2, sync.deleted.size());
+        assertEquals(ChangeLogService.ASSIGNMENT, sync.deleted.get(1).kind);
+        Thread.sleep(5);
+        log.sweep();
+        assertTrue(log.changesSince(beforeArchive, null, 10).reset);
+        assertFalse(log.changesSince(sync.version, null, 10).reset);
+    }
+
+    @Test
+    void aRosterImportThatOnlyRenamesAUnitIsLogged() throws Exception {
+        Responder unit = responderService.save(responder("Before"));
+        long since = changeLog.changesSince(null, null, 10).version;
+        String csv = "id,name,role\n" + unit.getId() + ",After,FIRE\n";
+        assertEquals(1, importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))).updated);
+
+        List<ResponderDTO> changed = changeLog.changesSince(since, null, 100).responders;
+        assertEquals(List.of("After"), changed.stream().filter(r -> r.id.equals(unit.getId())).map(r -> r.name).toList());
+    }
+
+    private ChangeLogService log(int maxEntries, long tombstoneRetentionMs) {
+        return new ChangeLogService(reportRepository, archive, responderService, tombstoneRetentionMs, maxEntries);
+    }
+
+    private long report(String reporterId) {
+        return emergencyReportService.createReport(dto(reporterId));
+    }
+
+    private static CreateEmergencyReportDTO dto(String reporterId) {
+        CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+        dto.type = "Fire";
+        dto.description = "change log test";
+        dto.locationLat = 1.0;
+        dto.locationLng = 36.0;
+        dto.reporterId = reporterId;
+        return dto;
+    }
+
+    private static ReportCreatedEvent created(long reportId, String reporterId) {
+        return new ReportCreatedEvent(reportId, reporterId, "Fire", 1.0, 36.0, System.currentTimeMillis(), null);
+    }
+
+    // An assignment of a report that is never read back, so no report row is needed
+    private static void assignment(ChangeLogService log, long id, String reporterId) {
+        log.onEtaUpdated(new EtaUpdatedEvent(id, 1000 + id, 7, "FIRE", 5, reporterId, 1.0, 36.0));
+    }
+
+    private static Responder responder(String name) {
+        Responder r = new Responder();
+        r.setName(name);
+        r.setRole("FIRE");
+        r.setCurrentLat(1.0);
+        r.setCurrentLng(36.0);
+        r.setAvailability(true);
+        return r;
+    }
+}
@@ -0,0 +1,168 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.groupx.emergencyresponse.EmergencyResponseApplication;
+import org.groupx.emergencyresponse.dto.AssignmentDTO;
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.dto.EmergencyResponseDTO;
+import org.groupx.emergencyresponse.entity.Assignment;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two clustered nodes in one JVM sharing an in-memory database: responder moves on one node reach the
+// other's index, an assign request on either node is dispatched by the region's owner, and the
+// survivor takes over every region when the other node leaves
+class ClusterDispatchTest {
+    private static final int RESPONDERS = 60;
+    private static final int REPORTS = 40;
+
+    private final String database = "jdbc:h2:mem:cluster-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        for (ConfigurableApplicationContext node : nodes) {
+            if (node.isActive()) node.close();
+        }
+    }
+
+    @Test
+    void regionsAreDispatchedByTheirOwnerAndHandedOverOnLeave() {
+        ConfigurableApplicationContext a = startNode("node-a");
+        ConfigurableApplicationContext b = startNode("node-b");
+        ClusterService clusterA = a.getBean(ClusterService.class);
+        ClusterService clusterB = b.getBean(ClusterService.class);
+        await(() -> clusterA.members().size() == 2 && clusterB.members().size() == 2);
+
+        Random random = new Random(7);
+        ResponderService responders = a.getBean(ResponderService.class);
+        for (int i = 0; i < RESPONDERS; i++) {
+            Responder r = new Responder();
+            r.setName("Cluster " + i);
+            r.setRole("MEDIC");
+            r.setCurrentLat(-4.5 + random.nextDouble() * 5.0);
+            r.setCurrentLng(34.0 + random.nextDouble() * 7.0);
+            r.setAvailability(true);
+            responders.save(r);
+        }
+        ResponderSpatialIndex indexA = a.getBean(ResponderSpatialIndex.class);
+        ResponderSpatialIndex indexB = b.getBean(ResponderSpatialIndex.class);
+        await(() -> indexB.size() == indexA.size());
+
+        // A move received by A reaches B's index once A has written it
+        long moved = responders.listResponders(null, 1, null, null, null).items().get(0).id;
+        assertEquals(LocationIngestService.Result.ACCEPTED, responders.updateLocation(moved, -2.5, 37.5));
+        a.getBean(LocationIngestService.class).flush();
+        await(() -> indexB.liveState(moved).lat() == -2.5);
+
+        EmergencyReportService reports = a.getBean(EmergencyReportService.class);
+        List<Long> reportIds = new ArrayList<>();
+        int ownedByB = 0;
+        for (int i = 0; i < REPORTS; i++) {
+            CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+            dto.type = "Medical";
+            dto.description = "cluster";
+            dto.locationLat = -4.5 + random.nextDouble() * 5.0;
+            dto.locationLng = 34.0 + random.nextDouble() * 7.0;
+            dto.reporterId = "cluster-test";
+            reportIds.add(reports.createReport(dto));
+            if (!clusterA.owns(dto.locationLat, dto.locationLng)) ownedByB++;
+        }
+        assertTrue(ownedByB > 0 && ownedByB < REPORTS, "both nodes should own some of the reports");
+
+        // Every request goes to node A, through either assign endpoint; the ones in B's regions must be
+        // dispatched by B. An unsigned forwarding header from an outside caller is ignored.
+        RestClient client = RestClient.create("http://localhost:" + port(a));
+        for (int i = 0; i < reportIds.size(); i++) {
+            Long id = reportIds.get(i);
+            if (i % 2 == 0) {
+                AssignmentDTO dto = client.post().uri("/assign?emergencyId={id}", id)
+                        .header(ClusterService.FORWARDED_HEADER, "node-b").retrieve()
+                        .body(AssignmentDTO.class);
+                assertNotNull(dto);
+                assertEquals(id, dto.emergencyId);
+            } else {
+                EmergencyResponseDTO dto = client.post().uri("/alerts/{id}/assign", id).retrieve()
+                        .body(EmergencyResponseDTO.class);
+                assertNotNull(dto);
+                assertEquals(id, dto.reportId);
+            }
+        }
+        assertEquals(REPORTS - ownedByB, assigned(a));
+        assertEquals(ownedByB, assigned(b));
+
+        Set<Long> booked = new HashSet<>();
+        for (Assignment assignment : a.getBean(AssignmentRepository.class).findAll()) {
+            assertTrue(booked.add(assignment.getResponderId()), "responder " + assignment.getResponderId()
+                    + " was double-booked");
+        }
+
+        // Once B is gone, A owns every region
+        b.close();
+        await(() -> clusterA.members().size() == 1);
+        Random again = new Random(99);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(clusterA.owns(-4.5 + again.nextDouble() * 5.0, 34.0 + again.nextDouble() * 7.0));
+        }
+    }
+
+    private ConfigurableApplicationContext startNode(String nodeId) {
+        // Command-line arguments, so they take precedence over application.properties
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(EmergencyResponseApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + database,
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--spring.jpa.show-sql=false",
+                        "--cluster.enabled=true",
+                        "--cluster.node-id=" + nodeId,
+                        "--cluster.secret=cluster-test-secret",
+                        "--cluster.heartbeat-ms=200",
+                        "--cluster.node-timeout-ms=1000",
+                        "--cluster.responder-refresh-ms=200",
+                        "--dispatch.queue.enabled=false",
+                        "--intake.journal.enabled=false");
+        nodes.add(ctx);
+        return ctx;
+    }
+
+    private static int port(ConfigurableApplicationContext ctx) {
+        return Integer.parseInt(ctx.getEnvironment().getProperty("local.server.port"));
+    }
+
+    private static long assigned(ConfigurableApplicationContext ctx) {
+        Counter counter = ctx.getBean(MeterRegistry.class).find("dispatch.outcome")
+                .tag("outcome", "assigned").counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("condition not met within 10 s");
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.groupx.emergencyresponse.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.dto.DashboardSnapshotDTO;
+import org.groupx.emergencyresponse.entity.Assignment;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.geo.Geohash;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.groupx.emergencyresponse.repository.ResponderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The dashboard is kept from events; after every step of an incident's life its snapshot must agree with
+// the same aggregates queried from the database, seed data included. The test's reports are served by
+// roles of their own, so seeded units never take them. The dispatch queue is off so that only the test
+// assigns reports; every ping checks for a better unit.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dashboard-test;DB_CLOSE_DELAY=-1",
+        "dispatch.queue.enabled=false",
+        "dispatch.eta.graph-path=",
+        "dispatch.roles.by-type=Medical:PARAMEDIC,Fire:ENGINE",
+        "dispatch.tracking.reassign=true",
+        "dispatch.tracking.check-interval-ms=0",
+        "dashboard.region-precision=4"})
+class DashboardServiceTest {
+    private static final double LAT = -1.2921;
+    private static final double LNG = 36.8219;
+
+    @Autowired
+    private DashboardService dashboard;
+    @Autowired
+    private EmergencyReportService emergencyReportService;
+    @Autowired
+    private AssignmentService assignmentService;
+    @Autowired
+    private ResponderService responderService;
+    @Autowired
+    private LocationIngestService locationIngest;
+    @Autowired
+    private AssignmentTrackingService tracking;
+    @Autowired
+    private EmergencyReportRepository reportRepository;
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+    @Autowired
+    private ResponderRepository responderRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void theSnapshotAgreesWithTheDatabaseThroughAnIncidentsLife() throws IOException, InterruptedException {
+        Responder medic = responderService.save(responder("PARAMEDIC", LAT + 0.1, LNG));
+        Responder engine = responderService.save(responder("ENGINE", LAT + 0.05, LNG + 0.3));
+        assertMatchesDatabase();
+
+        long medical = report("Medical", LAT, LNG);
+        long fire = report("Fire", LAT, LNG + 0.3);
+        // Never assigned: stays waiting throughout
+        report("Medical", LAT - 0.2, LNG);
+        assertMatchesDatabase();
+
+        assignmentService.assignResponder(medical);
+        assignmentService.assignResponder(fire);
+        assertMatchesDatabase();
+
+        // The engine closes in and its ETA drops
+        responderService.updateLocation(engine.getId(), LAT + 0.02, LNG + 0.3);
+        assertMatchesDatabase();
+
+        // A medic much closer comes on duty; the next ping from the first medic hands the job over
+        Responder closer = responderService.save(responder("PARAMEDIC", LAT + 0.01, LNG));
+        assertMatchesDatabase();
+        responderService.updateLocation(medic.getId(), LAT + 0.1, LNG);
+        while (tracking.pendingChecks() > 0) Thread.sleep(20);
+        assertEquals(closer.getId(), assignmentService.getByEmergencyId(medical).responderId);
+        assertMatchesDatabase();
+
+        // Both jobs finish
+        responderService.setAvailability(closer.getId(), true);
+        assertMatchesDatabase();
+        responderService.setAvailability(engine.getId(), true);
+        assertMatchesDatabase();
+    }
+
+    private void assertMatchesDatabase() throws IOException {
+        // Pending positions and ETAs reach the database first
+        locationIngest.flush();
+        tracking.flush();
+        dashboard.refresh();
+        DashboardSnapshotDTO snapshot = objectMapper.readValue(dashboard.snapshot(), DashboardSnapshotDTO.class);
+
+        Map<String, int[]> incidents = new TreeMap<>();
+        for (EmergencyReport r : reportRepository.findAll()) {
+            int slot = switch (r.getStatus()) {
+                case AssignmentService.STATUS_NEW, AssignmentService.STATUS_DISPATCHING -> 0;
+                case AssignmentService.STATUS_ASSIGNED -> 1;
+                default -> -1;
+            };
+            if (slot < 0) continue;
+            incidents.computeIfAbsent(r.getType() + " " + region(r.getLocationLat(), r.getLocationLng()),
+                    k -> new int[2])[slot]++;
+        }
+        assertEquals(rows(incidents, c -> "waiting=" + c[0] + " assigned=" + c[1]),
+                rows(snapshot.openIncidents, i -> i.type + " " + i.region + " waiting=" + i.waiting
+                        + " assigned=" + i.assigned));
+
+        Map<String, List<Integer>> etas = new TreeMap<>();
+        for (Assignment a : assignmentRepository.findOpen()) {
+            String role = responderRepository.findById(a.getResponderId()).get().getRole();
+            etas.computeIfAbsent(role, k -> new ArrayList<>()).add(a.getEtaMinutes());
+        }
+        assertEquals(rows(etas, DashboardServiceTest::etaSummary),
+                rows(snapshot.etaByRole, e -> e.role + " n=" + e.assignments + " avg=" + e.avgMinutes
+                        + " p90=" + e.p90Minutes));
+
+        Map<String, int[]> available = new TreeMap<>();
+        for (Responder r : responderRepository.findAll()) {
+            if (!Boolean.TRUE.equals(r.getAvailability())) continue;
+            available.computeIfAbsent(region(r.getCurrentLat(), r.getCurrentLng()) + " " + r.getRole(),
+                    k -> new int[1])[0]++;
+        }
+        assertEquals(rows(available, c -> "available=" + c[0]),
+                rows(snapshot.availableResponders, a -> a.region + " " + a.role + " available=" + a.available));
+    }
+
+    private static String etaSummary(List<Integer> etas) {
+        List<Integer> sorted = etas.stream().sorted().toList();
+        double avg = Math.round(10.0 * sorted.stream().mapToInt(Integer::intValue).sum() / sorted.size()) / 10.0;
+        int p90 = sorted.get((int) Math.ceil(0.9 * sorted.size()) - 1);
+        return "n=" + sorted.size() + " avg=" + avg + " p90=" + p90;
+    }
+
+    private static <V> List<String> rows(Map<String, V> expected, Function<V, String> values) {
+        return expected.entrySet().stream().map(e -> e.getKey() + " " + values.apply(e.getValue())).sorted().toList();
+    }
+
+    private static <T> List<String> rows(List<T> actual, Function<T, String> format) {
+        return actual.stream().map(format).sorted().toList();
+    }
+
+    private static String region(Double lat, Double lng) {
+        return Geohash.encode(lat, lng, 4);
+    }
+
+    private long report(String type, double lat, double lng) {
+        CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+        dto.type = type;
+        dto.description = "dashboard test";
+        dto.locationLat = lat;
+        dto.locationLng = lng;
+        dto.reporterId = "dashboard-test";
+        return emergencyReportService.createReport(dto);
+    }
+
+    private static Responder responder(String role, double lat, double lng) {
+        Responder r = new Responder();
+        r.setName(role + " unit");
+        r.setRole(role);
+        r.setCurrentLat(lat);
+        r.setCurrentLng(lng);
+        r.setAvailability(true);
+        return r;
+    }
+}
@@ -0,0 +1,119 @@
+package org.groupx.emergencyresponse.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DispatchMatcherTest {
+    private static final double INF = Double.POSITIVE_INFINITY;
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    @Test
+    void hungarianFindsTheCheapestMatchingOfSmallMatrices() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 500; trial++) {
+            // Square and rectangular both ways, with some forbidden pairs
+            int rows = 1 + random.nextInt(6);
+            int columns = 1 + random.nextInt(6);
+            double[][] cost = new double[rows][columns];
+            for (double[] row : cost) {
+                for (int j = 0; j < columns; j++) row[j] = random.nextInt(5) == 0 ? INF : 1 + random.nextInt(60);
+            }
+            int[] match = DispatchMatcher.hungarian(cost, columns, NO_DEADLINE);
+            assertValid(cost, columns, match);
+            // As many reports as possible get a unit, and among those matchings the total is least
+            double[] best = bestByBruteForce(cost, columns, 0, new boolean[columns]);
+            assertEquals(best[0], matched(match), "matched, trial " + trial);
+            assertEquals(best[1], total(cost, match), 1e-9, "total cost, trial " + trial);
+        }
+    }
+
+    @Test
+    void extraRowsOrColumnsStayUnmatched() {
+        // Three reports, two units: pairing the first two reports (1 + 3) is cheaper than serving the third
+        double[][] moreReports = {
+                {1, 9},
+                {2, 3},
+                {INF, 4}};
+        assertArrayEquals(new int[]{0, 1, -1}, DispatchMatcher.hungarian(moreReports, 2, NO_DEADLINE));
+        // One report, three units
+        double[][] moreUnits = {{7, 2, 5}};
+        assertArrayEquals(new int[]{1}, DispatchMatcher.hungarian(moreUnits, 3, NO_DEADLINE));
+        // No candidates at all
+        assertArrayEquals(new int[]{-1, -1}, DispatchMatcher.hungarian(new double[][]{{}, {}}, 0, NO_DEADLINE));
+        assertArrayEquals(new int[]{-1}, DispatchMatcher.greedy(new double[][]{{INF, INF}}, 2));
+    }
+
+    @Test
+    void hungarianGivesUpOncePastItsDeadline() {
+        double[][] cost = {{1, 2}, {2, 1}};
+        assertNull(DispatchMatcher.hungarian(cost, 2, System.nanoTime() - 1));
+    }
+
+    @Test
+    void greedyTakesCheapestEdgesFirst() {
+        // Greedy grabs the 1 and is left with the 10; the optimum pays 2 + 1.5
+        double[][] cost = {
+                {1, 2},
+                {1.5, 10}};
+        assertArrayEquals(new int[]{0, 1}, DispatchMatcher.greedy(cost, 2));
+        assertArrayEquals(new int[]{1, 0}, DispatchMatcher.hungarian(cost, 2, NO_DEADLINE));
+
+        Random random = new Random(3);
+        for (int trial = 0; trial < 200; trial++) {
+            int rows = 1 + random.nextInt(8);
+            int columns = 1 + random.nextInt(8);
+            double[][] c = new double[rows][columns];
+            for (double[] row : c) {
+                for (int j = 0; j < columns; j++) row[j] = random.nextInt(4) == 0 ? INF : random.nextInt(100);
+            }
+            assertValid(c, columns, DispatchMatcher.greedy(c, columns));
+        }
+    }
+
+    // Every matched pair is allowed and no unit is used twice
+    private static void assertValid(double[][] cost, int columns, int[] match) {
+        assertEquals(cost.length, match.length);
+        boolean[] taken = new boolean[columns];
+        for (int i = 0; i < match.length; i++) {
+            int j = match[i];
+            if (j < 0) continue;
+            assertTrue(j < columns && Double.isFinite(cost[i][j]), "row " + i + " matched to a forbidden pair");
+            assertTrue(!taken[j], "column " + j + " matched twice");
+            taken[j] = true;
+        }
+    }
+
+    // {most rows matched, least total cost for that many} over every matching of rows from..end
+    private static double[] bestByBruteForce(double[][] cost, int columns, int row, boolean[] taken) {
+        if (row == cost.length) return new double[]{0, 0};
+        double[] best = bestByBruteForce(cost, columns, row + 1, taken);
+        for (int j = 0; j < columns; j++) {
+            if (taken[j] || !Double.isFinite(cost[row][j])) continue;
+            taken[j] = true;
+            double[] rest = bestByBruteForce(cost, columns, row + 1, taken);
+            taken[j] = false;
+            double count = rest[0] + 1;
+            double total = rest[1] + cost[row][j];
+            if (count > best[0] || (count == best[0] && total < best[1])) best = new double[]{count, total};
+        }
+        return best;
+    }
+
+    private static int matched(int[] match) {
+        int n = 0;
+        for (int j : match) if (j >= 0) n++;
+        return n;
+    }
+
+    private static double total(double[][] cost, int[] match) {
+        double sum = 0;
+        for (int i = 0; i < match.length; i++) if (match[i] >= 0) sum += cost[i][match[i]];
+        return sum;
+    }
+}
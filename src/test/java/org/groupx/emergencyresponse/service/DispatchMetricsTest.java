@@ -0,0 +1,113 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Metered reports are served only by the unit the test adds; the dispatch queue is off so that only the
+// test dispatches
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dispatch-metrics-test;DB_CLOSE_DELAY=-1",
+        "dispatch.queue.enabled=false",
+        "dispatch.eta.graph-path=",
+        "dispatch.roles.by-type=Metered:METER_READER"})
+class DispatchMetricsTest {
+    private static final String[] STAGES = {"assign", "report.lookup", "report.claim", "candidate.search", "eta",
+            "reserve", "assignment.save"};
+
+    @Autowired
+    private AssignmentService assignmentService;
+    @Autowired
+    private EmergencyReportService emergencyReportService;
+    @Autowired
+    private ResponderService responderService;
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void eachDispatchRecordsItsStagesAndOutcome() {
+        long report = report();
+
+        // Nobody to send: the search runs, but nothing is scored, reserved or saved
+        Map<String, Long> before = stageCounts();
+        assertNull(assignmentService.assignResponder(report));
+        assertEquals(Map.of("assign", 1L, "report.lookup", 1L, "report.claim", 1L, "candidate.search", 1L,
+                "eta", 0L, "reserve", 0L, "assignment.save", 0L), delta(before, stageCounts()));
+        assertEquals(1.0, outcome("no_responder"));
+
+        before = stageCounts();
+        responderService.save(responder());
+        assertNotNull(assignmentService.assignResponder(report));
+        for (long count : delta(before, stageCounts()).values()) assertEquals(1L, count);
+        assertEquals(1.0, outcome("assigned"));
+        assertTrue(registry.get("dispatch.candidates").summary().max() >= 1);
+
+        // Asking again returns the assignment without searching
+        before = stageCounts();
+        assertNotNull(assignmentService.assignResponder(report));
+        assertEquals(0L, delta(before, stageCounts()).get("candidate.search"));
+        assertEquals(1.0, outcome("already_assigned"));
+
+        assertNull(assignmentService.assignResponder(report + 1_000));
+        assertEquals(1.0, outcome("report_not_found"));
+    }
+
+    @Test
+    void disabledMetricsRegisterNothing() {
+        MeterRegistry own = new SimpleMeterRegistry();
+        DispatchMetrics metrics = new DispatchMetrics(own, false, false);
+        assertEquals(0L, metrics.start());
+        metrics.stop(DispatchMetrics.Stage.ASSIGN, 0);
+        metrics.outcome(DispatchMetrics.Outcome.ASSIGNED);
+        metrics.candidates(3);
+        assertTrue(own.getMeters().isEmpty());
+    }
+
+    private Map<String, Long> stageCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        for (String stage : STAGES) counts.put(stage, registry.get("dispatch.stage").tag("stage", stage).timer().count());
+        return counts;
+    }
+
+    private static Map<String, Long> delta(Map<String, Long> before, Map<String, Long> after) {
+        Map<String, Long> delta = new HashMap<>();
+        for (String stage : STAGES) delta.put(stage, after.get(stage) - before.get(stage));
+        return delta;
+    }
+
+    private double outcome(String outcome) {
+        return registry.get("dispatch.outcome").tag("outcome", outcome).counter().count();
+    }
+
+    private long report() {
+        CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+        dto.type = "Metered";
+        dto.description = "metrics test";
+        dto.locationLat = -1.2921;
+        dto.locationLng = 36.8219;
+        dto.reporterId = "metrics-test";
+        return emergencyReportService.createReport(dto);
+    }
+
+    private static Responder responder() {
+        Responder r = new Responder();
+        r.setName("Meter reader");
+        r.setRole("METER_READER");
+        r.setCurrentLat(-1.29);
+        r.setCurrentLng(36.82);
+        r.setAvailability(true);
+        return r;
+    }
+}
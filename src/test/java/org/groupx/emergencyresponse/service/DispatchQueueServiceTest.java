@@ -0,0 +1,197 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Floods may only be served by divers, Fires and Traffic accidents by engines, Crimes by constables and
+// Rescues by rescuers; there are none of these until a test adds one. A short retry delay would retry the parked reports
+// many times over if they were polled. Each test leaves every unit it adds assigned.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dispatch-queue-test;DB_CLOSE_DELAY=-1",
+        "dispatch.roles.by-type=Flood:DIVER,Fire:ENGINE,Traffic:ENGINE,Crime:CONSTABLE,Rescue:RESCUER",
+        "dispatch.queue.max-wait-ms=Fire:15000,Traffic:120000,Crime:60000",
+        "dispatch.queue.retry-delay-ms=20"})
+class DispatchQueueServiceTest {
+    @Autowired
+    private DispatchQueueService dispatchQueue;
+    @Autowired
+    private EmergencyReportService emergencyReportService;
+    @Autowired
+    private ResponderService responderService;
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+    @Autowired
+    private MeterRegistry registry;
+    @Autowired
+    private EmergencyReportRepository emergencyReportRepository;
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Test
+    void parkedReportsWaitForASuitableUnitInsteadOfPolling() throws InterruptedException {
+        long first = report(-1.2921, 36.8219);
+        long second = report(-1.2925, 36.8225);
+        // The second report may be parked behind the first without being tried at all
+        await(() -> noResponderCount() >= 1 && dispatchQueue.size() == 2);
+        Thread.sleep(100);
+        double tried = noResponderCount();
+
+        // Many retry delays later nothing has been tried again
+        Thread.sleep(500);
+        assertEquals(tried, noResponderCount());
+        assertEquals(2, dispatchQueue.size());
+        assertEquals(AssignmentService.STATUS_NEW, emergencyReportService.getReport(first).getStatus());
+
+        // A unit of another role coming on duty does not help either report
+        responderService.save(responder("MEDIC"));
+        Thread.sleep(200);
+        assertEquals(tried, noResponderCount());
+
+        // The first diver goes to the more urgent (earlier) report, the second diver to the other
+        Responder diver = responderService.save(responder("DIVER"));
+        await(() -> assignmentRepository.findByEmergencyId(first).isPresent());
+        assertEquals(diver.getId(), assignmentRepository.findByEmergencyId(first).get().getResponderId());
+        assertTrue(assignmentRepository.findByEmergencyId(second).isEmpty());
+        responderService.save(responder("DIVER"));
+        await(() -> dispatchQueue.size() == 0);
+        assertEquals(AssignmentService.STATUS_ASSIGNED, emergencyReportService.getReport(second).getStatus());
+    }
+
+    @Test
+    void aFireReportOvertakesAnEarlierTrafficReport() throws InterruptedException {
+        long traffic = report("Traffic", -1.2921, 36.8219);
+        await(() -> dispatchQueue.isParked(traffic));
+        // Reported later, but due within 15 s rather than 120 s
+        long fire = report("Fire", -1.2930, 36.8230);
+        await(() -> dispatchQueue.isParked(fire));
+
+        Responder engine = responderService.save(responder("ENGINE"));
+        await(() -> assignmentRepository.findByEmergencyId(fire).isPresent());
+        assertEquals(engine.getId(), assignmentRepository.findByEmergencyId(fire).get().getResponderId());
+        assertTrue(dispatchQueue.isParked(traffic));
+
+        responderService.save(responder("ENGINE"));
+        await(() -> assignmentRepository.findByEmergencyId(traffic).isPresent());
+    }
+
+    @Test
+    void aReportThatWaitedLongOvertakesAFreshSevereOne() throws InterruptedException {
+        // A Traffic report from 110 s ago is due in 10 s, a Fire reported now in 15 s
+        EmergencyReport aged = new EmergencyReport();
+        aged.setType("Traffic");
+        aged.setDescription("queue test");
+        aged.setLocationLat(-1.2921);
+        aged.setLocationLng(36.8219);
+        aged.setTimestamp(new Date(System.currentTimeMillis() - 110_000));
+        aged.setStatus(AssignmentService.STATUS_NEW);
+        aged.setReporterId("queue-test");
+        long traffic = emergencyReportRepository.save(aged).getId();
+        dispatchQueue.offer(traffic, "Traffic", aged.getTimestamp().getTime(), -1.2921, 36.8219);
+        await(() -> dispatchQueue.isParked(traffic));
+        long fire = report("Fire", -1.2930, 36.8230);
+        await(() -> dispatchQueue.isParked(fire));
+
+        Responder engine = responderService.save(responder("ENGINE"));
+        await(() -> assignmentRepository.findByEmergencyId(traffic).isPresent());
+        assertEquals(engine.getId(), assignmentRepository.findByEmergencyId(traffic).get().getResponderId());
+        assertTrue(dispatchQueue.isParked(fire));
+
+        responderService.save(responder("ENGINE"));
+        await(() -> assignmentRepository.findByEmergencyId(fire).isPresent());
+    }
+
+    @Test
+    void aParkedReportDoesNotHoldBackOtherRoles() throws InterruptedException {
+        long fire = report("Fire", -1.2921, 36.8219);
+        await(() -> dispatchQueue.isParked(fire));
+
+        // A Crime report is due later than the parked Fire, but a constable is free to take it
+        Responder constable = responderService.save(responder("CONSTABLE"));
+        long crime = report("Crime", -1.2930, 36.8230);
+        await(() -> assignmentRepository.findByEmergencyId(crime).isPresent());
+        assertEquals(constable.getId(), assignmentRepository.findByEmergencyId(crime).get().getResponderId());
+        assertTrue(dispatchQueue.isParked(fire));
+
+        responderService.save(responder("ENGINE"));
+        await(() -> assignmentRepository.findByEmergencyId(fire).isPresent());
+    }
+
+    @Test
+    void aReportGivenBackByAnotherPathIsQueuedAgain() throws Exception {
+        // Dispatchers press assign while the queue is trying the same reports; with no rescuer on duty
+        // every attempt gives its report back, whichever path had claimed it
+        List<Long> reports = new ArrayList<>();
+        try (ExecutorService dispatchers = Executors.newFixedThreadPool(4)) {
+            List<Future<?>> presses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                long report = report("Rescue", -1.2921 + i * 0.001, 36.8219);
+                reports.add(report);
+                for (int p = 0; p < 4; p++) presses.add(dispatchers.submit(() -> assignmentService.assignResponder(report)));
+            }
+            for (Future<?> press : presses) assertNull(press.get());
+        }
+
+        // None was lost: each waits in the queue for a unit
+        for (long report : reports) {
+            await(() -> dispatchQueue.isParked(report));
+            assertEquals(AssignmentService.STATUS_NEW, emergencyReportService.getReport(report).getStatus());
+        }
+        for (int i = 0; i < reports.size(); i++) responderService.save(responder("RESCUER"));
+        for (long report : reports) await(() -> assignmentRepository.findByEmergencyId(report).isPresent());
+    }
+
+    private long report(double lat, double lng) {
+        return report("Flood", lat, lng);
+    }
+
+    private long report(String type, double lat, double lng) {
+        CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+        dto.type = type;
+        dto.description = "queue test";
+        dto.locationLat = lat;
+        dto.locationLng = lng;
+        dto.reporterId = "queue-test";
+        return emergencyReportService.createReport(dto);
+    }
+
+    private static Responder responder(String role) {
+        Responder r = new Responder();
+        r.setName(role + " unit");
+        r.setRole(role);
+        r.setCurrentLat(-1.29);
+        r.setCurrentLng(36.82);
+        r.setAvailability(true);
+        return r;
+    }
+
+    private double noResponderCount() {
+        return registry.get("dispatch.outcome").tag("outcome", "no_responder").counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("condition not met within 10 s");
+            Thread.sleep(20);
+        }
+    }
+}
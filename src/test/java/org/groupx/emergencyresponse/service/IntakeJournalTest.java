@@ -0,0 +1,139 @@
+package org.groupx.emergencyresponse.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntakeJournalTest {
+    // Record header (length, crc) plus the sequence number
+    private static final int RECORD_OVERHEAD = 16;
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendedRecordsAreReplayedAfterReopen() throws IOException {
+        try (IntakeJournal journal = IntakeJournal.open(dir, SEGMENT_BYTES)) {
+            assertEquals(List.of(), journal.unapplied());
+            for (int i = 1; i <= 3; i++) assertEquals(i, journal.append(payload(i), s -> { }));
+        }
+        try (IntakeJournal journal = IntakeJournal.open(dir, SEGMENT_BYTES)) {
+            List<IntakeJournal.Record> replay = journal.unapplied();
+            assertEquals(List.of(1L, 2L, 3L), seqs(replay));
+            for (int i = 0; i < 3; i++) assertArrayEquals(payload(i + 1), replay.get(i).payload());
+            assertEquals(4, journal.nextSeq());
+        }
+    }
+
+    @Test
+    void replayStopsAtACorruptTailAndLaterAppendsFollowTheLastGoodRecord() throws IOException {
+        try (IntakeJournal journal = IntakeJournal.open(dir, SEGMENT_BYTES)) {
+            for (int i = 1; i <= 3; i++) journal.append(payload(i), s -> { });
+        }
+        // Flip a payload byte of the third record, as a write torn by a crash would leave it
+        int recordBytes = RECORD_OVERHEAD + payload(1).length;
+        Path segment = onlySegment();
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            long pos = 2L * recordBytes + RECORD_OVERHEAD;
+            ch.read(b, pos);
+            b.put(0, (byte) (b.get(0) ^ 0xFF)).rewind();
+            ch.write(b, pos);
+        }
+        try (IntakeJournal journal = IntakeJournal.open(dir, SEGMENT_BYTES)) {
+            assertEquals(List.of(1L, 2L), seqs(journal.unapplied()));
+            assertEquals(3, journal.append(payload(9), s -> { }));
+        }
+        try (IntakeJournal journal = IntakeJournal.open(dir, SEGMENT_BYTES)) {
+            List<IntakeJournal.Record> replay = journal.unapplied();
+            assertEquals(List.of(1L, 2L, 3L), seqs(replay));
+            assertArrayEquals(payload(9), replay.get(2).payload());
+        }
+    }
+
+    @Test
+    void checkpointedRecordsAreNotReplayedAndTheirSegmentsAreDropped() throws IOException {
+        int perSegment = SEGMENT_BYTES / (RECORD_OVERHEAD + payload(1).length);
+        int total = perSegment * 3;
+        try (IntakeJournal journal = IntakeJournal.open(dir, SEGMENT_BYTES)) {
+            for (int i = 1; i <= total; i++) journal.append(payload(i), s -> { });
+            assertEquals(3, segmentCount());
+            // Everything in the first two segments is applied
+            journal.checkpoint(2L * perSegment);
+            assertEquals(1, segmentCount());
+        }
+        try (IntakeJournal journal = IntakeJournal.open(dir, SEGMENT_BYTES)) {
+            List<IntakeJournal.Record> replay = journal.unapplied();
+            assertEquals(perSegment, replay.size());
+            assertEquals(2L * perSegment + 1, replay.get(0).seq());
+            assertEquals(total + 1, journal.nextSeq());
+            journal.checkpoint(total);
+        }
+        try (IntakeJournal journal = IntakeJournal.open(dir, SEGMENT_BYTES)) {
+            assertEquals(List.of(), journal.unapplied());
+            assertEquals(total + 1, journal.nextSeq());
+        }
+    }
+
+    @Test
+    void recordsRollOverIntoANewSegment() throws IOException {
+        int perSegment = SEGMENT_BYTES / (RECORD_OVERHEAD + payload(1).length);
+        try (IntakeJournal journal = IntakeJournal.open(dir, SEGMENT_BYTES)) {
+            for (int i = 1; i <= perSegment + 1; i++) journal.append(payload(i), s -> { });
+            assertEquals(2, segmentCount());
+            assertThrows(IllegalArgumentException.class,
+                    () -> journal.append(new byte[journal.maxPayloadBytes() + 1], s -> { }));
+        }
+        try (IntakeJournal journal = IntakeJournal.open(dir, SEGMENT_BYTES)) {
+            assertEquals(perSegment + 1, journal.unapplied().size());
+        }
+    }
+
+    @Test
+    void aSecondJournalOnTheSameDirectoryFailsFast() throws IOException {
+        try (IntakeJournal journal = IntakeJournal.open(dir, SEGMENT_BYTES)) {
+            assertThrows(IllegalStateException.class, () -> IntakeJournal.open(dir, SEGMENT_BYTES));
+        }
+        // Released on close
+        IntakeJournal.open(dir, SEGMENT_BYTES).close();
+    }
+
+    private static byte[] payload(int i) {
+        return String.format("report %04d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<Long> seqs(List<IntakeJournal.Record> records) {
+        return records.stream().map(IntakeJournal.Record::seq).toList();
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = files.filter(p -> p.getFileName().toString().endsWith(".log")).toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            long n = files.filter(p -> p.getFileName().toString().endsWith(".log")).count();
+            assertTrue(n > 0);
+            return n;
+        }
+    }
+}
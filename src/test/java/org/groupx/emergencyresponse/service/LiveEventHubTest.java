@@ -0,0 +1,67 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.groupx.emergencyresponse.event.DispatchEvent;
+import org.groupx.emergencyresponse.geo.Geohash;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LiveEventHubTest {
+    private record TestEvent(String kind, String reporterId, String role, Double lat, Double lng)
+            implements DispatchEvent {}
+
+    @Test
+    void eventsReachOnlyTheSubscribersWhoseFiltersMatch() throws InterruptedException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        LiveEventHub hub = new LiveEventHub(registry, 256, 60_000, 10_000);
+        String nairobi = Geohash.encode(-1.2921, 36.8219, 5);
+        hub.subscribe(null, null, null, null);
+        hub.subscribe(null, "medic", null, null);
+        hub.subscribe(null, null, nairobi, null);
+        hub.subscribe(null, "ENGINE", nairobi.substring(0, 3), null);
+        hub.subscribe("reporter-1", null, null, Set.of("report-created"));
+        hub.subscribe("reporter-1", null, nairobi, null);
+        assertEquals(6, hub.subscriberCount());
+
+        try {
+            // Everyone except the engines in Nairobi
+            hub.publish(new TestEvent("report-created", "reporter-1", "MEDIC", -1.2921, 36.8219));
+            awaitDelivered(registry, 5);
+            // The unfiltered, Nairobi and Nairobi engine subscribers; reporter streams want only their
+            // reporter's events
+            hub.publish(new TestEvent("responder-moved", null, "Engine", -1.2930, 36.8230));
+            awaitDelivered(registry, 8);
+            // Without a location an event never matches a region
+            hub.publish(new TestEvent("responder-moved", null, "ENGINE", null, null));
+            awaitDelivered(registry, 9);
+            // Elsewhere, for another reporter: only the unfiltered and medic subscribers
+            hub.publish(new TestEvent("report-created", "reporter-2", "MEDIC", 51.5074, -0.1278));
+            awaitDelivered(registry, 11);
+            Thread.sleep(100);
+            assertEquals(11, delivered(registry));
+        } finally {
+            hub.shutdown();
+        }
+    }
+
+    private static double delivered(MeterRegistry registry) {
+        return registry.get("events.delivered").counter().count();
+    }
+
+    private static void awaitDelivered(MeterRegistry registry, double count) throws InterruptedException {
+        await(() -> delivered(registry) >= count);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("condition not met within 10 s");
+            Thread.sleep(20);
+        }
+    }
+}
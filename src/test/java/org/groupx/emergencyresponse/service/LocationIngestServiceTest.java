@@ -0,0 +1,91 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.entity.Responder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LocationIngestServiceTest {
+    @Test
+    void unusablePositionsAreRefusedBeforeReachingTheIndex() {
+        ResponderSpatialIndex index = index();
+        LocationIngestService ingest = new LocationIngestService(null, index, event -> {}, 100, 10);
+
+        for (double[] fix : new double[][]{
+                {Double.NaN, 36.8}, {-1.29, Double.NaN}, {Double.POSITIVE_INFINITY, 36.8},
+                {90.5, 36.8}, {-1.29, -180.5}, {214.7, 214.7}}) {
+            assertEquals(LocationIngestService.Result.INVALID, ingest.offer(1, fix[0], fix[1]));
+        }
+        assertEquals(0, ingest.pendingCount());
+        assertEquals(-1.2921, index.liveState(1).lat());
+
+        // The edges of the range are real places
+        assertEquals(LocationIngestService.Result.ACCEPTED, ingest.offer(1, -90.0, 180.0));
+        assertEquals(-90.0, ingest.pendingFix(1).lat());
+        assertNull(ingest.pendingFix(2));
+        assertEquals(LocationIngestService.Result.UNKNOWN_RESPONDER, ingest.offer(2, 0.0, 0.0));
+    }
+
+    @Test
+    void aFixOlderThanTheLatestNeverMovesTheUnitBack() throws InterruptedException {
+        ResponderSpatialIndex index = index();
+        List<Object> moves = new CopyOnWriteArrayList<>();
+        LocationIngestService ingest = new LocationIngestService(null, index, moves::add, 100, 10);
+
+        assertEquals(LocationIngestService.Result.ACCEPTED, ingest.offer(1, -1.30, 36.80, 2_000));
+        assertEquals(LocationIngestService.Result.ACCEPTED, ingest.offer(1, -1.10, 36.90, 1_000));
+        assertEquals(2_000, ingest.pendingFix(1).timestamp());
+        assertEquals(-1.30, index.liveState(1).lat());
+        assertEquals(1, moves.size());
+
+        // Threads sending interleaved timestamps; each fix's latitude encodes its timestamp, so the index
+        // and the buffer must both end on the newest one
+        int threads = 8;
+        int perThread = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> senders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            senders.add(Thread.ofVirtual().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    long timestamp = 3_000 + (long) i * threads + first;
+                    ingest.offer(1, latitudeOf(timestamp), 36.8, timestamp);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread sender : senders) sender.join();
+
+        long last = 3_000 + (long) threads * perThread - 1;
+        assertEquals(last, ingest.pendingFix(1).timestamp());
+        assertEquals(latitudeOf(last), ingest.pendingFix(1).lat());
+        assertEquals(latitudeOf(last), index.liveState(1).lat());
+    }
+
+    private static double latitudeOf(long timestamp) {
+        return -2.0 + timestamp / 10_000.0;
+    }
+
+    private static ResponderSpatialIndex index() {
+        ResponderSpatialIndex index = new ResponderSpatialIndex(null, 0.05);
+        Responder r = new Responder();
+        r.setId(1L);
+        r.setRole("MEDIC");
+        r.setCurrentLat(-1.2921);
+        r.setCurrentLng(36.8219);
+        r.setAvailability(true);
+        index.upsert(r);
+        return index;
+    }
+}
@@ -0,0 +1,239 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.groupx.emergencyresponse.dto.EmergencyReportDTO;
+import org.groupx.emergencyresponse.entity.Assignment;
+import org.groupx.emergencyresponse.entity.EmergencyReport;
+import org.groupx.emergencyresponse.repository.AssignmentRepository;
+import org.groupx.emergencyresponse.repository.EmergencyReportRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Archive services are built by hand on a temporary directory; the application's own one stays disabled
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archive-test;DB_CLOSE_DELAY=-1",
+        "dispatch.queue.enabled=false"})
+class ReportArchiveServiceTest {
+    private static final LocalDate DAY_ONE = LocalDate.of(2024, 3, 1);
+    private static final LocalDate DAY_TWO = LocalDate.of(2024, 3, 2);
+
+    @TempDir
+    Path dir;
+
+    @Autowired
+    private EmergencyReportRepository reportRepository;
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+    @Autowired
+    private ApplicationEventPublisher events;
+    @Autowired
+    private EmergencyReportService reportService;
+
+    @Test
+    void aSegmentIsReadBackAfterReopening() throws IOException {
+        EmergencyReport first = report(11L, DAY_ONE, "alice", 1.5, 36.8);
+        EmergencyReport second = report(12L, DAY_ONE, "bob", null, null);
+        second.setDuplicateOf(11L);
+        Assignment assignment = assignment(7L, 11, 42);
+        ArchiveSegment.write(dir, DAY_ONE, List.of(first, second), Map.of(11L, assignment));
+
+        ArchiveSegment segment = ArchiveSegment.open(onlySegment());
+        assertEquals(DAY_ONE, segment.day());
+        assertEquals(2, segment.rows());
+        assertTrue(segment.coversReport(12) && !segment.coversReport(13));
+        assertTrue(segment.coversAssignment(7) && !segment.coversAssignment(8));
+        assertTrue(segment.mayContainReporter("alice") && segment.mayContainReporter("bob"));
+        assertFalse(segment.mayContainReporter("carol"));
+
+        ArchiveSegment.Rows rows = segment.read();
+        EmergencyReport read = rows.report(rows.indexOf(11));
+        assertEquals("Fire", read.getType());
+        assertEquals(1.5, read.getLocationLat());
+        assertEquals(first.getTimestamp(), read.getTimestamp());
+        assertEquals(AssignmentService.STATUS_RESOLVED, read.getStatus());
+        assertEquals(42L, rows.assignment(rows.indexOfAssignment(7)).getResponderId());
+        EmergencyReport duplicate = rows.report(rows.indexOf(12));
+        assertNull(duplicate.getLocationLat());
+        assertEquals(11L, duplicate.getDuplicateOf());
+        assertNull(rows.assignment(rows.indexOf(12)));
+        assertEquals(-1, rows.indexOf(13));
+    }
+
+    @Test
+    void aRunAfterACrashBetweenWriteAndDeleteFinishesTheJob() throws IOException {
+        EmergencyReport early = reportRepository.save(report(null, DAY_ONE, "alice", 1.5, 36.8));
+        EmergencyReport other = report(null, DAY_ONE, "bob", 1.6, 36.9);
+        other.setDuplicateOf(early.getId());
+        other = reportRepository.save(other);
+        EmergencyReport late = reportRepository.save(report(null, DAY_TWO, "alice", 1.7, 37.0));
+        EmergencyReport open = report(null, DAY_ONE, "alice", 1.8, 37.1);
+        open.setStatus(AssignmentService.STATUS_ASSIGNED);
+        open = reportRepository.save(open);
+        Assignment earlyJob = assignmentRepository.save(assignment(null, early.getId(), 5));
+        Assignment lateJob = assignmentRepository.save(assignment(null, late.getId(), 6));
+
+        assertEquals(early.getId(), reportRepository.findPageByReporterId("bob", 0, null, PageRequest.of(0, 10))
+                .get(0).duplicateOf);
+
+        // A previous run wrote the second day's segment and stopped before deleting its rows
+        ArchiveSegment.write(dir, DAY_TWO, List.of(late), Map.of(late.getId(), lateJob));
+        ReportArchiveService archive = service();
+        assertEquals(1, archive.segmentCount());
+        archive.archive();
+
+        // Only the first day is written; every resolved row is gone from the database
+        assertEquals(2, archive.segmentCount());
+        assertEquals(2, segmentFiles());
+        for (EmergencyReport r : List.of(early, other, late)) {
+            assertTrue(reportRepository.findById(r.getId()).isEmpty());
+        }
+        assertTrue(assignmentRepository.findByEmergencyIdIn(List.of(early.getId(), late.getId())).isEmpty());
+        assertTrue(reportRepository.findById(open.getId()).isPresent());
+
+        // A restarted node finds everything by report, assignment and reporter
+        ReportArchiveService reopened = service();
+        assertEquals(2, reopened.segmentCount());
+        assertEquals("bob", reopened.findReport(other.getId()).getReporterId());
+        assertNull(reopened.findReport(open.getId()));
+        assertEquals(early.getId(), reopened.findAssignment(earlyJob.getId()).getEmergencyId());
+        assertEquals(6L, reopened.findAssignmentByEmergencyId(late.getId()).getResponderId());
+        assertNull(reopened.findAssignmentByEmergencyId(other.getId()));
+
+        assertEquals(List.of(early.getId(), late.getId()), ids(reopened.findByReporter("alice", 0, null, 10)));
+        assertEquals(List.of(late.getId()), ids(reopened.findByReporter("alice", early.getId(), null, 10)));
+        assertEquals(List.of(early.getId()), ids(reopened.findByReporter("alice", 0, null, 1)));
+        assertEquals(List.of(), reopened.findByReporter("alice", 0, AssignmentService.STATUS_NEW, 10));
+        assertEquals(List.of(), reopened.findByReporter("carol", 0, null, 10));
+        assertEquals(early.getId(), reopened.findByReporter("bob", 0, null, 10).get(0).duplicateOf);
+        assertNull(reopened.findByReporter("alice", 0, null, 10).get(0).duplicateOf);
+    }
+
+    @Test
+    void laterRunsMergeIntoTheDaysSegment() throws IOException {
+        LocalDate day = LocalDate.of(2024, 4, 1);
+        EmergencyReport first = reportRepository.save(report(null, day, "dave", 1.5, 36.8));
+        ReportArchiveService archive = service();
+        archive.archive();
+        int before = archive.segmentCount();
+
+        // Resolved later, archived by the next run into the same day
+        EmergencyReport second = reportRepository.save(report(null, day, "dave", 1.6, 36.9));
+        Assignment secondJob = assignmentRepository.save(assignment(null, second.getId(), 8));
+        archive.archive();
+        assertEquals(before, archive.segmentCount());
+        assertEquals(List.of(first.getId(), second.getId()), ids(archive.findByReporter("dave", 0, null, 10)));
+        assertEquals(8L, archive.findAssignment(secondJob.getId()).getResponderId());
+
+        // The replaced file goes with the next run
+        archive.archive();
+        assertEquals(before, segmentFiles());
+        assertEquals(2, ArchiveSegment.open(segmentOf(day)).rows());
+    }
+
+    @Test
+    void severalSegmentsOfADayAreMergedOnStartup() throws IOException {
+        ArchiveSegment.write(dir, DAY_ONE, List.of(report(21L, DAY_ONE, "erin", 1.5, 36.8)), Map.of());
+        ArchiveSegment.write(dir, DAY_ONE, List.of(report(22L, DAY_ONE, "erin", 1.6, 36.9),
+                report(23L, DAY_ONE, "erin", 1.7, 37.0)), Map.of(23L, assignment(9L, 23, 42)));
+
+        ReportArchiveService archive = service();
+        assertEquals(1, archive.segmentCount());
+        assertEquals(3, ArchiveSegment.open(onlySegment()).rows());
+        assertEquals(List.of(21L, 22L, 23L), ids(archive.findByReporter("erin", 0, null, 10)));
+        assertEquals(23L, archive.findAssignment(9).getEmergencyId());
+    }
+
+    @Test
+    void archivedReportsAreFoundByTheirIntakeId() throws IOException {
+        EmergencyReport journaled = report(31L, DAY_TWO, "frank", 1.5, 36.8);
+        journaled.setIntakeSeq(7L);
+        ArchiveSegment.write(dir, DAY_TWO, List.of(journaled, report(32L, DAY_TWO, "frank", 1.6, 36.9)), Map.of());
+        ReportArchiveService archive = service();
+        assertEquals(31L, archive.findReportByIntakeSeq(7).getId());
+        assertNull(archive.findReportByIntakeSeq(8));
+
+        // The intake status lookup falls back to the archive once the row has left the database
+        ReportIntakeService intake = new ReportIntakeService(reportService, reportRepository, archive,
+                new SimpleMeterRegistry(), true, dir.resolve("intake").toString(), 1 << 16, 10, 100);
+        try {
+            assertEquals(31L, intake.findStored(7).getId());
+        } finally {
+            intake.shutdown();
+        }
+    }
+
+    private ReportArchiveService service() throws IOException {
+        return new ReportArchiveService(reportRepository, assignmentRepository, events, new SimpleMeterRegistry(),
+                true, dir.toString(), 0, 100, 4);
+    }
+
+    private static EmergencyReport report(Long id, LocalDate day, String reporterId, Double lat, Double lng) {
+        EmergencyReport r = new EmergencyReport();
+        r.setId(id);
+        r.setType("Fire");
+        r.setDescription("archive test");
+        r.setLocationLat(lat);
+        r.setLocationLng(lng);
+        r.setTimestamp(Date.from(day.atTime(12, 0).toInstant(ZoneOffset.UTC)));
+        r.setStatus(AssignmentService.STATUS_RESOLVED);
+        r.setReporterId(reporterId);
+        return r;
+    }
+
+    private static Assignment assignment(Long id, long emergencyId, long responderId) {
+        Assignment a = new Assignment();
+        a.setId(id);
+        a.setEmergencyId(emergencyId);
+        a.setResponderId(responderId);
+        a.setEtaMinutes(4);
+        a.setAssignmentTime(new Date());
+        a.setSyncStatus("SYNCED");
+        return a;
+    }
+
+    private static List<Long> ids(List<EmergencyReportDTO> reports) {
+        return reports.stream().map(dto -> dto.id).toList();
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = files.filter(ArchiveSegment::isSegmentFile).toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    private Path segmentOf(LocalDate day) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = files.filter(ArchiveSegment::isSegmentFile)
+                    .filter(p -> p.getFileName().toString().contains(day.toString())).toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(ArchiveSegment::isSegmentFile).count();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.groupx.emergencyresponse.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.groupx.emergencyresponse.dto.CreateEmergencyReportDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportDedupServiceTest {
+    // About 100 m north of the first report
+    private static final double LAT = -1.2921;
+    private static final double LNG = 36.8219;
+    private static final double NEAR_LAT = LAT + 0.0009;
+
+    // Hands out ids 1, 2, ... and remembers what each stored report pointed to
+    private final List<Long> duplicateOfs = new ArrayList<>();
+    private final ReportDedupService.Store store = (dto, duplicateOf) -> {
+        duplicateOfs.add(duplicateOf);
+        return duplicateOfs.size();
+    };
+    // Ids of incidents whose first report has been resolved
+    private final Set<Long> resolved = new HashSet<>();
+    private final ReportDedupService.OpenCheck open = id -> !resolved.contains(id);
+
+    @Test
+    void aRepeatedIdempotencyKeyGetsTheFirstAnswerWithoutStoring() {
+        ReportDedupService dedup = service(false, 600_000);
+        ReportDedupService.Admission first = dedup.admit("key-1", report("abc", "Fire", LAT, LNG), store, open);
+        ReportDedupService.Admission retry = dedup.admit("key-1", report("abc", "Fire", LAT, LNG), store, open);
+        assertEquals(first, retry);
+        assertEquals(1, duplicateOfs.size());
+        // Keys are per reporter
+        assertEquals(2, dedup.admit("key-1", report("xyz", "Fire", LAT, LNG), store, open).id());
+    }
+
+    @Test
+    void aNearbyReportOfTheSameTypeIsStoredAsADuplicate() {
+        ReportDedupService dedup = service(true, 600_000);
+        ReportDedupService.Admission first = dedup.admit(null, report("abc", "Fire", LAT, LNG), store, open);
+        ReportDedupService.Admission second = dedup.admit(null, report("xyz", "fire", NEAR_LAT, LNG), store, open);
+        assertFalse(first.duplicate());
+        assertTrue(second.duplicate());
+        assertEquals(2, second.id());
+        assertEquals(first.id(), second.duplicateOf());
+        // Both reports are stored; only the second points at the first
+        assertEquals(Arrays.asList(null, 1L), duplicateOfs);
+    }
+
+    @Test
+    void reportsOfAnotherTypeOrFurtherAwayAreNotMerged() {
+        ReportDedupService dedup = service(true, 600_000);
+        dedup.admit(null, report("abc", "Fire", LAT, LNG), store, open);
+        assertFalse(dedup.admit(null, report("def", "Medical", NEAR_LAT, LNG), store, open).duplicate());
+        // About 330 m away, beyond the 150 m radius
+        assertFalse(dedup.admit(null, report("ghi", "Fire", LAT + 0.003, LNG), store, open).duplicate());
+        assertEquals(Arrays.asList(null, null, null), duplicateOfs);
+        assertEquals(3, dedup.incidentCount());
+    }
+
+    @Test
+    void nothingIsMergedWhileNearbyDedupIsOff() {
+        ReportDedupService dedup = service(false, 600_000);
+        dedup.admit(null, report("abc", "Fire", LAT, LNG), store, open);
+        assertFalse(dedup.admit(null, report("xyz", "Fire", LAT, LNG), store, open).duplicate());
+    }
+
+    @Test
+    void theWindowRunsFromTheFirstReportAndIsNotExtendedByDuplicates() throws InterruptedException {
+        ReportDedupService dedup = service(true, 300);
+        dedup.admit(null, report("abc", "Fire", LAT, LNG), store, open);
+        Thread.sleep(200);
+        assertTrue(dedup.admit(null, report("def", "Fire", NEAR_LAT, LNG), store, open).duplicate());
+        Thread.sleep(200);
+        // 400 ms after the first report: a new incident, although the duplicate was only 200 ms ago
+        ReportDedupService.Admission later = dedup.admit(null, report("ghi", "Fire", NEAR_LAT, LNG), store, open);
+        assertFalse(later.duplicate());
+        assertNull(later.duplicateOf());
+        Thread.sleep(400);
+        dedup.sweep();
+        assertEquals(0, dedup.incidentCount());
+    }
+
+    @Test
+    void aReportAfterTheIncidentIsResolvedStartsANewOne() {
+        ReportDedupService dedup = service(true, 600_000);
+        ReportDedupService.Admission first = dedup.admit(null, report("abc", "Fire", LAT, LNG), store, open);
+        resolved.add(first.id());
+
+        // Within the window and radius, but nothing would dispatch or resolve a duplicate of a closed incident
+        ReportDedupService.Admission later = dedup.admit(null, report("xyz", "Fire", NEAR_LAT, LNG), store, open);
+        assertFalse(later.duplicate());
+        assertEquals(Arrays.asList(null, null), duplicateOfs);
+        assertEquals(1, dedup.incidentCount());
+        // The new incident collects the next nearby report
+        assertEquals(later.id(), dedup.admit(null, report("def", "Fire", LAT, LNG), store, open).duplicateOf());
+    }
+
+    private static ReportDedupService service(boolean nearby, long windowMs) {
+        return new ReportDedupService(new SimpleMeterRegistry(), nearby, 150, windowMs, 86_400_000, 1000);
+    }
+
+    private static CreateEmergencyReportDTO report(String reporterId, String type, double lat, double lng) {
+        CreateEmergencyReportDTO dto = new CreateEmergencyReportDTO();
+        dto.reporterId = reporterId;
+        dto.type = type;
+        dto.locationLat = lat;
+        dto.locationLng = lng;
+        dto.description = "test";
+        return dto;
+    }
+}
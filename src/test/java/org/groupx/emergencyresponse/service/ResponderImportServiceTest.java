@@ -0,0 +1,64 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.entity.Responder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Small batches so the roster below spans several flushes
+@SpringBootTest(properties = {"dispatch.queue.enabled=false", "responders.import.batch-size=7"})
+class ResponderImportServiceTest {
+    @Autowired
+    private ResponderImportService importService;
+    @Autowired
+    private ResponderService responderService;
+    @Autowired
+    private ResponderSpatialIndex spatialIndex;
+
+    @Test
+    void importInsertsUpdatesAndRejectsRows() throws Exception {
+        StringBuilder csv = new StringBuilder("name,role,currentLat,currentLng\n");
+        for (int i = 0; i < 60; i++) {
+            csv.append("\"Import, ").append(i).append("\",fire,").append(-1.3 + i * 0.001).append(",36.8\n");
+        }
+        csv.append("No Role,,-1.3,36.8\n");
+        csv.append("Half Fix,MEDIC,-1.3,\n");
+        ResponderImportService.Result inserted = importService.importCsv(stream(csv.toString()));
+        assertEquals(60, inserted.inserted);
+        assertEquals(2, inserted.rejected);
+        assertEquals(List.of("line 62: name and role are required",
+                "line 63: give both currentLat and currentLng, or neither"), inserted.errors);
+
+        // Imported units are searchable straight away, with ids that do not clash with JPA-saved ones
+        List<ResponderSpatialIndex.Nearby> nearest = spatialIndex.kNearest("FIRE", -1.3, 36.8, 1);
+        long id = nearest.get(0).responderId();
+        Responder saved = new Responder();
+        saved.setName("Saved");
+        saved.setRole("MEDIC");
+        assertTrue(responderService.save(saved).getId() > 0);
+        assertEquals("Import, 0", responderService.getResponder(id).getName());
+
+        String ndjson = "{\"id\":" + id + ",\"name\":\"Renamed\",\"role\":\"FIRE\",\"availability\":false}\n" +
+                "{\"id\":999999,\"name\":\"Ghost\",\"role\":\"FIRE\"}\n";
+        ResponderImportService.Result updated = importService.importNdjson(stream(ndjson));
+        assertEquals(1, updated.updated);
+        assertEquals(1, updated.rejected);
+        Responder r = responderService.getResponder(id);
+        assertEquals("Renamed", r.getName());
+        assertEquals(-1.3, r.getCurrentLat(), 1e-9); // position kept when the row leaves it out
+        assertFalse(r.getAvailability());
+        assertFalse(spatialIndex.liveState(id).available());
+    }
+
+    private static ByteArrayInputStream stream(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,212 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.entity.Responder;
+import org.groupx.emergencyresponse.geo.GeoUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponderSpatialIndexTest {
+    private static final List<String> ROLES = List.of("FIRE", "MEDIC", "POLICE");
+
+    @Test
+    void kNearestMatchesABruteForceSearch() {
+        Random random = new Random(7);
+        // Dense enough around the query points that the ring walk, not the flat scan, answers most searches;
+        // one city on the equator, one far north where a degree of longitude is much shorter
+        for (double baseLat : new double[]{-1.30, 60.10}) {
+            ResponderSpatialIndex index = new ResponderSpatialIndex(null, 0.01);
+            List<Responder> fleet = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                Responder r = responder(i + 1, ROLES.get(random.nextInt(ROLES.size())),
+                        baseLat + random.nextDouble() * 0.4, 36.70 + random.nextDouble() * 0.4, random.nextInt(4) > 0);
+                fleet.add(r);
+                index.upsert(r);
+            }
+            for (int q = 0; q < 200; q++) {
+                double lat = baseLat + random.nextDouble() * 0.4;
+                double lng = 36.70 + random.nextDouble() * 0.4;
+                int k = 1 + random.nextInt(20);
+                List<String> roles = switch (q % 3) {
+                    case 0 -> null;
+                    case 1 -> List.of("MEDIC");
+                    default -> List.of("POLICE", "MEDIC");
+                };
+                assertEquals(bruteForce(fleet, roles, lat, lng, k), ids(index.kNearest(roles, lat, lng, k)));
+            }
+        }
+    }
+
+    @Test
+    void resultsAreFilteredByRole() {
+        ResponderSpatialIndex index = new ResponderSpatialIndex(null, 0.05);
+        index.upsert(responder(1, "FIRE", -1.2921, 36.8219, true));
+        index.upsert(responder(2, "MEDIC", -1.2930, 36.8220, true));
+        index.upsert(responder(3, "POLICE", -1.3000, 36.8300, true));
+        // No role on record: only found when any role will do
+        index.upsert(responder(4, null, -1.2921, 36.8219, true));
+
+        assertEquals(List.of(1L), ids(index.kNearest("FIRE", -1.2921, 36.8219, 5)));
+        assertEquals(List.of(2L, 3L), ids(index.kNearest(List.of("POLICE", "MEDIC"), -1.2921, 36.8219, 5)));
+        assertEquals(List.of(), index.kNearest("DIVER", -1.2921, 36.8219, 5));
+        assertEquals(4, index.kNearest((String) null, -1.2921, 36.8219, 5).size());
+        assertEquals(2, index.searchableCount(List.of("POLICE", "MEDIC", "DIVER")));
+        assertEquals(4, index.searchableCount(null));
+    }
+
+    @Test
+    void onlyAvailableLocatedRespondersAreFound() {
+        ResponderSpatialIndex index = new ResponderSpatialIndex(null, 0.05);
+        index.upsert(responder(1, "MEDIC", -1.2921, 36.8219, true));
+        index.upsert(responder(2, "MEDIC", -1.2950, 36.8250, false));
+        // On duty but with no position yet
+        index.upsert(responder(3, "MEDIC", null, null, true));
+        assertEquals(List.of(1L), ids(index.kNearest("MEDIC", -1.2921, 36.8219, 5)));
+
+        index.setAvailability(1, false);
+        index.setAvailability(2, true);
+        assertEquals(List.of(2L), ids(index.kNearest("MEDIC", -1.2921, 36.8219, 5)));
+        assertFalse(index.liveState(1).available());
+
+        // The first ping makes the unlocated unit searchable
+        assertTrue(index.move(3, -1.2922, 36.8219));
+        assertEquals(List.of(3L, 2L), ids(index.kNearest("MEDIC", -1.2921, 36.8219, 5)));
+        assertEquals(2, index.searchableCount(List.of("MEDIC")));
+
+        index.remove(2L);
+        assertEquals(List.of(3L), ids(index.kNearest("MEDIC", -1.2921, 36.8219, 5)));
+        assertNull(index.liveState(2));
+        assertFalse(index.move(2, -1.2921, 36.8219));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void anUpsertMovesAUnitBetweenCellsAndRoles() {
+        ResponderSpatialIndex index = new ResponderSpatialIndex(null, 0.05);
+        index.upsert(responder(1, "FIRE", -1.2921, 36.8219, true));
+        index.upsert(responder(2, "FIRE", -1.5000, 37.0000, true));
+        assertEquals(List.of(1L), ids(index.kNearest("FIRE", -1.2921, 36.8219, 1)));
+
+        // Responder 1 is re-saved several cells away, now as a medic
+        index.upsert(responder(1, "MEDIC", -1.9000, 37.5000, true));
+        assertEquals(List.of(2L), ids(index.kNearest("FIRE", -1.2921, 36.8219, 5)));
+        assertEquals(List.of(1L), ids(index.kNearest("MEDIC", -1.9000, 37.5000, 5)));
+        assertEquals("MEDIC", index.roleOf(1));
+
+        // A ping into the old cell moves it back
+        index.move(1, -1.2921, 36.8219);
+        assertEquals(List.of(1L, 2L), ids(index.kNearest((String) null, -1.2921, 36.8219, 5)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void emptyAndSparseIndexes() {
+        ResponderSpatialIndex index = new ResponderSpatialIndex(null, 0.05);
+        assertEquals(List.of(), index.kNearest((String) null, 0, 0, 3));
+        assertEquals(0, index.searchableCount(null));
+
+        // A few units far apart, one just across the antimeridian from the query
+        index.upsert(responder(1, "FIRE", 10.0, -179.99, true));
+        index.upsert(responder(2, "FIRE", -45.0, 170.0, true));
+        index.upsert(responder(3, "FIRE", 51.5, -0.12, true));
+        assertEquals(List.of(1L, 2L, 3L), ids(index.kNearest("FIRE", 10.0, 179.99, 5)));
+        assertEquals(List.of(3L), ids(index.kNearest("FIRE", 48.85, 2.35, 1)));
+        assertEquals(List.of(), index.kNearest("FIRE", 0, 0, 0));
+    }
+
+    @Test
+    void searchesStayConsistentWhileUnitsMoveAndFlip() throws Exception {
+        ResponderSpatialIndex index = new ResponderSpatialIndex(null, 0.01);
+        int fleet = 2000;
+        Random seed = new Random(11);
+        for (int i = 0; i < fleet; i++) {
+            index.upsert(responder(i + 1, ROLES.get(i % ROLES.size()),
+                    -1.30 + seed.nextDouble() * 0.3, 36.70 + seed.nextDouble() * 0.3, true));
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            int offset = t;
+            writers.add(pool.submit(() -> {
+                Random random = new Random(offset);
+                while (running.get()) {
+                    long id = 1 + random.nextInt(fleet);
+                    // Units 1..1000 stay on duty, so every search below has enough candidates
+                    if (id > 1000 && random.nextInt(4) == 0) {
+                        index.setAvailability(id, random.nextBoolean());
+                    } else {
+                        index.move(id, -1.30 + random.nextDouble() * 0.3, 36.70 + random.nextDouble() * 0.3);
+                    }
+                }
+            }));
+        }
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            int offset = t;
+            readers.add(pool.submit(() -> {
+                Random random = new Random(100 + offset);
+                for (int q = 0; q < 3000; q++) {
+                    double lat = -1.30 + random.nextDouble() * 0.3;
+                    double lng = 36.70 + random.nextDouble() * 0.3;
+                    List<ResponderSpatialIndex.Nearby> near = index.kNearest(List.of("MEDIC", "POLICE"), lat, lng, 10);
+                    assertEquals(10, near.size());
+                    assertEquals(10, near.stream().map(ResponderSpatialIndex.Nearby::responderId).distinct().count());
+                    for (int i = 0; i < near.size(); i++) {
+                        ResponderSpatialIndex.Nearby n = near.get(i);
+                        assertTrue(n.role().equals("MEDIC") || n.role().equals("POLICE"));
+                        if (i > 0) assertTrue(near.get(i - 1).distanceKm() <= n.distanceKm());
+                    }
+                }
+            }));
+        }
+        for (Future<?> reader : readers) reader.get(60, TimeUnit.SECONDS);
+        running.set(false);
+        for (Future<?> writer : writers) writer.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        // Once writers stop, the counters agree with what a search finds
+        int searchable = index.kNearest((String) null, -1.15, 36.85, fleet).size();
+        assertEquals(searchable, index.searchableCount(null));
+        assertEquals(searchable, index.searchableCount(ROLES));
+        assertEquals(fleet, index.size());
+    }
+
+    private static List<Long> bruteForce(List<Responder> fleet, List<String> roles, double lat, double lng, int k) {
+        return fleet.stream()
+                .filter(r -> r.getAvailability() && (roles == null || roles.contains(r.getRole())))
+                .sorted(Comparator.comparingDouble(
+                        r -> GeoUtils.haversineKm(lat, lng, r.getCurrentLat(), r.getCurrentLng())))
+                .limit(k)
+                .map(Responder::getId)
+                .toList();
+    }
+
+    private static List<Long> ids(List<ResponderSpatialIndex.Nearby> nearby) {
+        return nearby.stream().map(ResponderSpatialIndex.Nearby::responderId).toList();
+    }
+
+    private static Responder responder(long id, String role, Double lat, Double lng, boolean available) {
+        Responder r = new Responder();
+        r.setId(id);
+        r.setName("Unit " + id);
+        r.setRole(role);
+        r.setCurrentLat(lat);
+        r.setCurrentLng(lng);
+        r.setAvailability(available);
+        return r;
+    }
+}
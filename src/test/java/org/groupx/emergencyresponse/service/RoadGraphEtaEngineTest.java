@@ -0,0 +1,163 @@
+package org.groupx.emergencyresponse.service;
+
+import org.groupx.emergencyresponse.geo.GeoUtils;
+import org.groupx.emergencyresponse.geo.RoadGraph;
+import org.groupx.emergencyresponse.geo.RoadGraphBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoadGraphEtaEngineTest {
+    private static final int SIDE = 12;
+    private static final double SPACING_DEG = 0.005;
+    // Stands in for great-circle estimates so a fallback is recognisable
+    private static final double FALLBACK = -1;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void aStarAgreesWithDijkstraAndManyToOneAgreesWithOneToOne() throws IOException {
+        // A street grid with random lengths, speeds and one-way streets, and one node with no roads
+        Random random = new Random(5);
+        int nodes = SIDE * SIDE + 1;
+        RoadGraphBuilder builder = new RoadGraphBuilder();
+        for (int n = 0; n < SIDE * SIDE; n++) {
+            builder.addNode(n, -1.30 + (n / SIDE) * SPACING_DEG, 36.80 + (n % SIDE) * SPACING_DEG);
+        }
+        builder.addNode(SIDE * SIDE, -1.20, 36.80);
+        int[][] timeMs = new int[nodes][nodes];
+        for (int[] row : timeMs) Arrays.fill(row, -1);
+        for (int n = 0; n < SIDE * SIDE; n++) {
+            if (n % SIDE < SIDE - 1) road(builder, timeMs, random, n, n + 1);
+            if (n / SIDE < SIDE - 1) road(builder, timeMs, random, n, n + SIDE);
+        }
+        Path file = dir.resolve("grid.graph");
+        builder.write(file);
+        RoadGraph graph = RoadGraph.load(file);
+        RoadGraphEtaEngine engine = new RoadGraphEtaEngine(graph, (a, b, c, d) -> FALLBACK, 0.2, 20, 2);
+
+        double[] lats = new double[nodes];
+        double[] lngs = new double[nodes];
+        for (int n = 0; n < nodes; n++) {
+            lats[n] = graph.lat(n);
+            lngs[n] = graph.lng(n);
+        }
+        for (int target = 0; target < nodes; target += 7) {
+            long[] expected = dijkstraTo(timeMs, target);
+            // One reverse search for every origin at once
+            double[] many = engine.etaMinutesToTarget(lats, lngs, lats[target], lngs[target]);
+            for (int source = 0; source < nodes; source++) {
+                double oneToOne = engine.etaMinutes(lats[source], lngs[source], lats[target], lngs[target]);
+                double want = expected[source] < 0 ? FALLBACK : expected[source] / 60_000.0;
+                assertEquals(want, oneToOne, 1e-9, source + " -> " + target);
+                assertEquals(want, many[source], 1e-9, source + " -> " + target + ", many-to-one");
+            }
+        }
+    }
+
+    @Test
+    void pointsOffTheNetworkFallBack() throws IOException {
+        RoadGraphBuilder builder = new RoadGraphBuilder();
+        builder.addNode(1, -1.2921, 36.8219);
+        builder.addNode(2, -1.3000, 36.8219);
+        builder.addEdge(1, 2, 1000, 60);
+        Path file = dir.resolve("tiny.graph");
+        builder.write(file);
+        RoadGraphEtaEngine engine = new RoadGraphEtaEngine(RoadGraph.load(file), (a, b, c, d) -> FALLBACK, 0.2,
+                20, 2);
+
+        // One minute of road plus about 0.1 km on foot at 20 km/h at the start
+        double access = GeoUtils.haversineKm(-1.2912, 36.8219, -1.2921, 36.8219) / 20 * 60;
+        assertEquals(1 + access, engine.etaMinutes(-1.2912, 36.8219, -1.3000, 36.8219), 1e-6);
+        assertEquals(FALLBACK, engine.etaMinutes(-1.2921, 36.9000, -1.3000, 36.8219));
+        // The road is one-way
+        assertEquals(FALLBACK, engine.etaMinutes(-1.3000, 36.8219, -1.2921, 36.8219));
+        assertEquals(FALLBACK, engine.etaMinutesToTarget(new double[]{-1.3000}, new double[]{36.8219},
+                -1.2921, 36.8219)[0]);
+    }
+
+    @Test
+    void concurrentSearchesShareABoundedPool() throws Exception {
+        RoadGraphBuilder builder = new RoadGraphBuilder();
+        for (int n = 0; n < SIDE; n++) {
+            builder.addNode(n, -1.30, 36.80 + n * SPACING_DEG);
+            if (n > 0) {
+                builder.addEdge(n - 1, n, 600, 36);
+                builder.addEdge(n, n - 1, 600, 36);
+            }
+        }
+        Path file = dir.resolve("line.graph");
+        builder.write(file);
+        RoadGraphEtaEngine engine = new RoadGraphEtaEngine(RoadGraph.load(file), (a, b, c, d) -> FALLBACK, 0.2,
+                20, 3);
+
+        // Many more callers than permits; each still gets the full answer: one minute per block
+        List<Future<Double>> answers = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 200; i++) {
+                answers.add(callers.submit(() -> engine.etaMinutes(-1.30, 36.80, -1.30,
+                        36.80 + (SIDE - 1) * SPACING_DEG)));
+            }
+        }
+        for (Future<Double> answer : answers) assertEquals(SIDE - 1, answer.get(), 1e-6);
+        assertTrue(engine.searchStates() <= 3, engine.searchStates() + " search states");
+    }
+
+    // A road between two grid nodes at least as long as the straight line, so the A* bound holds;
+    // one in five is one-way
+    private static void road(RoadGraphBuilder builder, int[][] timeMs, Random random, int a, int b) {
+        double km = SPACING_DEG * GeoUtils.KM_PER_DEGREE;
+        double meters = km * 1000 * (1.05 + random.nextDouble());
+        double speed = 20 + random.nextInt(60);
+        int ms = (int) Math.max(1, Math.round(meters / (speed / 3.6) * 1000.0));
+        boolean oneWay = random.nextInt(5) == 0;
+        boolean forward = random.nextBoolean();
+        if (!oneWay || forward) {
+            builder.addEdge(a, b, meters, speed);
+            timeMs[a][b] = ms;
+        }
+        if (!oneWay || !forward) {
+            builder.addEdge(b, a, meters, speed);
+            timeMs[b][a] = ms;
+        }
+    }
+
+    // Plain Dijkstra over the reversed adjacency matrix; -1 for sources that cannot reach the target
+    private static long[] dijkstraTo(int[][] timeMs, int target) {
+        int n = timeMs.length;
+        long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        dist[target] = 0;
+        PriorityQueue<long[]> queue = new PriorityQueue<>((x, y) -> Long.compare(x[0], y[0]));
+        queue.add(new long[]{0, target});
+        while (!queue.isEmpty()) {
+            long[] top = queue.poll();
+            int node = (int) top[1];
+            if (top[0] > dist[node]) continue;
+            for (int prev = 0; prev < n; prev++) {
+                if (timeMs[prev][node] < 0) continue;
+                long d = dist[node] + timeMs[prev][node];
+                if (d < dist[prev]) {
+                    dist[prev] = d;
+                    queue.add(new long[]{d, prev});
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) if (dist[i] == Long.MAX_VALUE) dist[i] = -1;
+        return dist;
+    }
+}